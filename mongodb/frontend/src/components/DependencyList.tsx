@@ -36,6 +36,11 @@ const DependencyList: React.FC<DependencyListProps> = ({ dependencies, title })
               <span className="text-gray-700 truncate flex-1" title={dep.target}>
                 {dep.target}
               </span>
+              {dep.references !== undefined && dep.references > 1 && (
+                <span className="text-xs text-gray-500" title="Number of references">
+                  ×{dep.references}
+                </span>
+              )}
               <Badge 
                 text={dep.type === 'IMPORT' ? 'Import' : 'Reference'} 
                 type={dep.type === 'IMPORT' ? 'framework' : 'test'} 
@@ -23,6 +23,7 @@ export interface Method {
 export interface Dependency {
   target: string;
   type: 'IMPORT' | 'REFERENCE';
+  references?: number;
 }
 
 export interface UnusedCode {
@@ -37,6 +38,8 @@ export interface UnusedCode {
     methodName: string;
     reason: string;
   }[];
+  unreachableClasses?: string[];
+  unreachableMethods?: string[];
 }
 
 export interface ImpactAnalysis {
@@ -2,28 +2,95 @@ package com.bowen;
 
 import com.bowen.analyzer.exporter.ExportTool;
 import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.service.AnalysisOptions;
 import com.bowen.analyzer.service.AnalysisService;
+import com.bowen.analyzer.service.ImpactSearch;
+import com.bowen.analyzer.service.ProjectWatcher;
+import com.bowen.analyzer.service.ShardCoordinator;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Main entry point for the Java code analyzer that combines
  * analysis and JSON export in a single execution.
+ *
+ * <p>Usage: {@code Main [projectPath] [outputDir] [options]}, where options are
+ * {@code --threads=N}, {@code --read-threads=N}, {@code --queue-capacity=N},
+ * {@code --cache-dir=DIR}, {@code --jar-index-dir=DIR}, {@code --fast}, {@code --compact},
+ * {@code --store-dir=DIR}, {@code --save-snapshot=FILE}, {@code --load-snapshot=FILE},
+ * {@code --mapped}, {@code --impact=NAME}, {@code --impact-hops=N}, {@code --impact-limit=N},
+ * {@code --shards=N}, {@code --shard-dir=DIR}, {@code --shard-heap=SIZE}, {@code --merge=FILE,...}
+ * and {@code --watch}.
+ *
+ * <p>With {@code --fast} Java files are analyzed without the symbol solver. References are
+ * then inferred from imports and declarations and exported as {@code HEURISTIC_REFERENCE}.
+ *
+ * <p>With {@code --compact} the class graph is held in compressed sparse row form once the
+ * analysis is done, instead of as a JGraphT graph.
+ *
+ * <p>With {@code --store-dir} the results of the analysis are stored in a file of that
+ * directory mapped into memory, and the graph and the facts of the parsed files are released,
+ * so that the report and the export of a large project need little heap. Updates with
+ * {@code --watch} then parse the whole project again, unchanged files coming from the
+ * {@code --cache-dir} cache if one is set.
+ *
+ * <p>With {@code --save-snapshot} the results of the analysis are also written to a binary
+ * snapshot file. {@code --load-snapshot} restores them from such a file instead of analyzing
+ * the project, mapping it into memory with {@code --mapped}, so that reports, exports and
+ * impact queries need no parsing. {@code --impact} prints the classes or methods affected
+ * by a change to a class or a method given as {@code className.methodName}, instead of
+ * printing the report and exporting. {@code --impact-hops} and {@code --impact-limit} bound
+ * that search by distance and by the number of results, keeping queries on large graphs fast.
+ *
+ * <p>With {@code --shards=N} the Java files are analyzed by N separate processes, each
+ * writing a partial graph to the shard directory, and the partials are merged before the
+ * export. A process started with {@code --shard=I/N --partial-out=FILE} analyzes shard I only
+ * and writes its partial graph without exporting; {@code --merge} exports the graph merged
+ * from partial graphs written that way.
+ *
+ * <p>With {@code --watch} the analyzer keeps running after the export and updates it
+ * whenever sources or XHTML files of the project change. Only changed files, and Java files
+ * depending on them, are parsed again and their facts swapped in the graph, but the snapshot
+ * and the export still cover the whole graph, so each update takes time proportional to it.
  */
 public class Main {
 
     public static void main(String[] args) throws Exception {
         // Parse common arguments
-        String projectPath = args.length > 0 ? args[0] : "kitchensink";
-        String outputDir = args.length > 1 ? args[1] : "frontend/public/data";
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        parseArguments(args, positional, options);
 
-        File projectRoot = new File(projectPath);
-        File outputDirectory = new File(outputDir);
+        String projectPath = positional.size() > 0 ? positional.get(0) : "kitchensink";
+        String outputDir = positional.size() > 1 ? positional.get(1) : "frontend/public/data";
 
-        if (!outputDirectory.exists()) {
-            outputDirectory.mkdirs();
+        AnalysisOptions analysisOptions = new AnalysisOptions()
+                .setThreads(Integer.parseInt(options.getOrDefault("threads", "1")))
+                .setReadThreads(Integer.parseInt(options.getOrDefault("read-threads", "1")))
+                .setQueueCapacity(Integer.parseInt(options.getOrDefault("queue-capacity", "64")));
+        if (options.containsKey("fast")) {
+            analysisOptions.setSyntaxOnly(true);
+        }
+        if (options.containsKey("compact")) {
+            analysisOptions.setCompactGraph(true);
+        }
+        if (options.containsKey("cache-dir")) {
+            analysisOptions.setCacheDir(new File(options.get("cache-dir")));
+        }
+        if (options.containsKey("jar-index-dir")) {
+            analysisOptions.setJarIndexDir(new File(options.get("jar-index-dir")));
         }
+        if (options.containsKey("store-dir")) {
+            analysisOptions.setStoreDir(new File(options.get("store-dir")));
+        }
+
+        File projectRoot = new File(projectPath);
+        File outputDirectory = new File(outputDir);
 
         // Define source code root directories
         List<File> sourceRoots = List.of(
@@ -32,10 +99,63 @@ public class Main {
         );
 
         System.out.println("Analyzing project: " + projectRoot.getAbsolutePath());
+        AnalysisService analysisService = new AnalysisService(projectRoot, sourceRoots, analysisOptions);
+
+        if (options.containsKey("shard")) {
+            // Worker of a sharded analysis: write the shard's facts and stop
+            String[] shard = options.get("shard").split("/");
+            if (shard.length != 2 || !options.containsKey("partial-out")) {
+                throw new IllegalArgumentException("Usage: --shard=I/N --partial-out=FILE, got --shard="
+                        + options.get("shard") + (options.containsKey("partial-out") ? "" : " without --partial-out"));
+            }
+            analysisService.analyzeShard(Integer.parseInt(shard[0]), Integer.parseInt(shard[1]),
+                    new File(options.get("partial-out")));
+            return;
+        }
+
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
 
         // Step 1: Run the analysis
-        AnalysisService analysisService = new AnalysisService(projectRoot, sourceRoots);
-        DependencyGraph graph = analysisService.analyzeProject();
+        DependencyGraph graph;
+        if (options.containsKey("load-snapshot")) {
+            analysisService.loadSnapshot(new File(options.get("load-snapshot")), options.containsKey("mapped"));
+            graph = analysisService.getGraph();
+        } else if (options.containsKey("shards")) {
+            boolean keepShards = options.containsKey("shard-dir");
+            File shardDir = keepShards
+                    ? new File(options.get("shard-dir"))
+                    : Files.createTempDirectory("analyzer-shards").toFile();
+            ShardCoordinator coordinator = new ShardCoordinator(projectRoot, analysisOptions,
+                    Integer.parseInt(options.get("shards")), shardDir, Main.class.getName());
+            coordinator.setWorkerHeap(options.get("shard-heap"));
+            graph = analysisService.mergeShards(coordinator.run());
+            if (!keepShards) {
+                for (File file : shardDir.listFiles()) {
+                    file.delete();
+                }
+                shardDir.delete();
+            }
+        } else if (options.containsKey("merge")) {
+            List<File> partialFiles = new ArrayList<>();
+            for (String file : options.get("merge").split(",")) {
+                partialFiles.add(new File(file));
+            }
+            graph = analysisService.mergeShards(partialFiles);
+        } else {
+            graph = analysisService.analyzeProject();
+        }
+        if (options.containsKey("save-snapshot")) {
+            analysisService.saveSnapshot(new File(options.get("save-snapshot")));
+        }
+
+        if (options.containsKey("impact")) {
+            analysisService.printImpact(options.get("impact"),
+                    Integer.parseInt(options.getOrDefault("impact-hops", String.valueOf(ImpactSearch.UNLIMITED))),
+                    Integer.parseInt(options.getOrDefault("impact-limit", String.valueOf(ImpactSearch.UNLIMITED))));
+            return;
+        }
 
         // Print analysis report
         System.out.println("\n======= Analysis Report =======");
@@ -48,5 +168,31 @@ public class Main {
         ExportTool.exportDataForFrontend(graph, analysisService, outputDirectory);
 
         System.out.println("Export complete. JSON data available at: " + new File(outputDirectory, "code-data.json").getAbsolutePath());
+
+        if (options.containsKey("watch")) {
+            List<File> watchedDirectories = new ArrayList<>(sourceRoots);
+            watchedDirectories.add(new File(projectRoot, "src/main/webapp"));
+            new ProjectWatcher(analysisService, watchedDirectories,
+                    updated -> ExportTool.exportDataForFrontend(updated, analysisService, outputDirectory)).run();
+        }
+    }
+
+    /**
+     * Splits arguments into positional values and {@code --name=value} options.
+     * A bare {@code --name} is recorded with the value {@code "true"}.
+     */
+    private static void parseArguments(String[] args, List<String> positional, Map<String, String> options) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                if (eq > 0) {
+                    options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                } else {
+                    options.put(arg.substring(2), "true");
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,250 @@
+package com.bowen.analyzer.cache;
+
+import com.bowen.analyzer.model.FileFacts;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of per-file analysis facts.
+ *
+ * <p>Entries are keyed by a SHA-256 hash of the analyzer version, a fingerprint of the
+ * dependency JARs, the file's path relative to the project root and the file content,
+ * so an entry can only be replayed for a byte-identical file analyzed by the same
+ * analyzer version against the same dependencies.
+ * A manifest per project records which key each file had on the previous run;
+ * it is used to find files whose declarations changed since then.
+ */
+public class FactCache {
+
+    /**
+     * Version of the analysis logic. Bump whenever the facts produced for a file change,
+     * so that entries written by older analyzers are no longer used.
+     */
+    public static final int ANALYZER_VERSION = 5;
+
+    private static final int MAGIC = 0x46414354; // "FACT"
+
+    private final File cacheDir;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Creates a cache stored in the given directory, which is created if needed.
+     *
+     * @param cacheDir Directory holding cache entries and manifests
+     */
+    public FactCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+        cacheDir.mkdirs();
+    }
+
+    /**
+     * Computes the cache key for a file analyzed without dependency JARs.
+     *
+     * @param relativePath The file path relative to the project root
+     * @param content The file content
+     * @return A hex-encoded key
+     */
+    public String computeKey(String relativePath, byte[] content) {
+        return computeKey("", relativePath, content);
+    }
+
+    /**
+     * Computes the cache key for a file.
+     *
+     * @param dependencies Fingerprint of everything the analysis resolves names against,
+     *                     see {@link #fingerprintOf(List)}
+     * @param relativePath The file path relative to the project root
+     * @param content The file content
+     * @return A hex-encoded key
+     */
+    public String computeKey(String dependencies, String relativePath, byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(("v" + ANALYZER_VERSION + "\n" + dependencies + "\n" + relativePath + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        digest.update(content);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes a fingerprint of dependency JARs from their names, sizes and modification
+     * times, so that entries are not reused once a JAR is added, removed or replaced.
+     *
+     * @param jars The dependency JARs, in resolution order
+     * @return A hex-encoded fingerprint
+     */
+    public static String fingerprintOf(List<File> jars) {
+        MessageDigest digest = sha256();
+        for (File jar : jars) {
+            digest.update((jar.getName() + "\t" + jar.length() + "\t" + jar.lastModified() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Loads the facts stored under a key, counting a hit or a miss.
+     *
+     * @param key The cache key
+     * @return The cached facts, or null if there is no usable entry
+     */
+    public FileFacts load(String key) {
+        FileFacts facts = read(key);
+        if (facts == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return facts;
+    }
+
+    /**
+     * Counts lookups whose outcome was decided by the caller, such as entries read
+     * with {@link #peek(String)} and then used, or found stale and analyzed again.
+     *
+     * @param hitCount Number of lookups whose cached facts were used
+     * @param missCount Number of lookups that had to analyze the file
+     */
+    public void recordLookups(int hitCount, int missCount) {
+        hits.addAndGet(hitCount);
+        misses.addAndGet(missCount);
+    }
+
+    /**
+     * Loads the facts stored under a key without affecting the hit/miss counters.
+     *
+     * @param key The cache key
+     * @return The cached facts, or null if there is no usable entry
+     */
+    public FileFacts peek(String key) {
+        return read(key);
+    }
+
+    /**
+     * Stores facts under a key. Failures are reported and otherwise ignored,
+     * since the cache is only an optimization.
+     *
+     * @param key The cache key
+     * @param facts The facts to store
+     */
+    public void store(String key, FileFacts facts) {
+        File entry = entryFile(key);
+        entry.getParentFile().mkdirs();
+        try {
+            File tmp = File.createTempFile(key, ".tmp", entry.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(ANALYZER_VERSION);
+                facts.writeTo(out);
+            }
+            Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Failed to write analysis cache entry: " + entry + " Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the manifest written by the previous run on a project.
+     *
+     * @param projectRoot The root directory of the project
+     * @return Map of relative file path to cache key; empty if there is no manifest
+     */
+    public Map<String, String> loadManifest(File projectRoot) {
+        Map<String, String> manifest = new HashMap<>();
+        File file = manifestFile(projectRoot);
+        if (!file.isFile()) {
+            return manifest;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    manifest.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to read analysis cache manifest: " + file + " Error: " + e.getMessage());
+            manifest.clear();
+        }
+        return manifest;
+    }
+
+    /**
+     * Saves the manifest for a project.
+     *
+     * @param projectRoot The root directory of the project
+     * @param manifest Map of relative file path to cache key
+     */
+    public void saveManifest(File projectRoot, Map<String, String> manifest) {
+        File file = manifestFile(projectRoot);
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : manifest.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to write analysis cache manifest: " + file + " Error: " + e.getMessage());
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private FileFacts read(String key) {
+        File entry = entryFile(key);
+        if (!entry.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != ANALYZER_VERSION) {
+                return null;
+            }
+            return FileFacts.readFrom(in);
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable analysis cache entry: " + entry + " Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private File entryFile(String key) {
+        return new File(new File(cacheDir, key.substring(0, 2)), key + ".facts");
+    }
+
+    private File manifestFile(File projectRoot) {
+        String projectKey = toHex(sha256().digest(
+                projectRoot.getAbsolutePath().getBytes(StandardCharsets.UTF_8)));
+        return new File(cacheDir, "manifest-" + projectKey.substring(0, 16) + ".txt");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,358 @@
+package com.bowen.analyzer.cache;
+
+import javassist.ClassPath;
+import javassist.NotFoundException;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Index of the classes contained in a list of dependency JARs.
+ *
+ * <p>The class list of every JAR is stored on disk under the SHA-256 checksum of the JAR,
+ * so it is computed once per distinct JAR and shared by every project using the same JAR.
+ * A stamp file records the checksum of each JAR path together with its size and
+ * modification time, which avoids re-reading unchanged JARs on later runs.
+ *
+ * <p>JARs are only opened when a class in them is read, and stay open until the index is
+ * closed. The index itself is immutable once loaded and can be shared by all parsing threads.
+ */
+public class JarIndex implements Closeable {
+
+    private static final int MAGIC = 0x4A494458; // "JIDX"
+    private static final int FORMAT_VERSION = 1;
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String STAMPS_FILE = "stamps.txt";
+
+    private final List<File> jars;
+    // Class pool name (nested classes separated by '$') -> index of the first JAR containing it
+    private final Map<String, Integer> jarByPoolName = new HashMap<>();
+    // Canonical type name (nested classes separated by '.') -> class pool name
+    private final Map<String, String> poolNameByTypeName = new HashMap<>();
+    private final JarFile[] openJars;
+
+    private int indexedJars;
+    private int loadedJars;
+
+    private JarIndex(List<File> jars) {
+        this.jars = List.copyOf(jars);
+        this.openJars = new JarFile[jars.size()];
+    }
+
+    /**
+     * Loads the index for the given JARs, indexing JARs that are not yet in the index directory.
+     * Earlier JARs take precedence over later ones for classes present in several JARs.
+     *
+     * @param jars The dependency JARs, in resolution order
+     * @param indexDir Directory holding the persistent index, or null to index in memory only
+     * @return The index
+     */
+    public static JarIndex load(List<File> jars, File indexDir) {
+        JarIndex index = new JarIndex(jars);
+        Map<String, String> stamps = indexDir == null ? new HashMap<>() : readStamps(indexDir);
+        boolean stampsChanged = false;
+
+        for (int i = 0; i < jars.size(); i++) {
+            File jar = jars.get(i);
+            try {
+                List<String> entries = null;
+                if (indexDir != null) {
+                    String stamp = stampOf(jar);
+                    String checksum = stamps.get(stamp);
+                    if (checksum == null) {
+                        checksum = checksum(jar);
+                        stamps.put(stamp, checksum);
+                        stampsChanged = true;
+                    }
+                    File indexFile = new File(indexDir, checksum + ".idx");
+                    entries = readEntries(indexFile);
+                    if (entries == null) {
+                        entries = scanEntries(jar);
+                        writeEntries(indexFile, entries);
+                        index.indexedJars++;
+                    } else {
+                        index.loadedJars++;
+                    }
+                } else {
+                    entries = scanEntries(jar);
+                    index.indexedJars++;
+                }
+                index.register(i, entries);
+            } catch (IOException e) {
+                System.out.println("Failed to index JAR: " + jar.getName() + " Error: " + e.getMessage());
+            }
+        }
+
+        if (stampsChanged) {
+            writeStamps(indexDir, stamps);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the class pool name of a type, or null if no JAR contains it.
+     *
+     * @param typeName The canonical name of the type, with nested types separated by '.'
+     */
+    public String findClass(String typeName) {
+        return poolNameByTypeName.get(typeName);
+    }
+
+    /**
+     * Returns the indexed JARs, in resolution order.
+     */
+    public List<File> getJars() {
+        return jars;
+    }
+
+    /**
+     * Returns the number of classes in the index.
+     */
+    public int size() {
+        return jarByPoolName.size();
+    }
+
+    /**
+     * Returns the number of JARs whose class list was read from the persistent index.
+     */
+    public int getLoadedJars() {
+        return loadedJars;
+    }
+
+    /**
+     * Returns the number of JARs that had to be scanned on this run.
+     */
+    public int getIndexedJars() {
+        return indexedJars;
+    }
+
+    /**
+     * Returns a Javassist class path reading class files through this index.
+     */
+    public ClassPath asClassPath() {
+        return new IndexClassPath();
+    }
+
+    private void register(int jarIndex, List<String> entries) {
+        for (String entry : entries) {
+            String poolName = entry.replace('/', '.');
+            if (jarByPoolName.putIfAbsent(poolName, jarIndex) == null) {
+                poolNameByTypeName.putIfAbsent(poolName.replace('$', '.'), poolName);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of JARs currently open for reading classes.
+     */
+    synchronized int getOpenJarCount() {
+        int count = 0;
+        for (JarFile jar : openJars) {
+            if (jar != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Closes the JARs opened to read classes. The index remains usable: a JAR is
+     * opened again when another class is read from it.
+     *
+     * @throws IOException If a JAR cannot be closed; the others are closed anyway
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < openJars.length; i++) {
+            if (openJars[i] != null) {
+                try {
+                    openJars[i].close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                openJars[i] = null;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized JarFile openJar(int jarIndex) throws IOException {
+        if (openJars[jarIndex] == null) {
+            openJars[jarIndex] = new JarFile(jars.get(jarIndex));
+        }
+        return openJars[jarIndex];
+    }
+
+    /**
+     * Javassist class path resolving class pool names through the index.
+     */
+    private class IndexClassPath implements ClassPath {
+
+        @Override
+        public InputStream openClassfile(String classname) throws NotFoundException {
+            Integer jarIndex = jarByPoolName.get(classname);
+            if (jarIndex == null) {
+                return null;
+            }
+            try {
+                JarFile jarFile = openJar(jarIndex);
+                JarEntry entry = jarFile.getJarEntry(classname.replace('.', '/') + CLASS_EXTENSION);
+                if (entry == null) {
+                    throw new NotFoundException(classname + " is missing from " + jars.get(jarIndex));
+                }
+                // Read fully so the stream does not hold on to the shared JAR
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    return new ByteArrayInputStream(in.readAllBytes());
+                }
+            } catch (IOException e) {
+                throw new NotFoundException("Cannot read " + classname + " from " + jars.get(jarIndex), e);
+            }
+        }
+
+        @Override
+        public URL find(String classname) {
+            Integer jarIndex = jarByPoolName.get(classname);
+            if (jarIndex == null) {
+                return null;
+            }
+            try {
+                return new URL("jar:" + jars.get(jarIndex).toURI() + "!/"
+                        + classname.replace('.', '/') + CLASS_EXTENSION);
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Lists the class files of a JAR as entry names without the extension.
+     */
+    private static List<String> scanEntries(File jar) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> e = jarFile.entries();
+            while (e.hasMoreElements()) {
+                JarEntry entry = e.nextElement();
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.endsWith(CLASS_EXTENSION)) {
+                    entries.add(name.substring(0, name.length() - CLASS_EXTENSION.length()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static List<String> readEntries(File indexFile) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            List<String> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(in.readUTF());
+            }
+            return entries;
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable JAR index: " + indexFile + " Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeEntries(File indexFile, List<String> entries) {
+        indexFile.getParentFile().mkdirs();
+        try {
+            File tmp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (String entry : entries) {
+                    out.writeUTF(entry);
+                }
+            }
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Failed to write JAR index: " + indexFile + " Error: " + e.getMessage());
+        }
+    }
+
+    private static String stampOf(File jar) {
+        return jar.getAbsolutePath() + "\t" + jar.length() + "\t" + jar.lastModified();
+    }
+
+    private static Map<String, String> readStamps(File indexDir) {
+        Map<String, String> stamps = new HashMap<>();
+        File file = new File(indexDir, STAMPS_FILE);
+        if (!file.isFile()) {
+            return stamps;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    stamps.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to read JAR index stamps: " + file + " Error: " + e.getMessage());
+            stamps.clear();
+        }
+        return stamps;
+    }
+
+    private static void writeStamps(File indexDir, Map<String, String> stamps) {
+        indexDir.mkdirs();
+        File file = new File(indexDir, STAMPS_FILE);
+        try {
+            File tmp = File.createTempFile(STAMPS_FILE, ".tmp", indexDir);
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : new TreeMap<>(stamps).entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Failed to write JAR index stamps: " + file + " Error: " + e.getMessage());
+        }
+    }
+
+    private static String checksum(File jar) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(jar)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,7 +1,10 @@
 package com.bowen.analyzer.exporter;
 
 import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSnapshot;
 import com.bowen.analyzer.model.MethodUsage;
+import com.bowen.analyzer.model.MethodUsageView;
+import com.bowen.analyzer.model.enums.MethodUsageType;
 import com.bowen.analyzer.service.AnalysisService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -16,11 +19,13 @@ import java.util.*;
 public class ExportTool {
 
     /**
-     * Exports the data structure needed by the frontend
+     * Exports the data structure needed by the frontend.
+     * The graph is read from the snapshot of the service, which may be mapped from a file.
      */
     public static void exportDataForFrontend(DependencyGraph graph,
                                              AnalysisService analysisService,
                                              File outputDirectory) throws Exception {
+        GraphSnapshot snapshot = analysisService.getSnapshot();
 
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode rootNode = mapper.createObjectNode();
@@ -40,7 +45,7 @@ public class ExportTool {
         /* ---------------------------------- */
 
         Map<String, ObjectNode> classNodesMap = new HashMap<>();
-        Set<String> allClasses = graph.getAllClasses();
+        Set<String> allClasses = snapshot.getAllClasses();
 
         for (String className : allClasses) {
             ObjectNode classNode = classesArray.addObject();
@@ -56,7 +61,7 @@ public class ExportTool {
 
             boolean isUsedByFramework = analysisService.isClassUsedByFramework(className);
             boolean isUsedByTest = analysisService.isClassUsedByTest(className);
-            boolean hasIncomingEdges = !graph.getGraph().incomingEdgesOf(className).isEmpty();
+            boolean hasIncomingEdges = snapshot.hasDependents(className);
             boolean unused = !isUsedByFramework && !isUsedByTest && !hasIncomingEdges;
 
             classNode.put("unused",    unused);
@@ -81,10 +86,11 @@ public class ExportTool {
             ArrayNode  unusedImports = (ArrayNode) classNode.get("unusedImports");
             
             Map<String, String> dependencies = analysisService.getClassDependencies(className);
+            Map<String, Integer> referenceCounts = snapshot.getReferenceCounts(className);
             
             // Get used and unused imports
-            Set<String> usedImportsList = graph.getUsedImports(className);
-            Set<String> unusedImportsList = graph.getUnusedImports(className);
+            Set<String> usedImportsList = snapshot.getUsedImports(className);
+            Set<String> unusedImportsList = snapshot.getUnusedImports(className);
             
             // Add used imports
             for (String importName : usedImportsList) {
@@ -111,6 +117,7 @@ public class ExportTool {
                 ObjectNode depNode = dependsOn.addObject();
                 depNode.put("target", targetClass);
                 depNode.put("type", dependencyType);
+                depNode.put("references", referenceCounts.getOrDefault(targetClass, 0));
             }
         }
 
@@ -120,6 +127,7 @@ public class ExportTool {
 
         Map<String, ObjectNode> methodMapByFullName = new HashMap<>();
         List<MethodUsage> allMethodUsages = analysisService.getAllMethodUsages();
+        MethodUsageView usageView = analysisService.getMethodUsageView();
 
         for (MethodUsage usage : allMethodUsages) {
             String className      = usage.getClassName();
@@ -131,10 +139,11 @@ public class ExportTool {
             methodNode.put("name",           methodName);
             methodNode.put("fullName",       fullMethodName);
             
-            Map<String, Boolean> usageTypes = analysisService.getMethodUsageTypes().get(fullMethodName);
-            boolean called = usageTypes.get("CALLED");
-            boolean framework = usageTypes.get("FRAMEWORK");
-            boolean test = usageTypes.get("TEST");
+            int method = usageView.findMethod(fullMethodName);
+            int usageMask = method != GraphSnapshot.NOT_FOUND ? usageView.getUsageMask(method) : 0;
+            boolean called = (usageMask & MethodUsageView.mask(MethodUsageType.CALLED)) != 0;
+            boolean framework = (usageMask & MethodUsageView.mask(MethodUsageType.FRAMEWORK)) != 0;
+            boolean test = (usageMask & MethodUsageView.mask(MethodUsageType.TEST)) != 0;
             boolean unused = !called && !framework && !test;
             
             methodNode.put("called", called);
@@ -221,8 +230,7 @@ public class ExportTool {
 
         // Unused methods
         Set<String> unusedMethodSet = analysisService.getUnusedMethods();
-        Map<String, Map<String, Boolean>> methodUsageTypes = analysisService.getMethodUsageTypes();
-        
+
         for (String methodFullName : unusedMethodSet) {
             int lastDot = methodFullName.lastIndexOf('.');
             String className = methodFullName.substring(0, lastDot);
@@ -233,26 +241,31 @@ public class ExportTool {
             um.put("className", className);
             um.put("methodName", methodName);
             
-            Map<String, Boolean> usageTypes = methodUsageTypes.get(methodFullName);
-            if (usageTypes != null && usageTypes.get("TEST")) {
+            if (usageView.hasUsage(methodFullName, MethodUsageType.TEST)) {
                 um.put("reason", "only used in Test");
             } else {
                 um.put("reason", "No other classes depends on this class");
             }
         }
 
+        // Classes and methods no entry point reaches, including groups only used by each other
+        ArrayNode unreachableClasses = unusedCodeNode.putArray("unreachableClasses");
+        new TreeSet<>(analysisService.getUnreachableClasses()).forEach(unreachableClasses::add);
+        ArrayNode unreachableMethods = unusedCodeNode.putArray("unreachableMethods");
+        new TreeSet<>(analysisService.getUnreachableMethods()).forEach(unreachableMethods::add);
+
         /* ---------------------------------- */
         /*  5.  Impact analysis               */
         /* ---------------------------------- */
 
         ArrayNode impactArray = rootNode.putArray("impactAnalysis");
         
-        // Class impact analysis
-        for (String className : allClasses) {
-            Map<String, List<String>> impactMap = analysisService.determineImpactRadius(className);
-            if (impactMap.isEmpty()) continue;
-
-            ObjectNode impactNode = impactArray.addObject();
+        // Class impact analysis, computed for all classes at once and listed in name order
+        GraphSnapshot graphSnapshot = snapshot;
+        ObjectNode[] classImpacts = new ObjectNode[graphSnapshot.getClassCount()];
+        analysisService.determineAllImpactRadii((className, impact) -> {
+            ObjectNode impactNode = mapper.createObjectNode();
+            classImpacts[graphSnapshot.findClass(className)] = impactNode;
             impactNode.put("class", className);
             impactNode.put("type", "class");
 
@@ -261,19 +274,18 @@ public class ExportTool {
             Set<String> directSet = new HashSet<>();
 
             // Get directly affected classes (immediate dependents)
-            for (var edge : graph.getGraph().incomingEdgesOf(className)) {
-                String dep = graph.getGraph().getEdgeSource(edge);
+            for (String dep : graphSnapshot.getDependents(className)) {
                 directSet.add(dep);
                 directArr.add(dep);
             }
 
             // Get indirectly affected classes (transitive dependents)
             ArrayNode indirectArr = ir.putArray("indirectlyAffected");
-            for (String k : impactMap.keySet()) {
+            for (String k : impact) {
                 if (!directSet.contains(k)) indirectArr.add(k);
             }
 
-            int total = impactMap.size();
+            int total = impact.size();
             ir.put("totalImpact", total);
 
             String severity = total > 10 ? "HIGH"
@@ -281,6 +293,11 @@ public class ExportTool {
                     : total > 0  ? "LOW"
                     : "NONE";
             ir.put("severityLevel", severity);
+        });
+        for (ObjectNode impactNode : classImpacts) {
+            if (impactNode != null) {
+                impactArray.add(impactNode);
+            }
         }
 
         // Method impact analysis
@@ -289,10 +306,9 @@ public class ExportTool {
             methodNames.add(usage.getClassName() + "." + usage.getMethodName());
         }
 
-        // Analyze impact for methods
-        for (String methodName : methodNames) {
-            Map<String, List<String>> methodImpactMap = analysisService.determineMethodImpactRadius(methodName);
-            if (methodImpactMap.isEmpty()) continue;
+        // Analyze impact for methods, computed for all methods at once
+        analysisService.determineAllMethodImpactRadii((methodName, methodImpact) -> {
+            if (!methodNames.contains(methodName)) return;
 
             ObjectNode impactNode = impactArray.addObject();
             impactNode.put("method", methodName);
@@ -311,11 +327,11 @@ public class ExportTool {
 
             // Get indirect callers (transitive dependents)
             ArrayNode indirectArr = ir.putArray("indirectlyAffected");
-            for (String k : methodImpactMap.keySet()) {
+            for (String k : methodImpact) {
                 if (!directSet.contains(k)) indirectArr.add(k);
             }
 
-            int total = methodImpactMap.size();
+            int total = methodImpact.size();
             ir.put("totalImpact", total);
 
             String severity = total > 15 ? "CRITICAL"
@@ -324,7 +340,7 @@ public class ExportTool {
                     : total > 0  ? "LOW"
                     : "NONE";
             ir.put("severityLevel", severity);
-        }
+        });
 
         /* ---------------------------------- */
         /*  6.  Write to disk                 */
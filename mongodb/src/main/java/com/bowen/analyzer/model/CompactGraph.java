@@ -0,0 +1,195 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.EdgeLabel;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import java.util.*;
+
+/**
+ * Immutable class graph in compressed sparse row form, keyed by the class IDs of a
+ * {@link SymbolTable}.
+ *
+ * <p>The outgoing edges of class {@code v} are the entries {@code outStart(v)} to
+ * {@code outEnd(v) - 1} of the target and label arrays, and likewise for incoming edges.
+ * Labels are stored as one byte per edge holding the ordinal of their {@link EdgeLabel}.
+ * Compared to a JGraphT graph, this needs no object per edge or per vertex, which makes
+ * it suitable for holding the graph of a large project once parsing is finished.
+ */
+public class CompactGraph {
+
+    private final int[] vertices;         // vertex IDs in insertion order
+    private final BitSet vertexSet;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final byte[] outLabels;
+    private final int[] outCounts;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final byte[] inLabels;
+
+    private CompactGraph(int[] vertices, int[] outOffsets, int[] outTargets, byte[] outLabels, int[] outCounts,
+                         int[] inOffsets, int[] inSources, byte[] inLabels) {
+        this.vertices = vertices;
+        this.vertexSet = new BitSet(outOffsets.length - 1);
+        for (int vertex : vertices) {
+            vertexSet.set(vertex);
+        }
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outLabels = outLabels;
+        this.outCounts = outCounts;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inLabels = inLabels;
+    }
+
+    /**
+     * Builds the compact form of a graph whose vertices are all interned in a symbol table.
+     * Vertices and the edges of each vertex keep their order.
+     */
+    public static CompactGraph build(DefaultDirectedGraph<String, LabeledEdge> graph, SymbolTable symbols) {
+        int idCount = symbols.getClassCount();
+        int[] vertices = new int[graph.vertexSet().size()];
+        int index = 0;
+        for (String vertex : graph.vertexSet()) {
+            vertices[index++] = symbols.findClass(vertex);
+        }
+
+        Set<LabeledEdge> edges = graph.edgeSet();
+        int edgeCount = edges.size();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        byte[] labels = new byte[edgeCount];
+        int[] counts = new int[edgeCount];
+        int[] outOffsets = new int[idCount + 1];
+        int[] inOffsets = new int[idCount + 1];
+
+        index = 0;
+        for (LabeledEdge edge : edges) {
+            int source = symbols.findClass(graph.getEdgeSource(edge));
+            int target = symbols.findClass(graph.getEdgeTarget(edge));
+            sources[index] = source;
+            targets[index] = target;
+            labels[index] = (byte) edge.getType().ordinal();
+            counts[index] = edge.getReferenceCount();
+            outOffsets[source + 1]++;
+            inOffsets[target + 1]++;
+            index++;
+        }
+        for (int v = 0; v < idCount; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+            inOffsets[v + 1] += inOffsets[v];
+        }
+
+        // Distribute edges in their original order, which keeps each adjacency list ordered
+        int[] outTargets = new int[edgeCount];
+        byte[] outLabels = new byte[edgeCount];
+        int[] outCounts = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        byte[] inLabels = new byte[edgeCount];
+        int[] outFill = Arrays.copyOf(outOffsets, idCount);
+        int[] inFill = Arrays.copyOf(inOffsets, idCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int out = outFill[sources[e]]++;
+            outTargets[out] = targets[e];
+            outLabels[out] = labels[e];
+            outCounts[out] = counts[e];
+            int in = inFill[targets[e]]++;
+            inSources[in] = sources[e];
+            inLabels[in] = labels[e];
+        }
+
+        return new CompactGraph(vertices, outOffsets, outTargets, outLabels, outCounts, inOffsets, inSources, inLabels);
+    }
+
+    /**
+     * Returns the IDs of the classes in the graph, in insertion order.
+     */
+    public int[] getVertices() {
+        return vertices.clone();
+    }
+
+    public int getVertexCount() {
+        return vertices.length;
+    }
+
+    public int getVertex(int index) {
+        return vertices[index];
+    }
+
+    public boolean containsVertex(int classId) {
+        return classId >= 0 && vertexSet.get(classId);
+    }
+
+    public int getEdgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of a class.
+     */
+    public int outStart(int classId) {
+        return classId < outOffsets.length - 1 ? outOffsets[classId] : 0;
+    }
+
+    /**
+     * Returns the index after the last outgoing edge of a class.
+     */
+    public int outEnd(int classId) {
+        return classId < outOffsets.length - 1 ? outOffsets[classId + 1] : 0;
+    }
+
+    public int getTarget(int outEdge) {
+        return outTargets[outEdge];
+    }
+
+    public EdgeLabel getOutLabel(int outEdge) {
+        return EdgeLabel.fromOrdinal(outLabels[outEdge]);
+    }
+
+    /**
+     * Returns how many times the dependency of an outgoing edge was found.
+     */
+    public int getReferenceCount(int outEdge) {
+        return outCounts[outEdge];
+    }
+
+    /**
+     * Returns the index of the first incoming edge of a class.
+     */
+    public int inStart(int classId) {
+        return classId < inOffsets.length - 1 ? inOffsets[classId] : 0;
+    }
+
+    /**
+     * Returns the index after the last incoming edge of a class.
+     */
+    public int inEnd(int classId) {
+        return classId < inOffsets.length - 1 ? inOffsets[classId + 1] : 0;
+    }
+
+    public int getSource(int inEdge) {
+        return inSources[inEdge];
+    }
+
+    public EdgeLabel getInLabel(int inEdge) {
+        return EdgeLabel.fromOrdinal(inLabels[inEdge]);
+    }
+
+    /**
+     * Rebuilds the JGraphT form of the graph.
+     */
+    public DefaultDirectedGraph<String, LabeledEdge> toJGraphT(SymbolTable symbols) {
+        DefaultDirectedGraph<String, LabeledEdge> graph = new DefaultDirectedGraph<>(LabeledEdge.class);
+        for (int vertex : vertices) {
+            graph.addVertex(symbols.getClassName(vertex));
+        }
+        for (int vertex : vertices) {
+            String source = symbols.getClassName(vertex);
+            for (int e = outStart(vertex); e < outEnd(vertex); e++) {
+                graph.addEdge(source, symbols.getClassName(outTargets[e]), new LabeledEdge(getOutLabel(e), outCounts[e]));
+            }
+        }
+        return graph;
+    }
+}
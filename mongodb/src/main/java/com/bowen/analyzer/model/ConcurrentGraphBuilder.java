@@ -0,0 +1,457 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.EdgeLabel;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Collects facts from many threads at once and turns them into a {@link DependencyGraph}.
+ *
+ * <p>Class and method names are interned to IDs in concurrent maps. All other facts are split
+ * into stripes by the class they are about: the source of a dependency, the declaring class of a
+ * method, the calling class of a call. Each stripe has its own lock and keeps its facts in the
+ * ID-keyed structures the graph uses, so threads only wait for each other while reporting facts
+ * about classes of the same stripe.
+ *
+ * <p>The result is the same as if the facts had been sent to a {@link DependencyGraph} one after
+ * the other, provided the facts about a class come from a single thread in the order they were
+ * found, as they do when each thread analyzes whole files. {@link #build()} adds everything to
+ * the graph in order of class and method names, so the graph does not depend on the IDs the
+ * threads happened to get or on how they were scheduled.
+ */
+public class ConcurrentGraphBuilder implements GraphSink {
+
+    // Number of stripes, well above the number of threads parsing at once
+    private static final int STRIPES = 64;
+
+    private final boolean heuristicReferences;
+    private final EdgeLabel referenceLabel;
+
+    // Class and method name IDs, handed out to whichever thread reports a name first
+    private final Map<String, Integer> classIds = new ConcurrentHashMap<>();
+    private final AtomicInteger classCount = new AtomicInteger();
+    private final Map<String, Integer> methodNameIds = new ConcurrentHashMap<>();
+    private final AtomicInteger methodNameCount = new AtomicInteger();
+
+    // Facts about the classes whose ID modulo STRIPES is the index of the stripe
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Creates a builder for references found by the symbol solver.
+     */
+    public ConcurrentGraphBuilder() {
+        this(false);
+    }
+
+    /**
+     * Creates a builder.
+     *
+     * @param heuristicReferences Whether references are inferred from names without the symbol
+     *                            solver, as for {@link DependencyGraph#DependencyGraph(boolean)}
+     */
+    public ConcurrentGraphBuilder(boolean heuristicReferences) {
+        this.heuristicReferences = heuristicReferences;
+        this.referenceLabel = heuristicReferences ? EdgeLabel.HEURISTIC_REFERENCE : EdgeLabel.REFERENCE;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    @Override
+    public void addClass(String className) {
+        int classId = classId(className);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.declaredClasses.set(index(classId));
+        }
+    }
+
+    @Override
+    public void addDependency(String fromClass, String toClass, String label) {
+        // Skip adding self-dependencies (where a class depends on itself)
+        if (fromClass.equals(toClass)) {
+            return;
+        }
+        EdgeLabel edgeLabel = EdgeLabel.fromName(label);
+        if (edgeLabel == EdgeLabel.REFERENCE) {
+            edgeLabel = referenceLabel;
+        }
+        int fromId = classId(fromClass);
+        int toId = classId(toClass);
+        Stripe stripe = stripeOf(fromId);
+        synchronized (stripe) {
+            stripe.addDependency(LongIntHashMap.pair(fromId, toId), edgeLabel);
+        }
+    }
+
+    @Override
+    public void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod) {
+        int callee = methodId(calleeClass, calleeMethod);
+        int callerClassId = classId(callerClass);
+        int callerNameId = methodNameId(callerMethod);
+        Stripe stripe = stripeOf(callerClassId);
+        synchronized (stripe) {
+            stripe.calls.add(stripe.method(callerClassId, callerNameId), callee);
+        }
+    }
+
+    @Override
+    public void markClassUsedByFramework(String className) {
+        int classId = classId(className);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.usedClassesByFramework.set(index(classId));
+        }
+    }
+
+    @Override
+    public void markMethodUsedByFramework(String className, String methodName) {
+        int classId = classId(className);
+        int nameId = methodNameId(methodName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.usedMethodsByFramework.set(index(stripe.method(classId, nameId)));
+        }
+    }
+
+    @Override
+    public void markClassUsedByTest(String className) {
+        int classId = classId(className);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.usedClassesByTest.set(index(classId));
+        }
+    }
+
+    @Override
+    public void markMethodUsedByTest(String className, String methodName) {
+        int classId = classId(className);
+        int nameId = methodNameId(methodName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.usedMethodsByTest.set(index(stripe.method(classId, nameId)));
+        }
+    }
+
+    @Override
+    public void registerMethod(String className, String methodName) {
+        int classId = classId(className);
+        int nameId = methodNameId(methodName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.registeredMethods.set(index(stripe.method(classId, nameId)));
+        }
+    }
+
+    @Override
+    public void markMethodUsage(String className, String methodName, MethodUsageType usageType) {
+        int classId = classId(className);
+        int nameId = methodNameId(methodName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            int method = index(stripe.method(classId, nameId));
+            stripe.registeredMethods.set(method);
+            stripe.methodUsages[method] |= 1 << usageType.ordinal();
+        }
+    }
+
+    @Override
+    public void markImportAsUsed(String className, String importName) {
+        int classId = classId(className);
+        int importId = classId(importName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.markImportAsUsed(LongIntHashMap.pair(classId, importId), referenceLabel);
+        }
+    }
+
+    @Override
+    public void registerBeanName(String className, String beanName) {
+        int classId = classId(className);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            stripe.beanNames.put(classId, beanName);
+        }
+    }
+
+    /**
+     * Creates the graph of all facts received. Must not run while facts are still being added.
+     */
+    public DependencyGraph build() {
+        String[] classNames = names(classIds, classCount.get());
+        String[] methodNames = names(methodNameIds, methodNameCount.get());
+        int[] classRanks = ranks(classNames);
+
+        // Methods in order of class name, then method name, and the rank of each method ID
+        List<Integer> methods = new ArrayList<>();
+        int methodLimit = 0;
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < stripe.methodCount; i++) {
+                methods.add(i * STRIPES + stripe.index);
+            }
+            methodLimit = Math.max(methodLimit, stripe.methodCount * STRIPES);
+        }
+        methods.sort(Comparator.<Integer>comparingInt(m -> classRanks[methodClass(m)])
+                .thenComparing(m -> methodNames[methodName(m)]));
+        int[] methodRanks = new int[methodLimit];
+        for (int i = 0; i < methods.size(); i++) {
+            methodRanks[methods.get(i)] = i;
+        }
+
+        DependencyGraph graph = new DependencyGraph(heuristicReferences);
+        List<Integer> classes = new ArrayList<>();
+        for (int classId = 0; classId < classNames.length; classId++) {
+            classes.add(classId);
+        }
+        classes.sort(Comparator.comparingInt(c -> classRanks[c]));
+        for (int classId : classes) {
+            if (stripeOf(classId).declaredClasses.get(index(classId))) {
+                graph.addClass(classNames[classId]);
+            }
+        }
+
+        // Imports go first: the stripes strengthened the labels of dependencies found before
+        for (long key : sortedPairs(stripe -> stripe.importKeys, stripe -> stripe.importCount, classRanks)) {
+            graph.markImportAsUsed(classNames[LongIntHashMap.high(key)], classNames[LongIntHashMap.low(key)]);
+        }
+        for (long key : sortedPairs(stripe -> stripe.edgeKeys, stripe -> stripe.edgeCount, classRanks)) {
+            Stripe stripe = stripeOf(LongIntHashMap.high(key));
+            int edge = stripe.edgeIndex.get(key);
+            graph.addDependency(classNames[LongIntHashMap.high(key)], classNames[LongIntHashMap.low(key)],
+                    EdgeLabel.fromOrdinal(stripe.edgeLabels[edge]), stripe.edgeCounts[edge]);
+        }
+
+        List<long[]> calls = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            for (int call = 0; call < stripe.calls.size(); call++) {
+                calls.add(new long[] {stripe.calls.getCaller(call), stripe.calls.getCallee(call),
+                        stripe.calls.getCount(call)});
+            }
+        }
+        calls.sort(Comparator.<long[]>comparingInt(call -> methodRanks[(int) call[0]])
+                .thenComparingInt(call -> methodRanks[(int) call[1]]));
+        for (long[] call : calls) {
+            int caller = (int) call[0];
+            int callee = (int) call[1];
+            graph.addMethodCall(classNames[methodClass(caller)], methodNames[methodName(caller)],
+                    classNames[methodClass(callee)], methodNames[methodName(callee)], (int) call[2]);
+        }
+
+        for (int method : methods) {
+            Stripe stripe = stripes[method % STRIPES];
+            String className = classNames[methodClass(method)];
+            String methodName = methodNames[methodName(method)];
+            if (stripe.registeredMethods.get(index(method))) {
+                graph.registerMethod(className, methodName);
+            }
+            for (MethodUsageType usageType : MethodUsageType.values()) {
+                if ((stripe.methodUsages[index(method)] & (1 << usageType.ordinal())) != 0) {
+                    graph.markMethodUsage(className, methodName, usageType);
+                }
+            }
+            if (stripe.usedMethodsByFramework.get(index(method))) {
+                graph.markMethodUsedByFramework(className, methodName);
+            }
+            if (stripe.usedMethodsByTest.get(index(method))) {
+                graph.markMethodUsedByTest(className, methodName);
+            }
+        }
+
+        for (int classId : classes) {
+            Stripe stripe = stripeOf(classId);
+            if (stripe.usedClassesByFramework.get(index(classId))) {
+                graph.markClassUsedByFramework(classNames[classId]);
+            }
+            if (stripe.usedClassesByTest.get(index(classId))) {
+                graph.markClassUsedByTest(classNames[classId]);
+            }
+            String beanName = stripe.beanNames.get(classId);
+            if (beanName != null) {
+                graph.registerBeanName(classNames[classId], beanName);
+            }
+        }
+        return graph;
+    }
+
+    private int classId(String className) {
+        return classIds.computeIfAbsent(className, k -> classCount.getAndIncrement());
+    }
+
+    private int methodNameId(String methodName) {
+        return methodNameIds.computeIfAbsent(methodName, k -> methodNameCount.getAndIncrement());
+    }
+
+    /**
+     * Returns the ID of a method, numbering it within the stripe of its class if it is new.
+     */
+    private int methodId(String className, String methodName) {
+        int classId = classId(className);
+        int nameId = methodNameId(methodName);
+        Stripe stripe = stripeOf(classId);
+        synchronized (stripe) {
+            return stripe.method(classId, nameId);
+        }
+    }
+
+    private int methodClass(int methodId) {
+        return stripes[methodId % STRIPES].methodClasses[index(methodId)];
+    }
+
+    private int methodName(int methodId) {
+        return stripes[methodId % STRIPES].methodNames[index(methodId)];
+    }
+
+    private Stripe stripeOf(int classId) {
+        return stripes[classId % STRIPES];
+    }
+
+    /**
+     * Returns the position of a class or method ID among those of its stripe.
+     */
+    private static int index(int id) {
+        return id / STRIPES;
+    }
+
+    /**
+     * Returns the pairs of class IDs collected by the stripes, in order of both class names.
+     */
+    private List<Long> sortedPairs(Function<Stripe, long[]> keys, ToIntFunction<Stripe> counts, int[] classRanks) {
+        List<Long> pairs = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            long[] stripeKeys = keys.apply(stripe);
+            for (int i = 0; i < counts.applyAsInt(stripe); i++) {
+                pairs.add(stripeKeys[i]);
+            }
+        }
+        pairs.sort(Comparator.<Long>comparingInt(key -> classRanks[LongIntHashMap.high(key)])
+                .thenComparingInt(key -> classRanks[LongIntHashMap.low(key)]));
+        return pairs;
+    }
+
+    private static String[] names(Map<String, Integer> ids, int count) {
+        String[] names = new String[count];
+        ids.forEach((name, id) -> names[id] = name);
+        return names;
+    }
+
+    /**
+     * Returns the position of each name in sorted order, indexed by the ID of the name.
+     */
+    private static int[] ranks(String[] names) {
+        Integer[] byName = new Integer[names.length];
+        for (int id = 0; id < names.length; id++) {
+            byName[id] = id;
+        }
+        Arrays.sort(byName, Comparator.comparing(id -> names[id]));
+        int[] ranks = new int[names.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            ranks[byName[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * Facts about the classes of one stripe, and about their methods. Class and method IDs are
+     * those of the builder; the bit sets and arrays are indexed by {@link #index(int)}, which is
+     * dense within a stripe. Only accessed while holding the lock of the stripe.
+     */
+    private static final class Stripe {
+        private final int index;
+
+        private final BitSet declaredClasses = new BitSet();
+        private final BitSet usedClassesByFramework = new BitSet();
+        private final BitSet usedClassesByTest = new BitSet();
+        private final Map<Integer, String> beanNames = new HashMap<>();
+
+        // Methods of the classes, keyed by class ID and method name ID
+        private final LongIntHashMap methodIds = new LongIntHashMap();
+        private int[] methodClasses = new int[16];
+        private int[] methodNames = new int[16];
+        private int methodCount;
+        private final BitSet registeredMethods = new BitSet();
+        private final BitSet usedMethodsByFramework = new BitSet();
+        private final BitSet usedMethodsByTest = new BitSet();
+
+        // Usage types of each method as bits indexed by MethodUsageType ordinal
+        private int[] methodUsages = new int[16];
+
+        // Dependencies of the classes keyed by source and target class ID, with their label
+        // ordinal and reference count
+        private final LongIntHashMap edgeIndex = new LongIntHashMap();
+        private long[] edgeKeys = new long[16];
+        private int[] edgeLabels = new int[16];
+        private int[] edgeCounts = new int[16];
+        private int edgeCount;
+
+        // Calls made by the methods of the classes
+        private final MethodCallIndex calls = new MethodCallIndex();
+
+        // Used imports keyed by class ID and class ID of the import
+        private final LongIntHashMap usedImports = new LongIntHashMap();
+        private long[] importKeys = new long[16];
+        private int importCount;
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the ID of a method of a class of this stripe, numbering it if it is new.
+         */
+        private int method(int classId, int nameId) {
+            int method = methodIds.putIfAbsent(LongIntHashMap.pair(classId, nameId), methodCount);
+            if (method == LongIntHashMap.NO_VALUE) {
+                method = methodCount++;
+                if (method == methodClasses.length) {
+                    int capacity = method * 2;
+                    methodClasses = Arrays.copyOf(methodClasses, capacity);
+                    methodNames = Arrays.copyOf(methodNames, capacity);
+                    methodUsages = Arrays.copyOf(methodUsages, capacity);
+                }
+                methodClasses[method] = classId;
+                methodNames[method] = nameId;
+            }
+            return method * STRIPES + index;
+        }
+
+        private void addDependency(long key, EdgeLabel label) {
+            int edge = edgeIndex.putIfAbsent(key, edgeCount);
+            if (edge != LongIntHashMap.NO_VALUE) {
+                edgeLabels[edge] = EdgeLabel.fromOrdinal(edgeLabels[edge]).strongest(label).ordinal();
+                edgeCounts[edge]++;
+                return;
+            }
+
+            edge = edgeCount++;
+            if (edge == edgeKeys.length) {
+                int capacity = edge * 2;
+                edgeKeys = Arrays.copyOf(edgeKeys, capacity);
+                edgeLabels = Arrays.copyOf(edgeLabels, capacity);
+                edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+            }
+            edgeKeys[edge] = key;
+            edgeLabels[edge] = label.ordinal();
+            edgeCounts[edge] = 1;
+        }
+
+        private void markImportAsUsed(long key, EdgeLabel referenceLabel) {
+            if (usedImports.putIfAbsent(key, importCount) == LongIntHashMap.NO_VALUE) {
+                if (importCount == importKeys.length) {
+                    importKeys = Arrays.copyOf(importKeys, importCount * 2);
+                }
+                importKeys[importCount++] = key;
+            }
+
+            // Strengthen the label of the dependency if it was found already
+            int edge = edgeIndex.get(key);
+            if (edge != LongIntHashMap.NO_VALUE) {
+                edgeLabels[edge] = EdgeLabel.fromOrdinal(edgeLabels[edge]).strongest(referenceLabel).ordinal();
+            }
+        }
+    }
+}
@@ -1,73 +1,272 @@
 package com.bowen.analyzer.model;
 
+import com.bowen.analyzer.model.enums.EdgeLabel;
 import com.bowen.analyzer.model.enums.MethodUsageType;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * The core model that holds all dependency information from the code analysis.
  */
-public class DependencyGraph {
+public class DependencyGraph implements GraphSink {
 
+    // Class graph, held either by JGraphT while it is built or in compact form afterwards
     private DefaultDirectedGraph<String, LabeledEdge> graph = new DefaultDirectedGraph<>(LabeledEdge.class);
+    private CompactGraph compactGraph;
+
+    // Edges of the JGraphT graph keyed by source and target class ID, to update them in one lookup
+    private LongIntHashMap edgeIndex = new LongIntHashMap();
+    private List<LabeledEdge> edges = new ArrayList<>();
     private final Map<String, Set<String>> methodCallsByClass = new HashMap<>();
-    private final List<MethodCall> methodCalls = new ArrayList<>();
 
-    // Framework and test usage tracking
-    private final Set<String> usedClassesByFramework = new HashSet<>();
-    private final Set<String> usedMethodsByFramework = new HashSet<>();
-    private final Set<String> usedClassesByTest = new HashSet<>();
-    private final Set<String> usedMethodsByTest = new HashSet<>();
-    
-    // Import usage tracking
-    private final Map<String, Set<String>> usedImports = new HashMap<>();
-    private final Map<String, Set<String>> unusedImports = new HashMap<>();
+    // Class and method IDs keying the calls and usage tracking below
+    private final SymbolTable symbols = new SymbolTable();
+
+    // Distinct method calls with their number of call expressions
+    private final MethodCallIndex methodCalls = new MethodCallIndex();
+
+    // Classes declared in the analyzed sources, as opposed to only referenced, indexed by class ID
+    private final BitSet declaredClasses = new BitSet();
+
+    // Framework and test usage tracking, indexed by class or method ID
+    private final BitSet usedClassesByFramework = new BitSet();
+    private final BitSet usedMethodsByFramework = new BitSet();
+    private final BitSet usedClassesByTest = new BitSet();
+    private final BitSet usedMethodsByTest = new BitSet();
+
+    // Import usage tracking, indexed by class ID, holding interned class names
+    private final List<Set<String>> usedImports = new ArrayList<>();
+    private final List<Set<String>> unusedImports = new ArrayList<>();
+
+    // All method usage tracking, indexed by method ID, null for methods only referenced
+    private final List<MethodUsage> allMethodUsages = new ArrayList<>();
+    private int registeredMethodCount;
+
+    // Number of facts behind each mark, registration and usage type above, indexed the same
+    // way, so that retracting facts clears one only once no remaining fact sets it
+    private final FactCounts declaredClassFacts = new FactCounts();
+    private final FactCounts frameworkClassFacts = new FactCounts();
+    private final FactCounts frameworkMethodFacts = new FactCounts();
+    private final FactCounts testClassFacts = new FactCounts();
+    private final FactCounts testMethodFacts = new FactCounts();
+    private final FactCounts registrationFacts = new FactCounts();
+    private final FactCounts[] usageFacts = new FactCounts[MethodUsageType.values().length];
+
+    // Explicit bean names, e.g. from @Named("..."), keyed by class
+    private final Map<String, String> beanNames = new HashMap<>();
 
-    // All method usage tracking
-    private final Map<String, MethodUsage> allMethodUsages = new HashMap<>();
+    // Label of references, which differs when they are inferred from names only
+    private final EdgeLabel referenceLabel;
+
+    // Number of changes so far, telling whether a snapshot is still current
+    private long modificationCount;
+
+    // Whether the content was handed over to a snapshot, see release()
+    private volatile boolean released;
 
     /**
-     * Adds a class to the dependency graph.
+     * Creates an empty graph for references found by the symbol solver.
+     */
+    public DependencyGraph() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty graph.
+     *
+     * @param heuristicReferences Whether references are inferred from names without the symbol
+     *                            solver, in which case they are labelled HEURISTIC_REFERENCE
+     */
+    public DependencyGraph(boolean heuristicReferences) {
+        this.referenceLabel = heuristicReferences ? EdgeLabel.HEURISTIC_REFERENCE : EdgeLabel.REFERENCE;
+        for (int i = 0; i < usageFacts.length; i++) {
+            usageFacts[i] = new FactCounts();
+        }
+    }
+
+    /**
+     * Adds a class declared in the analyzed sources to the dependency graph. Classes only
+     * added as the end of a dependency are references, left out of the unreachable classes.
      */
     public void addClass(String className) {
-        graph.addVertex(className);
+        checkNotReleased();
+        int classId = symbols.internClass(className);
+        if (!containsVertex(classId)) {
+            mutableGraph().addVertex(symbols.getClassName(classId));
+            modificationCount++;
+        }
+        mark(declaredClasses, declaredClassFacts, classId);
     }
 
     /**
      * Adds a dependency between two classes with a label.
+     *
+     * @param label The name of an {@link EdgeLabel}; other names become {@link EdgeLabel#OTHER}
      */
     public void addDependency(String fromClass, String toClass, String label) {
+        addDependency(fromClass, toClass, EdgeLabel.fromName(label));
+    }
+
+    /**
+     * Adds a dependency between two classes with a label. If the classes depend on each other
+     * already, the edge keeps the stronger of both labels and counts one more reference.
+     */
+    public void addDependency(String fromClass, String toClass, EdgeLabel label) {
+        checkNotReleased();
         // Skip adding self-dependencies (where a class depends on itself)
         if (fromClass.equals(toClass)) {
             return;
         }
-        
-        graph.addVertex(fromClass);
-        graph.addVertex(toClass);
-        graph.addEdge(fromClass, toClass, new LabeledEdge(label));
+        addDependency(fromClass, toClass, label == EdgeLabel.REFERENCE ? referenceLabel : label, 1);
+    }
+
+    /**
+     * Adds a dependency found a number of times, with its label as given.
+     */
+    void addDependency(String fromClass, String toClass, EdgeLabel label, int referenceCount) {
+        // A new edge or more references to an existing one, a change either way
+        modificationCount++;
+        DefaultDirectedGraph<String, LabeledEdge> graph = mutableGraph();
+        int fromId = symbols.internClass(fromClass);
+        int toId = symbols.internClass(toClass);
+        int existing = edgeIndex.putIfAbsent(LongIntHashMap.pair(fromId, toId), edges.size());
+        if (existing != LongIntHashMap.NO_VALUE) {
+            LabeledEdge edge = edges.get(existing);
+            edge.setType(edge.getType().strongest(label));
+            edge.addReferences(referenceCount);
+            return;
+        }
+
+        String from = symbols.getClassName(fromId);
+        String to = symbols.getClassName(toId);
+        graph.addVertex(from);
+        graph.addVertex(to);
+        LabeledEdge edge = new LabeledEdge(label, referenceCount);
+        graph.addEdge(from, to, edge);
+        edges.add(edge);
     }
 
     /**
      * Records a method call from caller to callee.
      */
     public void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod) {
-        methodCalls.add(new MethodCall(callerClass, callerMethod, calleeClass, calleeMethod));
+        checkNotReleased();
+        addMethodCall(callerClass, callerMethod, calleeClass, calleeMethod, 1);
+    }
+
+    /**
+     * Records a method call found a number of times.
+     */
+    void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod, int count) {
+        modificationCount++;
+        methodCalls.add(symbols.internMethod(callerClass, callerMethod), symbols.internMethod(calleeClass, calleeMethod),
+                count);
     }
 
     /**
      * Returns all classes in the dependency graph.
      */
     public Set<String> getAllClasses() {
-        return graph.vertexSet();
+        return compactGraph != null ? new CompactVertexSet(compactGraph) : graph.vertexSet();
     }
 
     /**
-     * Returns all outgoing dependencies for a class.
+     * Returns all outgoing dependencies for a class. A compacted graph stays compact and
+     * returns copies of its edges, with their label and reference count.
+     *
+     * @throws IllegalArgumentException If the class is not part of the graph
      */
     public Set<LabeledEdge> getDependencies(String className) {
-        return graph.outgoingEdgesOf(className);
+        if (compactGraph == null) {
+            return graph.outgoingEdgesOf(className);
+        }
+        int classId = symbols.findClass(className);
+        if (!compactGraph.containsVertex(classId)) {
+            throw new IllegalArgumentException("no such vertex in graph: " + className);
+        }
+        Set<LabeledEdge> dependencies = new LinkedHashSet<>();
+        for (int e = compactGraph.outStart(classId); e < compactGraph.outEnd(classId); e++) {
+            dependencies.add(new LabeledEdge(compactGraph.getOutLabel(e), compactGraph.getReferenceCount(e)));
+        }
+        return Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * Returns the classes a class depends on, with the label of each dependency,
+     * in the order the dependencies were added.
+     */
+    public Map<String, String> getLabeledDependencies(String className) {
+        Map<String, String> dependencies = new LinkedHashMap<>();
+        if (compactGraph != null) {
+            int classId = symbols.findClass(className);
+            if (compactGraph.containsVertex(classId)) {
+                for (int e = compactGraph.outStart(classId); e < compactGraph.outEnd(classId); e++) {
+                    dependencies.put(symbols.getClassName(compactGraph.getTarget(e)), compactGraph.getOutLabel(e).name());
+                }
+            }
+        } else if (graph.containsVertex(className)) {
+            for (LabeledEdge edge : graph.outgoingEdgesOf(className)) {
+                dependencies.put(graph.getEdgeTarget(edge), edge.getLabel());
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the classes a class depends on, with the number of times each dependency was
+     * found, in the order the dependencies were added.
+     */
+    public Map<String, Integer> getReferenceCounts(String className) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (compactGraph != null) {
+            int classId = symbols.findClass(className);
+            if (compactGraph.containsVertex(classId)) {
+                for (int e = compactGraph.outStart(classId); e < compactGraph.outEnd(classId); e++) {
+                    counts.put(symbols.getClassName(compactGraph.getTarget(e)), compactGraph.getReferenceCount(e));
+                }
+            }
+        } else if (graph.containsVertex(className)) {
+            for (LabeledEdge edge : graph.outgoingEdgesOf(className)) {
+                counts.put(graph.getEdgeTarget(edge), edge.getReferenceCount());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the classes depending directly on a class.
+     */
+    public List<String> getDependents(String className) {
+        List<String> dependents = new ArrayList<>();
+        if (compactGraph != null) {
+            int classId = symbols.findClass(className);
+            if (compactGraph.containsVertex(classId)) {
+                for (int e = compactGraph.inStart(classId); e < compactGraph.inEnd(classId); e++) {
+                    dependents.add(symbols.getClassName(compactGraph.getSource(e)));
+                }
+            }
+        } else if (graph.containsVertex(className)) {
+            for (LabeledEdge edge : graph.incomingEdgesOf(className)) {
+                dependents.add(graph.getEdgeSource(edge));
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Checks whether any class depends directly on a class.
+     */
+    public boolean hasDependents(String className) {
+        if (compactGraph != null) {
+            int classId = symbols.findClass(className);
+            return compactGraph.containsVertex(classId)
+                    && compactGraph.inStart(classId) < compactGraph.inEnd(classId);
+        }
+        return graph.containsVertex(className) && graph.inDegreeOf(className) > 0;
     }
 
     /**
@@ -78,68 +277,373 @@ public class DependencyGraph {
     }
 
     /**
-     * Returns all method calls in the codebase.
+     * Returns all method calls in the codebase, one per distinct caller and callee with the
+     * number of call expressions found, in order of first occurrence.
      */
     public List<MethodCall> getAllMethodCalls() {
+        List<MethodCall> calls = new ArrayList<>(methodCalls.size());
+        for (int call = 0; call < methodCalls.size(); call++) {
+            int caller = methodCalls.getCaller(call);
+            int callee = methodCalls.getCallee(call);
+            calls.add(new MethodCall(symbols.getClassName(symbols.getMethodClass(caller)), symbols.getMethodName(caller),
+                    symbols.getClassName(symbols.getMethodClass(callee)), symbols.getMethodName(callee),
+                    methodCalls.getCount(call)));
+        }
+        return calls;
+    }
+
+    /**
+     * Returns the method calls of the codebase indexed by caller and callee, keyed by the
+     * method IDs of {@link #getSymbols()}.
+     */
+    public MethodCallIndex getMethodCallIndex() {
         return methodCalls;
     }
 
     /**
-     * Returns the underlying graph.
+     * Returns the underlying graph for reading. A compacted graph stays compact and returns a
+     * JGraphT copy of itself, built on every call. Changes must go through the methods of this
+     * class, which keep the modification count and the edge index up to date.
      */
     public DefaultDirectedGraph<String, LabeledEdge> getGraph() {
+        return compactGraph != null ? compactGraph.toJGraphT(symbols) : graph;
+    }
+
+    /**
+     * Replaces the JGraphT class graph by its compact form, which needs a fraction of the
+     * memory. Queries keep working on the compact form; only a change to the classes or
+     * dependencies converts the graph back.
+     */
+    public void compact() {
+        if (compactGraph == null) {
+            compactGraph = CompactGraph.build(graph, symbols);
+            graph = null;
+            edgeIndex = new LongIntHashMap();
+            edges = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the compact form of the class graph, or null if the graph is not compacted.
+     */
+    public CompactGraph getCompactGraph() {
+        return compactGraph;
+    }
+
+    /**
+     * Returns the JGraphT graph for a change, converting a compacted graph back first. This is
+     * the only place that gives up the compact form. Callers count the modification once they
+     * know the graph actually changes.
+     */
+    private DefaultDirectedGraph<String, LabeledEdge> mutableGraph() {
+        if (compactGraph != null) {
+            graph = compactGraph.toJGraphT(symbols);
+            compactGraph = null;
+            edgeIndex = new LongIntHashMap(graph.edgeSet().size());
+            for (LabeledEdge edge : graph.edgeSet()) {
+                edgeIndex.put(LongIntHashMap.pair(symbols.findClass(graph.getEdgeSource(edge)),
+                        symbols.findClass(graph.getEdgeTarget(edge))), edges.size());
+                edges.add(edge);
+            }
+        }
         return graph;
     }
 
+    /**
+     * Checks whether a class is a vertex of the graph, in whichever form it is held.
+     */
+    private boolean containsVertex(int classId) {
+        return compactGraph != null
+                ? compactGraph.containsVertex(classId)
+                : graph.containsVertex(symbols.getClassName(classId));
+    }
+
+    /**
+     * Takes an immutable snapshot of the graph held on the heap, which can be queried from
+     * several threads.
+     */
+    public GraphSnapshot snapshot() {
+        try {
+            return snapshot(null);
+        } catch (IOException e) {
+            // Only a snapshot mapped from a file does I/O
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes an immutable snapshot of the graph stored in a file mapped into memory, which
+     * keeps it off the heap. The file is overwritten.
+     *
+     * @param file The file to store the snapshot in, or null to hold it on the heap
+     * @throws IOException If the file cannot be written or mapped
+     */
+    public GraphSnapshot snapshot(File file) throws IOException {
+        CompactGraph classGraph = compactGraph != null ? compactGraph : CompactGraph.build(graph, symbols);
+        return GraphSnapshot.build(symbols, classGraph, methodCalls, allMethodUsages, declaredClasses,
+                usedClassesByFramework, usedClassesByTest, usedMethodsByFramework, usedMethodsByTest,
+                usedImports, unusedImports, beanNames, modificationCount, file);
+    }
+
+    /**
+     * Returns the number of changes made to the graph so far. A snapshot whose count differs
+     * from the graph's is out of date.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the IDs of the classes and methods known to this graph.
+     * IDs stay valid until {@link #clear()}.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Removes all classes, dependencies, calls and usage information.
+     * Callers holding the result of {@link #getGraph()} must fetch it again.
+     */
+    public void clear() {
+        modificationCount++;
+        released = false;
+        graph = new DefaultDirectedGraph<>(LabeledEdge.class);
+        compactGraph = null;
+        edgeIndex = new LongIntHashMap();
+        edges = new ArrayList<>();
+        methodCallsByClass.clear();
+        methodCalls.clear();
+        declaredClasses.clear();
+        usedClassesByFramework.clear();
+        usedMethodsByFramework.clear();
+        usedClassesByTest.clear();
+        usedMethodsByTest.clear();
+        usedImports.clear();
+        unusedImports.clear();
+        allMethodUsages.clear();
+        registeredMethodCount = 0;
+        declaredClassFacts.clear();
+        frameworkClassFacts.clear();
+        frameworkMethodFacts.clear();
+        testClassFacts.clear();
+        testMethodFacts.clear();
+        registrationFacts.clear();
+        for (FactCounts facts : usageFacts) {
+            facts.clear();
+        }
+        beanNames.clear();
+        symbols.clear();
+    }
+
+    /**
+     * Empties the graph after its content was handed over to a snapshot that takes its place,
+     * such as one stored to or loaded from disk. Changes are rejected until {@link #clear()}
+     * starts over, since they could not reach the snapshot.
+     */
+    public void release() {
+        clear();
+        released = true;
+    }
+
+    /**
+     * Tells whether the graph was {@link #release() released} and not cleared since.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("The graph was released to a snapshot; clear it before adding facts");
+        }
+    }
+
+    /**
+     * Takes back the facts of files merged into the graph before, typically to merge their new
+     * version next, at a cost proportional to these facts rather than to the whole graph.
+     *
+     * <p>The dependencies, used imports and bean name of a class belong to the files reporting
+     * them, see {@link FileFacts#getOwnedClasses()}, and are removed as a whole for each class
+     * the given facts own, so no other file merged into the graph may own one of these classes.
+     * All other facts are counted and taken back one by one. Classes left neither declared nor
+     * at either end of a dependency leave the graph, as if the facts had never been merged.
+     *
+     * @param files Facts merged into the graph and not retracted since
+     * @throws IllegalStateException If a fact was not merged into the graph
+     */
+    public void retract(Collection<FileFacts> files) {
+        checkNotReleased();
+        Retraction retraction = new Retraction();
+        for (FileFacts facts : files) {
+            facts.replay(retraction);
+        }
+
+        BitSet candidates = retraction.undeclared;
+        BitSet owned = retraction.owned;
+        for (int classId = owned.nextSetBit(0); classId >= 0; classId = owned.nextSetBit(classId + 1)) {
+            removeDependenciesOf(classId, candidates);
+            if (classId < usedImports.size() && usedImports.get(classId) != null) {
+                usedImports.set(classId, null);
+                modificationCount++;
+            }
+            if (classId < unusedImports.size() && unusedImports.get(classId) != null) {
+                unusedImports.set(classId, null);
+                modificationCount++;
+            }
+            if (beanNames.remove(symbols.getClassName(classId)) != null) {
+                modificationCount++;
+            }
+            candidates.set(classId);
+        }
+        for (int classId = candidates.nextSetBit(0); classId >= 0; classId = candidates.nextSetBit(classId + 1)) {
+            removeIfOrphan(classId);
+        }
+    }
+
+    /**
+     * Removes the dependencies of a class, noting their targets, which may be left orphaned.
+     */
+    private void removeDependenciesOf(int classId, BitSet targets) {
+        if (!containsVertex(classId)) {
+            return;
+        }
+        DefaultDirectedGraph<String, LabeledEdge> graph = mutableGraph();
+        for (LabeledEdge edge : new ArrayList<>(graph.outgoingEdgesOf(symbols.getClassName(classId)))) {
+            int targetId = symbols.findClass(graph.getEdgeTarget(edge));
+            int index = edgeIndex.remove(LongIntHashMap.pair(classId, targetId));
+
+            // The last edge moves to the freed index
+            LabeledEdge last = edges.remove(edges.size() - 1);
+            if (last != edge) {
+                edges.set(index, last);
+                edgeIndex.put(LongIntHashMap.pair(symbols.findClass(graph.getEdgeSource(last)),
+                        symbols.findClass(graph.getEdgeTarget(last))), index);
+            }
+            graph.removeEdge(edge);
+            targets.set(targetId);
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Removes a class from the graph if it is neither declared nor part of a dependency.
+     */
+    private void removeIfOrphan(int classId) {
+        if (declaredClasses.get(classId) || !containsVertex(classId)) {
+            return;
+        }
+        DefaultDirectedGraph<String, LabeledEdge> graph = mutableGraph();
+        String className = symbols.getClassName(classId);
+        if (graph.degreeOf(className) == 0) {
+            graph.removeVertex(className);
+            modificationCount++;
+        }
+    }
+
     /**
      * Marks a class as used by the framework.
      */
     public void markClassUsedByFramework(String className) {
-        usedClassesByFramework.add(className);
+        checkNotReleased();
+        mark(usedClassesByFramework, frameworkClassFacts, symbols.internClass(className));
     }
 
     /**
      * Marks a method as used by the framework.
      */
     public void markMethodUsedByFramework(String className, String methodName) {
-        usedMethodsByFramework.add(className + "." + methodName);
+        checkNotReleased();
+        mark(usedMethodsByFramework, frameworkMethodFacts, symbols.internMethod(className, methodName));
     }
 
     /**
      * Marks a class as used by tests.
      */
     public void markClassUsedByTest(String className) {
-        usedClassesByTest.add(className);
+        checkNotReleased();
+        mark(usedClassesByTest, testClassFacts, symbols.internClass(className));
     }
 
     /**
      * Marks a method as used by tests.
      */
     public void markMethodUsedByTest(String className, String methodName) {
-        usedMethodsByTest.add(className + "." + methodName);
+        checkNotReleased();
+        mark(usedMethodsByTest, testMethodFacts, symbols.internMethod(className, methodName));
     }
 
     /**
      * Registers a method in the dependency graph.
      */
     public void registerMethod(String className, String methodName) {
-        String key = getMethodKey(className, methodName);
-        allMethodUsages.putIfAbsent(key, new MethodUsage(className, methodName));
+        checkNotReleased();
+        usageOf(symbols.internMethod(className, methodName));
     }
 
     /**
      * Marks a method as having a specific usage type.
      */
     public void markMethodUsage(String className, String methodName, MethodUsageType usageType) {
-        registerMethod(className, methodName);
-        allMethodUsages.get(getMethodKey(className, methodName)).addUsage(usageType);
+        checkNotReleased();
+        int methodId = symbols.internMethod(className, methodName);
+        MethodUsage usage = usageOf(methodId);
+        if (usageFacts[usageType.ordinal()].increment(methodId)) {
+            modificationCount++;
+            usage.addUsage(usageType);
+        }
     }
 
     /**
-     * Returns all method usages in the codebase.
+     * Sets the bit of an ID, counting a modification if it was not set yet.
+     */
+    private void mark(BitSet bits, FactCounts facts, int id) {
+        if (facts.increment(id)) {
+            modificationCount++;
+            bits.set(id);
+        }
+    }
+
+    /**
+     * Clears the bit of an ID once no fact sets it any more.
+     */
+    private void unmark(BitSet bits, FactCounts facts, int id) {
+        if (facts.decrement(id)) {
+            modificationCount++;
+            bits.clear(id);
+        }
+    }
+
+    /**
+     * Returns the usage of a method, registering the method first if necessary. Counts as a
+     * fact registering the method.
+     */
+    private MethodUsage usageOf(int methodId) {
+        while (allMethodUsages.size() <= methodId) {
+            allMethodUsages.add(null);
+        }
+        MethodUsage usage = allMethodUsages.get(methodId);
+        if (registrationFacts.increment(methodId)) {
+            modificationCount++;
+            int classId = symbols.getMethodClass(methodId);
+            usage = new MethodUsage(symbols.getClassName(classId), symbols.getMethodName(methodId));
+            allMethodUsages.set(methodId, usage);
+            registeredMethodCount++;
+        }
+        return usage;
+    }
+
+    /**
+     * Returns all method usages in the codebase, in order of registration.
      */
     public Collection<MethodUsage> getAllMethodUsages() {
-        return allMethodUsages.values();
+        List<MethodUsage> usages = new ArrayList<>(registeredMethodCount);
+        for (MethodUsage usage : allMethodUsages) {
+            if (usage != null) {
+                usages.add(usage);
+            }
+        }
+        return usages;
     }
 
     /**
@@ -147,39 +651,47 @@ public class DependencyGraph {
      */
     public Set<String> findUnusedClasses() {
         Set<String> unused = new HashSet<>();
-        for (String clazz : graph.vertexSet()) {
+        for (String clazz : getAllClasses()) {
+            int classId = symbols.findClass(clazz);
             boolean isReferenced = false;
-            
+
             // Check if any class depends on this class
-            for (LabeledEdge edge : graph.incomingEdgesOf(clazz)) {
-                String fromClass = graph.getEdgeSource(edge);
-                String label = edge.getLabel();
-                
-                // Consider a class used only if it's actively referenced, not just imported
-                if (label.equals("REFERENCE") || 
-                    label.equals("ANNOTATION_REFERENCE") || 
-                    label.equals("STATIC_IMPORT")) {
-                    isReferenced = true;
-                    break;
+            if (compactGraph != null) {
+                for (int e = compactGraph.inStart(classId); e < compactGraph.inEnd(classId) && !isReferenced; e++) {
+                    isReferenced = isActiveReference(symbols.getClassName(compactGraph.getSource(e)), clazz,
+                            compactGraph.getInLabel(e));
                 }
-                
-                // Explicitly check if this import is marked as used
-                if ((label.equals("IMPORT") || label.equals("UNUSED_IMPORT")) && 
-                    isImportUsed(fromClass, clazz)) {
-                    isReferenced = true;
-                    break;
+            } else {
+                for (LabeledEdge edge : graph.incomingEdgesOf(clazz)) {
+                    if (isActiveReference(graph.getEdgeSource(edge), clazz, edge.getType())) {
+                        isReferenced = true;
+                        break;
+                    }
                 }
             }
-            
-            if (!isReferenced && 
-                !usedClassesByFramework.contains(clazz) && 
-                !usedClassesByTest.contains(clazz)) {
+
+            if (!isReferenced &&
+                !usedClassesByFramework.get(classId) &&
+                !usedClassesByTest.get(classId)) {
                 unused.add(clazz);
             }
         }
         return unused;
     }
 
+    /**
+     * Checks whether a dependency makes its target used.
+     */
+    private boolean isActiveReference(String fromClass, String toClass, EdgeLabel label) {
+        // Consider a class used only if it's actively referenced, not just imported
+        if (label.isActiveReference()) {
+            return true;
+        }
+
+        // Explicitly check if this import is marked as used
+        return label.isImport() && isImportUsed(fromClass, toClass);
+    }
+
     /**
      * Finds all unused methods in the codebase.
      */
@@ -192,79 +704,322 @@ public class DependencyGraph {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Records the name a class is exposed under as a bean, replacing its default name.
+     */
+    public void registerBeanName(String className, String beanName) {
+        checkNotReleased();
+        if (!beanName.equals(beanNames.put(className, beanName))) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Returns the explicit bean names of classes, keyed by class.
+     */
+    public Map<String, String> getBeanNames() {
+        return Collections.unmodifiableMap(beanNames);
+    }
+
     /**
      * Checks if a class is used by the framework.
      */
     public boolean isClassUsedByFramework(String className) {
-        return usedClassesByFramework.contains(className);
+        int classId = symbols.findClass(className);
+        return classId != SymbolTable.NOT_FOUND && usedClassesByFramework.get(classId);
     }
 
     /**
      * Checks if a class is used by tests.
      */
     public boolean isClassUsedByTest(String className) {
-        return usedClassesByTest.contains(className);
+        int classId = symbols.findClass(className);
+        return classId != SymbolTable.NOT_FOUND && usedClassesByTest.get(classId);
     }
 
     /**
-     * Gets a key for a method.
+     * Returns the interned instance of a class name.
      */
-    private String getMethodKey(String className, String methodName) {
-        return className + "." + methodName;
+    private String intern(String className) {
+        return symbols.getClassName(symbols.internClass(className));
+    }
+
+    /**
+     * Returns the import set of a class, creating it if necessary.
+     */
+    private Set<String> importsOf(List<Set<String>> imports, int classId) {
+        while (imports.size() <= classId) {
+            imports.add(null);
+        }
+        Set<String> classImports = imports.get(classId);
+        if (classImports == null) {
+            classImports = new HashSet<>();
+            imports.set(classId, classImports);
+        }
+        return classImports;
+    }
+
+    /**
+     * Returns the import set of a class, or an empty set if it has none.
+     */
+    private Set<String> findImports(List<Set<String>> imports, String className) {
+        int classId = symbols.findClass(className);
+        Set<String> classImports = classId >= 0 && classId < imports.size() ? imports.get(classId) : null;
+        return classImports != null ? classImports : Collections.emptySet();
     }
 
     /**
      * Marks an import as used in a class.
      */
     public void markImportAsUsed(String className, String importName) {
-        usedImports.computeIfAbsent(className, k -> new HashSet<>()).add(importName);
-        
+        checkNotReleased();
+        int classId = symbols.internClass(className);
+        if (importsOf(usedImports, classId).add(intern(importName))) {
+            modificationCount++;
+        }
+
         // If it was previously marked as unused, remove it
-        if (unusedImports.containsKey(className)) {
-            unusedImports.get(className).remove(importName);
+        if (classId < unusedImports.size() && unusedImports.get(classId) != null
+                && unusedImports.get(classId).remove(importName)) {
+            modificationCount++;
         }
         
         // Update edge label if exists
-        updateDependencyLabel(className, importName, "REFERENCE");
+        updateDependencyLabel(className, importName, referenceLabel);
     }
 
     /**
      * Checks if an import is used in a class.
      */
     public boolean isImportUsed(String className, String importName) {
-        return usedImports.containsKey(className) && 
-               usedImports.get(className).contains(importName);
+        return findImports(usedImports, className).contains(importName);
     }
     
     /**
      * Gets all used imports for a class.
      */
     public Set<String> getUsedImports(String className) {
-        return usedImports.getOrDefault(className, Collections.emptySet());
+        return findImports(usedImports, className);
     }
     
     /**
      * Gets all unused imports for a class.
      */
     public Set<String> getUnusedImports(String className) {
-        return unusedImports.getOrDefault(className, Collections.emptySet());
+        return findImports(unusedImports, className);
     }
     
     /**
-     * Updates an existing dependency edge label.
-     */
-    private void updateDependencyLabel(String fromClass, String toClass, String newLabel) {
-        // Only update if both vertices exist
-        if (graph.containsVertex(fromClass) && graph.containsVertex(toClass)) {
-            // Get the edge
-            Set<LabeledEdge> edges = graph.getAllEdges(fromClass, toClass);
-            if (!edges.isEmpty()) {
-                LabeledEdge edge = edges.iterator().next();
-                // Only update if the edge exists
-                if (edge != null) {
-                    edge.setLabel(newLabel);
-                }
+     * Strengthens the label of an existing dependency edge.
+     */
+    private void updateDependencyLabel(String fromClass, String toClass, EdgeLabel newLabel) {
+        int fromId = symbols.findClass(fromClass);
+        int toId = symbols.findClass(toClass);
+        if (fromId == SymbolTable.NOT_FOUND || toId == SymbolTable.NOT_FOUND) {
+            return;
+        }
+        if (compactGraph != null) {
+            // Only convert the graph back if the label actually gets stronger
+            if (!compactGraph.containsVertex(fromId)) {
+                return;
+            }
+            int e = compactGraph.outStart(fromId);
+            while (e < compactGraph.outEnd(fromId) && compactGraph.getTarget(e) != toId) {
+                e++;
             }
+            if (e == compactGraph.outEnd(fromId)
+                    || compactGraph.getOutLabel(e).strongest(newLabel) == compactGraph.getOutLabel(e)) {
+                return;
+            }
+            mutableGraph();
+        }
+        int index = edgeIndex.get(LongIntHashMap.pair(fromId, toId));
+        if (index != LongIntHashMap.NO_VALUE) {
+            LabeledEdge edge = edges.get(index);
+            EdgeLabel strongest = edge.getType().strongest(newLabel);
+            if (strongest != edge.getType()) {
+                modificationCount++;
+                edge.setType(strongest);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a method once no fact registers it any more.
+     */
+    private void unregister(int methodId) {
+        if (registrationFacts.decrement(methodId)) {
+            modificationCount++;
+            allMethodUsages.set(methodId, null);
+            registeredMethodCount--;
+        }
+    }
+
+    private int knownClass(String className) {
+        int classId = symbols.findClass(className);
+        if (classId == SymbolTable.NOT_FOUND) {
+            throw new IllegalStateException("No facts about " + className + " to retract");
+        }
+        return classId;
+    }
+
+    private int knownMethod(String className, String methodName) {
+        int methodId = symbols.findMethod(className, methodName);
+        if (methodId == SymbolTable.NOT_FOUND) {
+            throw new IllegalStateException("No facts about " + className + "." + methodName + " to retract");
+        }
+        return methodId;
+    }
+
+    /**
+     * Takes back the facts replayed into it: counted facts right away, owned facts by noting
+     * the classes whose dependencies, used imports and bean names {@link #retract} removes.
+     */
+    private class Retraction implements GraphSink {
+        private final BitSet owned = new BitSet();
+        private final BitSet undeclared = new BitSet();
+
+        @Override
+        public void addClass(String className) {
+            int classId = knownClass(className);
+            unmark(declaredClasses, declaredClassFacts, classId);
+            undeclared.set(classId);
+        }
+
+        @Override
+        public void addDependency(String fromClass, String toClass, String label) {
+            if (!fromClass.equals(toClass)) {
+                owned.set(knownClass(fromClass));
+            }
+        }
+
+        @Override
+        public void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod) {
+            int caller = knownMethod(callerClass, callerMethod);
+            int callee = knownMethod(calleeClass, calleeMethod);
+            if (methodCalls.find(caller, callee) == MethodCallIndex.NONE) {
+                throw new IllegalStateException("No call from " + callerClass + "." + callerMethod + " to "
+                        + calleeClass + "." + calleeMethod + " to retract");
+            }
+            modificationCount++;
+            methodCalls.remove(caller, callee, 1);
+        }
+
+        @Override
+        public void markClassUsedByFramework(String className) {
+            unmark(usedClassesByFramework, frameworkClassFacts, knownClass(className));
+        }
+
+        @Override
+        public void markMethodUsedByFramework(String className, String methodName) {
+            unmark(usedMethodsByFramework, frameworkMethodFacts, knownMethod(className, methodName));
+        }
+
+        @Override
+        public void markClassUsedByTest(String className) {
+            unmark(usedClassesByTest, testClassFacts, knownClass(className));
+        }
+
+        @Override
+        public void markMethodUsedByTest(String className, String methodName) {
+            unmark(usedMethodsByTest, testMethodFacts, knownMethod(className, methodName));
+        }
+
+        @Override
+        public void registerMethod(String className, String methodName) {
+            unregister(knownMethod(className, methodName));
+        }
+
+        @Override
+        public void markMethodUsage(String className, String methodName, MethodUsageType usageType) {
+            int methodId = knownMethod(className, methodName);
+            if (usageFacts[usageType.ordinal()].decrement(methodId)) {
+                modificationCount++;
+                allMethodUsages.get(methodId).removeUsage(usageType);
+            }
+            unregister(methodId);
+        }
+
+        @Override
+        public void markImportAsUsed(String className, String importName) {
+            owned.set(knownClass(className));
+        }
+
+        @Override
+        public void registerBeanName(String className, String beanName) {
+            owned.set(knownClass(className));
+        }
+    }
+
+    /**
+     * Number of facts behind each mark of a bit set, indexed like the bit set.
+     */
+    private static final class FactCounts {
+        private int[] counts = new int[16];
+
+        /**
+         * Counts one more fact for an ID, returning whether it is the first.
+         */
+        boolean increment(int id) {
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+            }
+            return counts[id]++ == 0;
+        }
+
+        /**
+         * Counts one fact less for an ID, returning whether it was the last.
+         */
+        boolean decrement(int id) {
+            if (id >= counts.length || counts[id] == 0) {
+                throw new IllegalStateException("No fact to retract for ID " + id);
+            }
+            return --counts[id] == 0;
+        }
+
+        void clear() {
+            counts = new int[16];
+        }
+    }
+
+    /**
+     * Read-only view of the classes of a compacted graph.
+     */
+    private class CompactVertexSet extends AbstractSet<String> {
+        private final CompactGraph compact;
+
+        CompactVertexSet(CompactGraph compact) {
+            this.compact = compact;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String className && compact.containsVertex(symbols.findClass(className));
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < compact.getVertexCount();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return symbols.getClassName(compact.getVertex(next++));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return compact.getVertexCount();
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,277 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.FactType;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the facts produced for a single source file, in emission order.
+ * Replaying the facts into a {@link GraphSink} has the same effect as
+ * analyzing the file directly against that sink, which lets files be
+ * analyzed independently and merged afterwards.
+ */
+public class FileFacts implements GraphSink {
+
+    private final List<Fact> facts = new ArrayList<>();
+
+    @Override
+    public void addClass(String className) {
+        facts.add(new Fact(FactType.ADD_CLASS, className));
+    }
+
+    @Override
+    public void addDependency(String fromClass, String toClass, String label) {
+        facts.add(new Fact(FactType.ADD_DEPENDENCY, fromClass, toClass, label));
+    }
+
+    @Override
+    public void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod) {
+        facts.add(new Fact(FactType.ADD_METHOD_CALL, callerClass, callerMethod, calleeClass, calleeMethod));
+    }
+
+    @Override
+    public void markClassUsedByFramework(String className) {
+        facts.add(new Fact(FactType.CLASS_USED_BY_FRAMEWORK, className));
+    }
+
+    @Override
+    public void markMethodUsedByFramework(String className, String methodName) {
+        facts.add(new Fact(FactType.METHOD_USED_BY_FRAMEWORK, className, methodName));
+    }
+
+    @Override
+    public void markClassUsedByTest(String className) {
+        facts.add(new Fact(FactType.CLASS_USED_BY_TEST, className));
+    }
+
+    @Override
+    public void markMethodUsedByTest(String className, String methodName) {
+        facts.add(new Fact(FactType.METHOD_USED_BY_TEST, className, methodName));
+    }
+
+    @Override
+    public void registerMethod(String className, String methodName) {
+        facts.add(new Fact(FactType.REGISTER_METHOD, className, methodName));
+    }
+
+    @Override
+    public void markMethodUsage(String className, String methodName, MethodUsageType usageType) {
+        facts.add(new Fact(FactType.METHOD_USAGE, className, methodName, usageType.name()));
+    }
+
+    @Override
+    public void markImportAsUsed(String className, String importName) {
+        facts.add(new Fact(FactType.IMPORT_USED, className, importName));
+    }
+
+    @Override
+    public void registerBeanName(String className, String beanName) {
+        facts.add(new Fact(FactType.BEAN_NAME, className, beanName));
+    }
+
+    @Override
+    public void markTypeUnresolved(String className, String simpleName) {
+        facts.add(new Fact(FactType.TYPE_UNRESOLVED, className, simpleName));
+    }
+
+    /**
+     * Applies every recorded fact to the target, in the order they were recorded.
+     */
+    public void replay(GraphSink target) {
+        for (Fact fact : facts) {
+            fact.applyTo(target);
+        }
+    }
+
+    /**
+     * Returns the classes declared by this file.
+     */
+    public Set<String> getDeclaredClasses() {
+        Set<String> declared = new LinkedHashSet<>();
+        for (Fact fact : facts) {
+            if (fact.type == FactType.ADD_CLASS) {
+                declared.add(fact.args[0]);
+            }
+        }
+        return declared;
+    }
+
+    /**
+     * Returns the classes whose dependencies, used imports or bean name this file reports.
+     * A graph takes such facts back per class rather than per fact, see
+     * {@link DependencyGraph#retract(java.util.Collection)}.
+     */
+    public Set<String> getOwnedClasses() {
+        Set<String> owned = new LinkedHashSet<>();
+        for (Fact fact : facts) {
+            switch (fact.type) {
+                case ADD_DEPENDENCY -> {
+                    if (!fact.args[0].equals(fact.args[1])) {
+                        owned.add(fact.args[0]);
+                    }
+                }
+                case IMPORT_USED, BEAN_NAME -> owned.add(fact.args[0]);
+                default -> {
+                }
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * Checks whether any fact mentions one of the given class names.
+     */
+    public boolean mentionsAny(Set<String> classNames) {
+        for (Fact fact : facts) {
+            for (String arg : fact.args) {
+                if (classNames.contains(arg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the analysis of this file may depend on one of the given classes:
+     * either a fact mentions the class, or the file failed to resolve a type of the same
+     * simple name, which the class may now provide.
+     *
+     * @param classNames Qualified class names
+     * @param simpleNames The simple names of the same classes
+     */
+    public boolean dependsOnAny(Set<String> classNames, Set<String> simpleNames) {
+        for (Fact fact : facts) {
+            if (fact.type == FactType.TYPE_UNRESOLVED && simpleNames.contains(fact.args[1])) {
+                return true;
+            }
+        }
+        return mentionsAny(classNames);
+    }
+
+    /**
+     * Returns the simple names of the given qualified class names.
+     */
+    public static Set<String> simpleNamesOf(Set<String> classNames) {
+        Set<String> simpleNames = new HashSet<>();
+        for (String className : classNames) {
+            simpleNames.add(className.substring(className.lastIndexOf('.') + 1));
+        }
+        return simpleNames;
+    }
+
+    /**
+     * Writes the facts in a compact binary form readable by {@link #readFrom(DataInputStream)}.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(facts.size());
+        for (Fact fact : facts) {
+            out.writeByte(fact.type.ordinal());
+            out.writeByte(fact.args.length);
+            for (String arg : fact.args) {
+                out.writeUTF(arg);
+            }
+        }
+    }
+
+    /**
+     * Reads facts written by {@link #writeTo(DataOutputStream)}.
+     */
+    public static FileFacts readFrom(DataInputStream in) throws IOException {
+        FactType[] types = FactType.values();
+        FileFacts result = new FileFacts();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int typeIndex = in.readUnsignedByte();
+            if (typeIndex >= types.length) {
+                throw new IOException("Unknown fact type: " + typeIndex);
+            }
+            String[] args = new String[in.readUnsignedByte()];
+            for (int a = 0; a < args.length; a++) {
+                args[a] = in.readUTF();
+            }
+            result.facts.add(new Fact(types[typeIndex], args));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the recorded facts.
+     */
+    public List<Fact> getFacts() {
+        return Collections.unmodifiableList(facts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FileFacts other && facts.equals(other.facts);
+    }
+
+    @Override
+    public int hashCode() {
+        return facts.hashCode();
+    }
+
+    /**
+     * A single recorded mutation and its string arguments.
+     */
+    public static class Fact {
+        private final FactType type;
+        private final String[] args;
+
+        public Fact(FactType type, String... args) {
+            this.type = type;
+            this.args = args;
+        }
+
+        public FactType getType() {
+            return type;
+        }
+
+        public String[] getArgs() {
+            return args.clone();
+        }
+
+        void applyTo(GraphSink target) {
+            switch (type) {
+                case ADD_CLASS -> target.addClass(args[0]);
+                case ADD_DEPENDENCY -> target.addDependency(args[0], args[1], args[2]);
+                case ADD_METHOD_CALL -> target.addMethodCall(args[0], args[1], args[2], args[3]);
+                case CLASS_USED_BY_FRAMEWORK -> target.markClassUsedByFramework(args[0]);
+                case METHOD_USED_BY_FRAMEWORK -> target.markMethodUsedByFramework(args[0], args[1]);
+                case CLASS_USED_BY_TEST -> target.markClassUsedByTest(args[0]);
+                case METHOD_USED_BY_TEST -> target.markMethodUsedByTest(args[0], args[1]);
+                case REGISTER_METHOD -> target.registerMethod(args[0], args[1]);
+                case METHOD_USAGE -> target.markMethodUsage(args[0], args[1], MethodUsageType.valueOf(args[2]));
+                case IMPORT_USED -> target.markImportAsUsed(args[0], args[1]);
+                case BEAN_NAME -> target.registerBeanName(args[0], args[1]);
+                case TYPE_UNRESOLVED -> target.markTypeUnresolved(args[0], args[1]);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Fact other && type == other.type && Arrays.equals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Arrays.hashCode(args);
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + String.join(" ", args);
+        }
+    }
+}
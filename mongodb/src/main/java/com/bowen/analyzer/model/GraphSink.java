@@ -0,0 +1,44 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+/**
+ * Receiver for the facts produced while analyzing source files.
+ * Implemented by {@link DependencyGraph} itself, by {@link FileFacts},
+ * which records facts so they can be merged into a graph later, and by
+ * {@link ConcurrentGraphBuilder}, which many threads can write to at once.
+ */
+public interface GraphSink {
+
+    void addClass(String className);
+
+    void addDependency(String fromClass, String toClass, String label);
+
+    void addMethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod);
+
+    void markClassUsedByFramework(String className);
+
+    void markMethodUsedByFramework(String className, String methodName);
+
+    void markClassUsedByTest(String className);
+
+    void markMethodUsedByTest(String className, String methodName);
+
+    void registerMethod(String className, String methodName);
+
+    void markMethodUsage(String className, String methodName, MethodUsageType usageType);
+
+    void markImportAsUsed(String className, String importName);
+
+    void registerBeanName(String className, String beanName);
+
+    /**
+     * Records that a type name used by a class could not be resolved. Graphs ignore it;
+     * {@link FileFacts} keep it so the file is analyzed again once a class of that name appears.
+     *
+     * @param className The class using the name
+     * @param simpleName The simple name of the unresolved type
+     */
+    default void markTypeUnresolved(String className, String simpleName) {
+    }
+}
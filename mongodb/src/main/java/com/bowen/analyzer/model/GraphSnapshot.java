@@ -0,0 +1,1423 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.EdgeLabel;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable copy of a {@link DependencyGraph}, taken once the analysis is done and queried
+ * from any number of threads without locking.
+ *
+ * <p>Classes are numbered in the order of their names and methods in the order of their
+ * class and name, so both are found by binary search. Dependencies and method calls are
+ * held in compressed sparse row form in both directions, each row sorted by the class or
+ * method at the other end, and usage marks are bitsets indexed by class or method number.
+ *
+ * <p>All of it is stored in one buffer of int, byte and long sections, which is either on
+ * the heap or a file mapped into memory with {@link FileChannel#map}. In the latter case
+ * names and adjacency lists stay off the heap and are paged in by the operating system as
+ * queries touch them, so the heap only holds the objects queries return. The buffer is only
+ * read with absolute accessors after construction, and every query returns a new collection
+ * or an unmodifiable view.
+ *
+ * <p>The buffer is also the file format: {@link #write(File)} saves it as is, with a header
+ * giving the format version and the position of each section, and {@link #read(File)} or
+ * {@link #map(File)} load it without any parsing.
+ */
+public class GraphSnapshot {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int FORMAT_VERSION = 3;
+    private static final MethodUsageType[] USAGE_TYPES = MethodUsageType.values();
+
+    /**
+     * Sections of the storage, in order, with the size of their entries in bytes. Names are
+     * UTF-8 bytes indexed by offset sections, method names are numbers of distinct names, and
+     * bitsets are sections of longs.
+     */
+    private enum Section {
+        CLASS_NAME_OFFSETS(4), CLASS_NAMES(1), VERTICES(8), DECLARED_CLASSES(8),
+        NAME_OFFSETS(4), NAMES(1), METHOD_CLASSES(4), METHOD_NAMES(4),
+        OUT_OFFSETS(4), OUT_TARGETS(4), OUT_LABELS(1), OUT_COUNTS(4), IN_OFFSETS(4), IN_SOURCES(4), IN_LABELS(1),
+        CALL_OUT_OFFSETS(4), CALL_OUT_TARGETS(4), CALL_OUT_COUNTS(4), CALL_IN_OFFSETS(4), CALL_IN_SOURCES(4),
+        CLASSES_USED_BY_FRAMEWORK(8), CLASSES_USED_BY_TEST(8), METHODS_USED_BY_FRAMEWORK(8), METHODS_USED_BY_TEST(8),
+        REGISTERED_METHODS(8), CALLED_METHODS(8), FRAMEWORK_METHODS(8), TEST_METHODS(8),
+        USED_IMPORT_OFFSETS(4), USED_IMPORTS(4), UNUSED_IMPORT_OFFSETS(4), UNUSED_IMPORTS(4),
+        BEAN_CLASSES(4), BEAN_NAME_OFFSETS(4), BEAN_NAMES(1);
+
+        private final int width;
+
+        Section(int width) {
+            this.width = width;
+        }
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+
+    // Magic, version, section count, vertex count, then the offset and length of each section
+    private static final int HEADER_SIZE = 16 + 8 * SECTIONS.length;
+
+    private final ByteBuffer storage;
+    private final File file;
+    private final long modificationCount;
+
+    private final int classCount;
+    private final int vertexCount;
+    private final int methodCount;
+    private final int nameCount;
+    private final int beanCount;
+
+    private final IntBuffer classNameOffsets;
+    private final ByteBuffer classNames;
+    private final LongBuffer vertices;
+    private final LongBuffer declaredClasses;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer names;
+    private final IntBuffer methodClasses;
+    private final IntBuffer methodNames;
+
+    // Dependencies, outgoing rows sorted by target and incoming rows sorted by source
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final ByteBuffer outLabels;
+    private final IntBuffer outCounts;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+    private final ByteBuffer inLabels;
+
+    // Distinct method calls, likewise in both directions
+    private final IntBuffer callOutOffsets;
+    private final IntBuffer callOutTargets;
+    private final IntBuffer callOutCounts;
+    private final IntBuffer callInOffsets;
+    private final IntBuffer callInSources;
+
+    // Usage marks
+    private final LongBuffer classesUsedByFramework;
+    private final LongBuffer classesUsedByTest;
+    private final LongBuffer methodsUsedByFramework;
+    private final LongBuffer methodsUsedByTest;
+    private final LongBuffer registeredMethods;
+    private final LongBuffer[] methodUsages;
+
+    // Imports of each class as sorted class numbers
+    private final IntBuffer usedImportOffsets;
+    private final IntBuffer usedImports;
+    private final IntBuffer unusedImportOffsets;
+    private final IntBuffer unusedImports;
+
+    // Explicit bean names, sorted by class number
+    private final IntBuffer beanClasses;
+    private final IntBuffer beanNameOffsets;
+    private final ByteBuffer beanNames;
+
+    private GraphSnapshot(ByteBuffer storage, File file, long modificationCount) {
+        this.storage = storage;
+        this.file = file;
+        this.modificationCount = modificationCount;
+        vertexCount = storage.getInt(12);
+
+        classNameOffsets = ints(Section.CLASS_NAME_OFFSETS);
+        classNames = bytes(Section.CLASS_NAMES);
+        vertices = longs(Section.VERTICES);
+        declaredClasses = longs(Section.DECLARED_CLASSES);
+        nameOffsets = ints(Section.NAME_OFFSETS);
+        names = bytes(Section.NAMES);
+        methodClasses = ints(Section.METHOD_CLASSES);
+        methodNames = ints(Section.METHOD_NAMES);
+        outOffsets = ints(Section.OUT_OFFSETS);
+        outTargets = ints(Section.OUT_TARGETS);
+        outLabels = bytes(Section.OUT_LABELS);
+        outCounts = ints(Section.OUT_COUNTS);
+        inOffsets = ints(Section.IN_OFFSETS);
+        inSources = ints(Section.IN_SOURCES);
+        inLabels = bytes(Section.IN_LABELS);
+        callOutOffsets = ints(Section.CALL_OUT_OFFSETS);
+        callOutTargets = ints(Section.CALL_OUT_TARGETS);
+        callOutCounts = ints(Section.CALL_OUT_COUNTS);
+        callInOffsets = ints(Section.CALL_IN_OFFSETS);
+        callInSources = ints(Section.CALL_IN_SOURCES);
+        classesUsedByFramework = longs(Section.CLASSES_USED_BY_FRAMEWORK);
+        classesUsedByTest = longs(Section.CLASSES_USED_BY_TEST);
+        methodsUsedByFramework = longs(Section.METHODS_USED_BY_FRAMEWORK);
+        methodsUsedByTest = longs(Section.METHODS_USED_BY_TEST);
+        registeredMethods = longs(Section.REGISTERED_METHODS);
+        methodUsages = new LongBuffer[USAGE_TYPES.length];
+        for (MethodUsageType type : USAGE_TYPES) {
+            methodUsages[type.ordinal()] = longs(usageSection(type));
+        }
+        usedImportOffsets = ints(Section.USED_IMPORT_OFFSETS);
+        usedImports = ints(Section.USED_IMPORTS);
+        unusedImportOffsets = ints(Section.UNUSED_IMPORT_OFFSETS);
+        unusedImports = ints(Section.UNUSED_IMPORTS);
+        beanClasses = ints(Section.BEAN_CLASSES);
+        beanNameOffsets = ints(Section.BEAN_NAME_OFFSETS);
+        beanNames = bytes(Section.BEAN_NAMES);
+
+        classCount = classNameOffsets.limit() - 1;
+        nameCount = nameOffsets.limit() - 1;
+        methodCount = methodClasses.limit();
+        beanCount = beanClasses.limit();
+    }
+
+    /**
+     * Takes a snapshot of the parts of a graph, stored on the heap, or in a file mapped
+     * into memory if one is given.
+     *
+     * <p>The size of every section is known from the graph, so the storage is laid out first
+     * and each section is written into it directly. Besides the storage, the heap only holds
+     * primitive arrays with a few entries per class, method and call, which number and group
+     * them, so a mapped snapshot is built without a heap copy of its content.
+     */
+    static GraphSnapshot build(SymbolTable symbols, CompactGraph classGraph, MethodCallIndex calls,
+                               List<MethodUsage> usagesByMethodId, BitSet declaredClasses,
+                               BitSet usedClassesByFramework, BitSet usedClassesByTest,
+                               BitSet usedMethodsByFramework, BitSet usedMethodsByTest,
+                               List<Set<String>> usedImportsByClassId, List<Set<String>> unusedImportsByClassId,
+                               Map<String, String> beanNamesByClass, long modificationCount,
+                               File file) throws IOException {
+        // Number classes by name, distinct method names by themselves, then methods by class and name
+        int classCount = symbols.getClassCount();
+        int[] classOrder = sortedOrder(classCount,
+                (a, b) -> compareUtf8(symbols.getClassName(a), symbols.getClassName(b)));
+        int[] classNumbers = inverse(classOrder);
+        int nameCount = symbols.getMethodNameCount();
+        int[] nameOrder = sortedOrder(nameCount,
+                (a, b) -> compareUtf8(symbols.getDistinctMethodName(a), symbols.getDistinctMethodName(b)));
+        int[] nameNumbers = inverse(nameOrder);
+        int methodCount = symbols.getMethodCount();
+        long[] methodKeys = new long[methodCount];
+        for (int id = 0; id < methodCount; id++) {
+            methodKeys[id] = methodKey(symbols, id, classNumbers, nameNumbers);
+        }
+        // A method is identified by its class and name, so the keys are distinct
+        Arrays.sort(methodKeys);
+        int[] methodNumbers = new int[methodCount];
+        for (int id = 0; id < methodCount; id++) {
+            methodNumbers[id] = Arrays.binarySearch(methodKeys, methodKey(symbols, id, classNumbers, nameNumbers));
+        }
+
+        List<String> beanClassNames = new ArrayList<>();
+        for (String className : beanNamesByClass.keySet()) {
+            if (symbols.findClass(className) != SymbolTable.NOT_FOUND) {
+                beanClassNames.add(className);
+            }
+        }
+        beanClassNames.sort(Comparator.comparingInt(className -> classNumbers[symbols.findClass(className)]));
+        int beanCount = beanClassNames.size();
+
+        int edgeCount = classGraph.getEdgeCount();
+        int callCount = calls.size();
+        int classWords = (classCount + 63) >>> 6;
+        int methodWords = (methodCount + 63) >>> 6;
+        long[] lengths = new long[SECTIONS.length];
+        lengths[Section.CLASS_NAME_OFFSETS.ordinal()] = 4L * (classCount + 1);
+        lengths[Section.CLASS_NAMES.ordinal()] = utf8Length(classCount, symbols::getClassName);
+        lengths[Section.VERTICES.ordinal()] = 8L * classWords;
+        lengths[Section.DECLARED_CLASSES.ordinal()] = 8L * classWords;
+        lengths[Section.NAME_OFFSETS.ordinal()] = 4L * (nameCount + 1);
+        lengths[Section.NAMES.ordinal()] = utf8Length(nameCount, symbols::getDistinctMethodName);
+        lengths[Section.METHOD_CLASSES.ordinal()] = 4L * methodCount;
+        lengths[Section.METHOD_NAMES.ordinal()] = 4L * methodCount;
+        lengths[Section.OUT_OFFSETS.ordinal()] = 4L * (classCount + 1);
+        lengths[Section.OUT_TARGETS.ordinal()] = 4L * edgeCount;
+        lengths[Section.OUT_LABELS.ordinal()] = edgeCount;
+        lengths[Section.OUT_COUNTS.ordinal()] = 4L * edgeCount;
+        lengths[Section.IN_OFFSETS.ordinal()] = 4L * (classCount + 1);
+        lengths[Section.IN_SOURCES.ordinal()] = 4L * edgeCount;
+        lengths[Section.IN_LABELS.ordinal()] = edgeCount;
+        lengths[Section.CALL_OUT_OFFSETS.ordinal()] = 4L * (methodCount + 1);
+        lengths[Section.CALL_OUT_TARGETS.ordinal()] = 4L * callCount;
+        lengths[Section.CALL_OUT_COUNTS.ordinal()] = 4L * callCount;
+        lengths[Section.CALL_IN_OFFSETS.ordinal()] = 4L * (methodCount + 1);
+        lengths[Section.CALL_IN_SOURCES.ordinal()] = 4L * callCount;
+        lengths[Section.CLASSES_USED_BY_FRAMEWORK.ordinal()] = 8L * classWords;
+        lengths[Section.CLASSES_USED_BY_TEST.ordinal()] = 8L * classWords;
+        lengths[Section.METHODS_USED_BY_FRAMEWORK.ordinal()] = 8L * methodWords;
+        lengths[Section.METHODS_USED_BY_TEST.ordinal()] = 8L * methodWords;
+        lengths[Section.REGISTERED_METHODS.ordinal()] = 8L * methodWords;
+        for (MethodUsageType type : USAGE_TYPES) {
+            lengths[usageSection(type).ordinal()] = 8L * methodWords;
+        }
+        lengths[Section.USED_IMPORT_OFFSETS.ordinal()] = 4L * (classCount + 1);
+        lengths[Section.USED_IMPORTS.ordinal()] = 4L * countImports(symbols, usedImportsByClassId);
+        lengths[Section.UNUSED_IMPORT_OFFSETS.ordinal()] = 4L * (classCount + 1);
+        lengths[Section.UNUSED_IMPORTS.ordinal()] = 4L * countImports(symbols, unusedImportsByClassId);
+        lengths[Section.BEAN_CLASSES.ordinal()] = 4L * beanCount;
+        lengths[Section.BEAN_NAME_OFFSETS.ordinal()] = 4L * (beanCount + 1);
+        lengths[Section.BEAN_NAMES.ordinal()] = utf8Length(beanCount, b -> beanNamesByClass.get(beanClassNames.get(b)));
+        ByteBuffer storage = allocate(lengths, classGraph.getVertexCount(), file);
+
+        putStrings(storage, Section.CLASS_NAME_OFFSETS, Section.CLASS_NAMES, classCount,
+                c -> symbols.getClassName(classOrder[c]));
+        putStrings(storage, Section.NAME_OFFSETS, Section.NAMES, nameCount,
+                n -> symbols.getDistinctMethodName(nameOrder[n]));
+        IntBuffer methodClasses = section(storage, Section.METHOD_CLASSES).asIntBuffer();
+        IntBuffer methodNames = section(storage, Section.METHOD_NAMES).asIntBuffer();
+        for (long key : methodKeys) {
+            methodClasses.put(LongIntHashMap.high(key));
+            methodNames.put(LongIntHashMap.low(key));
+        }
+
+        // Dependencies, each row sorted by the class at the other end
+        LongBuffer vertices = section(storage, Section.VERTICES).asLongBuffer();
+        for (int v = 0; v < classGraph.getVertexCount(); v++) {
+            setBit(vertices, classNumbers[classGraph.getVertex(v)]);
+        }
+        putBits(storage, Section.DECLARED_CLASSES, declaredClasses, classNumbers);
+        IntBuffer outOffsets = section(storage, Section.OUT_OFFSETS).asIntBuffer();
+        IntBuffer outTargets = section(storage, Section.OUT_TARGETS).asIntBuffer();
+        ByteBuffer outLabels = section(storage, Section.OUT_LABELS);
+        IntBuffer outCounts = section(storage, Section.OUT_COUNTS).asIntBuffer();
+        IntBuffer inOffsets = section(storage, Section.IN_OFFSETS).asIntBuffer();
+        IntBuffer inSources = section(storage, Section.IN_SOURCES).asIntBuffer();
+        ByteBuffer inLabels = section(storage, Section.IN_LABELS);
+        long[] row = new long[16];
+        for (int c = 0; c < classCount; c++) {
+            int classId = classOrder[c];
+            outOffsets.put(outTargets.position());
+            int size = 0;
+            row = ensureCapacity(row, classGraph.outEnd(classId) - classGraph.outStart(classId));
+            for (int e = classGraph.outStart(classId); e < classGraph.outEnd(classId); e++) {
+                row[size++] = LongIntHashMap.pair(classNumbers[classGraph.getTarget(e)], e);
+            }
+            Arrays.sort(row, 0, size);
+            for (int r = 0; r < size; r++) {
+                int e = LongIntHashMap.low(row[r]);
+                outTargets.put(LongIntHashMap.high(row[r]));
+                outLabels.put((byte) classGraph.getOutLabel(e).ordinal());
+                outCounts.put(classGraph.getReferenceCount(e));
+            }
+
+            inOffsets.put(inSources.position());
+            size = 0;
+            row = ensureCapacity(row, classGraph.inEnd(classId) - classGraph.inStart(classId));
+            for (int e = classGraph.inStart(classId); e < classGraph.inEnd(classId); e++) {
+                row[size++] = LongIntHashMap.pair(classNumbers[classGraph.getSource(e)], e);
+            }
+            Arrays.sort(row, 0, size);
+            for (int r = 0; r < size; r++) {
+                inSources.put(LongIntHashMap.high(row[r]));
+                inLabels.put((byte) classGraph.getInLabel(LongIntHashMap.low(row[r])).ordinal());
+            }
+        }
+        outOffsets.put(edgeCount);
+        inOffsets.put(edgeCount);
+
+        // Method calls, likewise
+        putCalls(calls, methodNumbers, false, section(storage, Section.CALL_OUT_OFFSETS).asIntBuffer(),
+                section(storage, Section.CALL_OUT_TARGETS).asIntBuffer(),
+                section(storage, Section.CALL_OUT_COUNTS).asIntBuffer());
+        putCalls(calls, methodNumbers, true, section(storage, Section.CALL_IN_OFFSETS).asIntBuffer(),
+                section(storage, Section.CALL_IN_SOURCES).asIntBuffer(), null);
+
+        // Usage marks
+        putBits(storage, Section.CLASSES_USED_BY_FRAMEWORK, usedClassesByFramework, classNumbers);
+        putBits(storage, Section.CLASSES_USED_BY_TEST, usedClassesByTest, classNumbers);
+        putBits(storage, Section.METHODS_USED_BY_FRAMEWORK, usedMethodsByFramework, methodNumbers);
+        putBits(storage, Section.METHODS_USED_BY_TEST, usedMethodsByTest, methodNumbers);
+        LongBuffer registered = section(storage, Section.REGISTERED_METHODS).asLongBuffer();
+        LongBuffer[] usages = new LongBuffer[USAGE_TYPES.length];
+        for (MethodUsageType type : USAGE_TYPES) {
+            usages[type.ordinal()] = section(storage, usageSection(type)).asLongBuffer();
+        }
+        for (int id = 0; id < usagesByMethodId.size(); id++) {
+            MethodUsage usage = usagesByMethodId.get(id);
+            if (usage == null) {
+                continue;
+            }
+            setBit(registered, methodNumbers[id]);
+            for (MethodUsageType type : USAGE_TYPES) {
+                if (usage.hasUsage(type)) {
+                    setBit(usages[type.ordinal()], methodNumbers[id]);
+                }
+            }
+        }
+
+        // Imports, whose names are interned by the graph
+        putImports(storage, Section.USED_IMPORT_OFFSETS, Section.USED_IMPORTS, symbols, usedImportsByClassId,
+                classOrder, classNumbers);
+        putImports(storage, Section.UNUSED_IMPORT_OFFSETS, Section.UNUSED_IMPORTS, symbols, unusedImportsByClassId,
+                classOrder, classNumbers);
+
+        // Bean names
+        IntBuffer beanClasses = section(storage, Section.BEAN_CLASSES).asIntBuffer();
+        for (String className : beanClassNames) {
+            beanClasses.put(classNumbers[symbols.findClass(className)]);
+        }
+        putStrings(storage, Section.BEAN_NAME_OFFSETS, Section.BEAN_NAMES, beanCount,
+                b -> beanNamesByClass.get(beanClassNames.get(b)));
+
+        return new GraphSnapshot(storage, file, modificationCount);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(File)} into the heap.
+     *
+     * @throws IOException If the file cannot be read or is not a snapshot of this format version
+     */
+    public static GraphSnapshot read(File file) throws IOException {
+        return open(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), null, file);
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write(File)} into memory, leaving its content off
+     * the heap. The file must not change while the snapshot is in use.
+     *
+     * @throws IOException If the file cannot be mapped or is not a snapshot of this format version
+     */
+    public static GraphSnapshot map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Graph snapshot " + file + " exceeds the 2 GB a buffer can hold");
+            }
+            return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file, file);
+        }
+    }
+
+    /**
+     * Checks the header of a loaded snapshot before creating the views on its sections.
+     */
+    private static GraphSnapshot open(ByteBuffer storage, File mappedFile, File file) throws IOException {
+        if (storage.capacity() < HEADER_SIZE || storage.getInt(0) != MAGIC) {
+            throw new IOException("Not a graph snapshot file: " + file);
+        }
+        int version = storage.getInt(4);
+        if (version != FORMAT_VERSION || storage.getInt(8) != SECTIONS.length) {
+            throw new IOException("Graph snapshot " + file + " has format version " + version
+                    + ", expected " + FORMAT_VERSION);
+        }
+        for (int s = 0; s < SECTIONS.length; s++) {
+            long offset = storage.getInt(16 + 8 * s);
+            long length = storage.getInt(20 + 8 * s);
+            if (offset < HEADER_SIZE || length < 0 || offset + length > storage.capacity()) {
+                throw new IOException("Graph snapshot " + file + " is truncated or corrupt");
+            }
+        }
+        if (!sectionsFit(storage)) {
+            throw new IOException("Graph snapshot " + file + " is truncated or corrupt");
+        }
+        return new GraphSnapshot(storage, mappedFile, 0);
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing it atomically.
+     */
+    public void write(File target) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File tmp = File.createTempFile(target.getName(), ".tmp", parent);
+        try {
+            try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer content = storage.duplicate().clear();
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+    }
+
+    /* ----------  Classes and dependencies ---------- */
+
+    /**
+     * Returns the number of classes known to the snapshot, including classes that are only
+     * referenced by usage marks or imports and are not part of the class graph.
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public String getClassName(int classNumber) {
+        return string(classNameOffsets, classNames, classNumber);
+    }
+
+    /**
+     * Returns the number of a class, or {@link #NOT_FOUND}.
+     */
+    public int findClass(String className) {
+        return search(classNameOffsets, classNames, classCount, utf8(className));
+    }
+
+    /**
+     * Checks whether a class is part of the class graph.
+     */
+    public boolean containsVertex(int classNumber) {
+        return classNumber >= 0 && isSet(vertices, classNumber);
+    }
+
+    /**
+     * Checks whether a class is declared in the analyzed sources, rather than only named by
+     * a reference, such as a library class or a name that could not be resolved.
+     */
+    public boolean isDeclared(int classNumber) {
+        return classNumber >= 0 && isSet(declaredClasses, classNumber);
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return outTargets.limit();
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of a class.
+     */
+    public int outStart(int classNumber) {
+        return outOffsets.get(classNumber);
+    }
+
+    /**
+     * Returns the index after the last outgoing edge of a class.
+     */
+    public int outEnd(int classNumber) {
+        return outOffsets.get(classNumber + 1);
+    }
+
+    public int getTarget(int outEdge) {
+        return outTargets.get(outEdge);
+    }
+
+    public EdgeLabel getOutLabel(int outEdge) {
+        return EdgeLabel.fromOrdinal(outLabels.get(outEdge));
+    }
+
+    /**
+     * Returns how many times the dependency of an outgoing edge was found.
+     */
+    public int getReferenceCount(int outEdge) {
+        return outCounts.get(outEdge);
+    }
+
+    /**
+     * Returns the index of the first incoming edge of a class.
+     */
+    public int inStart(int classNumber) {
+        return inOffsets.get(classNumber);
+    }
+
+    /**
+     * Returns the index after the last incoming edge of a class.
+     */
+    public int inEnd(int classNumber) {
+        return inOffsets.get(classNumber + 1);
+    }
+
+    public int getSource(int inEdge) {
+        return inSources.get(inEdge);
+    }
+
+    public EdgeLabel getInLabel(int inEdge) {
+        return EdgeLabel.fromOrdinal(inLabels.get(inEdge));
+    }
+
+    /**
+     * Returns all classes of the class graph, in the order of their names.
+     */
+    public Set<String> getAllClasses() {
+        return new VertexSet();
+    }
+
+    /**
+     * Returns the classes a class depends on, with the label of each dependency.
+     */
+    public Map<String, String> getLabeledDependencies(String className) {
+        Map<String, String> dependencies = new LinkedHashMap<>();
+        int classNumber = findClass(className);
+        if (classNumber != NOT_FOUND) {
+            for (int e = outStart(classNumber); e < outEnd(classNumber); e++) {
+                dependencies.put(getClassName(getTarget(e)), getOutLabel(e).name());
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the classes a class depends on, with the number of times each dependency was found.
+     */
+    public Map<String, Integer> getReferenceCounts(String className) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        int classNumber = findClass(className);
+        if (classNumber != NOT_FOUND) {
+            for (int e = outStart(classNumber); e < outEnd(classNumber); e++) {
+                counts.put(getClassName(getTarget(e)), getReferenceCount(e));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the classes depending directly on a class.
+     */
+    public List<String> getDependents(String className) {
+        List<String> dependents = new ArrayList<>();
+        int classNumber = findClass(className);
+        if (classNumber != NOT_FOUND) {
+            for (int e = inStart(classNumber); e < inEnd(classNumber); e++) {
+                dependents.add(getClassName(getSource(e)));
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Checks whether any class depends directly on a class.
+     */
+    public boolean hasDependents(String className) {
+        int classNumber = findClass(className);
+        return classNumber != NOT_FOUND && inStart(classNumber) < inEnd(classNumber);
+    }
+
+    /**
+     * Finds all classes of the class graph that are neither referenced by another class
+     * nor used by the framework or by tests.
+     */
+    public Set<String> findUnusedClasses() {
+        Set<String> unused = new HashSet<>();
+        for (int c = nextSetBit(vertices, 0); c >= 0; c = nextSetBit(vertices, c + 1)) {
+            if (!isSet(classesUsedByFramework, c) && !isSet(classesUsedByTest, c) && !isReferenced(c)) {
+                unused.add(getClassName(c));
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Checks whether a class is target of a dependency making it used.
+     */
+    private boolean isReferenced(int classNumber) {
+        for (int e = inStart(classNumber); e < inEnd(classNumber); e++) {
+            if (makesUsed(getInLabel(e), getSource(e), classNumber)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an outgoing edge of a class makes its target used, by the same rule as
+     * {@link #findUnusedClasses()}.
+     */
+    public boolean makesUsed(int classNumber, int outEdge) {
+        return makesUsed(getOutLabel(outEdge), classNumber, getTarget(outEdge));
+    }
+
+    private boolean makesUsed(EdgeLabel label, int source, int target) {
+        // Consider a class used only if it's actively referenced, not just imported
+        return label.isActiveReference()
+                || label.isImport() && rowContains(usedImportOffsets, usedImports, source, target);
+    }
+
+    public boolean isClassUsedByFramework(String className) {
+        int classNumber = findClass(className);
+        return classNumber != NOT_FOUND && isClassUsedByFramework(classNumber);
+    }
+
+    public boolean isClassUsedByFramework(int classNumber) {
+        return isSet(classesUsedByFramework, classNumber);
+    }
+
+    public boolean isClassUsedByTest(String className) {
+        int classNumber = findClass(className);
+        return classNumber != NOT_FOUND && isClassUsedByTest(classNumber);
+    }
+
+    public boolean isClassUsedByTest(int classNumber) {
+        return isSet(classesUsedByTest, classNumber);
+    }
+
+    /* ----------  Imports ---------- */
+
+    public boolean isImportUsed(String className, String importName) {
+        int classNumber = findClass(className);
+        int importNumber = findClass(importName);
+        return classNumber != NOT_FOUND && importNumber != NOT_FOUND
+                && rowContains(usedImportOffsets, usedImports, classNumber, importNumber);
+    }
+
+    /**
+     * Returns the used imports of a class, in the order of their names.
+     */
+    public Set<String> getUsedImports(String className) {
+        return importNames(usedImportOffsets, usedImports, className);
+    }
+
+    /**
+     * Returns the unused imports of a class, in the order of their names.
+     */
+    public Set<String> getUnusedImports(String className) {
+        return importNames(unusedImportOffsets, unusedImports, className);
+    }
+
+    private Set<String> importNames(IntBuffer offsets, IntBuffer imports, String className) {
+        int classNumber = findClass(className);
+        if (classNumber == NOT_FOUND) {
+            return Collections.emptySet();
+        }
+        Set<String> importNames = new LinkedHashSet<>();
+        for (int i = offsets.get(classNumber); i < offsets.get(classNumber + 1); i++) {
+            importNames.add(getClassName(imports.get(i)));
+        }
+        return importNames;
+    }
+
+    /* ----------  Methods and calls ---------- */
+
+    /**
+     * Returns the number of methods known to the snapshot, including methods that are only
+     * called and were never registered.
+     */
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Returns the number of a method, or {@link #NOT_FOUND}.
+     */
+    public int findMethod(String className, String methodName) {
+        int classNumber = findClass(className);
+        int nameNumber = search(nameOffsets, names, nameCount, utf8(methodName));
+        if (classNumber == NOT_FOUND || nameNumber == NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        int low = 0;
+        int high = methodCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = methodClasses.get(middle) != classNumber
+                    ? Integer.compare(methodClasses.get(middle), classNumber)
+                    : Integer.compare(methodNames.get(middle), nameNumber);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the number of a method given as {@code className.methodName}, or {@link #NOT_FOUND}.
+     */
+    public int findMethod(String methodFullName) {
+        int lastDot = methodFullName.lastIndexOf('.');
+        return lastDot < 0 ? NOT_FOUND
+                : findMethod(methodFullName.substring(0, lastDot), methodFullName.substring(lastDot + 1));
+    }
+
+    /**
+     * Returns the number of the class declaring a method.
+     */
+    public int getMethodClass(int methodNumber) {
+        return methodClasses.get(methodNumber);
+    }
+
+    public String getMethodName(int methodNumber) {
+        return string(nameOffsets, names, methodNames.get(methodNumber));
+    }
+
+    /**
+     * Returns the name of a method as {@code className.methodName}.
+     */
+    public String getMethodFullName(int methodNumber) {
+        return getClassName(getMethodClass(methodNumber)) + "." + getMethodName(methodNumber);
+    }
+
+    /**
+     * Returns the number of distinct calls between methods.
+     */
+    public int getMethodCallCount() {
+        return callOutTargets.limit();
+    }
+
+    /**
+     * Returns the index of the first call made by a method.
+     */
+    public int callOutStart(int methodNumber) {
+        return callOutOffsets.get(methodNumber);
+    }
+
+    /**
+     * Returns the index after the last call made by a method.
+     */
+    public int callOutEnd(int methodNumber) {
+        return callOutOffsets.get(methodNumber + 1);
+    }
+
+    public int getCallee(int outCall) {
+        return callOutTargets.get(outCall);
+    }
+
+    /**
+     * Returns how many call expressions were found for an outgoing call.
+     */
+    public int getCallCount(int outCall) {
+        return callOutCounts.get(outCall);
+    }
+
+    /**
+     * Returns the index of the first call made to a method.
+     */
+    public int callInStart(int methodNumber) {
+        return callInOffsets.get(methodNumber);
+    }
+
+    /**
+     * Returns the index after the last call made to a method.
+     */
+    public int callInEnd(int methodNumber) {
+        return callInOffsets.get(methodNumber + 1);
+    }
+
+    public int getCaller(int inCall) {
+        return callInSources.get(inCall);
+    }
+
+    /**
+     * Returns all method calls, one per distinct caller and callee with the number of call
+     * expressions found, ordered by caller and callee.
+     */
+    public List<MethodCall> getAllMethodCalls() {
+        List<MethodCall> calls = new ArrayList<>(getMethodCallCount());
+        for (int caller = 0; caller < methodCount; caller++) {
+            for (int call = callOutStart(caller); call < callOutEnd(caller); call++) {
+                int callee = getCallee(call);
+                calls.add(new MethodCall(getClassName(getMethodClass(caller)), getMethodName(caller),
+                        getClassName(getMethodClass(callee)), getMethodName(callee), getCallCount(call)));
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * Checks whether a method was registered, i.e. declared or marked with a usage type.
+     */
+    public boolean isRegistered(int methodNumber) {
+        return isSet(registeredMethods, methodNumber);
+    }
+
+    public boolean hasUsage(int methodNumber, MethodUsageType usageType) {
+        return isSet(methodUsages[usageType.ordinal()], methodNumber);
+    }
+
+    public boolean isMethodUsedByFramework(int methodNumber) {
+        return isSet(methodsUsedByFramework, methodNumber);
+    }
+
+    public boolean isMethodUsedByTest(int methodNumber) {
+        return isSet(methodsUsedByTest, methodNumber);
+    }
+
+    /**
+     * Returns the usages of all registered methods, in method order. The usages are copies
+     * and may be changed by the caller.
+     */
+    public List<MethodUsage> getAllMethodUsages() {
+        List<MethodUsage> usages = new ArrayList<>();
+        for (int m = nextSetBit(registeredMethods, 0); m >= 0; m = nextSetBit(registeredMethods, m + 1)) {
+            MethodUsage usage = new MethodUsage(getClassName(getMethodClass(m)), getMethodName(m));
+            for (MethodUsageType type : USAGE_TYPES) {
+                if (hasUsage(m, type)) {
+                    usage.addUsage(type);
+                }
+            }
+            usages.add(usage);
+        }
+        return usages;
+    }
+
+    /**
+     * Finds all registered methods without any usage type.
+     */
+    public Set<String> findUnusedMethods() {
+        Set<String> unused = new HashSet<>();
+        for (int m = nextSetBit(registeredMethods, 0); m >= 0; m = nextSetBit(registeredMethods, m + 1)) {
+            if (!hasUsage(m, MethodUsageType.CALLED) && !hasUsage(m, MethodUsageType.FRAMEWORK)
+                    && !hasUsage(m, MethodUsageType.TEST)) {
+                unused.add(getMethodFullName(m));
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Returns the explicit bean names of classes, keyed by class.
+     */
+    public Map<String, String> getBeanNames() {
+        Map<String, String> beanNamesByClass = new HashMap<>();
+        for (int b = 0; b < beanCount; b++) {
+            beanNamesByClass.put(getClassName(beanClasses.get(b)), string(beanNameOffsets, beanNames, b));
+        }
+        return beanNamesByClass;
+    }
+
+    /* ----------  Storage ---------- */
+
+    /**
+     * Returns the modification count of the graph when the snapshot was taken, see
+     * {@link DependencyGraph#getModificationCount()}. Snapshots that were read from a file
+     * have a count of 0.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the size of the storage in bytes, which is on the heap unless the snapshot is
+     * mapped from a file.
+     */
+    public long getFootprint() {
+        return storage.capacity();
+    }
+
+    /**
+     * Returns the file the snapshot is mapped from, or null if it is held on the heap.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    private IntBuffer ints(Section section) {
+        return slice(section).asIntBuffer();
+    }
+
+    private LongBuffer longs(Section section) {
+        return slice(section).asLongBuffer();
+    }
+
+    private ByteBuffer bytes(Section section) {
+        return slice(section);
+    }
+
+    private ByteBuffer slice(Section section) {
+        return section(storage, section);
+    }
+
+    private static Section usageSection(MethodUsageType type) {
+        return switch (type) {
+            case CALLED -> Section.CALLED_METHODS;
+            case FRAMEWORK -> Section.FRAMEWORK_METHODS;
+            case TEST -> Section.TEST_METHODS;
+        };
+    }
+
+    /**
+     * Lays out sections of the given lengths after the header, each aligned to 8 bytes, in a
+     * heap buffer or a file mapped into memory, and writes the header. The sections are zeroed.
+     */
+    private static ByteBuffer allocate(long[] lengths, int vertexCount, File file) throws IOException {
+        long[] offsets = new long[SECTIONS.length];
+        long size = HEADER_SIZE;
+        for (int s = 0; s < SECTIONS.length; s++) {
+            size = (size + 7) & ~7L;
+            offsets[s] = size;
+            size += lengths[s];
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Graph snapshot of " + size + " bytes exceeds the 2 GB a buffer can hold");
+        }
+
+        ByteBuffer buffer;
+        if (file == null) {
+            buffer = ByteBuffer.allocate((int) size);
+        } else {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, SECTIONS.length);
+        buffer.putInt(12, vertexCount);
+        for (int s = 0; s < SECTIONS.length; s++) {
+            buffer.putInt(16 + 8 * s, (int) offsets[s]);
+            buffer.putInt(20 + 8 * s, (int) lengths[s]);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer section(ByteBuffer storage, Section section) {
+        int entry = 16 + 8 * section.ordinal();
+        return storage.slice(storage.getInt(entry), storage.getInt(entry + 4));
+    }
+
+    /**
+     * Checks that the sections of a loaded snapshot fit each other: each holds whole entries,
+     * the sections of one kind have one entry per class, method, dependency, call or bean, and
+     * offsets start at 0 and end at the length of the section they index. The entries in
+     * between are not read, so that mapping a snapshot stays cheap.
+     */
+    private static boolean sectionsFit(ByteBuffer storage) {
+        int[] entries = new int[SECTIONS.length];
+        for (Section section : SECTIONS) {
+            int length = storage.getInt(20 + 8 * section.ordinal());
+            if (length % section.width != 0) {
+                return false;
+            }
+            entries[section.ordinal()] = length / section.width;
+        }
+        int classCount = entries[Section.CLASS_NAME_OFFSETS.ordinal()] - 1;
+        int methodCount = entries[Section.METHOD_CLASSES.ordinal()];
+        int edgeCount = entries[Section.OUT_TARGETS.ordinal()];
+        int callCount = entries[Section.CALL_OUT_TARGETS.ordinal()];
+        int beanCount = entries[Section.BEAN_CLASSES.ordinal()];
+        int classWords = (classCount + 63) >>> 6;
+        int methodWords = (methodCount + 63) >>> 6;
+        int vertexCount = storage.getInt(12);
+        if (classCount < 0 || vertexCount < 0 || vertexCount > classCount) {
+            return false;
+        }
+
+        int[] expected = new int[SECTIONS.length];
+        Arrays.fill(expected, -1);
+        for (Section section : List.of(Section.CLASS_NAME_OFFSETS, Section.OUT_OFFSETS, Section.IN_OFFSETS,
+                Section.USED_IMPORT_OFFSETS, Section.UNUSED_IMPORT_OFFSETS)) {
+            expected[section.ordinal()] = classCount + 1;
+        }
+        for (Section section : List.of(Section.VERTICES, Section.DECLARED_CLASSES, Section.CLASSES_USED_BY_FRAMEWORK,
+                Section.CLASSES_USED_BY_TEST)) {
+            expected[section.ordinal()] = classWords;
+        }
+        for (Section section : List.of(Section.METHODS_USED_BY_FRAMEWORK, Section.METHODS_USED_BY_TEST,
+                Section.REGISTERED_METHODS, Section.CALLED_METHODS, Section.FRAMEWORK_METHODS, Section.TEST_METHODS)) {
+            expected[section.ordinal()] = methodWords;
+        }
+        expected[Section.METHOD_NAMES.ordinal()] = methodCount;
+        expected[Section.CALL_OUT_OFFSETS.ordinal()] = methodCount + 1;
+        expected[Section.CALL_IN_OFFSETS.ordinal()] = methodCount + 1;
+        for (Section section : List.of(Section.OUT_LABELS, Section.OUT_COUNTS, Section.IN_SOURCES, Section.IN_LABELS)) {
+            expected[section.ordinal()] = edgeCount;
+        }
+        expected[Section.CALL_OUT_COUNTS.ordinal()] = callCount;
+        expected[Section.CALL_IN_SOURCES.ordinal()] = callCount;
+        expected[Section.BEAN_NAME_OFFSETS.ordinal()] = beanCount + 1;
+        for (Section section : SECTIONS) {
+            if (expected[section.ordinal()] >= 0 && entries[section.ordinal()] != expected[section.ordinal()]) {
+                return false;
+            }
+        }
+        if (entries[Section.NAME_OFFSETS.ordinal()] < 1) {
+            return false;
+        }
+
+        return offsetsFit(storage, Section.CLASS_NAME_OFFSETS, entries[Section.CLASS_NAMES.ordinal()])
+                && offsetsFit(storage, Section.NAME_OFFSETS, entries[Section.NAMES.ordinal()])
+                && offsetsFit(storage, Section.OUT_OFFSETS, edgeCount)
+                && offsetsFit(storage, Section.IN_OFFSETS, edgeCount)
+                && offsetsFit(storage, Section.CALL_OUT_OFFSETS, callCount)
+                && offsetsFit(storage, Section.CALL_IN_OFFSETS, callCount)
+                && offsetsFit(storage, Section.USED_IMPORT_OFFSETS, entries[Section.USED_IMPORTS.ordinal()])
+                && offsetsFit(storage, Section.UNUSED_IMPORT_OFFSETS, entries[Section.UNUSED_IMPORTS.ordinal()])
+                && offsetsFit(storage, Section.BEAN_NAME_OFFSETS, entries[Section.BEAN_NAMES.ordinal()]);
+    }
+
+    private static boolean offsetsFit(ByteBuffer storage, Section offsetSection, int indexedEntries) {
+        IntBuffer offsets = section(storage, offsetSection).asIntBuffer();
+        return offsets.get(0) == 0 && offsets.get(offsets.limit() - 1) == indexedEntries;
+    }
+
+    /* ----------  Construction helpers ---------- */
+
+    private static byte[] utf8(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares strings in the order of their UTF-8 bytes, which is the order of their code points.
+     */
+    private static int compareUtf8(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int codePointA = a.codePointAt(i);
+            int codePointB = b.codePointAt(j);
+            if (codePointA != codePointB) {
+                return Integer.compare(codePointA, codePointB);
+            }
+            i += Character.charCount(codePointA);
+            j += Character.charCount(codePointB);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * Returns the total length of strings encoded as by {@link #putUtf8(ByteBuffer, String)}.
+     */
+    private static long utf8Length(int count, IntFunction<String> strings) {
+        long length = 0;
+        for (int i = 0; i < count; i++) {
+            String string = strings.apply(i);
+            for (int c = 0; c < string.length(); c++) {
+                char ch = string.charAt(c);
+                if (ch < 0x80) {
+                    length += 1;
+                } else if (ch < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(ch) && c + 1 < string.length()
+                        && Character.isLowSurrogate(string.charAt(c + 1))) {
+                    length += 4;
+                    c++;
+                } else {
+                    length += Character.isSurrogate(ch) ? 1 : 3;
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encodes a string as UTF-8 into a buffer without allocating, replacing unpaired surrogates
+     * by {@code '?'} as {@link String#getBytes} does.
+     */
+    private static void putUtf8(ByteBuffer buffer, String string) {
+        for (int c = 0; c < string.length(); c++) {
+            char ch = string.charAt(c);
+            if (ch < 0x80) {
+                buffer.put((byte) ch);
+            } else if (ch < 0x800) {
+                buffer.put((byte) (0xC0 | ch >> 6));
+                buffer.put((byte) (0x80 | ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && c + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(c + 1))) {
+                int codePoint = Character.toCodePoint(ch, string.charAt(++c));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | ch >> 12));
+                buffer.put((byte) (0x80 | ch >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | ch & 0x3F));
+            }
+        }
+    }
+
+    private static String string(IntBuffer offsets, ByteBuffer bytes, int index) {
+        int start = offsets.get(index);
+        byte[] string = new byte[offsets.get(index + 1) - start];
+        bytes.get(start, string);
+        return new String(string, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a string in a table sorted by {@link #sortedOrder(byte[][])}, or returns {@link #NOT_FOUND}.
+     */
+    private static int search(IntBuffer offsets, ByteBuffer bytes, int count, byte[] key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int start = offsets.get(middle);
+            int length = offsets.get(middle + 1) - start;
+            int order = 0;
+            for (int i = 0; i < Math.min(length, key.length) && order == 0; i++) {
+                order = Byte.compareUnsigned(bytes.get(start + i), key[i]);
+            }
+            if (order == 0) {
+                order = Integer.compare(length, key.length);
+            }
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the numbers from 0 to a count in the order a comparison gives them, sorting them
+     * as primitives.
+     */
+    private static int[] sortedOrder(int count, IntBinaryOperator comparison) {
+        int[] order = identity(count);
+        mergeSort(order, new int[count], 0, count, comparison);
+        return order;
+    }
+
+    private static void mergeSort(int[] values, int[] buffer, int from, int to, IntBinaryOperator comparison) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int value = values[i];
+                int j = i;
+                while (j > from && comparison.applyAsInt(values[j - 1], value) > 0) {
+                    values[j] = values[j - 1];
+                    j--;
+                }
+                values[j] = value;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(values, buffer, from, middle, comparison);
+        mergeSort(values, buffer, middle, to, comparison);
+        if (comparison.applyAsInt(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || left < middle && comparison.applyAsInt(buffer[left], buffer[right]) <= 0) {
+                values[i] = buffer[left++];
+            } else {
+                values[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int[] inverse(int[] order) {
+        int[] inverse = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            inverse[order[i]] = i;
+        }
+        return inverse;
+    }
+
+    private static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the key of a method by which methods are numbered: its class number, then the
+     * number of its name.
+     */
+    private static long methodKey(SymbolTable symbols, int methodId, int[] classNumbers, int[] nameNumbers) {
+        return LongIntHashMap.pair(classNumbers[symbols.getMethodClass(methodId)],
+                nameNumbers[symbols.getMethodNameId(methodId)]);
+    }
+
+    private static long[] ensureCapacity(long[] array, int size) {
+        return size <= array.length ? array : new long[Math.max(size, 2 * array.length)];
+    }
+
+    /**
+     * Stores strings as offsets and concatenated UTF-8 bytes.
+     */
+    private static void putStrings(ByteBuffer storage, Section offsetSection, Section byteSection, int count,
+                                   IntFunction<String> strings) {
+        IntBuffer offsets = section(storage, offsetSection).asIntBuffer();
+        ByteBuffer bytes = section(storage, byteSection);
+        for (int i = 0; i < count; i++) {
+            offsets.put(bytes.position());
+            putUtf8(bytes, strings.apply(i));
+        }
+        offsets.put(bytes.position());
+    }
+
+    /**
+     * Stores the calls as rows of the methods at one end, each sorted by the method at the
+     * other end. Calls are grouped by counting them per row first.
+     */
+    private static void putCalls(MethodCallIndex calls, int[] methodNumbers, boolean byCallee,
+                                 IntBuffer offsets, IntBuffer otherEnds, IntBuffer counts) {
+        int callCount = calls.size();
+        int[] rowStarts = new int[methodNumbers.length + 1];
+        for (int call = 0; call < callCount; call++) {
+            rowStarts[methodNumbers[byCallee ? calls.getCallee(call) : calls.getCaller(call)] + 1]++;
+        }
+        for (int m = 0; m < methodNumbers.length; m++) {
+            rowStarts[m + 1] += rowStarts[m];
+        }
+        int[] fill = Arrays.copyOf(rowStarts, methodNumbers.length);
+        int[] grouped = new int[callCount];
+        for (int call = 0; call < callCount; call++) {
+            grouped[fill[methodNumbers[byCallee ? calls.getCallee(call) : calls.getCaller(call)]]++] = call;
+        }
+
+        long[] row = new long[16];
+        for (int m = 0; m < methodNumbers.length; m++) {
+            offsets.put(rowStarts[m]);
+            int size = rowStarts[m + 1] - rowStarts[m];
+            row = ensureCapacity(row, size);
+            for (int r = 0; r < size; r++) {
+                int call = grouped[rowStarts[m] + r];
+                row[r] = LongIntHashMap.pair(methodNumbers[byCallee ? calls.getCaller(call) : calls.getCallee(call)], call);
+            }
+            Arrays.sort(row, 0, size);
+            for (int r = 0; r < size; r++) {
+                otherEnds.put(LongIntHashMap.high(row[r]));
+                if (counts != null) {
+                    counts.put(calls.getCount(LongIntHashMap.low(row[r])));
+                }
+            }
+        }
+        offsets.put(callCount);
+    }
+
+    /**
+     * Stores a set of IDs as a bitset of the numbers they were given.
+     */
+    private static void putBits(ByteBuffer storage, Section section, BitSet bits, int[] numbers) {
+        LongBuffer words = section(storage, section).asLongBuffer();
+        for (int id = bits.nextSetBit(0); id >= 0 && id < numbers.length; id = bits.nextSetBit(id + 1)) {
+            setBit(words, numbers[id]);
+        }
+    }
+
+    private static void setBit(LongBuffer words, int bit) {
+        int word = bit >>> 6;
+        words.put(word, words.get(word) | 1L << bit);
+    }
+
+    /**
+     * Returns how many imports of classes name a class of the symbol table.
+     */
+    private static int countImports(SymbolTable symbols, List<Set<String>> importsByClassId) {
+        int count = 0;
+        for (Set<String> imports : importsByClassId) {
+            if (imports == null) {
+                continue;
+            }
+            for (String importName : imports) {
+                if (symbols.findClass(importName) != SymbolTable.NOT_FOUND) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stores the import sets of classes as rows of sorted class numbers.
+     */
+    private static void putImports(ByteBuffer storage, Section offsetSection, Section importSection,
+                                   SymbolTable symbols, List<Set<String>> importsByClassId,
+                                   int[] classOrder, int[] classNumbers) {
+        IntBuffer offsets = section(storage, offsetSection).asIntBuffer();
+        IntBuffer imports = section(storage, importSection).asIntBuffer();
+        int[] row = new int[16];
+        for (int classId : classOrder) {
+            offsets.put(imports.position());
+            Set<String> classImports = classId < importsByClassId.size() ? importsByClassId.get(classId) : null;
+            if (classImports == null || classImports.isEmpty()) {
+                continue;
+            }
+            if (row.length < classImports.size()) {
+                row = new int[Math.max(classImports.size(), 2 * row.length)];
+            }
+            int size = 0;
+            for (String importName : classImports) {
+                int importId = symbols.findClass(importName);
+                if (importId != SymbolTable.NOT_FOUND) {
+                    row[size++] = classNumbers[importId];
+                }
+            }
+            Arrays.sort(row, 0, size);
+            imports.put(row, 0, size);
+        }
+        offsets.put(imports.position());
+    }
+
+    private static boolean rowContains(IntBuffer offsets, IntBuffer rows, int row, int value) {
+        int low = offsets.get(row);
+        int high = offsets.get(row + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = rows.get(middle);
+            if (entry < value) {
+                low = middle + 1;
+            } else if (entry > value) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSet(LongBuffer words, int bit) {
+        int word = bit >>> 6;
+        return word < words.limit() && (words.get(word) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns the first set bit from a position on, or -1.
+     */
+    private static int nextSetBit(LongBuffer words, int from) {
+        int word = from >>> 6;
+        if (word >= words.limit()) {
+            return -1;
+        }
+        long bits = words.get(word) & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.limit()) {
+                return -1;
+            }
+            bits = words.get(word);
+        }
+    }
+
+    /**
+     * Read-only view of the classes of the class graph.
+     */
+    private class VertexSet extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String className && containsVertex(findClass(className));
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next = nextSetBit(vertices, 0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String className = getClassName(next);
+                    next = nextSetBit(vertices, next + 1);
+                    return className;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return vertexCount;
+        }
+    }
+}
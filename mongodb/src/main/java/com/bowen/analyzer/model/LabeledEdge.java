@@ -1,28 +1,65 @@
 package com.bowen.analyzer.model;
 
+import com.bowen.analyzer.model.enums.EdgeLabel;
 import org.jgrapht.graph.DefaultEdge;
 
 /**
  * Represents an edge in the dependency graph with a label.
+ * Edges carry an {@link EdgeLabel} and count how often the dependency was found.
  */
 public class LabeledEdge extends DefaultEdge {
 
-    private String label;
+    private EdgeLabel type;
+    private int referenceCount = 1;
 
+    /**
+     * Creates an edge with the label of the given name; see {@link EdgeLabel#fromName(String)}.
+     */
     public LabeledEdge(String label) {
-        this.label = label;
+        setLabel(label);
+    }
+
+    public LabeledEdge(EdgeLabel type) {
+        setType(type);
+    }
+
+    LabeledEdge(EdgeLabel type, int referenceCount) {
+        setType(type);
+        this.referenceCount = referenceCount;
     }
 
     public String getLabel() {
-        return label;
+        return type.name();
     }
-    
+
     public void setLabel(String label) {
-        this.label = label;
+        this.type = EdgeLabel.fromName(label);
+    }
+
+    /**
+     * Returns the kind of the dependency.
+     */
+    public EdgeLabel getType() {
+        return type;
+    }
+
+    public void setType(EdgeLabel type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns how many times the dependency was added to the graph.
+     */
+    public int getReferenceCount() {
+        return referenceCount;
+    }
+
+    void addReferences(int count) {
+        referenceCount += count;
     }
 
     @Override
     public String toString() {
-        return label;
+        return type.name();
     }
-} 
\ No newline at end of file
+}
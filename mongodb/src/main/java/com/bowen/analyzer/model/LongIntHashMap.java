@@ -0,0 +1,161 @@
+package com.bowen.analyzer.model;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from {@code long} keys to non-negative {@code int} values,
+ * used to index pairs of IDs without boxing. Lookups and updates of existing keys
+ * allocate nothing.
+ */
+public class LongIntHashMap {
+
+    public static final int NO_VALUE = -1;
+
+    private long[] keys;
+    private int[] values;    // value + 1, 0 marking a free slot
+    private int size;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a map holding the given number of entries before it needs to grow.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Combines two IDs into a key.
+     */
+    public static long pair(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int high(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int low(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Returns the value of a key, or {@link #NO_VALUE} if the key is absent.
+     */
+    public int get(long key) {
+        return values[findSlot(key)] - 1;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     */
+    public void put(long key, int value) {
+        checkValue(value);
+        int slot = findSlot(key);
+        if (values[slot] == 0) {
+            keys[slot] = key;
+            size++;
+            values[slot] = value + 1;
+            growIfNeeded();
+        } else {
+            values[slot] = value + 1;
+        }
+    }
+
+    /**
+     * Associates a value with a key unless the key is present already, with a single lookup.
+     *
+     * @return The value already associated with the key, or {@link #NO_VALUE} if it was added
+     */
+    public int putIfAbsent(long key, int value) {
+        checkValue(value);
+        int slot = findSlot(key);
+        if (values[slot] != 0) {
+            return values[slot] - 1;
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+        size++;
+        growIfNeeded();
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes a key. Later entries of the same probe sequence move back into the freed slot,
+     * so lookups never have to skip removed entries.
+     *
+     * @return The value the key had, or {@link #NO_VALUE} if it was absent
+     */
+    public int remove(long key) {
+        int slot = findSlot(key);
+        int value = values[slot] - 1;
+        if (value == NO_VALUE) {
+            return NO_VALUE;
+        }
+        int mask = values.length - 1;
+        int free = slot;
+        for (int next = (free + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            // An entry may only move back to a slot between its home slot and its current one
+            if (((next - homeSlot(keys[next])) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = 0L;
+        values[free] = 0;
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+    }
+
+    private int homeSlot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (values.length - 1);
+    }
+
+    private int findSlot(long key) {
+        int mask = values.length - 1;
+        int slot = homeSlot(key);
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growIfNeeded() {
+        if (size * 2 <= values.length) {
+            return;
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.bowen.analyzer.model;
 
 /**
- * Represents a method call from one method to another.
+ * Represents a method call from one method to another, and how many call expressions
+ * were found for it.
  */
 public class MethodCall {
     private final String callerClass;
     private final String callerMethod;
     private final String calleeClass;
     private final String calleeMethod;
+    private final int count;
 
     public MethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod) {
+        this(callerClass, callerMethod, calleeClass, calleeMethod, 1);
+    }
+
+    public MethodCall(String callerClass, String callerMethod, String calleeClass, String calleeMethod, int count) {
         this.callerClass = callerClass;
         this.callerMethod = callerMethod;
         this.calleeClass = calleeClass;
         this.calleeMethod = calleeMethod;
+        this.count = count;
     }
 
     public String getCallerClass() {
@@ -32,6 +39,10 @@ public class MethodCall {
         return calleeMethod;
     }
 
+    public int getCount() {
+        return count;
+    }
+
     @Override
     public String toString() {
         return callerClass + "." + callerMethod + " → " + calleeClass + "." + calleeMethod;
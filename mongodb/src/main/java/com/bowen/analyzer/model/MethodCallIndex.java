@@ -0,0 +1,128 @@
+package com.bowen.analyzer.model;
+
+import java.util.Arrays;
+
+/**
+ * Multiset of calls between methods, keyed by the method IDs of a {@link SymbolTable}.
+ *
+ * <p>Each distinct pair of caller and callee is stored once, with the number of call
+ * expressions found for it, so memory grows with the distinct call edges rather than
+ * with the size of the code. Calls are numbered in order of first occurrence; the
+ * snapshot taken from the graph indexes them by caller and by callee.
+ */
+public class MethodCallIndex {
+
+    public static final int NONE = -1;
+
+    private final LongIntHashMap callsByPair = new LongIntHashMap();
+    private int size;
+
+    private int[] callers = new int[16];
+    private int[] callees = new int[16];
+    private int[] counts = new int[16];
+
+    /**
+     * Records one call expression from a method to another.
+     *
+     * @return The number of the call between both methods
+     */
+    public int add(int caller, int callee) {
+        return add(caller, callee, 1);
+    }
+
+    /**
+     * Records a number of call expressions from a method to another.
+     *
+     * @return The number of the call between both methods
+     */
+    public int add(int caller, int callee, int count) {
+        int call = callsByPair.putIfAbsent(LongIntHashMap.pair(caller, callee), size);
+        if (call != LongIntHashMap.NO_VALUE) {
+            counts[call] += count;
+            return call;
+        }
+
+        call = size++;
+        if (call == callers.length) {
+            int capacity = call * 2;
+            callers = Arrays.copyOf(callers, capacity);
+            callees = Arrays.copyOf(callees, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        callers[call] = caller;
+        callees[call] = callee;
+        counts[call] = count;
+        return call;
+    }
+
+    /**
+     * Takes back a number of call expressions from a method to another, dropping the call
+     * once none are left. The last call then takes over the number of the dropped one.
+     *
+     * @throws IllegalArgumentException If fewer call expressions were recorded
+     */
+    public void remove(int caller, int callee, int count) {
+        long key = LongIntHashMap.pair(caller, callee);
+        int call = callsByPair.get(key);
+        if (call == NONE || counts[call] < count) {
+            throw new IllegalArgumentException(count + " calls from method " + caller + " to method " + callee
+                    + " were not recorded");
+        }
+        counts[call] -= count;
+        if (counts[call] > 0) {
+            return;
+        }
+
+        callsByPair.remove(key);
+        int last = --size;
+        if (call != last) {
+            callers[call] = callers[last];
+            callees[call] = callees[last];
+            counts[call] = counts[last];
+            callsByPair.put(LongIntHashMap.pair(callers[call], callees[call]), call);
+        }
+    }
+
+    /**
+     * Returns the number of distinct calls.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCaller(int call) {
+        checkCall(call);
+        return callers[call];
+    }
+
+    public int getCallee(int call) {
+        checkCall(call);
+        return callees[call];
+    }
+
+    /**
+     * Returns how many call expressions were found for a call.
+     */
+    public int getCount(int call) {
+        checkCall(call);
+        return counts[call];
+    }
+
+    /**
+     * Returns the number of a call between two methods, or {@link #NONE} if there is none.
+     */
+    public int find(int caller, int callee) {
+        return callsByPair.get(LongIntHashMap.pair(caller, callee));
+    }
+
+    public void clear() {
+        callsByPair.clear();
+        size = 0;
+    }
+
+    private void checkCall(int call) {
+        if (call < 0 || call >= size) {
+            throw new IndexOutOfBoundsException("Unknown call " + call);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.bowen.analyzer.model;
 
 import com.bowen.analyzer.model.enums.MethodUsageType;
 
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
 
 /**
@@ -11,7 +11,7 @@ import java.util.Set;
 public class MethodUsage {
     private final String className;
     private final String methodName;
-    private final Set<MethodUsageType> usages = new HashSet<>();
+    private final Set<MethodUsageType> usages = EnumSet.noneOf(MethodUsageType.class);
 
     public MethodUsage(String className, String methodName) {
         this.className = className;
@@ -22,6 +22,10 @@ public class MethodUsage {
         usages.add(type);
     }
 
+    public void removeUsage(MethodUsageType type) {
+        usages.remove(type);
+    }
+
     public boolean hasUsage(MethodUsageType type) {
         return usages.contains(type);
     }
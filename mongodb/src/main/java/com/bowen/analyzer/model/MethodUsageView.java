@@ -0,0 +1,95 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+/**
+ * Usage types of all methods of a {@link GraphSnapshot}, as one byte per method number.
+ *
+ * <p>Each byte holds a bit per {@link MethodUsageType} ordinal and a bit marking registered
+ * methods, so the usage of a method is read without creating any object. The view is taken
+ * from a snapshot once and is as immutable as the snapshot.
+ */
+public class MethodUsageView {
+
+    private static final int REGISTERED = 1 << 7;
+    private static final int USAGES = (1 << MethodUsageType.values().length) - 1;
+
+    private final GraphSnapshot snapshot;
+    private final byte[] masks;
+
+    private MethodUsageView(GraphSnapshot snapshot, byte[] masks) {
+        this.snapshot = snapshot;
+        this.masks = masks;
+    }
+
+    /**
+     * Reads the usage types of all methods of a snapshot.
+     */
+    public static MethodUsageView of(GraphSnapshot snapshot) {
+        byte[] masks = new byte[snapshot.getMethodCount()];
+        for (int m = 0; m < masks.length; m++) {
+            int mask = snapshot.isRegistered(m) ? REGISTERED : 0;
+            for (MethodUsageType type : MethodUsageType.values()) {
+                if (snapshot.hasUsage(m, type)) {
+                    mask |= mask(type);
+                }
+            }
+            masks[m] = (byte) mask;
+        }
+        return new MethodUsageView(snapshot, masks);
+    }
+
+    /**
+     * Returns the bit of a usage type in a usage mask.
+     */
+    public static int mask(MethodUsageType type) {
+        return 1 << type.ordinal();
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getMethodCount() {
+        return masks.length;
+    }
+
+    /**
+     * Returns the number of a method given as {@code className.methodName}, or
+     * {@link GraphSnapshot#NOT_FOUND}.
+     */
+    public int findMethod(String methodFullName) {
+        return snapshot.findMethod(methodFullName);
+    }
+
+    public boolean isRegistered(int methodNumber) {
+        return (masks[methodNumber] & REGISTERED) != 0;
+    }
+
+    /**
+     * Returns the usage types of a method as bits given by {@link #mask(MethodUsageType)}.
+     */
+    public int getUsageMask(int methodNumber) {
+        return masks[methodNumber] & USAGES;
+    }
+
+    public boolean hasUsage(int methodNumber, MethodUsageType type) {
+        return (masks[methodNumber] & mask(type)) != 0;
+    }
+
+    /**
+     * Checks a usage type of a method given as {@code className.methodName}; methods not
+     * known to the snapshot have none.
+     */
+    public boolean hasUsage(String methodFullName, MethodUsageType type) {
+        int methodNumber = findMethod(methodFullName);
+        return methodNumber != GraphSnapshot.NOT_FOUND && hasUsage(methodNumber, type);
+    }
+
+    /**
+     * Checks whether a registered method has no usage type at all.
+     */
+    public boolean isUnused(int methodNumber) {
+        return isRegistered(methodNumber) && getUsageMask(methodNumber) == 0;
+    }
+}
@@ -0,0 +1,167 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.cache.FactCache;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The facts of one shard of a project, produced by a separate analysis process.
+ *
+ * <p>Each file is stored with its position in the project-wide file order. Facts replayed
+ * in that order rebuild exactly the graph a single process would have built, so partials
+ * are merged by sorting their files rather than by reconciling graphs: cross-shard edges,
+ * import usage and method usage flags end up as if the project had been analyzed at once.
+ */
+public class PartialGraph {
+
+    private static final int MAGIC = 0x50415254; // "PART"
+
+    private final int shard;
+    private final int shardCount;
+    private final int projectFileCount;
+    private final boolean syntaxOnly;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates an empty partial graph.
+     *
+     * @param shard Index of the shard, from 0
+     * @param shardCount Number of shards the project was split into
+     * @param projectFileCount Number of Java files in the whole project
+     * @param syntaxOnly Whether the facts were produced without the symbol solver
+     */
+    public PartialGraph(int shard, int shardCount, int projectFileCount, boolean syntaxOnly) {
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.projectFileCount = projectFileCount;
+        this.syntaxOnly = syntaxOnly;
+    }
+
+    /**
+     * Adds the facts of a file.
+     *
+     * @param sequence Position of the file in the project-wide file order
+     * @param relativePath Path of the file relative to the project root
+     * @param facts Facts of the file
+     */
+    public void addFile(int sequence, String relativePath, FileFacts facts) {
+        entries.add(new Entry(sequence, relativePath, facts));
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int getProjectFileCount() {
+        return projectFileCount;
+    }
+
+    public boolean isSyntaxOnly() {
+        return syntaxOnly;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Writes the partial graph to a file, replacing it atomically.
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FactCache.ANALYZER_VERSION);
+            out.writeInt(shard);
+            out.writeInt(shardCount);
+            out.writeInt(projectFileCount);
+            out.writeBoolean(syntaxOnly);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeInt(entry.sequence);
+                out.writeUTF(entry.relativePath);
+                entry.facts.writeTo(out);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a partial graph written by {@link #write(File)}.
+     *
+     * @throws IOException If the file cannot be read or was written by another analyzer version
+     */
+    public static PartialGraph read(File file) throws IOException {
+        return read(file, true);
+    }
+
+    /**
+     * Reads the shard, shard count, project file count and mode of a partial graph written by
+     * {@link #write(File)}, without its files, so that partials can be checked before their
+     * facts are loaded.
+     *
+     * @throws IOException If the file cannot be read or was written by another analyzer version
+     */
+    public static PartialGraph readHeader(File file) throws IOException {
+        return read(file, false);
+    }
+
+    private static PartialGraph read(File file, boolean withEntries) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a partial graph file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FactCache.ANALYZER_VERSION) {
+                throw new IOException("Partial graph " + file + " was written by analyzer version " + version
+                        + ", expected " + FactCache.ANALYZER_VERSION);
+            }
+            PartialGraph partial = new PartialGraph(in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+            if (withEntries) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    partial.addFile(in.readInt(), in.readUTF(), FileFacts.readFrom(in));
+                }
+            }
+            return partial;
+        }
+    }
+
+    /**
+     * The facts of one file and its position in the project.
+     */
+    public static class Entry {
+        private final int sequence;
+        private final String relativePath;
+        private final FileFacts facts;
+
+        Entry(int sequence, String relativePath, FileFacts facts) {
+            this.sequence = sequence;
+            this.relativePath = relativePath;
+            this.facts = facts;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        public FileFacts getFacts() {
+            return facts;
+        }
+    }
+}
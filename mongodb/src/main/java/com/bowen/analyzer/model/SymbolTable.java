@@ -0,0 +1,169 @@
+package com.bowen.analyzer.model;
+
+import java.util.*;
+
+/**
+ * Interns class names and method identities to dense {@code int} IDs.
+ *
+ * <p>Classes are numbered from 0 in order of first appearance, and so are methods. A method is
+ * identified by the ID of its declaring class and its name, so looking one up never concatenates
+ * strings. The names handed out are the instances that were interned first, which lets every
+ * structure keyed by the table share a single copy of each name.
+ */
+public class SymbolTable {
+
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+
+    // Distinct method names, shared by all classes declaring a method of that name
+    private final Map<String, Integer> methodNameIds = new HashMap<>();
+    private final List<String> methodNames = new ArrayList<>();
+
+    // Class ID and method name ID of each method ID
+    private int[] methodClasses = new int[16];
+    private int[] methodNameRefs = new int[16];
+    private int methodCount;
+
+    // Method IDs keyed by class ID and method name ID
+    private final LongIntHashMap methodIds = new LongIntHashMap();
+
+    /**
+     * Returns the ID of a class, assigning the next free ID if the class is new.
+     */
+    public int internClass(String className) {
+        Integer id = classIds.get(className);
+        if (id != null) {
+            return id;
+        }
+        int newId = classNames.size();
+        classNames.add(className);
+        classIds.put(className, newId);
+        return newId;
+    }
+
+    /**
+     * Returns the ID of a class, or {@link #NOT_FOUND} if it was never interned.
+     */
+    public int findClass(String className) {
+        Integer id = classIds.get(className);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    public String getClassName(int classId) {
+        return classNames.get(classId);
+    }
+
+    public int getClassCount() {
+        return classNames.size();
+    }
+
+    /**
+     * Returns the ID of a method, assigning the next free ID if the method is new.
+     */
+    public int internMethod(String className, String methodName) {
+        return internMethod(internClass(className), methodName);
+    }
+
+    /**
+     * Returns the ID of a method of an interned class, assigning the next free ID if the method is new.
+     */
+    public int internMethod(int classId, String methodName) {
+        Integer nameId = methodNameIds.get(methodName);
+        if (nameId == null) {
+            nameId = methodNames.size();
+            methodNames.add(methodName);
+            methodNameIds.put(methodName, nameId);
+        }
+        int existing = methodIds.putIfAbsent(LongIntHashMap.pair(classId, nameId), methodCount);
+        if (existing != LongIntHashMap.NO_VALUE) {
+            return existing;
+        }
+
+        int id = methodCount++;
+        if (id == methodClasses.length) {
+            methodClasses = Arrays.copyOf(methodClasses, id * 2);
+            methodNameRefs = Arrays.copyOf(methodNameRefs, id * 2);
+        }
+        methodClasses[id] = classId;
+        methodNameRefs[id] = nameId;
+        return id;
+    }
+
+    /**
+     * Returns the ID of a method, or {@link #NOT_FOUND} if it was never interned.
+     */
+    public int findMethod(String className, String methodName) {
+        Integer classId = classIds.get(className);
+        Integer nameId = methodNameIds.get(methodName);
+        if (classId == null || nameId == null) {
+            return NOT_FOUND;
+        }
+        return methodIds.get(LongIntHashMap.pair(classId, nameId));
+    }
+
+    /**
+     * Returns the ID of the class declaring a method.
+     */
+    public int getMethodClass(int methodId) {
+        checkMethod(methodId);
+        return methodClasses[methodId];
+    }
+
+    public String getMethodName(int methodId) {
+        checkMethod(methodId);
+        return methodNames.get(methodNameRefs[methodId]);
+    }
+
+    /**
+     * Returns the number of the name of a method among the distinct method names.
+     */
+    public int getMethodNameId(int methodId) {
+        checkMethod(methodId);
+        return methodNameRefs[methodId];
+    }
+
+    /**
+     * Returns a distinct method name by its number, see {@link #getMethodNameId(int)}.
+     */
+    public String getDistinctMethodName(int nameId) {
+        return methodNames.get(nameId);
+    }
+
+    /**
+     * Returns the number of distinct method names, which methods of different classes share.
+     */
+    public int getMethodNameCount() {
+        return methodNames.size();
+    }
+
+    /**
+     * Returns the {@code className.methodName} form of a method used throughout the reports.
+     */
+    public String getMethodFullName(int methodId) {
+        return getClassName(getMethodClass(methodId)) + "." + getMethodName(methodId);
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Forgets all classes and methods. IDs handed out before are no longer valid.
+     */
+    public void clear() {
+        classIds.clear();
+        classNames.clear();
+        methodNameIds.clear();
+        methodNames.clear();
+        methodCount = 0;
+        methodIds.clear();
+    }
+
+    private void checkMethod(int methodId) {
+        if (methodId < 0 || methodId >= methodCount) {
+            throw new IndexOutOfBoundsException("Unknown method ID " + methodId);
+        }
+    }
+}
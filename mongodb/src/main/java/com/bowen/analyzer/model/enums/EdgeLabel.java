@@ -0,0 +1,93 @@
+package com.bowen.analyzer.model.enums;
+
+/**
+ * The kinds of dependency between two classes, declared from weakest to strongest.
+ * When the same dependency is found several times, its edge keeps the strongest label.
+ */
+public enum EdgeLabel {
+    /**
+     * A dependency added with a label that is none of the others. It is kept in the graph
+     * but neither makes its target used nor counts as an import.
+     */
+    OTHER,
+
+    /**
+     * A type name that could not be resolved, qualified by guessing its package
+     */
+    UNRESOLVED_REFERENCE,
+
+    /**
+     * An import that is known not to be used
+     */
+    UNUSED_IMPORT,
+
+    /**
+     * A single-type or on-demand import
+     */
+    IMPORT,
+
+    /**
+     * A static import
+     */
+    STATIC_IMPORT,
+
+    /**
+     * An annotation on the class or its members
+     */
+    ANNOTATION_REFERENCE,
+
+    /**
+     * A reference inferred from names only, without the symbol solver
+     */
+    HEURISTIC_REFERENCE,
+
+    /**
+     * A reference resolved by the symbol solver
+     */
+    REFERENCE;
+
+    private static final EdgeLabel[] VALUES = values();
+
+    /**
+     * Checks whether a dependency with this label makes its target used on its own,
+     * without the import being marked as used.
+     */
+    public boolean isActiveReference() {
+        return this == REFERENCE || this == HEURISTIC_REFERENCE
+                || this == ANNOTATION_REFERENCE || this == STATIC_IMPORT;
+    }
+
+    /**
+     * Checks whether a dependency with this label is a plain import.
+     */
+    public boolean isImport() {
+        return this == IMPORT || this == UNUSED_IMPORT;
+    }
+
+    /**
+     * Returns the stronger of this label and another.
+     */
+    public EdgeLabel strongest(EdgeLabel other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+
+    /**
+     * Returns the label with the given ordinal, as stored in compact representations.
+     */
+    public static EdgeLabel fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Returns the label with the given name, or {@link #OTHER} for any other name,
+     * so that dependencies with custom labels are accepted as they always were.
+     */
+    public static EdgeLabel fromName(String name) {
+        for (EdgeLabel label : VALUES) {
+            if (label.name().equals(name)) {
+                return label;
+            }
+        }
+        return OTHER;
+    }
+}
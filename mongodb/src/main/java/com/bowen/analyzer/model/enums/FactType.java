@@ -0,0 +1,20 @@
+package com.bowen.analyzer.model.enums;
+
+/**
+ * The kinds of facts recorded by {@link com.bowen.analyzer.model.FileFacts}.
+ * Each constant corresponds to one mutation of {@link com.bowen.analyzer.model.GraphSink}.
+ */
+public enum FactType {
+    ADD_CLASS,
+    ADD_DEPENDENCY,
+    ADD_METHOD_CALL,
+    CLASS_USED_BY_FRAMEWORK,
+    METHOD_USED_BY_FRAMEWORK,
+    CLASS_USED_BY_TEST,
+    METHOD_USED_BY_TEST,
+    REGISTER_METHOD,
+    METHOD_USAGE,
+    IMPORT_USED,
+    BEAN_NAME,
+    TYPE_UNRESOLVED
+}
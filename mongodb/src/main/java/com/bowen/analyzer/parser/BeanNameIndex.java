@@ -0,0 +1,56 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.model.DependencyGraph;
+
+import java.util.*;
+
+/**
+ * Maps bean names used in EL expressions to the classes they may refer to.
+ *
+ * <p>A class is known under its explicit bean name, such as the value of {@code @Named("...")},
+ * or else under its simple name with the first letter in lower case. The index is built once
+ * from a graph and is immutable afterwards, so it can be shared by threads parsing XHTML files.
+ */
+public class BeanNameIndex {
+
+    private final Map<String, List<String>> classesByBeanName;
+
+    private BeanNameIndex(Map<String, List<String>> classesByBeanName) {
+        this.classesByBeanName = classesByBeanName;
+    }
+
+    /**
+     * Builds the index from the classes and bean names of a graph.
+     */
+    public static BeanNameIndex build(DependencyGraph graph) {
+        Map<String, String> explicitNames = graph.getBeanNames();
+        Map<String, List<String>> index = new HashMap<>();
+        for (String clazz : graph.getAllClasses()) {
+            String beanName = explicitNames.get(clazz);
+            if (beanName == null) {
+                beanName = defaultBeanName(clazz);
+            }
+            index.computeIfAbsent(beanName, k -> new ArrayList<>(1)).add(clazz);
+        }
+        index.replaceAll((beanName, classes) -> List.copyOf(classes));
+        return new BeanNameIndex(index);
+    }
+
+    /**
+     * Returns the classes known under a bean name, in the graph's class order.
+     */
+    public List<String> findClasses(String beanName) {
+        return classesByBeanName.getOrDefault(beanName, Collections.emptyList());
+    }
+
+    /**
+     * Returns the name of a bean class that does not declare one.
+     */
+    static String defaultBeanName(String className) {
+        String simpleName = className.contains(".")
+                ? className.substring(className.lastIndexOf('.') + 1)
+                : className;
+        return simpleName.isEmpty() ? simpleName
+                : simpleName.substring(0, 1).toLowerCase() + simpleName.substring(1);
+    }
+}
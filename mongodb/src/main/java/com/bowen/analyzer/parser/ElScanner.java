@@ -0,0 +1,295 @@
+package com.bowen.analyzer.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Single-pass scanner for the EL expressions and page variables of an XHTML page.
+ *
+ * <p>The page is read through a fixed-size buffer, so memory does not grow with the size of
+ * the page, only with the number of distinct names found. Outside expressions, {@code var}
+ * attributes are collected as page variables. Inside {@code #{...}} and {@code ${...}}
+ * expressions, every property chain such as {@code bean.member.next} or
+ * {@code bean.action(arg.value)} is tokenized: the first identifier of a chain is reported as
+ * a bean reference and, when followed by a property or method, the pair as a member reference.
+ * String literals, numbers, EL operators and function prefixes like {@code fn:} are skipped.
+ */
+public class ElScanner {
+
+    // EL operators and literals that cannot name a bean
+    private static final Set<String> KEYWORDS = Set.of(
+            "and", "or", "not", "eq", "ne", "lt", "gt", "le", "ge", "true", "false", "null",
+            "instanceof", "empty", "div", "mod"
+    );
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int pushedBack = -1;
+
+    private final PageReferences page = new PageReferences();
+
+    private ElScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Scans a page. The reader is not closed.
+     *
+     * @param reader The content of the page
+     * @return The page variables and references found
+     * @throws IOException If the page cannot be read
+     */
+    public static PageReferences scan(Reader reader) throws IOException {
+        ElScanner scanner = new ElScanner(reader);
+        scanner.scanMarkup();
+        return scanner.page;
+    }
+
+    private void scanMarkup() throws IOException {
+        boolean afterSpace = true;
+        int c;
+        while ((c = read()) >= 0) {
+            if ((c == '#' || c == '$') && peek() == '{') {
+                read();
+                scanExpression();
+                afterSpace = false;
+            } else if (afterSpace && c == 'v') {
+                scanVarAttribute();
+                afterSpace = false;
+            } else {
+                afterSpace = Character.isWhitespace(c);
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of a {@code var="name"} attribute after its first letter.
+     * Characters that turn out not to belong to one are left to the markup scanner.
+     */
+    private void scanVarAttribute() throws IOException {
+        if (peek() != 'a' || read() < 0 || peek() != 'r' || read() < 0) {
+            return;
+        }
+        int c = skipWhitespace();
+        if (c != '=') {
+            unread(c);
+            return;
+        }
+        int quote = skipWhitespace();
+        if (quote != '"' && quote != '\'') {
+            unread(quote);
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        while ((c = read()) >= 0 && c != quote) {
+            value.append((char) c);
+        }
+        if (value.length() > 0) {
+            page.pageVars.add(value.toString());
+        }
+    }
+
+    /**
+     * Scans an expression after its opening brace, up to the matching closing brace.
+     */
+    private void scanExpression() throws IOException {
+        int depth = 1;
+        String root = null;      // first identifier of the current chain
+        int segments = 0;        // identifiers in the current chain
+        boolean afterDot = false;
+
+        int c;
+        while ((c = read()) >= 0) {
+            if (Character.isJavaIdentifierStart(c)) {
+                String identifier = readIdentifier(c);
+                if (afterDot) {
+                    if (root != null && segments == 1) {
+                        page.memberReferences.add(new MemberReference(root, identifier));
+                    }
+                    segments++;
+                } else if (peek() == ':' && isFunctionPrefix()) {
+                    root = null;
+                } else if (KEYWORDS.contains(identifier)) {
+                    root = null;
+                } else {
+                    root = identifier;
+                    segments = 1;
+                    page.beanReferences.add(identifier);
+                }
+                afterDot = false;
+            } else if (c == '.') {
+                afterDot = true;
+            } else if (Character.isWhitespace(c)) {
+                // Spaces may separate the parts of a chain
+            } else if (Character.isDigit(c)) {
+                skipNumber();
+                root = null;
+                afterDot = false;
+            } else {
+                root = null;
+                afterDot = false;
+                if (c == '\'' || c == '"') {
+                    skipString(c);
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private String readIdentifier(int first) throws IOException {
+        StringBuilder identifier = new StringBuilder().append((char) first);
+        int c;
+        while ((c = read()) >= 0 && Character.isJavaIdentifierPart(c)) {
+            identifier.append((char) c);
+        }
+        unread(c);
+        return identifier.toString();
+    }
+
+    /**
+     * Checks, with the colon as next character, whether the identifier just read is the prefix
+     * of a function call such as {@code fn:length(...)}, and if so skips the function name.
+     * A colon followed by anything else belongs to a conditional expression.
+     */
+    private boolean isFunctionPrefix() throws IOException {
+        read();
+        int c = read();
+        if (c >= 0 && Character.isJavaIdentifierStart(c)) {
+            readIdentifier(c);
+            return true;
+        }
+        unread(c);
+        return false;
+    }
+
+    private void skipNumber() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && (Character.isLetterOrDigit(c) || c == '.')) {
+            // Digits, decimal point and exponent
+        }
+        unread(c);
+    }
+
+    private void skipString(int quote) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != quote) {
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        unread(c);
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c >= 0) {
+            pushedBack = c;
+        }
+    }
+
+    /**
+     * The page variables and the distinct references of a page, in order of first occurrence.
+     */
+    public static final class PageReferences {
+        private final Set<String> pageVars = new HashSet<>();
+        private final Set<String> beanReferences = new LinkedHashSet<>();
+        private final Set<MemberReference> memberReferences = new LinkedHashSet<>();
+
+        /**
+         * Returns the names of variables declared by {@code var} attributes anywhere on the page.
+         */
+        public Set<String> getPageVars() {
+            return pageVars;
+        }
+
+        /**
+         * Returns the first identifiers of all property chains.
+         */
+        public Set<String> getBeanReferences() {
+            return beanReferences;
+        }
+
+        /**
+         * Returns the properties and methods accessed directly on the first identifier of a chain.
+         */
+        public Set<MemberReference> getMemberReferences() {
+            return memberReferences;
+        }
+    }
+
+    /**
+     * A property or method accessed on a bean, such as {@code register} in
+     * {@code #{memberController.register}}.
+     */
+    public static final class MemberReference {
+        private final String bean;
+        private final String member;
+
+        public MemberReference(String bean, String member) {
+            this.bean = bean;
+            this.member = member;
+        }
+
+        public String getBean() {
+            return bean;
+        }
+
+        public String getMember() {
+            return member;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MemberReference other)) return false;
+            return bean.equals(other.bean) && member.equals(other.member);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bean, member);
+        }
+
+        @Override
+        public String toString() {
+            return bean + "." + member;
+        }
+    }
+}
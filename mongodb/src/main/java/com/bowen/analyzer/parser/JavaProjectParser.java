@@ -1,16 +1,29 @@
 package com.bowen.analyzer.parser;
 
+import com.bowen.analyzer.cache.FactCache;
+import com.bowen.analyzer.cache.JarIndex;
 import com.bowen.analyzer.model.DependencyGraph;
-import com.bowen.analyzer.util.CodeAnalysisUtil;
+import com.bowen.analyzer.model.FileFacts;
+import com.bowen.analyzer.model.GraphSink;
+import com.bowen.analyzer.model.PartialGraph;
+import com.bowen.analyzer.util.FactCollector;
+import com.bowen.analyzer.util.ResolutionCache;
 import com.bowen.analyzer.util.SymbolResolverUtil;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Parser for Java source code files.
@@ -18,17 +31,132 @@ import java.util.List;
 public class JavaProjectParser implements Parser {
     private final List<File> sourceRoots;
     private final File projectRoot;
+    private final int threads;
+    private int readThreads = 1;
+    private int queueCapacity = 64;
+    private final File jarIndexDir;
+    private JarIndex jarIndex;
+    private boolean syntaxOnly;
+    private final FactCache factCache;
+
+    // Each worker thread owns its parser and symbol solver
+    private ThreadLocal<JavaParser> parsers;
+
+    // Facts of every parsed file, keyed by absolute path, in the order they are merged into the graph
+    private Map<Path, FileFacts> currentFacts = new LinkedHashMap<>();
+    // Number of files in currentFacts owning each class, see FileFacts.getOwnedClasses
+    private final Map<String, Integer> ownerCounts = new HashMap<>();
 
     /**
-     * Creates a new Java project parser.
+     * Creates a new Java project parser that parses files sequentially.
      *
      * @param sourceRoots All source roots to include in parsing
      * @param projectRoot The root directory of the project
      */
     public JavaProjectParser(List<File> sourceRoots, File projectRoot) {
+        this(sourceRoots, projectRoot, 1);
+    }
+
+    /**
+     * Creates a new Java project parser.
+     *
+     * @param sourceRoots All source roots to include in parsing
+     * @param projectRoot The root directory of the project
+     * @param threads Number of worker threads used to parse files
+     */
+    public JavaProjectParser(List<File> sourceRoots, File projectRoot, int threads) {
+        this(sourceRoots, projectRoot, threads, null);
+    }
+
+    /**
+     * Creates a new Java project parser that reuses cached facts for unchanged files.
+     *
+     * @param sourceRoots All source roots to include in parsing
+     * @param projectRoot The root directory of the project
+     * @param threads Number of worker threads used to parse files
+     * @param factCache Cache of per-file facts, or null to always parse every file
+     */
+    public JavaProjectParser(List<File> sourceRoots, File projectRoot, int threads, FactCache factCache) {
+        this(sourceRoots, projectRoot, threads, factCache, null);
+    }
+
+    /**
+     * Creates a new Java project parser that reuses cached facts for unchanged files
+     * and a persistent index of the dependency JARs.
+     *
+     * @param sourceRoots All source roots to include in parsing
+     * @param projectRoot The root directory of the project
+     * @param threads Number of worker threads used to parse files
+     * @param factCache Cache of per-file facts, or null to always parse every file
+     * @param jarIndexDir Directory of the shared JAR index, or null to index JARs in memory
+     */
+    public JavaProjectParser(List<File> sourceRoots, File projectRoot, int threads, FactCache factCache,
+                             File jarIndexDir) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
         this.sourceRoots = sourceRoots;
         this.projectRoot = projectRoot;
-        SymbolResolverUtil.setupSymbolSolver(sourceRoots, projectRoot);
+        this.threads = threads;
+        this.factCache = factCache;
+
+        for (File root : sourceRoots) {
+            if (!root.exists() || !root.isDirectory()) {
+                System.out.println("Skipping non-existent or non-directory source root: " + root.getAbsolutePath());
+            }
+        }
+        this.jarIndexDir = jarIndexDir;
+    }
+
+    private ThreadLocal<JavaParser> newParsers() {
+        if (syntaxOnly) {
+            return ThreadLocal.withInitial(() -> new JavaParser(new ParserConfiguration()));
+        }
+        JarIndex index = loadJarIndex();
+        return ThreadLocal.withInitial(() ->
+                new JavaParser(SymbolResolverUtil.createParserConfiguration(sourceRoots, index)));
+    }
+
+    private JarIndex loadJarIndex() {
+        if (jarIndex == null) {
+            List<File> libraryJars = SymbolResolverUtil.findLibraryJars(projectRoot);
+            libraryJars.forEach(jar -> System.out.println("Loaded dependency: " + jar.getName()));
+            jarIndex = JarIndex.load(libraryJars, jarIndexDir);
+            if (!libraryJars.isEmpty()) {
+                System.out.println("Dependency index: " + jarIndex.size() + " classes, "
+                        + jarIndex.getLoadedJars() + " JARs from index, " + jarIndex.getIndexedJars() + " JARs scanned");
+            }
+        }
+        return jarIndex;
+    }
+
+    /**
+     * Sets whether files are analyzed from their syntax alone. Without the symbol solver,
+     * dependency JARs are not loaded and names are resolved by heuristics, which is much
+     * faster but less precise.
+     */
+    public void setSyntaxOnly(boolean syntaxOnly) {
+        this.syntaxOnly = syntaxOnly;
+    }
+
+    /**
+     * Sets the number of threads reading files ahead of the parsing threads.
+     */
+    public void setReadThreads(int readThreads) {
+        if (readThreads < 1) {
+            throw new IllegalArgumentException("Read thread count must be at least 1: " + readThreads);
+        }
+        this.readThreads = readThreads;
+    }
+
+    /**
+     * Sets how many files may wait between two stages of the parsing pipeline.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
     }
 
     private boolean isTestFile(File file) {
@@ -36,59 +164,574 @@ public class JavaProjectParser implements Parser {
         return (path.contains("/test/") || path.contains("\\test\\"))
                 && (file.getName().endsWith(".java"));
     }
+
+    /**
+     * Parses all Java files under the source roots. Files are analyzed independently,
+     * possibly in parallel, and their facts are merged into the graph in path order,
+     * so the result is identical regardless of the thread count.
+     *
+     * <p>Without a fact cache, listing, reading, parsing and merging overlap in a
+     * {@link ParsePipeline}. With one, the files are listed first and then read, hashed and,
+     * on a cache miss, parsed in the pipeline.
+     */
     @Override
     public void parseProject(DependencyGraph graph) throws IOException {
-        for (File root : sourceRoots) {
-            if (!root.exists() || !root.isDirectory()) {
-                System.out.println("Skipping non-existent or non-directory source root: " + root.getAbsolutePath());
+        parsers = newParsers();
+        ResolutionCache resolutionCache = new ResolutionCache(syntaxOnly);
+        currentFacts = new LinkedHashMap<>();
+        ownerCounts.clear();
+
+        if (factCache == null) {
+            runPipeline(this::discoverJavaFiles, (path, content) -> parseToFacts(path, content, resolutionCache),
+                    (path, facts) -> {
+                currentFacts.put(absolute(path), facts);
+                countOwners(facts, 1);
+                facts.replay(graph);
+            });
+        } else {
+            List<Path> javaFiles = findJavaFiles();
+            List<FileFacts> results = parseIncrementally(javaFiles, resolutionCache);
+            for (int i = 0; i < javaFiles.size(); i++) {
+                currentFacts.put(absolute(javaFiles.get(i)), results.get(i));
+                countOwners(results.get(i), 1);
+            }
+            replayAll(graph);
+        }
+        System.out.println("Resolution cache: " + resolutionCache.getStatistics());
+    }
+
+    /**
+     * Drops the facts kept of the parsed files once the graph no longer needs to be updated
+     * from them, for instance after it was stored off the heap. The next {@link #update} then
+     * parses the whole project.
+     */
+    public void releaseFacts() {
+        currentFacts = new LinkedHashMap<>();
+        ownerCounts.clear();
+    }
+
+    /**
+     * Re-analyzes the given files after they were created, modified or deleted, and updates
+     * the graph with their facts. Files that depend on a class declared by a changed file are
+     * re-parsed too, since their resolution results may have changed; see
+     * {@link #reparseDependents}. The result is the same as parsing the whole project again.
+     *
+     * <p>The previous facts of the re-parsed and removed files are retracted from the graph
+     * and their new facts merged, so the graph changes in proportion to these files. When an
+     * unchanged file owns facts of the same class, see {@link FileFacts#getOwnedClasses()},
+     * the graph is rebuilt from the facts of every file instead. Without facts to reuse, the
+     * graph is cleared and the whole project parsed.
+     *
+     * @param changedPaths Changed files, or directories whose files all changed; other files are ignored
+     * @param graph The dependency graph holding the results of the previous parse or update
+     * @return The number of files parsed
+     * @throws IOException If an I/O error occurs
+     */
+    public int update(Collection<Path> changedPaths, DependencyGraph graph) throws IOException {
+        if (currentFacts.isEmpty()) {
+            // Nothing to reuse, for instance after merging shards
+            graph.clear();
+            parseProject(graph);
+            return currentFacts.size();
+        }
+        Set<Path> changed = new HashSet<>();
+        boolean relist = false;
+        for (Path path : changedPaths) {
+            Path file = absolute(path);
+            changed.add(file);
+            if (currentFacts.containsKey(file)
+                    ? !Files.isRegularFile(file)
+                    : file.toString().endsWith(".java") || !Files.exists(file) || Files.isDirectory(file)) {
+                relist = true;
+            }
+        }
+
+        // Only creations and deletions change the file list
+        List<Path> javaFiles = new ArrayList<>();
+        if (relist) {
+            findJavaFiles().forEach(path -> javaFiles.add(absolute(path)));
+        } else {
+            javaFiles.addAll(currentFacts.keySet());
+        }
+
+        Set<String> affectedClasses = new HashSet<>();
+        Set<Path> remaining = new HashSet<>(currentFacts.keySet());
+        List<Path> dirty = new ArrayList<>();
+        for (Path file : javaFiles) {
+            remaining.remove(file);
+            FileFacts previous = currentFacts.get(file);
+            if (previous == null || isWithin(file, changed)) {
+                dirty.add(file);
+                if (previous != null) {
+                    affectedClasses.addAll(previous.getDeclaredClasses());
+                }
+            }
+        }
+        for (Path removed : remaining) {
+            affectedClasses.addAll(currentFacts.get(removed).getDeclaredClasses());
+        }
+
+        // Symbol solvers keep the sources they parsed, which may be stale now
+        parsers = newParsers();
+        ResolutionCache resolutionCache = new ResolutionCache(syntaxOnly);
+        Map<Path, FileFacts> updated = new HashMap<>();
+        List<FileFacts> parsed = parseFiles(dirty, resolutionCache);
+        for (int i = 0; i < dirty.size(); i++) {
+            updated.put(dirty.get(i), parsed.get(i));
+            affectedClasses.addAll(parsed.get(i).getDeclaredClasses());
+        }
+
+        FileFacts[] results = new FileFacts[javaFiles.size()];
+        boolean[] fresh = new boolean[javaFiles.size()];
+        for (int i = 0; i < results.length; i++) {
+            Path file = javaFiles.get(i);
+            fresh[i] = updated.containsKey(file);
+            results[i] = fresh[i] ? updated.get(file) : currentFacts.get(file);
+        }
+        List<Integer> dependents = reparseDependents(javaFiles, results, fresh, affectedClasses, resolutionCache);
+        for (int i : dependents) {
+            updated.put(javaFiles.get(i), results[i]);
+        }
+
+        List<FileFacts> stale = new ArrayList<>();
+        for (Path file : updated.keySet()) {
+            if (currentFacts.containsKey(file)) {
+                stale.add(currentFacts.get(file));
+            }
+        }
+        for (Path removed : remaining) {
+            stale.add(currentFacts.get(removed));
+        }
+        Map<Path, FileFacts> next = new LinkedHashMap<>();
+        List<FileFacts> merged = new ArrayList<>();
+        for (Path file : javaFiles) {
+            next.put(file, updated.getOrDefault(file, currentFacts.get(file)));
+            if (updated.containsKey(file)) {
+                merged.add(updated.get(file));
+            }
+        }
+        currentFacts = next;
+
+        stale.forEach(facts -> countOwners(facts, -1));
+        boolean shared = graph.isReleased() || ownedByOthers(stale) || ownedByOthers(merged);
+        merged.forEach(facts -> countOwners(facts, 1));
+        if (shared) {
+            graph.clear();
+            replayAll(graph);
+        } else {
+            graph.retract(stale);
+            merged.forEach(facts -> facts.replay(graph));
+        }
+
+        System.out.println("Re-parsed " + dirty.size() + " changed and " + dependents.size()
+                + " dependent files, " + remaining.size() + " removed");
+        return dirty.size() + dependents.size();
+    }
+
+    /**
+     * Parses one shard of the project. The project's files, in the order they are merged,
+     * are split into {@code shardCount} contiguous ranges of similar size so that each shard
+     * mostly covers whole packages and its symbol solver loads few sources of other shards.
+     * The fact cache is not used, since its manifest describes the whole project.
+     *
+     * @param shard Index of the shard to parse, from 0
+     * @param shardCount Number of shards
+     * @return The facts of the shard's files
+     * @throws IOException If the files cannot be listed
+     */
+    public PartialGraph parseShard(int shard, int shardCount) throws IOException {
+        if (shardCount < 1 || shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shard + " of " + shardCount);
+        }
+        List<Path> javaFiles = findJavaFiles();
+        int from = (int) ((long) javaFiles.size() * shard / shardCount);
+        int to = (int) ((long) javaFiles.size() * (shard + 1) / shardCount);
+
+        parsers = newParsers();
+        ResolutionCache resolutionCache = new ResolutionCache(syntaxOnly);
+        List<FileFacts> parsed = parseFiles(javaFiles.subList(from, to), resolutionCache);
+
+        PartialGraph partial = new PartialGraph(shard, shardCount, javaFiles.size(), syntaxOnly);
+        for (int i = from; i < to; i++) {
+            partial.addFile(i, relativePath(javaFiles.get(i)), parsed.get(i - from));
+        }
+        System.out.println("Shard " + (shard + 1) + " of " + shardCount + ": parsed " + (to - from)
+                + " of " + javaFiles.size() + " files");
+        System.out.println("Resolution cache: " + resolutionCache.getStatistics());
+        return partial;
+    }
+
+    /**
+     * Merges the shards of a project into the graph, which is expected to be empty. Files are
+     * replayed in project order, so the graph is the same as if the project had been parsed
+     * by a single parser.
+     *
+     * <p>The partials are checked from their headers first, then read and replayed one at a
+     * time in shard order, so only the facts of one shard are held in memory besides the graph.
+     * The facts are not kept afterwards; the first {@link #update} parses the whole project.
+     *
+     * @param partialFiles One partial graph file per shard, in any order
+     * @param graph The empty dependency graph to populate
+     * @throws IOException If a file cannot be read or the partials do not cover every shard
+     *                     of the same split exactly once
+     */
+    public void mergeShards(List<File> partialFiles, DependencyGraph graph) throws IOException {
+        if (partialFiles.isEmpty()) {
+            throw new IOException("No partial graphs to merge");
+        }
+        PartialGraph first = null;
+        File[] shardFiles = null;
+        for (File file : partialFiles) {
+            PartialGraph partial = PartialGraph.readHeader(file);
+            if (partial.isSyntaxOnly() != syntaxOnly) {
+                throw new IOException("Partial graph " + file + (partial.isSyntaxOnly()
+                        ? " was produced by a syntax-only analysis" : " was produced by a full analysis"));
+            }
+            if (first == null) {
+                first = partial;
+                shardFiles = new File[first.getShardCount()];
+            } else if (partial.getShardCount() != first.getShardCount()
+                    || partial.getProjectFileCount() != first.getProjectFileCount()) {
+                throw new IOException("Partial graphs come from different analyses: shard "
+                        + partial.getShard() + " of " + partial.getShardCount() + " and shard "
+                        + first.getShard() + " of " + first.getShardCount());
+            }
+            if (partial.getShard() < 0 || partial.getShard() >= shardFiles.length) {
+                throw new IOException("Invalid shard " + partial.getShard() + " of " + shardFiles.length + ": " + file);
+            }
+            if (shardFiles[partial.getShard()] != null) {
+                throw new IOException("Shard " + partial.getShard() + " appears more than once");
+            }
+            shardFiles[partial.getShard()] = file;
+        }
+        for (int shard = 0; shard < shardFiles.length; shard++) {
+            if (shardFiles[shard] == null) {
+                throw new IOException("Shard " + shard + " of " + shardFiles.length + " is missing");
+            }
+        }
+
+        // Shards cover consecutive ranges of the project's files, in order
+        currentFacts = new LinkedHashMap<>();
+        ownerCounts.clear();
+        int next = 0;
+        for (File file : shardFiles) {
+            for (PartialGraph.Entry entry : PartialGraph.read(file).getEntries()) {
+                if (entry.getSequence() != next) {
+                    throw new IOException("Partial graphs do not cover every file of the project");
+                }
+                entry.getFacts().replay(graph);
+                next++;
+            }
+        }
+        if (next != first.getProjectFileCount()) {
+            throw new IOException("Partial graphs do not cover every file of the project");
+        }
+        System.out.println("Merged " + shardFiles.length + " shards with " + next + " files");
+    }
+
+    private void countOwners(FileFacts facts, int delta) {
+        for (String className : facts.getOwnedClasses()) {
+            ownerCounts.merge(className, delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+    }
+
+    /**
+     * Checks whether a file outside the given ones owns a class they own, with the owners
+     * counted without them.
+     */
+    private boolean ownedByOthers(List<FileFacts> files) {
+        for (FileFacts facts : files) {
+            for (String className : facts.getOwnedClasses()) {
+                if (ownerCounts.containsKey(className)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void replayAll(DependencyGraph graph) {
+        for (FileFacts facts : currentFacts.values()) {
+            facts.replay(graph);
+        }
+    }
+
+    private static boolean isWithin(Path file, Set<Path> paths) {
+        for (Path path = file; path != null; path = path.getParent()) {
+            if (paths.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path absolute(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Parses the given files, returning their facts in the same order.
+     */
+    private List<FileFacts> parseFiles(List<Path> javaFiles, ResolutionCache resolutionCache) throws IOException {
+        List<FileFacts> results = new ArrayList<>(javaFiles.size());
+        if (!javaFiles.isEmpty()) {
+            runPipeline(files -> javaFiles.forEach(files), (path, content) -> parseToFacts(path, content, resolutionCache),
+                    (path, facts) -> results.add(facts));
+        }
+        return results;
+    }
+
+    /**
+     * Runs the parsing pipeline, then closes the dependency JARs the symbol solvers opened,
+     * so no file handles are kept between analyses.
+     */
+    private void runPipeline(ParsePipeline.Discovery discovery, ParsePipeline.Analyzer analyzer,
+                             ParsePipeline.Merger merger) throws IOException {
+        ParsePipeline pipeline = new ParsePipeline(readThreads, threads, queueCapacity);
+        List<ParsePipeline.StageMetrics> metrics;
+        try {
+            metrics = pipeline.run(discovery, analyzer, merger);
+        } finally {
+            closeJars();
+        }
+        System.out.println("Parsing pipeline:");
+        metrics.forEach(stage -> System.out.println("  " + stage));
+    }
+
+    private void closeJars() {
+        if (jarIndex != null) {
+            try {
+                jarIndex.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close dependency JARs: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replays cached facts for unchanged files and parses only the rest.
+     *
+     * <p>Every file goes through the pipeline once: its analysis worker hashes the bytes the
+     * load stage read, looks the key up and only parses the file on a miss, so no file is read
+     * twice to find out whether it changed.
+     *
+     * <p>Resolution results of a file depend on the declarations of other files, so
+     * a cached file is also re-parsed when it depends on a class declared, before
+     * or after the change, by a file that was added, modified or removed; see
+     * {@link #reparseDependents}. Resolution results also depend on the dependency
+     * JARs, which are part of the cache key.
+     */
+    private List<FileFacts> parseIncrementally(List<Path> javaFiles, ResolutionCache resolutionCache)
+            throws IOException {
+        String dependencies = syntaxOnly ? "syntax-only" : FactCache.fingerprintOf(jarIndex.getJars());
+        Map<String, String> previous = factCache.loadManifest(projectRoot);
+        Map<String, String> manifest = new LinkedHashMap<>();
+        Set<String> affectedClasses = new HashSet<>();
+
+        FileFacts[] results = new FileFacts[javaFiles.size()];
+        String[] keys = new String[javaFiles.size()];
+        boolean[] hits = new boolean[javaFiles.size()];
+        Map<Path, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < javaFiles.size(); i++) {
+            indexes.put(javaFiles.get(i), i);
+        }
+        runPipeline(files -> javaFiles.forEach(files), (path, content) -> {
+            int i = indexes.get(path);
+            keys[i] = factCache.computeKey(dependencies, relativePath(path), content);
+            FileFacts cached = factCache.peek(keys[i]);
+            hits[i] = cached != null;
+            return hits[i] ? cached : parseToFacts(path, content, resolutionCache);
+        }, (path, facts) -> results[indexes.get(path)] = facts);
+
+        boolean[] fresh = new boolean[javaFiles.size()];
+        List<Integer> dirty = new ArrayList<>();
+        int unreadable = 0;
+        for (int i = 0; i < javaFiles.size(); i++) {
+            if (keys[i] == null) {
+                // Reported by the pipeline and analyzed as empty; left out of the manifest
+                fresh[i] = true;
+                unreadable++;
                 continue;
             }
+            String relativePath = relativePath(javaFiles.get(i));
+            manifest.put(relativePath, keys[i]);
+
+            // A file whose key changed was either parsed now or replayed from an entry for the same content
+            String previousKey = previous.remove(relativePath);
+            if (!keys[i].equals(previousKey)) {
+                fresh[i] = true;
+                collectDeclaredClasses(previousKey, affectedClasses);
+            }
+            if (!hits[i]) {
+                dirty.add(i);
+                fresh[i] = true;
+            }
+            if (fresh[i]) {
+                affectedClasses.addAll(results[i].getDeclaredClasses());
+            }
+        }
 
-            Files.walk(root.toPath())
-                    .filter(p -> p.toString().endsWith(".java"))
-                    .forEach(path -> {
-                        try {
-                            File javaFile = path.toFile();
-                            boolean isTestCode = isTestFile(javaFile);
-                            parseJavaFile(javaFile, graph, isTestCode);
-                        } catch (Exception e) {
-                            System.out.println("Error parsing file: " + path + " Error: " + e.getMessage());
-                        }
-                    });
+        // Files removed since the previous run
+        for (String previousKey : previous.values()) {
+            collectDeclaredClasses(previousKey, affectedClasses);
         }
+
+        // Cached files that depend on a class whose declaration changed
+        List<Integer> invalidated = reparseDependents(javaFiles, results, fresh, affectedClasses, resolutionCache);
+
+        for (List<Integer> parsed : List.of(dirty, invalidated)) {
+            for (int i : parsed) {
+                factCache.store(keys[i], results[i]);
+            }
+        }
+        // Entries re-parsed because of changed dependencies were not usable either
+        int misses = dirty.size() + unreadable + invalidated.size();
+        factCache.recordLookups(results.length - misses, misses);
+        factCache.saveManifest(projectRoot, manifest);
+        System.out.println("Analysis cache: " + factCache.getHits() + " hits, "
+                + factCache.getMisses() + " misses, "
+                + invalidated.size() + " re-parsed because of changed dependencies");
+
+        return Arrays.asList(results);
     }
 
     /**
-     * Parses a single Java file and updates the dependency graph.
-     * Using Static Java Parser from github.javaparser;
+     * Re-parses the files that are not fresh and depend on one of the affected classes,
+     * as decided by {@link FileFacts#dependsOnAny}. A re-parsed file whose facts changed
+     * may in turn change how files depending on it resolve, so its declared classes become
+     * the affected classes of another round, until no round changes any facts.
      *
-     * @param javaFile The Java file to parse
-     * @param graph The dependency graph to update
-     * @param isTestCode Whether the file is for test code
-     * @throws IOException If an I/O error occurs
+     * @param javaFiles All files of the project
+     * @param results The current facts of every file, updated in place
+     * @param fresh Which files are known to be up to date, updated in place
+     * @param affectedClasses Classes whose declaration changed
+     * @param resolutionCache The run-wide type resolution cache
+     * @return The indexes of the re-parsed files
+     */
+    private List<Integer> reparseDependents(List<Path> javaFiles, FileFacts[] results, boolean[] fresh,
+                                            Set<String> affectedClasses, ResolutionCache resolutionCache)
+            throws IOException {
+        List<Integer> reparsed = new ArrayList<>();
+        Set<String> affected = affectedClasses;
+        while (!affected.isEmpty()) {
+            Set<String> simpleNames = FileFacts.simpleNamesOf(affected);
+            List<Integer> round = new ArrayList<>();
+            for (int i = 0; i < results.length; i++) {
+                if (!fresh[i] && results[i].dependsOnAny(affected, simpleNames)) {
+                    round.add(i);
+                }
+            }
+
+            FileFacts[] before = new FileFacts[round.size()];
+            for (int n = 0; n < round.size(); n++) {
+                before[n] = results[round.get(n)];
+            }
+            parseInto(javaFiles, round, results, resolutionCache);
+
+            affected = new HashSet<>();
+            for (int n = 0; n < round.size(); n++) {
+                int i = round.get(n);
+                fresh[i] = true;
+                if (!results[i].equals(before[n])) {
+                    affected.addAll(results[i].getDeclaredClasses());
+                }
+            }
+            reparsed.addAll(round);
+        }
+        return reparsed;
+    }
+
+    private void parseInto(List<Path> javaFiles, List<Integer> indexes, FileFacts[] results,
+                           ResolutionCache resolutionCache) throws IOException {
+        List<Path> paths = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            paths.add(javaFiles.get(i));
+        }
+        List<FileFacts> parsed = parseFiles(paths, resolutionCache);
+        for (int n = 0; n < indexes.size(); n++) {
+            results[indexes.get(n)] = parsed.get(n);
+        }
+    }
+
+    private void collectDeclaredClasses(String key, Set<String> classes) {
+        if (key == null) {
+            return;
+        }
+        FileFacts facts = factCache.peek(key);
+        if (facts != null) {
+            classes.addAll(facts.getDeclaredClasses());
+        }
+    }
+
+    private String relativePath(Path path) {
+        return projectRoot.toPath().toAbsolutePath().normalize()
+                .relativize(path.toAbsolutePath().normalize())
+                .toString().replace('\\', '/');
+    }
+
+    /**
+     * Lists the Java files under all existing source roots, sorted by path within each root.
      */
-    private void parseJavaFile(File javaFile, DependencyGraph graph, boolean isTestCode) throws IOException {
-        CompilationUnit cu = StaticJavaParser.parse(javaFile);
-        String packageName = cu.getPackageDeclaration()
-                .map(pd -> pd.getNameAsString())
-                .orElse("");
+    private List<Path> findJavaFiles() throws IOException {
+        List<Path> javaFiles = new ArrayList<>();
+        discoverJavaFiles(javaFiles::add);
+        return javaFiles;
+    }
 
-        // Find and process all class or interface declarations
-        cu.findAll(ClassOrInterfaceDeclaration.class).forEach(clazz -> {
-            String className = packageName.isEmpty() ? clazz.getNameAsString()
-                    : packageName + "." + clazz.getNameAsString();
-            graph.addClass(className);
+    /**
+     * Reports the Java files under all existing source roots, sorted by path within each root.
+     * Each root is listed completely before its first file is reported.
+     */
+    private void discoverJavaFiles(Consumer<Path> files) throws IOException {
+        for (File root : sourceRoots) {
+            // Missing roots were reported once by the constructor
+            if (!root.isDirectory()) {
+                continue;
+            }
 
-            if (isTestCode) {
-                graph.markClassUsedByTest(className);
+            try (Stream<Path> paths = Files.walk(root.toPath())) {
+                paths.filter(p -> p.toString().endsWith(".java"))
+                        .sorted()
+                        .collect(Collectors.toList())
+                        .forEach(files);
             }
+        }
+    }
+
+    /**
+     * Parses a single file into its own fact list. Errors are reported and yield an empty list.
+     */
+    private FileFacts parseToFacts(Path path, byte[] content, ResolutionCache resolutionCache) {
+        FileFacts facts = new FileFacts();
+        try {
+            File javaFile = path.toFile();
+            boolean isTestCode = isTestFile(javaFile);
+            parseJavaFile(javaFile, content, facts, isTestCode, resolutionCache);
+        } catch (Exception e) {
+            System.out.println("Error parsing file: " + path + " Error: " + e.getMessage());
+        }
+        return facts;
+    }
+
+    /**
+     * Parses a single Java file and reports its facts to the given sink.
+     * Uses the calling thread's own {@link JavaParser}.
+     *
+     * @param javaFile The Java file to parse
+     * @param content The content of the file
+     * @param graph The sink receiving the file's facts
+     * @param isTestCode Whether the file is for test code
+     * @param resolutionCache The run-wide type resolution cache
+     */
+    private void parseJavaFile(File javaFile, byte[] content, GraphSink graph, boolean isTestCode,
+                               ResolutionCache resolutionCache) {
+        JavaParser parser = parsers.get();
+        ParseResult<CompilationUnit> result = parser.parse(new ByteArrayInputStream(content));
+        CompilationUnit cu = result.getResult()
+                .filter(unit -> result.isSuccessful())
+                .orElseThrow(() -> new ParseProblemException(result.getProblems()));
+        cu.setStorage(javaFile.toPath(), parser.getParserConfiguration().getCharacterEncoding());
 
-            // Process class elements and update the dependency graph
-            CodeAnalysisUtil.processClassAnnotations(clazz, className, graph);
-            CodeAnalysisUtil.processImports(cu, className, graph);
-            CodeAnalysisUtil.processTypeReferences(cu, packageName, className, graph);
-            CodeAnalysisUtil.processMethodCalls(cu, className, graph, isTestCode);
-            CodeAnalysisUtil.processMethodDeclarations(clazz, className, graph);
-        });
+        FactCollector.collect(cu, graph, isTestCode, resolutionCache);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,379 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.model.FileFacts;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Staged pipeline turning source files into facts.
+ *
+ * <p>Files flow through four stages connected by bounded queues: discovery lists the files,
+ * loading reads their bytes, analysis parses and resolves them, and a single merge stage on
+ * the calling thread receives the results in discovery order. A full queue blocks the stage
+ * feeding it, so a slow stage holds back the ones before it instead of buffering the whole
+ * project in memory. Parsing and symbol resolution share a stage because resolution uses the
+ * symbol solver of the thread that parsed the file.
+ *
+ * <p>Results reach the merge stage out of order and wait there for their predecessors. The
+ * number of files between discovery and merge is bounded, so a slow file holds back discovery
+ * instead of letting the waiting results grow. A worker failing on a file, even with an
+ * {@link Error}, passes the failure on to the merge stage, which stops the pipeline.
+ *
+ * <p>Each stage records how many files it handled, how long its workers were busy and how
+ * long they waited for input or for room in the next queue.
+ */
+public class ParsePipeline {
+
+    private final int loadThreads;
+    private final int analyzeThreads;
+    private final int queueCapacity;
+
+    /**
+     * Lists the files to process, in the order their results should be merged.
+     */
+    @FunctionalInterface
+    public interface Discovery {
+        void discover(Consumer<Path> files) throws IOException;
+    }
+
+    /**
+     * Turns the content of one file into its facts. Called concurrently from analysis workers.
+     */
+    @FunctionalInterface
+    public interface Analyzer {
+        FileFacts analyze(Path path, byte[] content);
+    }
+
+    /**
+     * Receives the facts of each file, in discovery order, on the thread running the pipeline.
+     */
+    @FunctionalInterface
+    public interface Merger {
+        void merge(Path path, FileFacts facts);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param loadThreads Number of workers reading files
+     * @param analyzeThreads Number of workers parsing and resolving files
+     * @param queueCapacity Maximum number of files waiting between two stages
+     */
+    public ParsePipeline(int loadThreads, int analyzeThreads, int queueCapacity) {
+        if (loadThreads < 1 || analyzeThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Pipeline threads and queue capacity must be at least 1: "
+                    + loadThreads + ", " + analyzeThreads + ", " + queueCapacity);
+        }
+        this.loadThreads = loadThreads;
+        this.analyzeThreads = analyzeThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Runs all stages until every discovered file has been merged.
+     *
+     * @param discovery Lists the files
+     * @param analyzer Produces the facts of a file; failures should be reported as empty facts
+     * @param merger Receives the facts in discovery order
+     * @return Metrics of the stages
+     * @throws IOException If discovery fails, a file cannot be analyzed or the pipeline is interrupted
+     */
+    public List<StageMetrics> run(Discovery discovery, Analyzer analyzer, Merger merger) throws IOException {
+        StageMetrics discoverMetrics = new StageMetrics("discover", 1);
+        StageMetrics loadMetrics = new StageMetrics("load", loadThreads);
+        StageMetrics analyzeMetrics = new StageMetrics("analyze", analyzeThreads);
+        StageMetrics mergeMetrics = new StageMetrics("merge", 1);
+
+        BlockingQueue<Item> paths = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> loaded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> analyzed = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger activeLoaders = new AtomicInteger(loadThreads);
+        AtomicInteger activeAnalyzers = new AtomicInteger(analyzeThreads);
+        // Every file in a queue or a worker, plus as many results waiting for their predecessors
+        Semaphore inFlight = new Semaphore(2 * (3 * queueCapacity + loadThreads + analyzeThreads));
+
+        ExecutorService executor = Executors.newFixedThreadPool(1 + loadThreads + analyzeThreads);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            workers.add(executor.submit(() -> {
+                int[] sequence = {0};
+                long start = System.nanoTime();
+                try {
+                    discovery.discover(path -> {
+                        try {
+                            acquire(inFlight, discoverMetrics);
+                            discoverMetrics.counted();
+                            put(paths, new Item(sequence[0]++, path, null, null), discoverMetrics);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while listing files", e);
+                        }
+                    });
+                } finally {
+                    discoverMetrics.busy(System.nanoTime() - start - discoverMetrics.outputWaitNanos.sum());
+                    for (int i = 0; i < loadThreads; i++) {
+                        put(paths, Item.END, discoverMetrics);
+                    }
+                }
+                return null;
+            }));
+
+            for (int i = 0; i < loadThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    try {
+                        Item item;
+                        while ((item = take(paths, loadMetrics)) != Item.END) {
+                            long start = System.nanoTime();
+                            Item result;
+                            try {
+                                result = new Item(item.sequence, item.path, read(item.path), null);
+                            } catch (Throwable t) {
+                                result = Item.failed(item, t);
+                            }
+                            loadMetrics.processed(System.nanoTime() - start);
+                            put(loaded, result, loadMetrics);
+                        }
+                    } finally {
+                        if (activeLoaders.decrementAndGet() == 0) {
+                            for (int n = 0; n < analyzeThreads; n++) {
+                                put(loaded, Item.END, loadMetrics);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < analyzeThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    try {
+                        Item item;
+                        while ((item = take(loaded, analyzeMetrics)) != Item.END) {
+                            long start = System.nanoTime();
+                            Item result = item;
+                            if (item.failure == null) {
+                                try {
+                                    FileFacts facts = item.content == null
+                                            ? new FileFacts()
+                                            : analyzer.analyze(item.path, item.content);
+                                    result = new Item(item.sequence, item.path, null, facts);
+                                } catch (Throwable t) {
+                                    result = Item.failed(item, t);
+                                }
+                            }
+                            analyzeMetrics.processed(System.nanoTime() - start);
+                            put(analyzed, result, analyzeMetrics);
+                        }
+                    } finally {
+                        if (activeAnalyzers.decrementAndGet() == 0) {
+                            put(analyzed, Item.END, analyzeMetrics);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // Results arrive out of order; hold them back until their predecessors are merged
+            Map<Integer, Item> pending = new HashMap<>();
+            int next = 0;
+            Item item;
+            while ((item = take(analyzed, mergeMetrics)) != Item.END) {
+                if (item.failure != null) {
+                    throw new IOException("Failed to analyze file: " + item.path, item.failure);
+                }
+                pending.put(item.sequence, item);
+                while ((item = pending.remove(next)) != null) {
+                    long start = System.nanoTime();
+                    merger.merge(item.path, item.facts);
+                    mergeMetrics.processed(System.nanoTime() - start);
+                    inFlight.release();
+                    next++;
+                }
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing project", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to parse project", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<StageMetrics> metrics = List.of(discoverMetrics, loadMetrics, analyzeMetrics, mergeMetrics);
+        long end = System.nanoTime();
+        metrics.forEach(stage -> stage.pipelineEndNanos = end);
+        return metrics;
+    }
+
+    private static byte[] read(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + path + " Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void put(BlockingQueue<Item> queue, Item item, StageMetrics producer) throws InterruptedException {
+        if (!queue.offer(item)) {
+            long start = System.nanoTime();
+            queue.put(item);
+            producer.blockedOnOutput(System.nanoTime() - start);
+        }
+    }
+
+    private static void acquire(Semaphore permits, StageMetrics producer) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            permits.acquire();
+            producer.blockedOnOutput(System.nanoTime() - start);
+        }
+    }
+
+    private static Item take(BlockingQueue<Item> queue, StageMetrics consumer) throws InterruptedException {
+        consumer.sampleQueue(queue.size());
+        Item item = queue.poll();
+        if (item == null) {
+            long start = System.nanoTime();
+            item = queue.take();
+            consumer.waitedForInput(System.nanoTime() - start);
+        }
+        return item;
+    }
+
+    /**
+     * A file moving through the pipeline. Later stages fill in the content and the facts,
+     * or the failure that stopped a stage from handling the file.
+     */
+    private static final class Item {
+        static final Item END = new Item(-1, null, null, null);
+
+        final int sequence;
+        final Path path;
+        final byte[] content;
+        final FileFacts facts;
+        final Throwable failure;
+
+        Item(int sequence, Path path, byte[] content, FileFacts facts) {
+            this(sequence, path, content, facts, null);
+        }
+
+        private Item(int sequence, Path path, byte[] content, FileFacts facts, Throwable failure) {
+            this.sequence = sequence;
+            this.path = path;
+            this.content = content;
+            this.facts = facts;
+            this.failure = failure;
+        }
+
+        static Item failed(Item item, Throwable failure) {
+            return new Item(item.sequence, item.path, null, null, failure);
+        }
+    }
+
+    /**
+     * Counters of one pipeline stage. Times are summed over all workers of the stage.
+     */
+    public static final class StageMetrics {
+        private final String name;
+        private final int workers;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong endNanos = new AtomicLong();
+        private final LongAdder items = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder inputWaitNanos = new LongAdder();
+        private final LongAdder outputWaitNanos = new LongAdder();
+        private final LongAdder queueSamples = new LongAdder();
+        private final LongAdder queueDepthSum = new LongAdder();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private long pipelineEndNanos;
+
+        StageMetrics(String name, int workers) {
+            this.name = name;
+            this.workers = workers;
+        }
+
+        void processed(long nanos) {
+            counted();
+            busyNanos.add(nanos);
+        }
+
+        void counted() {
+            items.increment();
+            endNanos.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        void busy(long nanos) {
+            busyNanos.add(nanos);
+        }
+
+        void waitedForInput(long nanos) {
+            inputWaitNanos.add(nanos);
+        }
+
+        void blockedOnOutput(long nanos) {
+            outputWaitNanos.add(nanos);
+        }
+
+        void sampleQueue(int depth) {
+            queueSamples.increment();
+            queueDepthSum.add(depth);
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getItems() {
+            return items.sum();
+        }
+
+        /**
+         * Returns the largest number of files seen waiting in the stage's input queue.
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        /**
+         * Returns a one-line summary: files handled, throughput until the stage's last file,
+         * the share of worker time over the whole run spent busy, waiting for input and
+         * blocked by a full output queue, and the input queue depth.
+         */
+        @Override
+        public String toString() {
+            long activeNanos = Math.max(1, endNanos.get() - startNanos);
+            double workerNanos = (double) Math.max(1, pipelineEndNanos - startNanos) * workers;
+            long samples = Math.max(1, queueSamples.sum());
+            return String.format("%-8s %2d workers %6d files %9.1f files/s  busy %3.0f%%  starved %3.0f%%"
+                            + "  blocked %3.0f%%  queue avg %.1f max %d",
+                    name, workers, items.sum(), items.sum() * 1e9 / activeNanos,
+                    100 * busyNanos.sum() / workerNanos,
+                    100 * inputWaitNanos.sum() / workerNanos,
+                    100 * outputWaitNanos.sum() / workerNanos,
+                    (double) queueDepthSum.sum() / samples, maxQueueDepth.get());
+        }
+    }
+}
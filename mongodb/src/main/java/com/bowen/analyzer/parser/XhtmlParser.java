@@ -1,14 +1,23 @@
 package com.bowen.analyzer.parser;
 
 import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.FileFacts;
+import com.bowen.analyzer.model.GraphSink;
 import com.bowen.analyzer.model.enums.MethodUsageType;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Parser for XHTML files to detect JSF and EL expressions.
@@ -24,8 +33,8 @@ public class XhtmlParser implements Parser {
             "requestScope", "sessionScope", "applicationScope", "flashScope", "viewScope"
     );
 
-    // Page-local variables used in dataTable or other loops
-    private final Set<String> pageVars = new HashSet<>();
+    // Number of threads scanning pages
+    private int threads = 1;
 
     /**
      * Creates a new XHTML parser.
@@ -38,126 +47,223 @@ public class XhtmlParser implements Parser {
         this.webappDir = webappDir;
     }
 
+    /**
+     * Sets the number of threads scanning pages.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Scans all pages and merges their bean and method references into the given graph,
+     * which may differ from the graph this parser was created with.
+     */
     @Override
     public void parseProject(DependencyGraph graph) throws IOException {
-        if (!webappDir.exists() || !webappDir.isDirectory()) {
-            System.out.println("Webapp directory does not exist or is not a directory: " + webappDir.getAbsolutePath());
-            return;
-        }
-
-        Files.walk(webappDir.toPath())
-                .filter(p -> p.toString().endsWith(".xhtml"))
-                .forEach(path -> {
-                    try {
-                        parseXhtmlFile(path.toFile());
-                    } catch (IOException e) {
-                        System.out.println("Error parsing XHTML file: " + path + " Error: " + e.getMessage());
-                    }
-                });
+        mergePages(scanPages(), graph);
     }
 
     /**
-     * Parses a single XHTML file and updates the dependency graph.
+     * Scans all pages, possibly in parallel, without touching the graph. Each page is scanned
+     * with its own state, so page variables never leak from one page to another. Since the
+     * results do not depend on the classes of the project, pages can be scanned while Java
+     * files are still being parsed.
      *
-     * @param xhtmlFile The XHTML file to parse
-     * @throws IOException If an I/O error occurs
+     * @return The scanned pages, sorted by path
+     * @throws IOException If the pages cannot be listed
      */
-    private void parseXhtmlFile(File xhtmlFile) throws IOException {
-        String content = Files.readString(xhtmlFile.toPath());
+    public List<ScannedPage> scanPages() throws IOException {
+        return rescanPages(Collections.emptyList(), null);
+    }
+
+    /**
+     * Scans the pages that changed since an earlier scan and reuses the results of the others,
+     * which is possible because the results of a page depend on that page only.
+     *
+     * @param previous Pages returned by an earlier scan of the same directory
+     * @param changedPaths Files or directories that changed since, or null to scan every page
+     * @return The scanned pages, sorted by path
+     * @throws IOException If the pages cannot be listed
+     */
+    public List<ScannedPage> rescanPages(List<ScannedPage> previous, Collection<Path> changedPaths)
+            throws IOException {
+        if (!webappDir.exists() || !webappDir.isDirectory()) {
+            System.out.println("Webapp directory does not exist or is not a directory: " + webappDir.getAbsolutePath());
+            return Collections.emptyList();
+        }
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(webappDir.toPath())) {
+            files = paths.filter(p -> p.toString().endsWith(".xhtml")).sorted().collect(Collectors.toList());
+        }
+
+        Map<Path, ScannedPage> reusable = new HashMap<>();
+        if (changedPaths != null) {
+            Set<Path> changed = new HashSet<>();
+            changedPaths.forEach(path -> changed.add(absolute(path)));
+            for (ScannedPage page : previous) {
+                if (!isWithin(absolute(page.getPath()), changed)) {
+                    reusable.put(absolute(page.getPath()), page);
+                }
+            }
+        }
+
+        ScannedPage[] pages = new ScannedPage[files.size()];
+        List<Integer> stale = new ArrayList<>();
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = reusable.get(absolute(files.get(i)));
+            if (pages[i] == null) {
+                stale.add(i);
+            }
+        }
+        if (changedPaths != null) {
+            System.out.println("Rescanning " + stale.size() + " of " + files.size() + " XHTML pages");
+        }
+
+        if (threads == 1 || stale.size() < 2) {
+            for (int i : stale) {
+                pages[i] = scanPage(files.get(i));
+            }
+            return Arrays.asList(pages);
+        }
 
-        // First, find page-local variables to avoid false positives
-        findPageVars(content);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, stale.size()));
+        try {
+            List<Future<ScannedPage>> futures = new ArrayList<>(stale.size());
+            for (int i : stale) {
+                Path file = files.get(i);
+                futures.add(executor.submit(() -> scanPage(file)));
+            }
+            for (int n = 0; n < stale.size(); n++) {
+                pages[stale.get(n)] = futures.get(n).get();
+            }
+            return Arrays.asList(pages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning XHTML files", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to scan XHTML files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-        // Find bean references like #{beanName}
-        findBeanReferences(content, xhtmlFile.getName());
+    private static boolean isWithin(Path file, Set<Path> paths) {
+        for (Path path = file; path != null; path = path.getParent()) {
+            if (paths.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // Find method references like #{beanName.methodName}
-        findMethodUsages(content, xhtmlFile.getName());
+    private static Path absolute(Path path) {
+        return path.toAbsolutePath().normalize();
     }
 
     /**
-     * Finds page-local variables defined in XHTML (e.g., dataTable's var="_member").
+     * Merges scanned pages into the graph in the given order. Bean names are matched against
+     * the classes in the graph at this point, so Java files must have been parsed.
+     *
+     * @param pages Pages returned by {@link #scanPages()}
+     * @return The facts merged, which {@link DependencyGraph#retract} takes back before the
+     *         pages are merged again
      */
-    private void findPageVars(String content) {
-        pageVars.clear();  // Reset for each file
-        Pattern varPattern = Pattern.compile("var\\s*=\\s*\"([^\"]+)\"");
-        Matcher matcher = varPattern.matcher(content);
-        while (matcher.find()) {
-            String varName = matcher.group(1);
-            pageVars.add(varName);
+    public FileFacts mergePages(List<ScannedPage> pages) {
+        return mergePages(pages, graph);
+    }
+
+    private FileFacts mergePages(List<ScannedPage> pages, DependencyGraph target) {
+        BeanNameIndex beanNames = BeanNameIndex.build(target);
+        FileFacts facts = new FileFacts();
+        for (ScannedPage page : pages) {
+            if (page.getReferences() != null) {
+                mergePage(page.getReferences(), page.getPath().getFileName().toString(), facts, beanNames);
+            }
         }
+        facts.replay(target);
+        return facts;
     }
 
     /**
-     * Finds and processes bean references in EL expressions.
+     * Scans a single XHTML file. Errors are reported and yield a page without references.
      */
-    private void findBeanReferences(String content, String fileName) {
-        Pattern elPattern = Pattern.compile("#\\{([a-zA-Z0-9_]+)");
-        Matcher matcher = elPattern.matcher(content);
+    private ScannedPage scanPage(Path xhtmlFile) {
+        try (Reader reader = Files.newBufferedReader(xhtmlFile, StandardCharsets.UTF_8)) {
+            return new ScannedPage(xhtmlFile, ElScanner.scan(reader));
+        } catch (IOException e) {
+            System.out.println("Error parsing XHTML file: " + xhtmlFile + " Error: " + e.getMessage());
+            return new ScannedPage(xhtmlFile, null);
+        }
+    }
 
-        while (matcher.find()) {
-            String beanName = matcher.group(1);
+    /**
+     * Updates the dependency graph with the references of one page.
+     */
+    private void mergePage(ElScanner.PageReferences page, String fileName, GraphSink target,
+                           BeanNameIndex beanNames) {
+        // Page-local variables, e.g. dataTable's var="_member", are not beans
+        Set<String> pageVars = page.getPageVars();
 
+        // Bean references like #{beanName}
+        for (String beanName : page.getBeanReferences()) {
             if (RESERVED_WORDS.contains(beanName) || pageVars.contains(beanName)) {
-                // Skip reserved words and page variables
                 continue;
             }
-
             System.out.println("EL binding found in " + fileName + ": " + beanName);
-            matchBeanToClass(beanName);
+            matchBeanToClass(beanName, target, beanNames);
+        }
+
+        // Method references like #{beanName.methodName}
+        for (ElScanner.MemberReference reference : page.getMemberReferences()) {
+            String beanName = reference.getBean();
+            if (RESERVED_WORDS.contains(beanName) || pageVars.contains(beanName)) {
+                continue;
+            }
+            for (String clazz : beanNames.findClasses(beanName)) {
+                // Mark method as used by framework (JSF/EL)
+                target.markMethodUsedByFramework(clazz, reference.getMember());
+                target.markMethodUsage(clazz, reference.getMember(), MethodUsageType.FRAMEWORK);
+                System.out.println("Method usage found in " + fileName + ": " + clazz + "." + reference.getMember());
+            }
         }
     }
 
     /**
      * Matches a bean name to its corresponding Java class.
      */
-    private void matchBeanToClass(String beanName) {
-        boolean matched = false;
-        for (String clazz : graph.getAllClasses()) {
-            String simpleName = clazz.contains(".")
-                    ? clazz.substring(clazz.lastIndexOf('.') + 1)
-                    : clazz;
-            String defaultBeanName = simpleName.substring(0, 1).toLowerCase() + simpleName.substring(1);
-
-            if (beanName.equals(defaultBeanName)) {
-                graph.markClassUsedByFramework(clazz);
-                System.out.println("  -> Mapped to class: " + clazz);
-                matched = true;
-            }
+    private void matchBeanToClass(String beanName, GraphSink target, BeanNameIndex beanNames) {
+        List<String> classes = beanNames.findClasses(beanName);
+        for (String clazz : classes) {
+            target.markClassUsedByFramework(clazz);
+            System.out.println("  -> Mapped to class: " + clazz);
         }
-        if (!matched) {
+        if (classes.isEmpty()) {
             System.out.println("  -> ⚠ No matching Java class found for bean '" + beanName + "'");
         }
     }
 
     /**
-     * Finds and processes method usages in EL expressions.
+     * The references found on one page, or null references if the page could not be read.
      */
-    private void findMethodUsages(String content, String fileName) {
-        Pattern elPattern = Pattern.compile("#\\{([a-zA-Z0-9_]+)\\.([a-zA-Z0-9_]+)\\}");
-        Matcher matcher = elPattern.matcher(content);
+    public static final class ScannedPage {
+        private final Path path;
+        private final ElScanner.PageReferences references;
 
-        while (matcher.find()) {
-            String beanName = matcher.group(1);
-            String methodName = matcher.group(2);
+        ScannedPage(Path path, ElScanner.PageReferences references) {
+            this.path = path;
+            this.references = references;
+        }
 
-            if (RESERVED_WORDS.contains(beanName) || pageVars.contains(beanName)) {
-                continue;
-            }
+        public Path getPath() {
+            return path;
+        }
 
-            for (String clazz : graph.getAllClasses()) {
-                String simpleName = clazz.contains(".")
-                        ? clazz.substring(clazz.lastIndexOf('.') + 1)
-                        : clazz;
-                String defaultBeanName = simpleName.substring(0, 1).toLowerCase() + simpleName.substring(1);
-
-                if (beanName.equals(defaultBeanName)) {
-                    // Mark method as used by framework (JSF/EL)
-                    graph.markMethodUsedByFramework(clazz, methodName);
-                    graph.markMethodUsage(clazz, methodName, MethodUsageType.FRAMEWORK);
-                    System.out.println("Method usage found in " + fileName + ": " + clazz + "." + methodName);
-                }
-            }
+        public ElScanner.PageReferences getReferences() {
+            return references;
         }
     }
-} 
\ No newline at end of file
+}
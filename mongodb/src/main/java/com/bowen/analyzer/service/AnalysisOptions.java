@@ -0,0 +1,121 @@
+package com.bowen.analyzer.service;
+
+import java.io.File;
+
+/**
+ * Tuning options for {@link AnalysisService}.
+ */
+public class AnalysisOptions {
+
+    private int threads = 1;
+    private int readThreads = 1;
+    private int queueCapacity = 64;
+    private File cacheDir;
+    private File jarIndexDir;
+    private boolean syntaxOnly;
+    private boolean compactGraph;
+    private File storeDir;
+
+    /**
+     * Returns the number of worker threads used to parse Java files.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public AnalysisOptions setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Returns the number of threads reading files ahead of the parsing threads.
+     */
+    public int getReadThreads() {
+        return readThreads;
+    }
+
+    public AnalysisOptions setReadThreads(int readThreads) {
+        this.readThreads = readThreads;
+        return this;
+    }
+
+    /**
+     * Returns how many files may wait between two stages of the parsing pipeline.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public AnalysisOptions setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Returns the directory of the per-file analysis cache, or null if caching is disabled.
+     */
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    public AnalysisOptions setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+        return this;
+    }
+
+    /**
+     * Returns the directory of the shared dependency JAR index. Defaults to a subdirectory
+     * of the cache directory; null if neither is set, in which case JARs are indexed in memory.
+     */
+    public File getJarIndexDir() {
+        if (jarIndexDir == null && cacheDir != null) {
+            return new File(cacheDir, "jars");
+        }
+        return jarIndexDir;
+    }
+
+    public AnalysisOptions setJarIndexDir(File jarIndexDir) {
+        this.jarIndexDir = jarIndexDir;
+        return this;
+    }
+
+    /**
+     * Returns whether Java files are analyzed without the symbol solver, resolving names
+     * by heuristics only.
+     */
+    public boolean isSyntaxOnly() {
+        return syntaxOnly;
+    }
+
+    public AnalysisOptions setSyntaxOnly(boolean syntaxOnly) {
+        this.syntaxOnly = syntaxOnly;
+        return this;
+    }
+
+    /**
+     * Returns whether the class graph is converted to its compact form after the analysis.
+     */
+    public boolean isCompactGraph() {
+        return compactGraph;
+    }
+
+    public AnalysisOptions setCompactGraph(boolean compactGraph) {
+        this.compactGraph = compactGraph;
+        return this;
+    }
+
+    /**
+     * Returns the directory of the files the results of the analysis are mapped from, or
+     * null to hold them on the heap. With a store, the graph itself is emptied once its
+     * results are stored.
+     */
+    public File getStoreDir() {
+        return storeDir;
+    }
+
+    public AnalysisOptions setStoreDir(File storeDir) {
+        this.storeDir = storeDir;
+        return this;
+    }
+}
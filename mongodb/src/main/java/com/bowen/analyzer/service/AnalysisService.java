@@ -1,5 +1,6 @@
 package com.bowen.analyzer.service;
 
+import com.bowen.analyzer.cache.FactCache;
 import com.bowen.analyzer.model.*;
 import com.bowen.analyzer.model.enums.MethodUsageType;
 import com.bowen.analyzer.parser.JavaProjectParser;
@@ -7,7 +8,15 @@ import com.bowen.analyzer.parser.XhtmlParser;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
 
 /**
  * Service to analyze Java projects and generate reports.
@@ -16,17 +25,50 @@ public class AnalysisService {
     private final DependencyGraph graph;
     private final File projectRoot;
     private final List<File> sourceRoots;
+    private final AnalysisOptions options;
+    private JavaProjectParser javaParser;
+
+    // Pages found by the last XHTML scan, reused by refreshes for the pages that did not change
+    private List<XhtmlParser.ScannedPage> scannedPages = List.of();
+
+    // Facts the last merge of the pages added to the graph, taken back before merging them again
+    private FileFacts pageFacts = new FileFacts();
+
+    // Immutable copy of the graph answering the queries, replaced whenever the graph changes
+    private volatile GraphSnapshot snapshot;
+
+    // Views of the snapshot, built when first needed and dropped with it
+    private GraphSnapshot viewSnapshot;
+    private ImpactEngine classImpactEngine;
+    private ImpactEngine methodImpactEngine;
+    private MethodUsageView methodUsageView;
+    private ReachabilityAnalysis reachability;
+
+    // Deletes the files of the store directory once the snapshots mapped from them are unused
+    private static final Cleaner STORE_FILE_CLEANER = Cleaner.create();
 
     /**
-     * Creates a new analysis service.
+     * Creates a new analysis service with default options.
      *
      * @param projectRoot The root directory of the project
      * @param sourceRoots The source roots to analyze
      */
     public AnalysisService(File projectRoot, List<File> sourceRoots) {
+        this(projectRoot, sourceRoots, new AnalysisOptions());
+    }
+
+    /**
+     * Creates a new analysis service.
+     *
+     * @param projectRoot The root directory of the project
+     * @param sourceRoots The source roots to analyze
+     * @param options Parallelism and caching options
+     */
+    public AnalysisService(File projectRoot, List<File> sourceRoots, AnalysisOptions options) {
         this.projectRoot = projectRoot;
         this.sourceRoots = sourceRoots;
-        this.graph = new DependencyGraph();
+        this.options = options;
+        this.graph = new DependencyGraph(options.isSyntaxOnly());
     }
 
     /**
@@ -36,30 +78,276 @@ public class AnalysisService {
      * @throws IOException If an I/O error occurs
      */
     public DependencyGraph analyzeProject() throws IOException {
-        JavaProjectParser javaParser = new JavaProjectParser(sourceRoots, projectRoot);
-        javaParser.parseProject(graph);
+        FactCache factCache = null;
+        if (options.getCacheDir() != null) {
+            // Syntax-only facts differ from full ones, so they are cached separately
+            factCache = new FactCache(options.isSyntaxOnly()
+                    ? new File(options.getCacheDir(), "syntax-only")
+                    : options.getCacheDir());
+        }
+        javaParser = newJavaParser(factCache);
+        graph.clear();
+        return analyzeWithXhtml(() -> javaParser.parseProject(graph), null);
+    }
+
+    /**
+     * Analyzes one shard of the project's Java files and writes its facts to a file, to be
+     * merged with the other shards by {@link #mergeShards}. XHTML files are left to the merge.
+     *
+     * @param shard Index of the shard, from 0
+     * @param shardCount Number of shards
+     * @param partialFile File receiving the shard's facts
+     * @throws IOException If an I/O error occurs
+     */
+    public void analyzeShard(int shard, int shardCount, File partialFile) throws IOException {
+        newJavaParser(null).parseShard(shard, shardCount).write(partialFile);
+    }
+
+    /**
+     * Builds the dependency graph from the facts of every shard of the project, then parses
+     * the XHTML files. The result is the same as {@link #analyzeProject()} would produce.
+     * The partial files are read one at a time, so the facts of only one shard are in memory
+     * at once; the first {@link #refresh} then parses the whole project.
+     *
+     * @param partialFiles Files written by {@link #analyzeShard}, one per shard
+     * @return The populated dependency graph
+     * @throws IOException If a file cannot be read or the files do not form a complete analysis
+     */
+    public DependencyGraph mergeShards(List<File> partialFiles) throws IOException {
+        javaParser = newJavaParser(null);
+        graph.clear();
+        return analyzeWithXhtml(() -> javaParser.mergeShards(partialFiles, graph), null);
+    }
+
+    private JavaProjectParser newJavaParser(FactCache factCache) {
+        JavaProjectParser parser = new JavaProjectParser(sourceRoots, projectRoot, options.getThreads(), factCache,
+                options.getJarIndexDir());
+        parser.setSyntaxOnly(options.isSyntaxOnly());
+        parser.setReadThreads(options.getReadThreads());
+        parser.setQueueCapacity(options.getQueueCapacity());
+        return parser;
+    }
 
-        // Parse XHTML files
+    /**
+     * Updates the dependency graph after files of the project changed. Only the changed Java
+     * files and the files depending on them are parsed again, and only the changed XHTML files
+     * are scanned again.
+     *
+     * <p>The facts of the parsed files and of the pages are retracted from the graph and
+     * their new facts merged, as described at {@link JavaProjectParser#update}, so the graph
+     * changes in proportion to these files and the pages. The snapshot taken afterwards, and
+     * converting a compacted graph back before the change, still take time proportional to
+     * the size of the graph.
+     *
+     * @param changedPaths Files or directories that were created, modified or deleted
+     * @return The updated dependency graph
+     * @throws IOException If an I/O error occurs
+     */
+    public DependencyGraph refresh(Collection<Path> changedPaths) throws IOException {
+        if (javaParser == null) {
+            return analyzeProject();
+        }
+        if (!graph.isReleased()) {
+            graph.retract(List.of(pageFacts));
+            pageFacts = new FileFacts();
+        }
+        return analyzeWithXhtml(() -> javaParser.update(changedPaths, graph), changedPaths);
+    }
+
+    /**
+     * Runs a Java phase filling the graph, then merges the XHTML pages into it. The pages are
+     * scanned on a background thread while the Java phase runs, since only the merge needs
+     * the classes of the project. The thread budget of the options goes to the Java phase,
+     * which does most of the work, so the pages are scanned by that one thread only instead
+     * of competing with the Java workers for the processors.
+     *
+     * @param javaPhase Fills the graph with the facts of the Java files
+     * @param changedPaths Paths changed since the last scan, whose pages are scanned again,
+     *                     or null to scan every page
+     */
+    private DependencyGraph analyzeWithXhtml(JavaPhase javaPhase, Collection<Path> changedPaths) throws IOException {
         File webappDir = new File(projectRoot, "src/main/webapp");
-        if (webappDir.exists() && webappDir.isDirectory()) {
-            XhtmlParser xhtmlParser = new XhtmlParser(graph, webappDir);
-            xhtmlParser.parseProject(graph);
-        } else {
+        if (!webappDir.exists() || !webappDir.isDirectory()) {
+            javaPhase.run();
             System.out.println("Warning: Webapp directory not found: " + webappDir.getAbsolutePath());
+            scannedPages = List.of();
+            pageFacts = new FileFacts();
+            return finish();
         }
 
+        XhtmlParser xhtmlParser = new XhtmlParser(graph, webappDir);
+        List<XhtmlParser.ScannedPage> previous = scannedPages;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<XhtmlParser.ScannedPage>> pages =
+                    executor.submit(() -> xhtmlParser.rescanPages(previous, changedPaths));
+            javaPhase.run();
+            scannedPages = pages.get();
+            pageFacts = xhtmlParser.mergePages(scannedPages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning XHTML files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to scan XHTML files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return finish();
+    }
+
+    /**
+     * Compacts the graph if requested and freezes the results of the analysis, storing them
+     * off the heap if a store directory is set.
+     */
+    private DependencyGraph finish() throws IOException {
+        if (options.isCompactGraph()) {
+            graph.compact();
+            CompactGraph compact = graph.getCompactGraph();
+            System.out.println("Compacted class graph: " + compact.getVertexCount() + " classes, "
+                    + compact.getEdgeCount() + " dependencies");
+        }
+        if (options.getStoreDir() != null) {
+            store(options.getStoreDir());
+        } else {
+            freeze();
+        }
         return graph;
     }
 
+    /**
+     * Takes an immutable snapshot of the graph, on which the query helpers run from then on.
+     * Queries made after the graph changed take a new snapshot first.
+     *
+     * @return The new snapshot
+     * @throws IllegalStateException If the graph was released to a stored or loaded snapshot
+     */
+    public synchronized GraphSnapshot freeze() {
+        if (graph.isReleased()) {
+            throw new IllegalStateException("The results are held by a stored or loaded snapshot; analyze the project again");
+        }
+        return publish(graph.snapshot());
+    }
+
+    /**
+     * Freezes the graph into a new file of a directory mapped into memory, then releases the
+     * graph and drops the facts of the parsed files, since the file holds everything the
+     * queries need. The next refresh therefore parses the whole project, reading unchanged
+     * files from the fact cache if there is one.
+     */
+    private synchronized void store(File storeDir) throws IOException {
+        if (!storeDir.isDirectory() && !storeDir.mkdirs()) {
+            throw new IOException("Cannot create store directory " + storeDir);
+        }
+        File file = File.createTempFile("graph-", ".snapshot", storeDir);
+        file.deleteOnExit();
+        GraphSnapshot stored;
+        try {
+            stored = graph.snapshot(file);
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            throw e;
+        }
+        graph.release();
+        if (javaParser != null) {
+            javaParser.releaseFacts();
+        }
+        publish(stored);
+
+        // Queries may still run on the snapshot this one replaces, so a file is only deleted
+        // once its snapshot is unreachable; files that stay mapped are left to deleteOnExit
+        STORE_FILE_CLEANER.register(stored, file::delete);
+    }
+
+    /**
+     * Writes the results of the analysis to a snapshot file, from which
+     * {@link #loadSnapshot(File, boolean)} restores them without parsing the project again.
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void saveSnapshot(File file) throws IOException {
+        GraphSnapshot current = getSnapshot();
+        current.write(file);
+        System.out.println("Saved graph snapshot to " + file.getAbsolutePath() + " ("
+                + (current.getFootprint() + 1023) / 1024 + " KB)");
+    }
+
+    /**
+     * Restores the results of an analysis from a snapshot file instead of analyzing the
+     * project. The graph is emptied and rejects changes, as described at {@link #getGraph()};
+     * the queries, the report and the export run on the snapshot until the project is analyzed
+     * again.
+     *
+     * @param file A file written by {@link #saveSnapshot(File)}
+     * @param mapped Whether to map the file into memory instead of reading it into the heap
+     * @return The loaded snapshot
+     * @throws IOException If the file cannot be read or is not a snapshot of the current format
+     */
+    public synchronized GraphSnapshot loadSnapshot(File file, boolean mapped) throws IOException {
+        long start = System.nanoTime();
+        GraphSnapshot loaded = mapped ? GraphSnapshot.map(file) : GraphSnapshot.read(file);
+        graph.release();
+        snapshot = loaded;
+        System.out.println("Loaded graph snapshot " + file.getAbsolutePath() + ": " + loaded.getVertexCount()
+                + " classes, " + loaded.getEdgeCount() + " dependencies, " + loaded.getMethodCount() + " methods, "
+                + loaded.getMethodCallCount() + " calls in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                + (mapped ? " (mapped)" : ""));
+        return snapshot;
+    }
+
+    private GraphSnapshot publish(GraphSnapshot frozen) {
+        snapshot = frozen;
+        System.out.println("Froze analysis results: " + frozen.getVertexCount() + " classes, "
+                + frozen.getEdgeCount() + " dependencies, " + frozen.getMethodCount() + " methods, "
+                + frozen.getMethodCallCount() + " calls in " + (frozen.getFootprint() + 1023) / 1024 + " KB"
+                + (frozen.getFile() != null ? " mapped from " + frozen.getFile().getAbsolutePath() : ""));
+        return frozen;
+    }
+
+    /**
+     * Returns the snapshot the queries run on, taking a new one if the graph changed since.
+     * A snapshot that was stored or loaded is kept until the project is analyzed again.
+     * Queries made while the graph is being changed are not supported.
+     */
+    public GraphSnapshot getSnapshot() {
+        GraphSnapshot current = snapshot;
+        if (isStale(current)) {
+            synchronized (this) {
+                current = snapshot;
+                if (isStale(current)) {
+                    current = freeze();
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isStale(GraphSnapshot current) {
+        return current == null
+                || !graph.isReleased() && current.getModificationCount() != graph.getModificationCount();
+    }
+
+    /**
+     * A step adding the facts of the project's Java files to the graph.
+     */
+    @FunctionalInterface
+    private interface JavaPhase {
+        void run() throws IOException;
+    }
+
     /**
      * Prints a report of the analysis.
      */
     public void printReport() {
+        GraphSnapshot snapshot = getSnapshot();
         System.out.println("======= All Classes =======");
-        graph.getAllClasses().forEach(System.out::println);
+        snapshot.getAllClasses().forEach(System.out::println);
 
         System.out.println("\n======= Class Dependencies（IMPORT & REFERENCE） =======");
-        for (String className : graph.getAllClasses()) {
+        for (String className : snapshot.getAllClasses()) {
             if (!className.startsWith("org.jboss.as.quickstarts.kitchensink")) {
                 continue;
             }
@@ -91,68 +379,163 @@ public class AnalysisService {
         System.out.println("\n======= Unused Methods =======");
         getUnusedMethods().forEach(System.out::println);
 
+        System.out.println("\n======= Unreachable Classes =======");
+        new TreeSet<>(getUnreachableClasses()).forEach(System.out::println);
+
+        System.out.println("\n======= Unreachable Methods =======");
+        new TreeSet<>(getUnreachableMethods()).forEach(System.out::println);
+
         System.out.println("\n======= Method Usage Types =======");
-        getMethodUsageTypes().forEach((methodName, types) ->
-                System.out.println(methodName + " " + types));
+        MethodUsageView usageView = getMethodUsageView();
+        for (int m = 0; m < usageView.getMethodCount(); m++) {
+            if (usageView.isRegistered(m)) {
+                System.out.println(snapshot.getMethodFullName(m)
+                        + " {CALLED=" + usageView.hasUsage(m, MethodUsageType.CALLED)
+                        + ", TEST=" + usageView.hasUsage(m, MethodUsageType.TEST)
+                        + ", FRAMEWORK=" + usageView.hasUsage(m, MethodUsageType.FRAMEWORK) + "}");
+            }
+        }
+    }
+
+    /**
+     * Prints the classes or methods affected by a change to a class or method, with the
+     * dependency path through which each is affected.
+     *
+     * @param name A class name, or a method as {@code className.methodName}
+     */
+    public void printImpact(String name) {
+        printImpact(name, ImpactSearch.UNLIMITED, ImpactSearch.UNLIMITED);
+    }
+
+    /**
+     * Prints the classes or methods affected by a change to a class or method, searching no
+     * further than the given bounds, with a shortest dependency path for each.
+     *
+     * @param name     A class name, or a method as {@code className.methodName}
+     * @param maxHops  The largest number of dependencies or calls from the changed class or method
+     * @param maxNodes The most affected classes or methods to print
+     */
+    public void printImpact(String name, int maxHops, int maxNodes) {
+        GraphSnapshot current = getSnapshot();
+        ImpactSearch search;
+        IntFunction<String> names;
+        if (current.getAllClasses().contains(name)) {
+            search = ImpactSearch.forClass(current, current.findClass(name), maxHops, maxNodes);
+            names = current::getClassName;
+        } else if (current.findMethod(name) != GraphSnapshot.NOT_FOUND) {
+            search = ImpactSearch.forMethod(current, current.findMethod(name), maxHops, maxNodes);
+            names = current::getMethodFullName;
+        } else {
+            System.out.println("Unknown class or method: " + name);
+            return;
+        }
+
+        System.out.println("\n======= Impact of " + name + " =======");
+        System.out.println(search.getAffectedCount() + " affected"
+                + (search.isTruncated() ? " (search stopped at its limits, more may be affected)" : ""));
+        new TreeMap<>(search.toPathMap(names)).forEach((affected, path) ->
+                System.out.println("  " + affected + "  [" + String.join(" → ", path) + "]"));
     }
 
     /* ----------  Public query helpers ---------- */
 
     public Set<String> getAllClasses() {
-        return new HashSet<>(graph.getAllClasses());
+        return new HashSet<>(getSnapshot().getAllClasses());
     }
 
     public Map<String, String> getClassDependencies(String className) {
-        Map<String, String> dependencies = new HashMap<>();
-        for (LabeledEdge edge : graph.getDependencies(className)) {
-            String target = graph.getGraph().getEdgeTarget(edge);
-            String dependencyType = edge.getLabel();
-            
-            // Make sure to retain imports properly
-            dependencies.put(target, dependencyType);
-        }
-        return dependencies;
+        return new HashMap<>(getSnapshot().getLabeledDependencies(className));
     }
 
     public Map<String, List<String>> getMethodCallHierarchy() {
-        Map<String, Set<String>> callsByCallerMethod = new HashMap<>();
-
-        for (MethodCall mc : graph.getAllMethodCalls()) {
-            String caller = mc.getCallerClass() + "." + mc.getCallerMethod();
-            String callee = mc.getCalleeClass() + "." + mc.getCalleeMethod();
-            callsByCallerMethod.computeIfAbsent(caller, k -> new HashSet<>()).add(callee);
-        }
-
+        GraphSnapshot snapshot = getSnapshot();
         Map<String, List<String>> sortedCalls = new TreeMap<>();
-        for (Map.Entry<String, Set<String>> entry : callsByCallerMethod.entrySet()) {
-            List<String> sortedCallees = new ArrayList<>(entry.getValue());
+
+        // Calls are distinct per caller already, so callees only need sorting
+        for (int caller = 0; caller < snapshot.getMethodCount(); caller++) {
+            if (snapshot.callOutStart(caller) == snapshot.callOutEnd(caller)) {
+                continue;
+            }
+            List<String> sortedCallees = new ArrayList<>();
+            for (int call = snapshot.callOutStart(caller); call < snapshot.callOutEnd(caller); call++) {
+                sortedCallees.add(snapshot.getMethodFullName(snapshot.getCallee(call)));
+            }
             Collections.sort(sortedCallees);
-            sortedCalls.put(entry.getKey(), sortedCallees);
+            sortedCalls.put(snapshot.getMethodFullName(caller), sortedCallees);
         }
 
         return sortedCalls;
     }
 
     public Set<String> getUnusedClasses() {
-        return graph.findUnusedClasses();
+        return getSnapshot().findUnusedClasses();
     }
 
     public Set<String> getUnusedMethods() {
-        return graph.findUnusedMethods();
+        return getSnapshot().findUnusedMethods();
+    }
+
+    /**
+     * Returns the usage types of all methods, taken from the snapshot once and taken again
+     * after the graph changed.
+     */
+    public MethodUsageView getMethodUsageView() {
+        GraphSnapshot snapshot = getSnapshot();
+        synchronized (this) {
+            resetViews(snapshot);
+            if (methodUsageView == null) {
+                methodUsageView = MethodUsageView.of(snapshot);
+            }
+            return methodUsageView;
+        }
+    }
+
+    /**
+     * Returns which classes and methods the entry points of the project reach, marked once
+     * per snapshot.
+     */
+    public ReachabilityAnalysis getReachability() {
+        GraphSnapshot snapshot = getSnapshot();
+        synchronized (this) {
+            resetViews(snapshot);
+            if (reachability == null) {
+                reachability = ReachabilityAnalysis.run(snapshot);
+            }
+            return reachability;
+        }
+    }
+
+    /**
+     * Gets the classes no entry point reaches, including groups of classes only used by
+     * each other.
+     */
+    public Set<String> getUnreachableClasses() {
+        return getReachability().findUnreachableClasses();
+    }
+
+    /**
+     * Gets the registered methods no entry point reaches through calls.
+     */
+    public Set<String> getUnreachableMethods() {
+        return getReachability().findUnreachableMethods();
     }
 
     public Map<String, Map<String, Boolean>> getMethodUsageTypes() {
+        MethodUsageView usageView = getMethodUsageView();
+        GraphSnapshot snapshot = usageView.getSnapshot();
         Map<String, Map<String, Boolean>> usageTypes = new HashMap<>();
 
-        for (MethodUsage usage : graph.getAllMethodUsages()) {
-            String methodFullName = usage.getClassName() + "." + usage.getMethodName();
+        for (int m = 0; m < usageView.getMethodCount(); m++) {
+            if (!usageView.isRegistered(m)) {
+                continue;
+            }
             Map<String, Boolean> types = new HashMap<>();
 
-            types.put("CALLED", usage.hasUsage(MethodUsageType.CALLED));
-            types.put("FRAMEWORK", usage.hasUsage(MethodUsageType.FRAMEWORK));
-            types.put("TEST", usage.hasUsage(MethodUsageType.TEST));
+            types.put("CALLED", usageView.hasUsage(m, MethodUsageType.CALLED));
+            types.put("FRAMEWORK", usageView.hasUsage(m, MethodUsageType.FRAMEWORK));
+            types.put("TEST", usageView.hasUsage(m, MethodUsageType.TEST));
 
-            usageTypes.put(methodFullName, types);
+            usageTypes.put(snapshot.getMethodFullName(m), types);
         }
 
         return usageTypes;
@@ -161,139 +544,210 @@ public class AnalysisService {
     /**
      * Determines the impact radius for a class.
      * @param className The class name
-     * @return Map of dependent class to dependency path
+     * @return Map of dependent class to a shortest dependency path, built when read
      */
     public Map<String, List<String>> determineImpactRadius(String className) {
-        Map<String, List<String>> impactMap = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-
-        Deque<String> path = new ArrayDeque<>();
-        path.add(className);    // 根节点在末尾
+        return determineImpactRadius(className, ImpactSearch.UNLIMITED, ImpactSearch.UNLIMITED);
+    }
 
-        for (LabeledEdge edge : graph.getGraph().incomingEdgesOf(className)) {
-            String dependent = graph.getGraph().getEdgeSource(edge);
-            determineDependencyPath(dependent, impactMap, visited, path);
-        }
+    /**
+     * Determines the impact radius for a class, searching no further than the given bounds.
+     * @param className The class name
+     * @param maxHops The largest number of dependencies between the class and a dependent
+     * @param maxNodes The most dependents to collect
+     * @return Map of dependent class to a shortest dependency path, built when read
+     */
+    public Map<String, List<String>> determineImpactRadius(String className, int maxHops, int maxNodes) {
+        GraphSnapshot snapshot = getSnapshot();
+        return ImpactSearch.forClass(snapshot, snapshot.findClass(className), maxHops, maxNodes)
+                .toPathMap(snapshot::getClassName);
+    }
 
-        return impactMap;
+    /**
+     * Determines the impact radius of every class of the graph at once, with the same classes
+     * as {@link #determineImpactRadius} but without their paths, which
+     * {@link #findImpactPath} finds when needed. Classes nothing depends on are skipped.
+     * The action is called in the order the sets are completed, dependents before the classes
+     * they depend on, while each set lists its classes sorted by name.
+     *
+     * @param action Receives each class with the classes affected by a change to it, sorted
+     *               by name; classes depending on each other share the same unmodifiable set
+     */
+    public void determineAllImpactRadii(BiConsumer<String, Set<String>> action) {
+        GraphSnapshot snapshot = getSnapshot();
+        getClassImpactEngine(snapshot).forEach(options.getThreads(), (classes, affected) -> {
+            if (affected.length == 0) {
+                return;
+            }
+            // Class numbers follow the names
+            int[] sorted = affected.clone();
+            Arrays.sort(sorted);
+            Set<String> affectedClasses = new LinkedHashSet<>();
+            for (int classNumber : sorted) {
+                affectedClasses.add(snapshot.getClassName(classNumber));
+            }
+            Set<String> impact = Collections.unmodifiableSet(affectedClasses);
+            for (int classNumber : classes) {
+                action.accept(snapshot.getClassName(classNumber), impact);
+            }
+        });
     }
 
     /**
-     * Recursively walks up the dependency graph, building paths.
+     * Finds a shortest dependency path through which a change to a class affects another.
+     *
+     * @return The classes from the affected class to the changed one, or an empty list if
+     * the change does not affect it
      */
-    private void determineDependencyPath(String current,
-                                         Map<String, List<String>> impactMap,
-                                         Set<String> visited,
-                                         Deque<String> path) {
-        if (!visited.add(current)) {
-            return; // 已访问，避免循环
+    public List<String> findImpactPath(String className, String affectedClass) {
+        GraphSnapshot snapshot = getSnapshot();
+        int[] path = ImpactSearch.forClass(snapshot, snapshot.findClass(className),
+                ImpactSearch.UNLIMITED, ImpactSearch.UNLIMITED).getPath(snapshot.findClass(affectedClass));
+        List<String> classes = new ArrayList<>();
+        if (path != null) {
+            for (int classNumber : path) {
+                classes.add(snapshot.getClassName(classNumber));
+            }
         }
+        return classes;
+    }
 
-        path.addFirst(current);                       // 前插
-        impactMap.put(current, List.copyOf(path));    // 存副本
+    private synchronized ImpactEngine getClassImpactEngine(GraphSnapshot snapshot) {
+        resetViews(snapshot);
+        if (classImpactEngine == null) {
+            classImpactEngine = ImpactEngine.forClasses(snapshot);
+        }
+        return classImpactEngine;
+    }
 
-        for (LabeledEdge edge : graph.getGraph().incomingEdgesOf(current)) {
-            String dependent = graph.getGraph().getEdgeSource(edge);
-            determineDependencyPath(dependent, impactMap, visited, path);
+    private synchronized ImpactEngine getMethodImpactEngine(GraphSnapshot snapshot) {
+        resetViews(snapshot);
+        if (methodImpactEngine == null) {
+            methodImpactEngine = ImpactEngine.forMethods(snapshot);
         }
+        return methodImpactEngine;
+    }
 
-        path.removeFirst();                           // 回溯
+    private void resetViews(GraphSnapshot snapshot) {
+        if (viewSnapshot != snapshot) {
+            viewSnapshot = snapshot;
+            classImpactEngine = null;
+            methodImpactEngine = null;
+            methodUsageView = null;
+            reachability = null;
+        }
     }
 
     /**
      * Determines the impact radius for a method.
      * @param methodFullName The fully qualified method name (className.methodName)
-     * @return Map of dependent methods to dependency path
+     * @return Map of dependent methods to a shortest call path, built when read
      */
     public Map<String, List<String>> determineMethodImpactRadius(String methodFullName) {
-        Map<String, List<String>> impactMap = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-        
-        // Get all method calls
-        Map<String, List<String>> methodCalls = getMethodCallHierarchy();
-        
-        // Find all methods that call this method directly
-        List<String> directCallers = findDirectMethodCallers(methodFullName);
-        
-        // For each caller, trace the impact
-        for (String caller : directCallers) {
-            List<String> path = new ArrayList<>();
-            path.add(methodFullName);
-            determineMethodDependencyPath(caller, methodFullName, impactMap, visited, path, methodCalls);
-        }
-        
-        return impactMap;
+        return determineMethodImpactRadius(methodFullName, ImpactSearch.UNLIMITED, ImpactSearch.UNLIMITED);
+    }
+
+    /**
+     * Determines the impact radius for a method, searching no further than the given bounds.
+     * @param methodFullName The fully qualified method name (className.methodName)
+     * @param maxHops The largest number of calls between the method and a caller
+     * @param maxNodes The most callers to collect
+     * @return Map of dependent methods to a shortest call path, built when read
+     */
+    public Map<String, List<String>> determineMethodImpactRadius(String methodFullName, int maxHops, int maxNodes) {
+        GraphSnapshot snapshot = getSnapshot();
+        return ImpactSearch.forMethod(snapshot, snapshot.findMethod(methodFullName), maxHops, maxNodes)
+                .toPathMap(snapshot::getMethodFullName);
+    }
+
+    /**
+     * Determines the impact radius of every method at once, with the same methods as
+     * {@link #determineMethodImpactRadius} but without their paths. Methods calling each
+     * other directly or indirectly share one impact set, computed once. Methods no other
+     * method calls are skipped.
+     *
+     * @param action Receives each method as {@code className.methodName} with the methods
+     *               affected by a change to it
+     */
+    public void determineAllMethodImpactRadii(BiConsumer<String, Set<String>> action) {
+        GraphSnapshot snapshot = getSnapshot();
+        getMethodImpactEngine(snapshot).forEach(options.getThreads(), (methods, affected) -> {
+            if (affected.length == 0) {
+                return;
+            }
+            Set<String> affectedMethods = new HashSet<>();
+            for (int method : affected) {
+                affectedMethods.add(snapshot.getMethodFullName(method));
+            }
+            Set<String> impact = Collections.unmodifiableSet(affectedMethods);
+            for (int method : methods) {
+                action.accept(snapshot.getMethodFullName(method), impact);
+            }
+        });
     }
 
     /**
      * Finds all methods that directly call the given method.
      * @param methodFullName The method being called
-     * @return List of methods that call this method
+     * @return List of methods that call this method, ordered by class name and then method name
      */
     public List<String> findDirectMethodCallers(String methodFullName) {
+        GraphSnapshot snapshot = getSnapshot();
         List<String> callers = new ArrayList<>();
-        
-        for (Map.Entry<String, List<String>> entry : getMethodCallHierarchy().entrySet()) {
-            if (entry.getValue().contains(methodFullName)) {
-                callers.add(entry.getKey());
+        int method = snapshot.findMethod(methodFullName);
+        if (method != GraphSnapshot.NOT_FOUND) {
+            for (int caller : findDirectMethodCallers(snapshot, method)) {
+                callers.add(snapshot.getMethodFullName(caller));
             }
         }
-        
         return callers;
     }
 
     /**
-     * Recursively determines the dependency path for methods.
+     * Lists the callers of a method from the snapshot's index of calls by callee, whose rows
+     * are already sorted by caller number.
      */
-    private void determineMethodDependencyPath(String current, String target,
-                                            Map<String, List<String>> impactMap,
-                                            Set<String> visited, List<String> currentPath,
-                                            Map<String, List<String>> methodCalls) {
-        if (visited.contains(current)) {
-            return;
-        }
-        
-        visited.add(current);
-        
-        List<String> path = new ArrayList<>(currentPath);
-        path.add(0, current);
-        impactMap.put(current, path);
-        
-        // Find methods that call this method
-        for (Map.Entry<String, List<String>> entry : methodCalls.entrySet()) {
-            if (entry.getValue().contains(current)) {
-                determineMethodDependencyPath(entry.getKey(), target, impactMap, visited, path, methodCalls);
-            }
+    private int[] findDirectMethodCallers(GraphSnapshot snapshot, int method) {
+        int start = snapshot.callInStart(method);
+        int[] callers = new int[snapshot.callInEnd(method) - start];
+        for (int i = 0; i < callers.length; i++) {
+            callers[i] = snapshot.getCaller(start + i);
         }
+        return callers;
     }
 
-
     public List<MethodUsage> getAllMethodUsages() {
-        return new ArrayList<>(graph.getAllMethodUsages());
+        return getSnapshot().getAllMethodUsages();
     }
 
     public boolean isClassUsedByFramework(String className) {
-        return graph.isClassUsedByFramework(className);
+        return getSnapshot().isClassUsedByFramework(className);
     }
 
     public boolean isClassUsedByTest(String className) {
-        return graph.isClassUsedByTest(className);
+        return getSnapshot().isClassUsedByTest(className);
     }
 
     /**
      * Gets information about the class's used imports.
      */
     public Set<String> getUsedImports(String className) {
-        return graph.getUsedImports(className);
+        return getSnapshot().getUsedImports(className);
     }
     
     /**
      * Gets information about the class's unused imports.
      */
     public Set<String> getUnusedImports(String className) {
-        return graph.getUnusedImports(className);
+        return getSnapshot().getUnusedImports(className);
     }
 
+    /**
+     * Returns the graph the analysis adds its results to. After the results were stored or
+     * loaded as a snapshot the graph is empty and {@link DependencyGraph#release() released}:
+     * changes, which the snapshot answering the queries could not reflect, fail with an
+     * {@link IllegalStateException} until the next analysis or refresh fills the graph again.
+     */
     public DependencyGraph getGraph() {
         return graph;
     }
@@ -0,0 +1,389 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.GraphSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+/**
+ * Determines which nodes of a graph are affected by a change to each node: the nodes that
+ * depend on it through one or more edges.
+ *
+ * <p>The graph of dependents is condensed into its strongly connected components once, as
+ * all nodes of a component affect each other and share one impact set. Components come out
+ * of Tarjan's algorithm in reverse topological order, every component after those it
+ * reaches, so {@link #forEach} can compute the set of a component as the union of the sets
+ * of the components depending on it, held as bitsets over component numbers and merged a
+ * word at a time. Components of the same depth do not depend on each other and are merged
+ * in parallel. A bitset is dropped as soon as every component depending on it is done, so
+ * only the sets still needed are held at any time.
+ *
+ * <p>Paths are not part of the sets; an {@link ImpactSearch} finds one when asked.
+ */
+public class ImpactEngine {
+
+    // Components of a depth merged on one thread below this
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * Receives the impact sets computed by {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface ImpactConsumer {
+
+        /**
+         * @param nodes    The nodes sharing the impact set, those of one component
+         * @param affected The nodes affected by a change to any of them, in no particular order
+         */
+        void accept(int[] nodes, int[] affected);
+    }
+
+    /**
+     * Edges from each node to the nodes depending on it directly.
+     */
+    interface Dependents {
+
+        int start(int node);
+
+        int end(int node);
+
+        int get(int edge);
+    }
+
+    private final int nodeCount;
+    private final Dependents dependents;
+
+    // Component of each node, -1 for nodes outside the graph
+    private final int[] componentOf;
+    private final int componentCount;
+
+    // Nodes of each component
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    // Distinct components depending directly on each component, and whether a component
+    // depends on itself, through a cycle or an edge to itself
+    private final int[] dependentOffsets;
+    private final int[] dependentComponents;
+    private final boolean[] cyclic;
+
+    // Components ordered by depth, the length of the longest chain of dependents below them
+    private final int[] depthOffsets;
+    private final int[] componentsByDepth;
+
+    /**
+     * Creates an engine for the class graph of a snapshot.
+     */
+    public static ImpactEngine forClasses(GraphSnapshot snapshot) {
+        return new ImpactEngine(snapshot.getClassCount(), snapshot::containsVertex, classDependents(snapshot));
+    }
+
+    /**
+     * Creates an engine for the call graph of a snapshot, where a method depends on the
+     * methods it calls.
+     */
+    public static ImpactEngine forMethods(GraphSnapshot snapshot) {
+        return new ImpactEngine(snapshot.getMethodCount(), method -> true, methodDependents(snapshot));
+    }
+
+    /**
+     * Returns the classes depending on each class, from the incoming edges of a snapshot.
+     */
+    static Dependents classDependents(GraphSnapshot snapshot) {
+        return new Dependents() {
+            @Override
+            public int start(int node) {
+                return snapshot.inStart(node);
+            }
+
+            @Override
+            public int end(int node) {
+                return snapshot.inEnd(node);
+            }
+
+            @Override
+            public int get(int edge) {
+                return snapshot.getSource(edge);
+            }
+        };
+    }
+
+    /**
+     * Returns the callers of each method, from the calls by callee of a snapshot.
+     */
+    static Dependents methodDependents(GraphSnapshot snapshot) {
+        return new Dependents() {
+            @Override
+            public int start(int node) {
+                return snapshot.callInStart(node);
+            }
+
+            @Override
+            public int end(int node) {
+                return snapshot.callInEnd(node);
+            }
+
+            @Override
+            public int get(int edge) {
+                return snapshot.getCaller(edge);
+            }
+        };
+    }
+
+    /**
+     * Condenses a graph.
+     *
+     * @param nodeCount  The number of nodes
+     * @param included   Which nodes are part of the graph
+     * @param dependents The dependents of each node, all part of the graph
+     */
+    ImpactEngine(int nodeCount, IntPredicate included, Dependents dependents) {
+        this.nodeCount = nodeCount;
+        this.dependents = dependents;
+        this.componentOf = new int[nodeCount];
+        this.componentCount = findComponents(included);
+
+        memberOffsets = new int[componentCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            if (componentOf[node] >= 0) {
+                memberOffsets[componentOf[node] + 1]++;
+            }
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        members = new int[memberOffsets[componentCount]];
+        int[] next = Arrays.copyOf(memberOffsets, componentCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (componentOf[node] >= 0) {
+                members[next[componentOf[node]]++] = node;
+            }
+        }
+
+        // Condensed edges, each component's dependents listed once
+        dependentOffsets = new int[componentCount + 1];
+        cyclic = new boolean[componentCount];
+        int[] condensed = new int[16];
+        int size = 0;
+        int[] seenBy = new int[componentCount];
+        Arrays.fill(seenBy, -1);
+        int[] depth = new int[componentCount];
+        int maxDepth = 0;
+        for (int c = 0; c < componentCount; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                for (int e = dependents.start(members[m]); e < dependents.end(members[m]); e++) {
+                    int d = componentOf[dependents.get(e)];
+                    if (d == c) {
+                        cyclic[c] = true;
+                    } else if (seenBy[d] != c) {
+                        seenBy[d] = c;
+                        if (size == condensed.length) {
+                            condensed = Arrays.copyOf(condensed, size * 2);
+                        }
+                        condensed[size++] = d;
+                        // Dependents were numbered first, so their depth is known
+                        depth[c] = Math.max(depth[c], depth[d] + 1);
+                    }
+                }
+            }
+            dependentOffsets[c + 1] = size;
+            maxDepth = Math.max(maxDepth, depth[c]);
+        }
+        dependentComponents = Arrays.copyOf(condensed, size);
+
+        depthOffsets = new int[maxDepth + 2];
+        for (int c = 0; c < componentCount; c++) {
+            depthOffsets[depth[c] + 1]++;
+        }
+        for (int level = 0; level <= maxDepth; level++) {
+            depthOffsets[level + 1] += depthOffsets[level];
+        }
+        componentsByDepth = new int[componentCount];
+        next = Arrays.copyOf(depthOffsets, maxDepth + 1);
+        for (int c = 0; c < componentCount; c++) {
+            componentsByDepth[next[depth[c]]++] = c;
+        }
+    }
+
+    /**
+     * Numbers the strongly connected components with an iterative version of Tarjan's
+     * algorithm, so deep chains of dependents cannot overflow the stack.
+     *
+     * @return The number of components
+     */
+    private int findComponents(IntPredicate included) {
+        int[] index = new int[nodeCount];
+        int[] low = new int[nodeCount];
+        int[] nextEdge = new int[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] calls = new int[nodeCount];
+        Arrays.fill(index, -1);
+        Arrays.fill(componentOf, -1);
+        int stackSize = 0;
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] != -1 || !included.test(root)) {
+                continue;
+            }
+            int depth = 0;
+            calls[depth++] = root;
+            index[root] = low[root] = counter++;
+            nextEdge[root] = dependents.start(root);
+            stack[stackSize++] = root;
+
+            while (depth > 0) {
+                int node = calls[depth - 1];
+                if (nextEdge[node] < dependents.end(node)) {
+                    int dependent = dependents.get(nextEdge[node]++);
+                    if (index[dependent] == -1) {
+                        index[dependent] = low[dependent] = counter++;
+                        nextEdge[dependent] = dependents.start(dependent);
+                        stack[stackSize++] = dependent;
+                        calls[depth++] = dependent;
+                    } else if (componentOf[dependent] == -1) {
+                        // Still on the stack
+                        low[node] = Math.min(low[node], index[dependent]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (low[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        componentOf[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                if (depth > 0) {
+                    int caller = calls[depth - 1];
+                    low[caller] = Math.min(low[caller], low[node]);
+                }
+            }
+        }
+        return components;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Computes the impact set of every node of the graph and passes it to a consumer, one
+     * component at a time and on the calling thread.
+     *
+     * @param threads  The number of threads merging bitsets
+     * @param consumer Receives the nodes of each component with their impact set
+     */
+    public void forEach(int threads, ImpactConsumer consumer) {
+        int words = (componentCount + 63) >>> 6;
+        long[][] reach = new long[componentCount][];
+
+        // Components still to be merged into the set of each component
+        int[] pending = new int[componentCount];
+        for (int d : dependentComponents) {
+            pending[d]++;
+        }
+
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            for (int level = 0; level + 1 < depthOffsets.length; level++) {
+                int from = depthOffsets[level];
+                int to = depthOffsets[level + 1];
+                if (executor == null || to - from < PARALLEL_THRESHOLD) {
+                    merge(reach, words, from, to);
+                } else {
+                    List<Future<?>> tasks = new ArrayList<>();
+                    int chunk = (to - from + threads - 1) / threads;
+                    for (int start = from; start < to; start += chunk) {
+                        int end = Math.min(to, start + chunk);
+                        int first = start;
+                        tasks.add(executor.submit(() -> merge(reach, words, first, end)));
+                    }
+                    for (Future<?> task : tasks) {
+                        task.get();
+                    }
+                }
+
+                for (int i = from; i < to; i++) {
+                    int c = componentsByDepth[i];
+                    consumer.accept(Arrays.copyOfRange(members, memberOffsets[c], memberOffsets[c + 1]),
+                            expand(reach[c]));
+                    for (int d = dependentOffsets[c]; d < dependentOffsets[c + 1]; d++) {
+                        if (--pending[dependentComponents[d]] == 0) {
+                            reach[dependentComponents[d]] = null;
+                        }
+                    }
+                    if (pending[c] == 0) {
+                        reach[c] = null;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while determining impact", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to determine impact", e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Computes the bitsets of a range of components of the same depth, whose dependents all
+     * have their bitsets already.
+     */
+    private void merge(long[][] reach, int words, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int c = componentsByDepth[i];
+            long[] bits = new long[words];
+            if (cyclic[c]) {
+                bits[c >>> 6] |= 1L << c;
+            }
+            for (int e = dependentOffsets[c]; e < dependentOffsets[c + 1]; e++) {
+                int d = dependentComponents[e];
+                bits[d >>> 6] |= 1L << d;
+                long[] other = reach[d];
+                for (int w = 0; w < words; w++) {
+                    bits[w] |= other[w];
+                }
+            }
+            reach[c] = bits;
+        }
+    }
+
+    /**
+     * Lists the nodes of the components in a bitset.
+     */
+    private int[] expand(long[] bits) {
+        int count = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(word);
+                count += memberOffsets[c + 1] - memberOffsets[c];
+            }
+        }
+        int[] nodes = new int[count];
+        int size = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(word);
+                int length = memberOffsets[c + 1] - memberOffsets[c];
+                System.arraycopy(members, memberOffsets[c], nodes, size, length);
+                size += length;
+            }
+        }
+        return nodes;
+    }
+}
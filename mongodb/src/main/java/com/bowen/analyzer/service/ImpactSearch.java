@@ -0,0 +1,230 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.GraphSnapshot;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Breadth-first search for the nodes affected by a change to one node, the nodes depending
+ * on it through one or more edges.
+ *
+ * <p>The search runs on an explicit queue, so long chains of dependents cannot overflow the
+ * stack, and it keeps only the node each node was first reached from. As the search goes
+ * by distance, following those parents from a node back to the changed node gives a
+ * shortest path, which {@link #getPath} builds only for the nodes asked about.
+ *
+ * <p>Interactive queries may bound the search by the number of hops from the changed node
+ * and by the number of affected nodes it collects; {@link #isTruncated()} tells whether
+ * either bound left dependents unvisited.
+ */
+public class ImpactSearch {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int changed;
+
+    // Affected nodes in the order they were reached, so by distance
+    private final int[] affected;
+    private final int affectedCount;
+
+    // Node each node was reached from plus one, 0 for nodes not reached
+    private final int[] parentPlusOne;
+    private final boolean truncated;
+
+    /**
+     * Searches the classes affected by a change to a class of a snapshot.
+     */
+    public static ImpactSearch forClass(GraphSnapshot snapshot, int classNumber, int maxHops, int maxNodes) {
+        return new ImpactSearch(snapshot.getClassCount(), ImpactEngine.classDependents(snapshot),
+                classNumber, maxHops, maxNodes);
+    }
+
+    /**
+     * Searches the methods affected by a change to a method of a snapshot.
+     */
+    public static ImpactSearch forMethod(GraphSnapshot snapshot, int methodNumber, int maxHops, int maxNodes) {
+        return new ImpactSearch(snapshot.getMethodCount(), ImpactEngine.methodDependents(snapshot),
+                methodNumber, maxHops, maxNodes);
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @param nodeCount  The number of nodes
+     * @param dependents The dependents of each node
+     * @param changed    The changed node
+     * @param maxHops    The largest distance from the changed node to search, or {@link #UNLIMITED}
+     * @param maxNodes   The most affected nodes to collect, or {@link #UNLIMITED}
+     */
+    ImpactSearch(int nodeCount, ImpactEngine.Dependents dependents, int changed, int maxHops, int maxNodes) {
+        if (maxHops < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Limits must not be negative: " + maxHops + " hops, " + maxNodes + " nodes");
+        }
+        this.changed = changed;
+        this.parentPlusOne = new int[nodeCount];
+        int[] queue = new int[16];
+        int[] hops = new int[16];
+        int size = 0;
+        boolean stopped = false;
+
+        // The changed node counts as affected only when a cycle leads back to it
+        if (changed >= 0 && changed < nodeCount) {
+            int head = -1;
+            int node = changed;
+            int distance = 0;
+            search:
+            while (true) {
+                for (int e = dependents.start(node); e < dependents.end(node); e++) {
+                    int dependent = dependents.get(e);
+                    if (parentPlusOne[dependent] != 0) {
+                        continue;
+                    }
+                    if (distance == maxHops || size == maxNodes) {
+                        stopped = true;
+                        if (size == maxNodes) {
+                            break search;
+                        }
+                        break;
+                    }
+                    if (size == queue.length) {
+                        queue = Arrays.copyOf(queue, size * 2);
+                        hops = Arrays.copyOf(hops, size * 2);
+                    }
+                    parentPlusOne[dependent] = node + 1;
+                    queue[size] = dependent;
+                    hops[size++] = distance + 1;
+                }
+                if (++head == size) {
+                    break;
+                }
+                node = queue[head];
+                distance = hops[head];
+            }
+        }
+        this.affected = queue;
+        this.affectedCount = size;
+        this.truncated = stopped;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getAffectedCount() {
+        return affectedCount;
+    }
+
+    /**
+     * Returns an affected node; nodes are numbered by distance from the changed node.
+     */
+    public int getAffected(int index) {
+        if (index < 0 || index >= affectedCount) {
+            throw new IndexOutOfBoundsException("Unknown affected node " + index);
+        }
+        return affected[index];
+    }
+
+    public boolean isAffected(int node) {
+        return node >= 0 && node < parentPlusOne.length && parentPlusOne[node] != 0;
+    }
+
+    /**
+     * Checks whether a bound stopped the search before all affected nodes were found.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Builds a shortest path through which the change affects a node.
+     *
+     * @return The nodes from the affected node to the changed one, or {@code null} if the
+     * node was not reached
+     */
+    public int[] getPath(int node) {
+        if (!isAffected(node)) {
+            return null;
+        }
+        int length = 2;
+        for (int n = parentPlusOne[node] - 1; n != changed; n = parentPlusOne[n] - 1) {
+            length++;
+        }
+        int[] path = new int[length];
+        int n = node;
+        for (int i = 0; i < length - 1; i++) {
+            path[i] = n;
+            n = parentPlusOne[n] - 1;
+        }
+        path[length - 1] = changed;
+        return path;
+    }
+
+    /**
+     * Returns the affected nodes by name, each with its path as names, in the form of
+     * {@link AnalysisService#determineImpactRadius}. Paths are built when first read.
+     */
+    public Map<String, List<String>> toPathMap(IntFunction<String> names) {
+        Map<String, Integer> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < affectedCount; i++) {
+            nodes.put(names.apply(affected[i]), affected[i]);
+        }
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, List<String>>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, List<String>>> iterator() {
+                        Iterator<Map.Entry<String, Integer>> entries = nodes.entrySet().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return entries.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, List<String>> next() {
+                                Map.Entry<String, Integer> entry = entries.next();
+                                return new SimpleImmutableEntry<>(entry.getKey(), path(entry.getValue(), names));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return nodes.size();
+                    }
+                };
+            }
+
+            @Override
+            public Set<String> keySet() {
+                return Collections.unmodifiableSet(nodes.keySet());
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return nodes.containsKey(key);
+            }
+
+            @Override
+            public List<String> get(Object key) {
+                Integer node = nodes.get(key);
+                return node != null ? path(node, names) : null;
+            }
+
+            @Override
+            public int size() {
+                return nodes.size();
+            }
+        };
+    }
+
+    private List<String> path(int node, IntFunction<String> names) {
+        List<String> path = new ArrayList<>();
+        for (int n : getPath(node)) {
+            path.add(names.apply(n));
+        }
+        return Collections.unmodifiableList(path);
+    }
+}
@@ -0,0 +1,149 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.DependencyGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the source and webapp directories of a project and refreshes the analysis
+ * whenever files change, so the dependency graph stays current without restarting.
+ */
+public class ProjectWatcher {
+
+    // Editors often write a file in several steps; wait for this long without events
+    private static final long QUIET_PERIOD_MILLIS = 100;
+
+    private final AnalysisService analysisService;
+    private final List<File> directories;
+    private final RefreshListener listener;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    /**
+     * Receives the graph after every refresh.
+     */
+    @FunctionalInterface
+    public interface RefreshListener {
+        void onRefresh(DependencyGraph graph) throws Exception;
+    }
+
+    /**
+     * Creates a watcher for an already analyzed project.
+     *
+     * @param analysisService The service holding the current analysis
+     * @param directories The directories to watch, including subdirectories
+     * @param listener Called with the updated graph after each refresh
+     */
+    public ProjectWatcher(AnalysisService analysisService, List<File> directories, RefreshListener listener) {
+        this.analysisService = analysisService;
+        this.directories = directories;
+        this.listener = listener;
+    }
+
+    /**
+     * Watches for changes until the thread is interrupted.
+     *
+     * @throws IOException If the directories cannot be watched
+     */
+    public void run() throws IOException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            for (File directory : directories) {
+                if (directory.isDirectory()) {
+                    registerTree(watchService, directory.toPath(), new HashSet<>());
+                }
+            }
+            System.out.println("Watching " + watchedDirectories.size() + " directories for changes");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = drain(watchService, watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(watchService, key, changed);
+                }
+
+                if (overflow) {
+                    // Events were lost, so every file may have changed
+                    changed.clear();
+                    directories.forEach(directory -> changed.add(directory.toPath()));
+                } else {
+                    changed.removeIf(path -> !isRelevant(path));
+                }
+                if (!changed.isEmpty()) {
+                    refresh(changed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void refresh(Set<Path> changed) {
+        long start = System.nanoTime();
+        try {
+            DependencyGraph graph = analysisService.refresh(changed);
+            listener.onRefresh(graph);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("Refreshed after " + changed.size() + " changes in " + millis + " ms");
+        } catch (Exception e) {
+            System.out.println("Failed to refresh analysis: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects the paths reported by a watch key, returning whether events were lost.
+     */
+    private boolean drain(WatchService watchService, WatchKey key, Set<Path> changed) {
+        Path directory = watchedDirectories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            changed.add(path);
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                // Files may have been created before the new directory was registered
+                try {
+                    registerTree(watchService, path, changed);
+                } catch (IOException e) {
+                    System.out.println("Failed to watch directory: " + path + " Error: " + e.getMessage());
+                    overflow = true;
+                }
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    private void registerTree(WatchService watchService, Path root, Set<Path> files) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    WatchKey key = path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    watchedDirectories.put(key, path);
+                } else {
+                    files.add(path);
+                }
+            }
+        }
+    }
+
+    private static boolean isRelevant(Path path) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(".java") || name.endsWith(".xhtml") || Files.isDirectory(path)) {
+            return true;
+        }
+        // Deleted directories can no longer be recognized as such
+        return !Files.exists(path) && name.indexOf('.') < 0;
+    }
+}
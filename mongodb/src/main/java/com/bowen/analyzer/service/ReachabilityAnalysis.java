@@ -0,0 +1,159 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.GraphSnapshot;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the classes and methods of a snapshot that no entry point reaches.
+ *
+ * <p>Unlike {@link GraphSnapshot#findUnusedClasses()}, which only asks whether anything
+ * uses a class, this also finds groups of classes that only use each other. Entry points
+ * are classes used by a framework or by tests, methods used by a framework or by tests,
+ * and {@code main} methods. From there, a reached class reaches the classes it uses, by the
+ * same rule as {@link GraphSnapshot#findUnusedClasses()}. A reached method reaches the
+ * methods it calls and its declaring class. Of the rest, the classes declared in the
+ * analyzed sources and the registered methods are reported; classes only named by references,
+ * such as library classes or names that could not be resolved, are not code of the project.
+ *
+ * <p>Reached classes and methods are marked in bitsets, and each one goes through a work
+ * list once, so the analysis runs in time linear in the size of the graph.
+ */
+public class ReachabilityAnalysis {
+
+    private static final String MAIN_METHOD = "main";
+
+    private final GraphSnapshot snapshot;
+    private final long[] reachedClasses;
+    private final long[] reachedMethods;
+
+    // Work lists, each class and method entering its list once
+    private final int[] classQueue;
+    private final int[] methodQueue;
+    private int classCount;
+    private int methodCount;
+
+    private ReachabilityAnalysis(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.reachedClasses = new long[(snapshot.getClassCount() + 63) >>> 6];
+        this.reachedMethods = new long[(snapshot.getMethodCount() + 63) >>> 6];
+        this.classQueue = new int[snapshot.getClassCount()];
+        this.methodQueue = new int[snapshot.getMethodCount()];
+    }
+
+    /**
+     * Marks everything reached from the entry points of a snapshot.
+     */
+    public static ReachabilityAnalysis run(GraphSnapshot snapshot) {
+        ReachabilityAnalysis analysis = new ReachabilityAnalysis(snapshot);
+        analysis.seed();
+        analysis.mark();
+        return analysis;
+    }
+
+    private void seed() {
+        for (int c = 0; c < snapshot.getClassCount(); c++) {
+            if (snapshot.isClassUsedByFramework(c) || snapshot.isClassUsedByTest(c)) {
+                reachClass(c);
+            }
+        }
+        for (int m = 0; m < snapshot.getMethodCount(); m++) {
+            if (snapshot.isMethodUsedByFramework(m) || snapshot.isMethodUsedByTest(m)
+                    || snapshot.hasUsage(m, MethodUsageType.FRAMEWORK) || snapshot.hasUsage(m, MethodUsageType.TEST)
+                    || MAIN_METHOD.equals(snapshot.getMethodName(m))) {
+                reachMethod(m);
+            }
+        }
+    }
+
+    private void mark() {
+        int classHead = 0;
+        int methodHead = 0;
+        while (classHead < classCount || methodHead < methodCount) {
+            while (methodHead < methodCount) {
+                int method = methodQueue[methodHead++];
+                reachClass(snapshot.getMethodClass(method));
+                for (int call = snapshot.callOutStart(method); call < snapshot.callOutEnd(method); call++) {
+                    reachMethod(snapshot.getCallee(call));
+                }
+            }
+            while (classHead < classCount) {
+                int classNumber = classQueue[classHead++];
+                for (int e = snapshot.outStart(classNumber); e < snapshot.outEnd(classNumber); e++) {
+                    if (snapshot.makesUsed(classNumber, e)) {
+                        reachClass(snapshot.getTarget(e));
+                    }
+                }
+            }
+        }
+    }
+
+    private void reachClass(int classNumber) {
+        if (!isSet(reachedClasses, classNumber)) {
+            reachedClasses[classNumber >>> 6] |= 1L << classNumber;
+            classQueue[classCount++] = classNumber;
+        }
+    }
+
+    private void reachMethod(int methodNumber) {
+        if (!isSet(reachedMethods, methodNumber)) {
+            reachedMethods[methodNumber >>> 6] |= 1L << methodNumber;
+            methodQueue[methodCount++] = methodNumber;
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isClassReachable(int classNumber) {
+        return isSet(reachedClasses, classNumber);
+    }
+
+    public boolean isMethodReachable(int methodNumber) {
+        return isSet(reachedMethods, methodNumber);
+    }
+
+    /**
+     * Returns the number of classes reached, whether part of the class graph or not.
+     */
+    public int getReachableClassCount() {
+        return classCount;
+    }
+
+    public int getReachableMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Finds all classes declared in the analyzed sources that no entry point reaches.
+     */
+    public Set<String> findUnreachableClasses() {
+        Set<String> unreachable = new HashSet<>();
+        for (int c = 0; c < snapshot.getClassCount(); c++) {
+            if (snapshot.isDeclared(c) && !isClassReachable(c)) {
+                unreachable.add(snapshot.getClassName(c));
+            }
+        }
+        return unreachable;
+    }
+
+    /**
+     * Finds all registered methods that no entry point reaches.
+     */
+    public Set<String> findUnreachableMethods() {
+        Set<String> unreachable = new HashSet<>();
+        for (int m = 0; m < snapshot.getMethodCount(); m++) {
+            if (snapshot.isRegistered(m) && !isMethodReachable(m)) {
+                unreachable.add(snapshot.getMethodFullName(m));
+            }
+        }
+        return unreachable;
+    }
+}
@@ -0,0 +1,128 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.cache.JarIndex;
+import com.bowen.analyzer.util.SymbolResolverUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analyzes the Java files of a project in several local processes.
+ *
+ * <p>The files are split into shards and each shard is analyzed by its own JVM, which runs
+ * the given main class with {@code --shard=I/N} and {@code --partial-out=FILE} and writes
+ * the shard's facts there. Each process only holds the symbol solver state of its own shard,
+ * so the heap needed per process shrinks with the number of shards. The partial files are
+ * then merged with {@link AnalysisService#mergeShards}.
+ */
+public class ShardCoordinator {
+
+    private final File projectRoot;
+    private final AnalysisOptions options;
+    private final int shardCount;
+    private final File workDir;
+    private final String mainClass;
+    private String workerHeap;
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param projectRoot The root directory of the project
+     * @param options Options passed on to every shard process; the fact cache is not used
+     * @param shardCount Number of shard processes
+     * @param workDir Directory receiving the partial files and the output of each process
+     * @param mainClass Main class of the shard processes, which must accept the shard options
+     */
+    public ShardCoordinator(File projectRoot, AnalysisOptions options, int shardCount, File workDir,
+                            String mainClass) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1: " + shardCount);
+        }
+        this.projectRoot = projectRoot;
+        this.options = options;
+        this.shardCount = shardCount;
+        this.workDir = workDir;
+        this.mainClass = mainClass;
+    }
+
+    /**
+     * Sets the maximum heap of each shard process, as accepted by {@code -Xmx}.
+     */
+    public void setWorkerHeap(String workerHeap) {
+        this.workerHeap = workerHeap;
+    }
+
+    /**
+     * Runs all shard processes concurrently and waits for them to finish.
+     *
+     * @return The partial files, one per shard
+     * @throws IOException If a process cannot be started or fails
+     */
+    public List<File> run() throws IOException {
+        workDir.mkdirs();
+        if (options.getJarIndexDir() != null && !options.isSyntaxOnly()) {
+            // Index the dependency JARs once instead of in every process
+            JarIndex.load(SymbolResolverUtil.findLibraryJars(projectRoot), options.getJarIndexDir()).close();
+        }
+
+        long start = System.nanoTime();
+        List<File> partials = new ArrayList<>();
+        List<File> logs = new ArrayList<>();
+        List<Process> processes = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                File partial = new File(workDir, "shard-" + shard + ".partial");
+                File log = new File(workDir, "shard-" + shard + ".log");
+                partial.delete();
+                partials.add(partial);
+                logs.add(log);
+                processes.add(new ProcessBuilder(command(shard, partial))
+                        .redirectErrorStream(true)
+                        .redirectOutput(log)
+                        .start());
+            }
+
+            for (int shard = 0; shard < shardCount; shard++) {
+                int exitCode = processes.get(shard).waitFor();
+                if (exitCode != 0 || !partials.get(shard).isFile()) {
+                    throw new IOException("Shard " + shard + " failed with exit code " + exitCode
+                            + ", see " + logs.get(shard).getAbsolutePath());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shards", e);
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+
+        System.out.printf("Analyzed %d shards in %.1f s%n", shardCount, (System.nanoTime() - start) / 1e9);
+        return partials;
+    }
+
+    private List<String> command(int shard, File partial) {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+        if (workerHeap != null) {
+            command.add("-Xmx" + workerHeap);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+        command.add(projectRoot.getAbsolutePath());
+        command.add("--shard=" + shard + "/" + shardCount);
+        command.add("--partial-out=" + partial.getAbsolutePath());
+        command.add("--threads=" + options.getThreads());
+        command.add("--read-threads=" + options.getReadThreads());
+        command.add("--queue-capacity=" + options.getQueueCapacity());
+        if (options.getJarIndexDir() != null) {
+            command.add("--jar-index-dir=" + options.getJarIndexDir().getAbsolutePath());
+        }
+        if (options.isSyntaxOnly()) {
+            command.add("--fast");
+        }
+        return command;
+    }
+}
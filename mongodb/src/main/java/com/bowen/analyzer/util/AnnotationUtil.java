@@ -1,5 +1,9 @@
 package com.bowen.analyzer.util;
 
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MemberValuePair;
+
 import java.util.List;
 
 /**
@@ -78,4 +82,32 @@ public class AnnotationUtil {
         
         return TEST_ANNOTATIONS.contains(simpleName);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Returns the explicit name given by a {@code @Named("...")} annotation.
+     *
+     * @param annotation The annotation
+     * @return The name, or null if the annotation is not {@code @Named} or uses the default name
+     */
+    public static String getNamedValue(AnnotationExpr annotation) {
+        String name = annotation.getNameAsString();
+        if (!name.equals("Named") && !name.endsWith(".Named")) {
+            return null;
+        }
+
+        Expression value = null;
+        if (annotation.isSingleMemberAnnotationExpr()) {
+            value = annotation.asSingleMemberAnnotationExpr().getMemberValue();
+        } else if (annotation.isNormalAnnotationExpr()) {
+            for (MemberValuePair pair : annotation.asNormalAnnotationExpr().getPairs()) {
+                if (pair.getNameAsString().equals("value")) {
+                    value = pair.getValue();
+                }
+            }
+        }
+        if (value == null || !value.isStringLiteralExpr() || value.asStringLiteralExpr().getValue().isEmpty()) {
+            return null;
+        }
+        return value.asStringLiteralExpr().asString();
+    }
+}
@@ -1,13 +1,11 @@
 package com.bowen.analyzer.util;
 
-import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSink;
 import com.bowen.analyzer.model.enums.MethodUsageType;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,19 +24,23 @@ public class CodeAnalysisUtil {
     /**
      * Processes class annotations to mark framework usage.
      */
-    public static void processClassAnnotations(ClassOrInterfaceDeclaration clazz, String className, DependencyGraph graph) {
+    public static void processClassAnnotations(ClassOrInterfaceDeclaration clazz, String className, GraphSink graph) {
         clazz.getAnnotations().forEach(anno -> {
             String name = anno.getNameAsString();
             if (AnnotationUtil.isInjectionAndRestAnnotation(name)) {
                 graph.markClassUsedByFramework(className);
             }
+            String beanName = AnnotationUtil.getNamedValue(anno);
+            if (beanName != null) {
+                graph.registerBeanName(className, beanName);
+            }
         });
     }
 
     /**
      * Processes imports to add dependencies.
      */
-    public static void processImports(CompilationUnit cu, String className, DependencyGraph graph) {
+    public static void processImports(CompilationUnit cu, String className, GraphSink graph) {
         Map<String, ImportDeclaration> imports = cu.getImports().stream()
                 .collect(Collectors.toMap(
                     ImportDeclaration::getNameAsString,
@@ -74,40 +76,38 @@ public class CodeAnalysisUtil {
     /**
      * Processes type references, annotations, method signatures and fields to add dependencies.
      */
-    public static void processTypeReferences(CompilationUnit cu, String packageName, String className, DependencyGraph graph) {
+    public static void processTypeReferences(TypeScope typeScope, GraphSink graph) {
+        String packageName = typeScope.getPackageName();
+        String className = typeScope.getClassName();
         Set<String> referencedTypes = new HashSet<>();
         
         // Process class/interface types in the code
-        cu.findAll(ClassOrInterfaceType.class).forEach(refType -> {
+        typeScope.getTypeReferences().forEach(refType -> {
             String ref;
-            try {
-                var resolvedType = refType.resolve();
-                if (resolvedType.isReferenceType()) {
-                    ref = resolvedType.asReferenceType().getQualifiedName();
-                    graph.addDependency(className, ref, "REFERENCE");
-                    referencedTypes.add(ref);
-                    graph.markImportAsUsed(className, ref);
-                } else {
-                    ref = TypeResolutionUtil.fallbackName(packageName, refType.getNameAsString());
-                    graph.addDependency(className, ref, "UNRESOLVED_REFERENCE");
-                }
-            } catch (Exception e) {
+            ResolutionCache.TypeResolution resolution = typeScope.resolve(refType);
+            if (resolution.isReference()) {
+                ref = resolution.getQualifiedName();
+                graph.addDependency(className, ref, "REFERENCE");
+                referencedTypes.add(ref);
+                graph.markImportAsUsed(className, ref);
+            } else {
                 ref = TypeResolutionUtil.fallbackName(packageName, refType.getNameAsString());
                 graph.addDependency(className, ref, "UNRESOLVED_REFERENCE");
             }
         });
         
-        processAnnotations(cu, className, packageName, graph, referencedTypes);
-        processMethodSignatures(cu, className, packageName, graph, referencedTypes);
-        processFieldTypes(cu, className, packageName, graph, referencedTypes);
+        processAnnotations(typeScope, graph, referencedTypes);
+        processMethodSignatures(typeScope, graph, referencedTypes);
+        processFieldTypes(typeScope, graph, referencedTypes);
     }
     
     /**
      * Processes annotations in the code.
      */
-    public static void processAnnotations(CompilationUnit cu, String className, String packageName, 
-                                   DependencyGraph graph, Set<String> referencedTypes) {
-        cu.findAll(com.github.javaparser.ast.expr.AnnotationExpr.class).forEach(annoExpr -> {
+    public static void processAnnotations(TypeScope typeScope, GraphSink graph, Set<String> referencedTypes) {
+        CompilationUnit cu = typeScope.getCompilationUnit();
+        String className = typeScope.getClassName();
+        typeScope.getAnnotations().forEach(annoExpr -> {
             String annoName = annoExpr.getNameAsString();
             
             String fullyQualifiedName = resolveAnnotationName(annoName, cu);
@@ -143,35 +143,21 @@ public class CodeAnalysisUtil {
     /**
      * Processes method signatures including return types and parameter types.
      */
-    public static void processMethodSignatures(CompilationUnit cu, String className, String packageName, 
-                                       DependencyGraph graph, Set<String> referencedTypes) {
-        cu.findAll(com.github.javaparser.ast.body.MethodDeclaration.class).forEach(method -> {
+    public static void processMethodSignatures(TypeScope typeScope, GraphSink graph, Set<String> referencedTypes) {
+        CompilationUnit cu = typeScope.getCompilationUnit();
+        String packageName = typeScope.getPackageName();
+        String className = typeScope.getClassName();
+        typeScope.getMethods().forEach(method -> {
             // Process return type
-            method.getType().ifClassOrInterfaceType(returnType -> {
-                try {
-                    var resolvedType = returnType.resolve();
-                    if (resolvedType.isReferenceType()) {
-                        String typeName = resolvedType.asReferenceType().getQualifiedName();
-                        referencedTypes.add(typeName);
-                        graph.markImportAsUsed(className, typeName);
-                        graph.addDependency(className, typeName, "REFERENCE");
-                    }
-                } catch (Exception e) {
-                    String typeName = returnType.getNameAsString();
-                    String fullyQualifiedName = resolveTypeName(typeName, cu, packageName);
-                    if (fullyQualifiedName != null) {
-                        referencedTypes.add(fullyQualifiedName);
-                        graph.markImportAsUsed(className, fullyQualifiedName);
-                    }
-                }
-            });
+            method.getType().ifClassOrInterfaceType(returnType ->
+                    processSignatureType(returnType, typeScope, graph, referencedTypes));
             
             // Process generic type arguments in return type
             method.getType().ifClassOrInterfaceType(returnType -> {
                 returnType.getTypeArguments().ifPresent(typeArgs -> {
                     for (com.github.javaparser.ast.type.Type typeArg : typeArgs) {
                         if (typeArg.isClassOrInterfaceType()) {
-                            processTypeArgument(typeArg.asClassOrInterfaceType(), cu, className, packageName, graph, referencedTypes);
+                            processTypeArgument(typeArg.asClassOrInterfaceType(), typeScope, graph, referencedTypes);
                         }
                     }
                 });
@@ -180,28 +166,13 @@ public class CodeAnalysisUtil {
             // Process method parameters
             method.getParameters().forEach(param -> {
                 param.getType().ifClassOrInterfaceType(paramType -> {
-                    try {
-                        var resolvedType = paramType.resolve();
-                        if (resolvedType.isReferenceType()) {
-                            String typeName = resolvedType.asReferenceType().getQualifiedName();
-                            referencedTypes.add(typeName);
-                            graph.markImportAsUsed(className, typeName);
-                            graph.addDependency(className, typeName, "REFERENCE");
-                        }
-                    } catch (Exception e) {
-                        String typeName = paramType.getNameAsString();
-                        String fullyQualifiedName = resolveTypeName(typeName, cu, packageName);
-                        if (fullyQualifiedName != null) {
-                            referencedTypes.add(fullyQualifiedName);
-                            graph.markImportAsUsed(className, fullyQualifiedName);
-                        }
-                    }
+                    processSignatureType(paramType, typeScope, graph, referencedTypes);
                     
                     // Process generic type arguments in parameter type
                     paramType.getTypeArguments().ifPresent(typeArgs -> {
                         for (com.github.javaparser.ast.type.Type typeArg : typeArgs) {
                             if (typeArg.isClassOrInterfaceType()) {
-                                processTypeArgument(typeArg.asClassOrInterfaceType(), cu, className, packageName, graph, referencedTypes);
+                                processTypeArgument(typeArg.asClassOrInterfaceType(), typeScope, graph, referencedTypes);
                             }
                         }
                     });
@@ -235,33 +206,18 @@ public class CodeAnalysisUtil {
     /**
      * Processes field types and generic type parameters.
      */
-    public static void processFieldTypes(CompilationUnit cu, String className, String packageName, 
-                                 DependencyGraph graph, Set<String> referencedTypes) {
-        cu.findAll(com.github.javaparser.ast.body.FieldDeclaration.class).forEach(field -> {
+    public static void processFieldTypes(TypeScope typeScope, GraphSink graph, Set<String> referencedTypes) {
+        String className = typeScope.getClassName();
+        typeScope.getFields().forEach(field -> {
             field.getVariables().forEach(var -> {
                 var.getType().ifClassOrInterfaceType(fieldType -> {
-                    try {
-                        var resolvedType = fieldType.resolve();
-                        if (resolvedType.isReferenceType()) {
-                            String typeName = resolvedType.asReferenceType().getQualifiedName();
-                            referencedTypes.add(typeName);
-                            graph.markImportAsUsed(className, typeName);
-                            graph.addDependency(className, typeName, "REFERENCE");
-                        }
-                    } catch (Exception e) {
-                        String typeName = fieldType.getNameAsString();
-                        String fullyQualifiedName = resolveTypeName(typeName, cu, packageName);
-                        if (fullyQualifiedName != null) {
-                            referencedTypes.add(fullyQualifiedName);
-                            graph.markImportAsUsed(className, fullyQualifiedName);
-                        }
-                    }
+                    processSignatureType(fieldType, typeScope, graph, referencedTypes);
                     
                     // Process generic type arguments
                     fieldType.getTypeArguments().ifPresent(typeArgs -> {
                         for (com.github.javaparser.ast.type.Type typeArg : typeArgs) {
                             if (typeArg.isClassOrInterfaceType()) {
-                                processTypeArgument(typeArg.asClassOrInterfaceType(), cu, className, packageName, graph, referencedTypes);
+                                processTypeArgument(typeArg.asClassOrInterfaceType(), typeScope, graph, referencedTypes);
                             }
                         }
                     });
@@ -274,57 +230,65 @@ public class CodeAnalysisUtil {
      * Processes a generic type argument.
      */
     public static void processTypeArgument(com.github.javaparser.ast.type.ClassOrInterfaceType typeArg, 
-                                   CompilationUnit cu, String className, String packageName, 
-                                   DependencyGraph graph, Set<String> referencedTypes) {
-        try {
-            var resolvedType = typeArg.resolve();
-            if (resolvedType.isReferenceType()) {
-                String typeName = resolvedType.asReferenceType().getQualifiedName();
-                referencedTypes.add(typeName);
-                graph.markImportAsUsed(className, typeName);
-                graph.addDependency(className, typeName, "REFERENCE");
-            }
-        } catch (Exception e) {
-            String typeName = typeArg.getNameAsString();
-            String fullyQualifiedName = resolveTypeName(typeName, cu, packageName);
-            if (fullyQualifiedName != null) {
-                referencedTypes.add(fullyQualifiedName);
-                graph.markImportAsUsed(className, fullyQualifiedName);
-            }
-        }
+                                   TypeScope typeScope, GraphSink graph, Set<String> referencedTypes) {
+        processSignatureType(typeArg, typeScope, graph, referencedTypes);
         
         // Process nested generic type arguments
         typeArg.getTypeArguments().ifPresent(nestedTypeArgs -> {
             for (com.github.javaparser.ast.type.Type nestedTypeArg : nestedTypeArgs) {
                 if (nestedTypeArg.isClassOrInterfaceType()) {
-                    processTypeArgument(nestedTypeArg.asClassOrInterfaceType(), cu, className, packageName, graph, referencedTypes);
+                    processTypeArgument(nestedTypeArg.asClassOrInterfaceType(), typeScope, graph, referencedTypes);
                 }
             }
         });
     }
 
+    /**
+     * Processes a type used in a declaration signature. Resolved reference types become
+     * dependencies; unresolvable types only mark a matching import as used.
+     */
+    private static void processSignatureType(com.github.javaparser.ast.type.ClassOrInterfaceType type,
+                                             TypeScope typeScope, GraphSink graph, Set<String> referencedTypes) {
+        String className = typeScope.getClassName();
+        ResolutionCache.TypeResolution resolution = typeScope.resolve(type);
+        if (resolution.isReference()) {
+            String typeName = resolution.getQualifiedName();
+            referencedTypes.add(typeName);
+            graph.markImportAsUsed(className, typeName);
+            graph.addDependency(className, typeName, "REFERENCE");
+        } else if (resolution.isUnresolved()) {
+            String fullyQualifiedName = resolveTypeName(type.getNameAsString(),
+                    typeScope.getCompilationUnit(), typeScope.getPackageName());
+            if (fullyQualifiedName != null) {
+                referencedTypes.add(fullyQualifiedName);
+                graph.markImportAsUsed(className, fullyQualifiedName);
+            }
+        }
+    }
+
     /**
      * Processes method calls to track caller-callee relationships.
      */
-    public static void processMethodCalls(CompilationUnit cu, String className, DependencyGraph graph, boolean isTestCode) {
+    public static void processMethodCalls(TypeScope typeScope, GraphSink graph, boolean isTestCode) {
+        CompilationUnit cu = typeScope.getCompilationUnit();
+        String className = typeScope.getClassName();
         Set<String> referencedTypes = new HashSet<>();
         
-        cu.findAll(MethodCallExpr.class).forEach(methodCall -> {
+        typeScope.getMethodCalls().forEach(methodCall -> {
             String calleeMethod = methodCall.getNameAsString();
             String calleeClass;
             String callerMethod = TypeResolutionUtil.findEnclosingMethodName(methodCall);
             boolean resolved = false;
 
-            try {
-                var resolvedMethod = methodCall.resolve();
-                calleeClass = resolvedMethod.declaringType().getQualifiedName();
-                calleeMethod = resolvedMethod.getName();
+            String declaringClass = typeScope.resolveCallTarget(methodCall);
+            if (declaringClass != null) {
+                calleeClass = declaringClass;
                 resolved = true;
                 
                 referencedTypes.add(calleeClass);
                 graph.markImportAsUsed(className, calleeClass);
                 graph.addDependency(className, calleeClass, "REFERENCE");
-            } catch (Exception e) {
+            } else {
                 calleeClass = "(unresolved)";
                 
                 // Try to resolve possible static imports
@@ -365,12 +329,6 @@ public class CodeAnalysisUtil {
                     graph.markMethodUsedByTest(calleeClass, calleeMethod);
                     graph.markMethodUsage(calleeClass, calleeMethod, MethodUsageType.TEST);
                 }
-            } else if (isTestCode) {
-                for (String potentialClass : graph.getAllClasses()) {
-                    if (graph.getMethodCalls(potentialClass).contains(calleeMethod)) {
-                        graph.markMethodUsage(potentialClass, calleeMethod, MethodUsageType.TEST);
-                    }
-                }
             }
             
             // Check arguments to method calls for potential references
@@ -387,7 +345,7 @@ public class CodeAnalysisUtil {
      * Processes arguments of method calls for potential references.
      */
     private static void processMethodCallArguments(MethodCallExpr methodCall, CompilationUnit cu, 
-                                        String className, DependencyGraph graph, Set<String> referencedTypes) {
+                                        String className, GraphSink graph, Set<String> referencedTypes) {
         methodCall.getArguments().forEach(arg -> {
             // Check for class reference arguments
             arg.findAll(com.github.javaparser.ast.expr.ClassExpr.class).forEach(classExpr -> {
@@ -436,8 +394,9 @@ public class CodeAnalysisUtil {
     /**
      * Processes method declarations to track methods and their annotations.
      */
-    public static void processMethodDeclarations(ClassOrInterfaceDeclaration clazz, String className, DependencyGraph graph) {
-        clazz.findAll(MethodDeclaration.class).forEach(method -> {
+    public static void processMethodDeclarations(TypeScope typeScope, GraphSink graph) {
+        String className = typeScope.getClassName();
+        typeScope.getMethods().forEach(method -> {
             String methodName = method.getNameAsString();
             graph.registerMethod(className, methodName);
 
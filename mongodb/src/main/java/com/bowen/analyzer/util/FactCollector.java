@@ -0,0 +1,88 @@
+package com.bowen.analyzer.util;
+
+import com.bowen.analyzer.model.GraphSink;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects all facts of a compilation unit with a single walk over its syntax tree.
+ *
+ * <p>Every node is attributed to its innermost enclosing class or interface, so each
+ * node is visited and resolved exactly once no matter how many nested types the file
+ * declares. Facts are then emitted per type, in declaration order.
+ */
+public class FactCollector {
+
+    /**
+     * Analyzes a compilation unit and reports its facts to the sink.
+     *
+     * @param cu The parsed compilation unit
+     * @param graph The sink receiving the facts
+     * @param isTestCode Whether the file is test code
+     * @param resolutionCache The run-wide type resolution cache
+     */
+    public static void collect(CompilationUnit cu, GraphSink graph, boolean isTestCode,
+                               ResolutionCache resolutionCache) {
+        SourceContext source = new SourceContext(cu, resolutionCache);
+
+        List<TypeScope> scopes = new ArrayList<>();
+        walk(cu, null, source, scopes);
+
+        for (TypeScope scope : scopes) {
+            String className = scope.getClassName();
+            graph.addClass(className);
+
+            if (isTestCode) {
+                graph.markClassUsedByTest(className);
+            }
+
+            // Process class elements and update the dependency graph
+            CodeAnalysisUtil.processClassAnnotations(scope.getDeclaration(), className, graph);
+            CodeAnalysisUtil.processImports(cu, className, graph);
+            CodeAnalysisUtil.processTypeReferences(scope, graph);
+            CodeAnalysisUtil.processMethodCalls(scope, graph, isTestCode);
+            CodeAnalysisUtil.processMethodDeclarations(scope, graph);
+
+            for (String simpleName : scope.getUnresolvedNames()) {
+                graph.markTypeUnresolved(className, simpleName);
+            }
+        }
+    }
+
+    private static void walk(Node node, TypeScope current, SourceContext source, List<TypeScope> scopes) {
+        if (node instanceof ClassOrInterfaceDeclaration clazz) {
+            String packageName = source.getPackageName();
+            String className = packageName.isEmpty() ? clazz.getNameAsString()
+                    : packageName + "." + clazz.getNameAsString();
+            current = new TypeScope(source, className, clazz);
+            scopes.add(current);
+        }
+
+        if (current != null) {
+            if (node instanceof ClassOrInterfaceType type) {
+                current.getTypeReferences().add(type);
+            } else if (node instanceof AnnotationExpr annotation) {
+                current.getAnnotations().add(annotation);
+            } else if (node instanceof MethodDeclaration method) {
+                current.getMethods().add(method);
+            } else if (node instanceof FieldDeclaration field) {
+                current.getFields().add(field);
+            } else if (node instanceof MethodCallExpr call) {
+                current.getMethodCalls().add(call);
+            }
+        }
+
+        for (Node child : node.getChildNodes()) {
+            walk(child, current, source, scopes);
+        }
+    }
+}
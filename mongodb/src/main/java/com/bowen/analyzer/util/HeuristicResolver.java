@@ -0,0 +1,233 @@
+package com.bowen.analyzer.util;
+
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves names from the syntax tree alone, for analyses that run without a symbol solver.
+ *
+ * <p>Types are resolved through the file's own declarations, its imports and the JDK's
+ * {@code java.lang} package, falling back to the file's package. The target of a method call is taken from the
+ * declared type of the variable or field it is called on, or the enclosing class for
+ * unqualified calls. Inherited members, overloads and the types of arbitrary expressions
+ * are not considered, so results are a best guess.
+ */
+public class HeuristicResolver {
+
+    private static final Map<String, Boolean> JDK_TYPES = new ConcurrentHashMap<>();
+
+    /**
+     * Guesses the qualified name of a type, or returns null for a type parameter.
+     */
+    public static String resolveType(ClassOrInterfaceType type, TypeScope typeScope) {
+        String name = type.getNameWithScope();
+        if (ResolutionCache.isTypeParameterInScope(type, name)) {
+            return null;
+        }
+
+        // Resolve the outermost name; nested type names are appended to it
+        int dot = name.indexOf('.');
+        String first = dot < 0 ? name : name.substring(0, dot);
+        if (dot > 0 && Character.isLowerCase(first.charAt(0))) {
+            return name;
+        }
+        String qualified = resolveSimpleName(first, typeScope);
+        return dot < 0 ? qualified : qualified + name.substring(dot);
+    }
+
+    /**
+     * Looks a simple type name up in the order Java does: types of the file, single-type
+     * imports, the file's package and {@code java.lang}, then on-demand imports. Types of the
+     * file's package are only known for this file, so an unknown name falls back to the package
+     * unless it names a JDK type.
+     */
+    private static String resolveSimpleName(String name, TypeScope typeScope) {
+        SourceContext source = typeScope.getSource();
+        String qualified = source.getDeclaredTypes().get(name);
+        if (qualified == null) {
+            qualified = source.getSingleTypeImports().get(name);
+        }
+        if (qualified != null) {
+            return qualified;
+        }
+        if (isJdkType("java.lang." + name)) {
+            return "java.lang." + name;
+        }
+
+        String onDemand = null;
+        for (ImportDeclaration importDecl : typeScope.getCompilationUnit().getImports()) {
+            if (importDecl.isAsterisk() && !importDecl.isStatic()) {
+                String candidate = importDecl.getNameAsString() + "." + name;
+                if (isJdkType(candidate)) {
+                    return candidate;
+                }
+                if (onDemand == null && !candidate.startsWith("java.")) {
+                    onDemand = candidate;
+                }
+            }
+        }
+        if (onDemand != null && !TypeResolutionUtil.isJavaLangType(name)) {
+            return onDemand;
+        }
+        return TypeResolutionUtil.fallbackName(typeScope.getPackageName(), name);
+    }
+
+    /**
+     * Checks whether a class of the running JDK has the given name, without initializing it.
+     */
+    private static boolean isJdkType(String className) {
+        if (!className.startsWith("java.")) {
+            return false;
+        }
+        return JDK_TYPES.computeIfAbsent(className, name -> {
+            try {
+                Class.forName(name, false, ClassLoader.getPlatformClassLoader());
+                return true;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Guesses the class declaring the method a call refers to, or returns null if the
+     * receiver's type cannot be determined from declarations.
+     */
+    public static String resolveCallTarget(MethodCallExpr call, TypeScope typeScope) {
+        Optional<Expression> scope = call.getScope();
+        if (scope.isEmpty()) {
+            return declaresMethod(typeScope.getDeclaration(), call.getNameAsString())
+                    ? qualifiedName(typeScope)
+                    : null;
+        }
+
+        Expression receiver = scope.get();
+        if (receiver.isThisExpr()) {
+            return qualifiedName(typeScope);
+        }
+        if (receiver instanceof FieldAccessExpr field && field.getScope().isThisExpr()) {
+            return typeOf(findField(typeScope.getDeclaration(), field.getNameAsString()), typeScope);
+        }
+        if (receiver instanceof NameExpr nameExpr) {
+            String name = nameExpr.getNameAsString();
+            Type variableType = findVariable(call, name);
+            if (variableType == null) {
+                variableType = findField(typeScope.getDeclaration(), name);
+            }
+            if (variableType != null) {
+                return typeOf(variableType, typeScope);
+            }
+            if (Character.isUpperCase(name.charAt(0))) {
+                // A static call on a type
+                return resolveType(new ClassOrInterfaceType(null, name), typeScope);
+            }
+        }
+        return null;
+    }
+
+    private static String typeOf(Type type, TypeScope typeScope) {
+        if (type == null || !type.isClassOrInterfaceType()) {
+            return null;
+        }
+        return resolveType(type.asClassOrInterfaceType(), typeScope);
+    }
+
+    private static String qualifiedName(TypeScope typeScope) {
+        return typeScope.getDeclaration().getFullyQualifiedName().orElse(typeScope.getClassName());
+    }
+
+    private static boolean declaresMethod(ClassOrInterfaceDeclaration declaration, String methodName) {
+        return !declaration.getMethodsByName(methodName).isEmpty();
+    }
+
+    private static Type findField(ClassOrInterfaceDeclaration declaration, String name) {
+        for (FieldDeclaration field : declaration.getFields()) {
+            for (VariableDeclarator variable : field.getVariables()) {
+                if (variable.getNameAsString().equals(name)) {
+                    return variable.getType();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the declared type of a local variable or parameter visible at a node,
+     * searching enclosing blocks up to the enclosing method or constructor.
+     */
+    private static Type findVariable(Node from, String name) {
+        Node node = from;
+        while (node != null && !(node instanceof ClassOrInterfaceDeclaration)) {
+            if (node instanceof CallableDeclaration<?> callable) {
+                for (Parameter parameter : callable.getParameters()) {
+                    if (parameter.getNameAsString().equals(name)) {
+                        return parameter.getType();
+                    }
+                }
+            } else if (node instanceof LambdaExpr lambda) {
+                for (Parameter parameter : lambda.getParameters()) {
+                    if (parameter.getNameAsString().equals(name)) {
+                        // Implicitly typed lambda parameters have no declared type
+                        return parameter.getType().isUnknownType() ? null : parameter.getType();
+                    }
+                }
+            } else if (node instanceof CatchClause catchClause
+                    && catchClause.getParameter().getNameAsString().equals(name)) {
+                return catchClause.getParameter().getType();
+            } else if (node instanceof ForEachStmt forEach) {
+                for (VariableDeclarator variable : forEach.getVariable().getVariables()) {
+                    if (variable.getNameAsString().equals(name)) {
+                        return variable.getType();
+                    }
+                }
+            }
+            Type local = findLocal(node, from, name);
+            if (local != null) {
+                return local;
+            }
+            node = node.getParentNode().orElse(null);
+        }
+        return null;
+    }
+
+    /**
+     * Finds a local variable declared by a statement of the given node that precedes the use.
+     */
+    private static Type findLocal(Node container, Node use, String name) {
+        for (Node child : container.getChildNodes()) {
+            if (child.getRange().isPresent() && use.getRange().isPresent()
+                    && !child.getRange().get().begin.isBefore(use.getRange().get().begin)) {
+                break;
+            }
+            if (child instanceof ExpressionStmt statement
+                    && statement.getExpression() instanceof VariableDeclarationExpr declaration) {
+                for (VariableDeclarator variable : declaration.getVariables()) {
+                    if (variable.getNameAsString().equals(name)) {
+                        return variable.getType();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bowen.analyzer.util;
+
+import com.bowen.analyzer.cache.JarIndex;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * Type solver for dependency JARs backed by a {@link JarIndex}.
+ *
+ * <p>Equivalent to one {@code JarTypeSolver} per JAR, but class files are only read
+ * when a type is requested. Like other type solvers it is not thread-safe; the index
+ * it reads from may be shared.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+
+    private final JarIndex index;
+    private final ClassPool classPool = new ClassPool();
+    private TypeSolver parent;
+
+    public IndexedJarTypeSolver(JarIndex index) {
+        this.index = index;
+        classPool.appendClassPath(index.asClassPath());
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        String poolName = index.findClass(name);
+        if (poolName == null) {
+            return SymbolReference.unsolved();
+        }
+        try {
+            CtClass ctClass = classPool.get(poolName);
+            return SymbolReference.solved(JavassistFactory.toTypeDeclaration(ctClass, getRoot()));
+        } catch (NotFoundException e) {
+            System.out.println("Failed to read class " + poolName + " from dependency JAR: " + e.getMessage());
+            return SymbolReference.unsolved();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.bowen.analyzer.util;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeParameters;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes type resolution results for the duration of one analysis run.
+ *
+ * <p>Lookups are keyed by the imports and package of the compilation unit, the enclosing
+ * type (whose member types may shadow imported ones) and the type as written.
+ * Failed resolutions are cached as well, so an unresolvable name costs one exception
+ * per key instead of one per occurrence. Types imported from the JDK by a single-type
+ * import, and {@code java.lang} types, are answered without calling the symbol solver.
+ *
+ * <p>The cache is shared by all parsing threads of a run. In syntax-only mode the symbol
+ * solver is never called; names are resolved by {@link HeuristicResolver} instead.
+ */
+public class ResolutionCache {
+
+    private final boolean syntaxOnly;
+
+    private final Map<String, TypeResolution> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fastPath = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+
+    /**
+     * Creates a cache resolving names with the symbol solver.
+     */
+    public ResolutionCache() {
+        this(false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param syntaxOnly Whether to resolve names from the syntax tree alone, without the symbol solver
+     */
+    public ResolutionCache(boolean syntaxOnly) {
+        this.syntaxOnly = syntaxOnly;
+    }
+
+    public boolean isSyntaxOnly() {
+        return syntaxOnly;
+    }
+
+    /**
+     * Resolves a class or interface type as seen from the given scope.
+     *
+     * @param type The type to resolve
+     * @param typeScope The innermost type enclosing the reference
+     * @return The resolution outcome, never null
+     */
+    public TypeResolution resolve(ClassOrInterfaceType type, TypeScope typeScope) {
+        String name = type.getNameWithScope();
+
+        String jdkName = findJdkType(name, typeScope);
+        if (jdkName != null) {
+            fastPath.increment();
+            return TypeResolution.reference(jdkName);
+        }
+
+        // Type parameters shadow other types only within their declaration
+        if (isTypeParameterInScope(type, name)) {
+            uncacheable.increment();
+            return syntaxOnly ? TypeResolution.NOT_REFERENCE : resolveWithSolver(type);
+        }
+
+        // Type arguments are part of the key: an unresolvable argument fails the whole lookup
+        String key = typeScope.getResolutionKey() + type.asString();
+        TypeResolution cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            if (cached.isUnresolved()) {
+                negativeHits.increment();
+            }
+            return cached;
+        }
+
+        misses.increment();
+        TypeResolution resolution = syntaxOnly ? resolveHeuristically(type, typeScope) : resolveWithSolver(type);
+        cache.putIfAbsent(key, resolution);
+        return resolution;
+    }
+
+    /**
+     * Finds the class declaring the method a call refers to. Results are not cached,
+     * since they depend on the variables in scope at the call.
+     *
+     * @param call The method call
+     * @param typeScope The innermost type enclosing the call
+     * @return The qualified name of the declaring class, or null if it cannot be determined
+     */
+    public String resolveCallTarget(MethodCallExpr call, TypeScope typeScope) {
+        if (syntaxOnly) {
+            return HeuristicResolver.resolveCallTarget(call, typeScope);
+        }
+        try {
+            return call.resolve().declaringType().getQualifiedName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the cache counters.
+     */
+    public String getStatistics() {
+        return hits.sum() + " hits (" + negativeHits.sum() + " negative), "
+                + misses.sum() + " misses, "
+                + fastPath.sum() + " JDK fast-path, "
+                + uncacheable.sum() + " type parameters, "
+                + cache.size() + " entries";
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getFastPathHits() {
+        return fastPath.sum();
+    }
+
+    private static TypeResolution resolveWithSolver(ClassOrInterfaceType type) {
+        try {
+            ResolvedType resolved = type.resolve();
+            if (resolved.isReferenceType()) {
+                return TypeResolution.reference(resolved.asReferenceType().getQualifiedName());
+            }
+            return TypeResolution.NOT_REFERENCE;
+        } catch (Exception e) {
+            return TypeResolution.UNRESOLVED;
+        }
+    }
+
+    private static TypeResolution resolveHeuristically(ClassOrInterfaceType type, TypeScope typeScope) {
+        String qualifiedName = HeuristicResolver.resolveType(type, typeScope);
+        return qualifiedName == null ? TypeResolution.NOT_REFERENCE : TypeResolution.reference(qualifiedName);
+    }
+
+    /**
+     * Finds the JDK type a simple name refers to without the symbol solver, or returns null
+     * if the name could refer to something else. Types declared in the same file take
+     * precedence over imports, so files declaring a type of the same name are excluded.
+     * A same-package type shadowing a {@code java.lang} type is not detected.
+     */
+    private static String findJdkType(String name, TypeScope typeScope) {
+        if (name.indexOf('.') >= 0 || typeScope.getSource().getDeclaredTypeNames().contains(name)) {
+            return null;
+        }
+
+        String imported = typeScope.getSource().getSingleTypeImports().get(name);
+        if (imported != null) {
+            return imported.startsWith("java.") ? imported : null;
+        }
+
+        if (TypeResolutionUtil.isJavaLangType(name)) {
+            return "java.lang." + name;
+        }
+        return null;
+    }
+
+    static boolean isTypeParameterInScope(ClassOrInterfaceType type, String name) {
+        Node node = type;
+        while (node != null) {
+            if (node instanceof NodeWithTypeParameters<?> generic) {
+                for (TypeParameter parameter : generic.getTypeParameters()) {
+                    if (parameter.getNameAsString().equals(name)) {
+                        return true;
+                    }
+                }
+            }
+            node = node.getParentNode().orElse(null);
+        }
+        return false;
+    }
+
+    /**
+     * The outcome of resolving a type: a reference type with its qualified name,
+     * a type that is not a reference type (such as a type variable), or a failure.
+     */
+    public static final class TypeResolution {
+        static final TypeResolution NOT_REFERENCE = new TypeResolution(null, false);
+        static final TypeResolution UNRESOLVED = new TypeResolution(null, true);
+
+        private final String qualifiedName;
+        private final boolean unresolved;
+
+        private TypeResolution(String qualifiedName, boolean unresolved) {
+            this.qualifiedName = qualifiedName;
+            this.unresolved = unresolved;
+        }
+
+        static TypeResolution reference(String qualifiedName) {
+            return new TypeResolution(qualifiedName, false);
+        }
+
+        public boolean isReference() {
+            return qualifiedName != null;
+        }
+
+        public boolean isUnresolved() {
+            return unresolved;
+        }
+
+        public String getQualifiedName() {
+            return qualifiedName;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.bowen.analyzer.util;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-file information shared by all {@link TypeScope}s of a compilation unit.
+ */
+public class SourceContext {
+    private final CompilationUnit cu;
+    private final String packageName;
+    private final ResolutionCache resolutionCache;
+    private final Map<String, String> singleTypeImports = new HashMap<>();
+    private final Set<String> declaredTypeNames = new HashSet<>();
+    private final Map<String, String> declaredTypes = new HashMap<>();
+    private final String importsKey;
+
+    /**
+     * Creates the context for a compilation unit.
+     *
+     * @param cu The parsed compilation unit
+     * @param resolutionCache The run-wide resolution cache
+     */
+    public SourceContext(CompilationUnit cu, ResolutionCache resolutionCache) {
+        this.cu = cu;
+        this.resolutionCache = resolutionCache;
+        this.packageName = cu.getPackageDeclaration()
+                .map(pd -> pd.getNameAsString())
+                .orElse("");
+
+        StringBuilder key = new StringBuilder(packageName).append('|');
+        for (ImportDeclaration importDecl : cu.getImports()) {
+            String importName = importDecl.getNameAsString();
+            key.append(importDecl.isStatic() ? "s:" : "")
+                    .append(importName)
+                    .append(importDecl.isAsterisk() ? ".*;" : ";");
+            if (!importDecl.isStatic() && !importDecl.isAsterisk()) {
+                singleTypeImports.putIfAbsent(importName.substring(importName.lastIndexOf('.') + 1), importName);
+            }
+        }
+        this.importsKey = key.append('|').toString();
+
+        for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+            declaredTypeNames.add(type.getNameAsString());
+            type.getFullyQualifiedName().ifPresent(name -> declaredTypes.putIfAbsent(type.getNameAsString(), name));
+        }
+    }
+
+    public CompilationUnit getCompilationUnit() {
+        return cu;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
+    /**
+     * Returns the single-type imports of the file, keyed by simple name.
+     */
+    public Map<String, String> getSingleTypeImports() {
+        return singleTypeImports;
+    }
+
+    /**
+     * Returns the simple names of all types declared in the file.
+     */
+    public Set<String> getDeclaredTypeNames() {
+        return declaredTypeNames;
+    }
+
+    /**
+     * Returns the qualified names of the types declared in the file, keyed by simple name.
+     * If several nested types share a simple name, the first one declared is kept.
+     */
+    public Map<String, String> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    /**
+     * Returns a string identifying the package and imports of the file.
+     */
+    public String getImportsKey() {
+        return importsKey;
+    }
+}
@@ -1,14 +1,16 @@
 package com.bowen.analyzer.util;
 
-import com.github.javaparser.StaticJavaParser;
+import com.bowen.analyzer.cache.JarIndex;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -17,12 +19,15 @@ import java.util.List;
 public class SymbolResolverUtil {
 
     /**
-     * Sets up the symbol solver for resolving Java types and methods.
+     * Creates a parser configuration with its own symbol solver for resolving Java types and methods.
+     * Type solvers cache parsed sources internally and are not thread-safe, so every parsing
+     * thread needs its own configuration.
      *
      * @param sourceRoots List of source root directories
-     * @param projectRoot The root directory of the project
+     * @param jarIndex Index of the dependency JARs, which may be shared between configurations
+     * @return A new parser configuration
      */
-    public static void setupSymbolSolver(List<File> sourceRoots, File projectRoot) {
+    public static ParserConfiguration createParserConfiguration(List<File> sourceRoots, JarIndex jarIndex) {
         CombinedTypeSolver typeSolver = new CombinedTypeSolver();
         typeSolver.add(new ReflectionTypeSolver());
 
@@ -30,40 +35,33 @@ public class SymbolResolverUtil {
         for (File root : sourceRoots) {
             if (root.exists() && root.isDirectory()) {
                 typeSolver.add(new JavaParserTypeSolver(root));
-            } else {
-                System.out.println("Source root does not exist or is not a directory: " + root.getAbsolutePath());
             }
         }
 
-        // Automatically find the lib directory under the project root
-        loadLibraryJars(typeSolver, projectRoot);
+        typeSolver.add(new IndexedJarTypeSolver(jarIndex));
 
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-        StaticJavaParser.getConfiguration().setSymbolResolver(symbolSolver);
+        return new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver));
     }
 
     /**
-     * Loads JAR files from the project's lib directory.
+     * Finds the dependency JARs in the project's lib directory.
      *
-     * @param typeSolver The type solver to add JAR resolvers to
      * @param projectRoot The root directory of the project
+     * @return The JAR files, sorted by name; empty if the lib directory does not exist
      */
-    private static void loadLibraryJars(CombinedTypeSolver typeSolver, File projectRoot) {
+    public static List<File> findLibraryJars(File projectRoot) {
         File libDir = new File(projectRoot, "target/lib");
-        if (libDir.exists() && libDir.isDirectory()) {
-            File[] jars = libDir.listFiles((dir, name) -> name.endsWith(".jar"));
-            if (jars != null) {
-                for (File jar : jars) {
-                    try {
-                        typeSolver.add(new JarTypeSolver(jar));
-                        System.out.println("Loaded dependency: " + jar.getName());
-                    } catch (IOException e) {
-                        System.out.println("Failed to load JAR: " + jar.getName() + " Error: " + e.getMessage());
-                    }
-                }
-            }
-        } else {
+        if (!libDir.exists() || !libDir.isDirectory()) {
             System.out.println("⚠ Dependency JAR folder not found: " + libDir.getAbsolutePath());
+            return List.of();
+        }
+
+        File[] jars = libDir.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+            return List.of();
         }
+        List<File> result = new ArrayList<>(Arrays.asList(jars));
+        result.sort(Comparator.comparing(File::getName));
+        return result;
     }
-} 
\ No newline at end of file
+}
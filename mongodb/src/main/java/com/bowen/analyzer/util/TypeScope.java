@@ -0,0 +1,122 @@
+package com.bowen.analyzer.util;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The nodes of a compilation unit whose innermost enclosing type is one class or interface.
+ * Filled in by {@link FactCollector} during its single walk over the compilation unit.
+ */
+public class TypeScope {
+    private final SourceContext source;
+    private final String className;
+    private final ClassOrInterfaceDeclaration declaration;
+    private final String resolutionKey;
+
+    private final List<ClassOrInterfaceType> typeReferences = new ArrayList<>();
+    private final List<AnnotationExpr> annotations = new ArrayList<>();
+    private final List<MethodDeclaration> methods = new ArrayList<>();
+    private final List<FieldDeclaration> fields = new ArrayList<>();
+    private final List<MethodCallExpr> methodCalls = new ArrayList<>();
+    private final Set<String> unresolvedNames = new LinkedHashSet<>();
+
+    public TypeScope(SourceContext source, String className, ClassOrInterfaceDeclaration declaration) {
+        this.source = source;
+        this.className = className;
+        this.declaration = declaration;
+        this.resolutionKey = source.getImportsKey()
+                + declaration.getFullyQualifiedName().orElse(className) + "|";
+    }
+
+    public SourceContext getSource() {
+        return source;
+    }
+
+    public CompilationUnit getCompilationUnit() {
+        return source.getCompilationUnit();
+    }
+
+    public String getPackageName() {
+        return source.getPackageName();
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public ClassOrInterfaceDeclaration getDeclaration() {
+        return declaration;
+    }
+
+    public List<ClassOrInterfaceType> getTypeReferences() {
+        return typeReferences;
+    }
+
+    public List<AnnotationExpr> getAnnotations() {
+        return annotations;
+    }
+
+    public List<MethodDeclaration> getMethods() {
+        return methods;
+    }
+
+    public List<FieldDeclaration> getFields() {
+        return fields;
+    }
+
+    public List<MethodCallExpr> getMethodCalls() {
+        return methodCalls;
+    }
+
+    /**
+     * Returns the prefix of {@link ResolutionCache} keys for types referenced in this scope.
+     * Type names resolve the same way wherever this prefix is the same.
+     */
+    public String getResolutionKey() {
+        return resolutionKey;
+    }
+
+    /**
+     * Resolves a type referenced in this scope through the run-wide resolution cache.
+     */
+    public ResolutionCache.TypeResolution resolve(ClassOrInterfaceType type) {
+        ResolutionCache.TypeResolution resolution = source.getResolutionCache().resolve(type, this);
+        if (resolution.isUnresolved()) {
+            unresolvedNames.add(type.getNameAsString());
+        }
+        return resolution;
+    }
+
+    /**
+     * Finds the class declaring the method a call in this scope refers to, or returns null.
+     */
+    public String resolveCallTarget(MethodCallExpr call) {
+        String target = source.getResolutionCache().resolveCallTarget(call, this);
+        if (target == null && call.getScope().isPresent() && call.getScope().get() instanceof NameExpr name
+                && Character.isUpperCase(name.getNameAsString().charAt(0))) {
+            // Most likely a static call on a class that could not be found
+            unresolvedNames.add(name.getNameAsString());
+        }
+        return target;
+    }
+
+    /**
+     * Returns the simple names of the types this scope failed to resolve so far.
+     * The results may change once a class of one of these names is added to the project.
+     */
+    public Collection<String> getUnresolvedNames() {
+        return unresolvedNames;
+    }
+}
@@ -0,0 +1,112 @@
+package com.bowen;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.LabeledEdge;
+import com.bowen.analyzer.model.MethodCall;
+import com.bowen.analyzer.parser.JavaProjectParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the syntax-only analysis with the full analysis on the same project.
+ *
+ * <p>Usage: {@code FastModeBenchmark [projectPath] [--threads=N] [--runs=N]}. Each mode parses
+ * the Java sources {@code runs} times and the fastest run is reported. The graphs of the two
+ * modes are then compared: precision is the share of syntax-only results the full analysis
+ * agrees with, recall the share of full results the syntax-only analysis also found.
+ * The benchmark is not part of the packaged analyzer; run it from the test class path.
+ */
+public class FastModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String projectPath = "kitchensink";
+        int threads = 1;
+        int runs = 3;
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            } else {
+                projectPath = arg;
+            }
+        }
+
+        File projectRoot = new File(projectPath);
+        List<File> sourceRoots = List.of(
+                new File(projectRoot, "src/main/java"),
+                new File(projectRoot, "src/test/java")
+        );
+
+        DependencyGraph full = null;
+        DependencyGraph fast = null;
+        long fullNanos = Long.MAX_VALUE;
+        long fastNanos = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            full = analyze(projectRoot, sourceRoots, threads, false);
+            fullNanos = Math.min(fullNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            fast = analyze(projectRoot, sourceRoots, threads, true);
+            fastNanos = Math.min(fastNanos, System.nanoTime() - start);
+        }
+
+        System.out.println("\n======= Fast Mode Benchmark =======");
+        System.out.printf("Full analysis:        %8.1f ms%n", fullNanos / 1e6);
+        System.out.printf("Syntax-only analysis: %8.1f ms (%.1fx faster)%n",
+                fastNanos / 1e6, (double) fullNanos / Math.max(1, fastNanos));
+        report("Edges", describeEdges(full, false), describeEdges(fast, false));
+        report("Labelled edges", describeEdges(full, true), describeEdges(fast, true));
+        report("Method calls", describeCalls(full), describeCalls(fast));
+        report("Unused classes", full.findUnusedClasses(), fast.findUnusedClasses());
+    }
+
+    private static DependencyGraph analyze(File projectRoot, List<File> sourceRoots, int threads, boolean syntaxOnly)
+            throws IOException {
+        DependencyGraph graph = new DependencyGraph(syntaxOnly);
+        JavaProjectParser parser = new JavaProjectParser(sourceRoots, projectRoot, threads);
+        parser.setSyntaxOnly(syntaxOnly);
+        parser.parseProject(graph);
+        return graph;
+    }
+
+    /**
+     * Lists the edges of a graph as {@code from -> to}, optionally with their label. Heuristic
+     * references are reported as plain references so both modes can be compared.
+     */
+    private static Set<String> describeEdges(DependencyGraph graph, boolean withLabels) {
+        Set<String> edges = new HashSet<>();
+        for (String className : graph.getAllClasses()) {
+            for (LabeledEdge edge : graph.getDependencies(className)) {
+                String description = className + " -> " + graph.getGraph().getEdgeTarget(edge);
+                if (withLabels) {
+                    description += " " + edge.getLabel().replace("HEURISTIC_REFERENCE", "REFERENCE");
+                }
+                edges.add(description);
+            }
+        }
+        return edges;
+    }
+
+    private static Set<String> describeCalls(DependencyGraph graph) {
+        Set<String> calls = new HashSet<>();
+        for (MethodCall call : graph.getAllMethodCalls()) {
+            calls.add(call.toString());
+        }
+        return calls;
+    }
+
+    private static void report(String name, Set<String> full, Set<String> fast) {
+        Set<String> agreed = new HashSet<>(fast);
+        agreed.retainAll(full);
+        System.out.printf("%-15s full %6d  fast %6d  agreed %6d  precision %5.1f%%  recall %5.1f%%%n",
+                name, full.size(), fast.size(), agreed.size(),
+                100.0 * agreed.size() / Math.max(1, fast.size()),
+                100.0 * agreed.size() / Math.max(1, full.size()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.bowen.analyzer.cache;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.FileFacts;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FactCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FactCache(tempDir.resolve("cache").toFile());
+    }
+
+    @Test
+    void testStoreAndLoadRoundTrip() {
+        FileFacts facts = new FileFacts();
+        facts.addClass("com.example.ClassA");
+        facts.addDependency("com.example.ClassA", "com.example.ClassB", "REFERENCE");
+        facts.addMethodCall("com.example.ClassA", "run", "com.example.ClassB", "help");
+        facts.markMethodUsage("com.example.ClassB", "help", MethodUsageType.CALLED);
+
+        String key = cache.computeKey("src/main/java/ClassA.java", bytes("class ClassA {}"));
+        cache.store(key, facts);
+        FileFacts loaded = cache.load(key);
+
+        assertNotNull(loaded);
+        assertEquals(facts.getFacts().toString(), loaded.getFacts().toString());
+        assertEquals(1, cache.getHits());
+
+        DependencyGraph graph = new DependencyGraph();
+        loaded.replay(graph);
+        assertTrue(graph.getAllClasses().contains("com.example.ClassB"));
+        assertEquals(1, graph.getAllMethodCalls().size());
+    }
+
+    @Test
+    void testMissingEntryCountsAsMiss() {
+        assertNull(cache.load(cache.computeKey("A.java", bytes("class A {}"))));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testKeyDependsOnContentAndPath() {
+        String key = cache.computeKey("A.java", bytes("class A {}"));
+
+        assertEquals(key, cache.computeKey("A.java", bytes("class A {}")));
+        assertNotEquals(key, cache.computeKey("A.java", bytes("class A { }")));
+        assertNotEquals(key, cache.computeKey("test/A.java", bytes("class A {}")));
+    }
+
+    @Test
+    void testKeyDependsOnDependencyJars() throws Exception {
+        File jar = tempDir.resolve("lib.jar").toFile();
+        Files.writeString(jar.toPath(), "first");
+        String before = FactCache.fingerprintOf(List.of(jar));
+        assertEquals(before, FactCache.fingerprintOf(List.of(jar)));
+        assertNotEquals(cache.computeKey("A.java", bytes("class A {}")),
+                cache.computeKey(before, "A.java", bytes("class A {}")));
+
+        Files.writeString(jar.toPath(), "replaced");
+        String after = FactCache.fingerprintOf(List.of(jar));
+        assertNotEquals(before, after);
+        assertNotEquals(cache.computeKey(before, "A.java", bytes("class A {}")),
+                cache.computeKey(after, "A.java", bytes("class A {}")));
+        assertNotEquals(before, FactCache.fingerprintOf(List.of()));
+    }
+
+    @Test
+    void testManifestRoundTrip() {
+        File projectRoot = tempDir.resolve("project").toFile();
+        cache.saveManifest(projectRoot, Map.of("src/A.java", "abc", "src/B.java", "def"));
+
+        assertEquals(Map.of("src/A.java", "abc", "src/B.java", "def"), cache.loadManifest(projectRoot));
+        assertTrue(cache.loadManifest(tempDir.resolve("other").toFile()).isEmpty());
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bowen.analyzer.cache;
+
+import com.bowen.analyzer.util.IndexedJarTypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import javassist.ClassPool;
+import javassist.CtClass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JarIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIndexesClassesIncludingNestedOnes() throws Exception {
+        File jar = writeJar("lib.jar", "com.example.Outer", "com.example.Outer$Inner");
+
+        JarIndex index = JarIndex.load(List.of(jar), null);
+
+        assertEquals(2, index.size());
+        assertEquals("com.example.Outer", index.findClass("com.example.Outer"));
+        assertEquals("com.example.Outer$Inner", index.findClass("com.example.Outer.Inner"));
+        assertNull(index.findClass("com.example.Missing"));
+    }
+
+    @Test
+    void testIndexIsReusedAcrossRuns() throws Exception {
+        File jar = writeJar("lib.jar", "com.example.Outer");
+        File indexDir = tempDir.resolve("index").toFile();
+
+        JarIndex first = JarIndex.load(List.of(jar), indexDir);
+        JarIndex second = JarIndex.load(List.of(jar), indexDir);
+
+        assertEquals(1, first.getIndexedJars());
+        assertEquals(0, second.getIndexedJars());
+        assertEquals(1, second.getLoadedJars());
+        assertEquals("com.example.Outer", second.findClass("com.example.Outer"));
+    }
+
+    @Test
+    void testSolverReadsClassesFromFirstJarContainingThem() throws Exception {
+        File first = writeJar("a.jar", "com.example.Shared");
+        File second = writeJar("b.jar", "com.example.Shared", "com.example.Other");
+
+        IndexedJarTypeSolver solver = new IndexedJarTypeSolver(JarIndex.load(List.of(first, second), null));
+        SymbolReference<ResolvedReferenceTypeDeclaration> shared = solver.tryToSolveType("com.example.Shared");
+        SymbolReference<ResolvedReferenceTypeDeclaration> other = solver.tryToSolveType("com.example.Other");
+
+        assertTrue(shared.isSolved());
+        assertEquals("com.example.Shared", shared.getCorrespondingDeclaration().getQualifiedName());
+        assertTrue(other.isSolved());
+        assertFalse(solver.tryToSolveType("com.example.Missing").isSolved());
+    }
+
+    @Test
+    void testCloseReleasesOpenJarsAndKeepsIndexUsable() throws Exception {
+        File jar = writeJar("lib.jar", "com.example.Outer");
+        JarIndex index = JarIndex.load(List.of(jar), null);
+        assertEquals(0, index.getOpenJarCount());
+
+        try (InputStream in = index.asClassPath().openClassfile("com.example.Outer")) {
+            assertNotNull(in);
+        }
+        assertEquals(1, index.getOpenJarCount());
+
+        index.close();
+        assertEquals(0, index.getOpenJarCount());
+        try (InputStream in = index.asClassPath().openClassfile("com.example.Outer")) {
+            assertNotNull(in);
+        }
+        index.close();
+    }
+
+    private File writeJar(String name, String... classNames) throws Exception {
+        File jar = tempDir.resolve(name).toFile();
+        ClassPool pool = new ClassPool(true);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String className : classNames) {
+                CtClass ctClass = pool.makeClass(className);
+                out.putNextEntry(new JarEntry(className.replace('.', '/') + ".class"));
+                out.write(ctClass.toBytecode());
+                out.closeEntry();
+                ctClass.detach();
+            }
+        }
+        return jar;
+    }
+}
@@ -1,6 +1,8 @@
 package com.bowen.analyzer.exporter;
 
 import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSnapshot;
+import com.bowen.analyzer.model.MethodUsageView;
 import com.bowen.analyzer.service.AnalysisService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,6 +46,9 @@ class ExportToolTest {
         // Mock the analysis service
         service = Mockito.mock(AnalysisService.class);
         when(service.getGraph()).thenReturn(graph);
+        GraphSnapshot snapshot = graph.snapshot();
+        when(service.getSnapshot()).thenReturn(snapshot);
+        when(service.getMethodUsageView()).thenReturn(MethodUsageView.of(snapshot));
         
         // Setup service methods that are called during export
         Map<String, String> dependencies = new HashMap<>();
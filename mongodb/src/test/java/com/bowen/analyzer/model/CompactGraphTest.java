@@ -0,0 +1,102 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.EdgeLabel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactGraphTest {
+
+    private static final String CLASS_A = "com.example.ClassA";
+    private static final String CLASS_B = "com.example.ClassB";
+    private static final String CLASS_C = "com.example.ClassC";
+    private static final String CLASS_D = "com.example.ClassD";
+
+    private DependencyGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DependencyGraph();
+        graph.markClassUsedByFramework(CLASS_D);
+        graph.addClass(CLASS_A);
+        graph.addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        graph.addDependency(CLASS_A, CLASS_C, "IMPORT");
+        graph.addDependency(CLASS_C, CLASS_B, "ANNOTATION_REFERENCE");
+        graph.addDependency(CLASS_B, CLASS_D, "IMPORT");
+        graph.markImportAsUsed(CLASS_B, CLASS_D);
+    }
+
+    @Test
+    void testQueriesMatchJGraphTBackend() {
+        List<String> classes = List.copyOf(graph.getAllClasses());
+        Map<String, String> dependenciesOfA = graph.getLabeledDependencies(CLASS_A);
+        List<String> dependentsOfB = graph.getDependents(CLASS_B);
+        Set<String> unused = graph.findUnusedClasses();
+        List<String> edgesOfA = describe(graph.getDependencies(CLASS_A));
+        int edgeCount = graph.getGraph().edgeSet().size();
+
+        graph.compact();
+
+        assertNotNull(graph.getCompactGraph());
+        assertEquals(classes, List.copyOf(graph.getAllClasses()));
+        assertEquals(List.copyOf(dependenciesOfA.entrySet()),
+                List.copyOf(graph.getLabeledDependencies(CLASS_A).entrySet()));
+        assertEquals(dependentsOfB, graph.getDependents(CLASS_B));
+        assertEquals(unused, graph.findUnusedClasses());
+        assertEquals(Set.of(CLASS_A, CLASS_C), unused);
+        assertEquals("REFERENCE", graph.getLabeledDependencies(CLASS_B).get(CLASS_D));
+        assertTrue(graph.hasDependents(CLASS_C));
+        assertFalse(graph.hasDependents(CLASS_A));
+        assertTrue(graph.getAllClasses().contains(CLASS_D));
+        assertTrue(graph.getDependents("com.example.Unknown").isEmpty());
+
+        // Edges and the JGraphT form are read without giving up the compact form
+        assertEquals(edgesOfA, describe(graph.getDependencies(CLASS_A)));
+        assertEquals(edgeCount, graph.getGraph().edgeSet().size());
+        assertNotNull(graph.getCompactGraph());
+    }
+
+    private static List<String> describe(Set<LabeledEdge> edges) {
+        List<String> descriptions = new ArrayList<>();
+        for (LabeledEdge edge : edges) {
+            descriptions.add(edge.getType() + "x" + edge.getReferenceCount());
+        }
+        return descriptions;
+    }
+
+    @Test
+    void testAdjacencyIsStoredInRowsPerClass() {
+        graph.compact();
+        CompactGraph compact = graph.getCompactGraph();
+        SymbolTable symbols = graph.getSymbols();
+        int a = symbols.findClass(CLASS_A);
+        int b = symbols.findClass(CLASS_B);
+
+        assertEquals(4, compact.getVertexCount());
+        assertEquals(4, compact.getEdgeCount());
+        assertEquals(2, compact.outEnd(a) - compact.outStart(a));
+        assertEquals(b, compact.getTarget(compact.outStart(a)));
+        assertEquals(EdgeLabel.REFERENCE, compact.getOutLabel(compact.outStart(a)));
+        assertEquals(2, compact.inEnd(b) - compact.inStart(b));
+        assertEquals(a, compact.getSource(compact.inStart(b)));
+        assertFalse(compact.containsVertex(SymbolTable.NOT_FOUND));
+    }
+
+    @Test
+    void testMutationConvertsBackToJGraphT() {
+        graph.compact();
+
+        graph.addDependency(CLASS_D, CLASS_A, "REFERENCE");
+
+        assertNull(graph.getCompactGraph());
+        assertEquals(5, graph.getGraph().edgeSet().size());
+        assertEquals(List.of(CLASS_D), graph.getDependents(CLASS_A));
+        assertEquals("ANNOTATION_REFERENCE", graph.getLabeledDependencies(CLASS_C).get(CLASS_B));
+    }
+}
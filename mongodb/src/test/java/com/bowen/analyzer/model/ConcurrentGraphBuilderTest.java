@@ -0,0 +1,158 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.MethodUsageType;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentGraphBuilderTest {
+
+    private static final int FILES = 400;
+    private static final int THREADS = 8;
+
+    @Test
+    void testConcurrentResultMatchesSequentialResult() throws Exception {
+        List<FileFacts> files = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            files.add(generateFile(i));
+        }
+
+        DependencyGraph sequential = new DependencyGraph();
+        for (FileFacts facts : files) {
+            facts.replay(sequential);
+        }
+        Map<String, Object> expected = describe(sequential);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 5; round++) {
+                ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+                List<FileFacts> shuffled = new ArrayList<>(files);
+                Collections.shuffle(shuffled, new Random(round));
+                AtomicInteger next = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    workers.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = next.getAndIncrement(); i < shuffled.size(); i = next.getAndIncrement()) {
+                            shuffled.get(i).replay(builder);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> worker : workers) {
+                    worker.get(30, TimeUnit.SECONDS);
+                }
+
+                assertEquals(expected, describe(builder.build()), "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUsedImportOnlyStrengthensDependenciesFoundBefore() {
+        ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder(true);
+        builder.markImportAsUsed("com.example.A", "com.example.B");
+        builder.addDependency("com.example.A", "com.example.B", "IMPORT");
+        builder.addDependency("com.example.A", "com.example.C", "IMPORT");
+        builder.markImportAsUsed("com.example.A", "com.example.C");
+        builder.addDependency("com.example.A", "com.example.A", "REFERENCE");
+        builder.addDependency("com.example.A", "com.example.D", "NOT_A_LABEL");
+
+        DependencyGraph graph = builder.build();
+
+        assertEquals(Map.of("com.example.B", "IMPORT", "com.example.C", "HEURISTIC_REFERENCE", "com.example.D", "OTHER"),
+                graph.getLabeledDependencies("com.example.A"));
+        assertTrue(graph.isImportUsed("com.example.A", "com.example.B"));
+    }
+
+    /**
+     * Generates the facts of one file, which share classes and methods with other files.
+     */
+    private FileFacts generateFile(int index) {
+        Random random = new Random(index);
+        FileFacts facts = new FileFacts();
+        String className = "com.example.p" + (index % 7) + ".C" + index;
+        facts.addClass(className);
+        facts.registerBeanName(className, "bean" + (index % 50));
+        if (index % 11 == 0) {
+            facts.markClassUsedByFramework(className);
+        }
+        for (int i = 0; i < 6; i++) {
+            String other = "com.example.p" + random.nextInt(7) + ".C" + random.nextInt(FILES);
+            facts.addDependency(className, other, "IMPORT");
+            if (random.nextBoolean()) {
+                facts.markImportAsUsed(className, other);
+            }
+            facts.addDependency(className, other, random.nextBoolean() ? "REFERENCE" : "ANNOTATION_REFERENCE");
+        }
+        facts.markImportAsUsed(className, "com.example.Missing" + random.nextInt(5));
+        facts.addDependency(className, "com.example.Unresolved" + random.nextInt(20), "UNRESOLVED_REFERENCE");
+
+        for (int m = 0; m < 5; m++) {
+            String method = "m" + m;
+            facts.registerMethod(className, method);
+            for (int c = 0; c < 4; c++) {
+                String callee = "com.example.p" + random.nextInt(7) + ".C" + random.nextInt(FILES);
+                String calleeMethod = "m" + random.nextInt(5);
+                facts.addMethodCall(className, method, callee, calleeMethod);
+                facts.markMethodUsage(callee, calleeMethod, MethodUsageType.CALLED);
+                if (index % 5 == 0) {
+                    facts.markClassUsedByTest(callee);
+                    facts.markMethodUsedByTest(callee, calleeMethod);
+                    facts.markMethodUsage(callee, calleeMethod, MethodUsageType.TEST);
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                facts.markMethodUsedByFramework(className, method);
+                facts.markMethodUsage(className, method, MethodUsageType.FRAMEWORK);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * Describes a graph independently of the order in which facts were added.
+     */
+    private Map<String, Object> describe(DependencyGraph graph) {
+        Map<String, Object> description = new TreeMap<>();
+        Map<String, String> edges = new TreeMap<>();
+        Map<String, String> classes = new TreeMap<>();
+        GraphSnapshot snapshot = graph.snapshot();
+        for (String className : graph.getAllClasses()) {
+            Map<String, Integer> counts = graph.getReferenceCounts(className);
+            graph.getLabeledDependencies(className).forEach((target, label) ->
+                    edges.put(className + " -> " + target, label + " x" + counts.get(target)));
+            classes.put(className, graph.isClassUsedByFramework(className) + "/" + graph.isClassUsedByTest(className)
+                    + (snapshot.isDeclared(snapshot.findClass(className)) ? " declared" : "") + " imports " + new TreeSet<>(graph.getUsedImports(className)));
+        }
+        description.put("edges", edges);
+        description.put("classes", classes);
+
+        Map<String, Integer> calls = new TreeMap<>();
+        for (MethodCall call : graph.getAllMethodCalls()) {
+            calls.put(call.toString(), call.getCount());
+        }
+        description.put("calls", calls);
+
+        Map<String, String> usages = new TreeMap<>();
+        for (MethodUsage usage : graph.getAllMethodUsages()) {
+            usages.put(usage.toString(), usage.hasUsage(MethodUsageType.CALLED)
+                    + "/" + usage.hasUsage(MethodUsageType.FRAMEWORK)
+                    + "/" + usage.hasUsage(MethodUsageType.TEST));
+        }
+        description.put("usages", usages);
+        description.put("unusedClasses", new TreeSet<>(graph.findUnusedClasses()));
+        description.put("unusedMethods", new TreeSet<>(graph.findUnusedMethods()));
+        description.put("beanNames", new TreeMap<>(graph.getBeanNames()));
+        return description;
+    }
+}
@@ -1,12 +1,16 @@
 package com.bowen.analyzer.model;
 
+import com.bowen.analyzer.model.enums.EdgeLabel;
 import com.bowen.analyzer.model.enums.MethodUsageType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +51,56 @@ class DependencyGraphTest {
         assertEquals("IMPORT", edge.getLabel());
     }
 
+    @Test
+    void testRepeatedDependencyKeepsStrongestLabelAndCountsReferences() {
+        // When
+        graph.addDependency(CLASS_A, CLASS_B, "IMPORT");
+        graph.addDependency(CLASS_A, CLASS_B, EdgeLabel.REFERENCE);
+        graph.addDependency(CLASS_A, CLASS_B, "ANNOTATION_REFERENCE");
+
+        // Then
+        assertEquals(1, graph.getDependencies(CLASS_A).size());
+        LabeledEdge edge = graph.getDependencies(CLASS_A).iterator().next();
+        assertEquals(EdgeLabel.REFERENCE, edge.getType());
+        assertEquals(3, edge.getReferenceCount());
+        assertEquals(Map.of(CLASS_B, 3), graph.getReferenceCounts(CLASS_A));
+    }
+
+    @Test
+    void testUnknownLabelsAreAcceptedAsOther() {
+        // When
+        graph.addDependency(CLASS_A, CLASS_B, "CUSTOM");
+        graph.addDependency(CLASS_A, CLASS_B, "CUSTOM");
+        graph.markImportAsUsed(CLASS_A, CLASS_B);
+
+        // Then
+        LabeledEdge edge = graph.getDependencies(CLASS_A).iterator().next();
+        assertEquals(EdgeLabel.REFERENCE, edge.getType());
+        assertEquals(2, edge.getReferenceCount());
+
+        // A custom dependency alone does not make its target used, also once frozen
+        String classC = "com.example.ClassC";
+        graph.addDependency(CLASS_B, classC, "CUSTOM");
+        assertEquals("OTHER", graph.getLabeledDependencies(CLASS_B).get(classC));
+        assertTrue(graph.findUnusedClasses().contains(classC));
+        assertTrue(graph.snapshot().findUnusedClasses().contains(classC));
+        graph.compact();
+        assertEquals("OTHER", graph.getLabeledDependencies(CLASS_B).get(classC));
+    }
+
+    @Test
+    void testUsedImportStrengthensLabelWithoutCountingReference() {
+        // Given
+        graph.addDependency(CLASS_A, CLASS_B, "IMPORT");
+
+        // When
+        graph.markImportAsUsed(CLASS_A, CLASS_B);
+
+        // Then
+        assertEquals("REFERENCE", graph.getLabeledDependencies(CLASS_A).get(CLASS_B));
+        assertEquals(1, graph.getReferenceCounts(CLASS_A).get(CLASS_B));
+    }
+
     @Test
     void testAddMethodCall() {
         // When
@@ -160,4 +214,146 @@ class DependencyGraphTest {
         assertNotNull(jgrapht);
         assertTrue(jgrapht instanceof DefaultDirectedGraph);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testReadingACompactedGraphIsNotAModification() {
+        // Given
+        graph.addDependency(CLASS_A, CLASS_B, "IMPORT");
+        graph.compact();
+        long modificationCount = graph.getModificationCount();
+
+        // When
+        DefaultDirectedGraph<String, LabeledEdge> jgrapht = graph.getGraph();
+        Set<LabeledEdge> dependencies = graph.getDependencies(CLASS_A);
+
+        // Then
+        assertEquals(modificationCount, graph.getModificationCount());
+        assertNotNull(graph.getCompactGraph());
+        assertEquals(1, jgrapht.edgeSet().size());
+        assertEquals(EdgeLabel.IMPORT, dependencies.iterator().next().getType());
+        assertThrows(IllegalArgumentException.class, () -> graph.getDependencies("com.example.Unknown"));
+
+        graph.addClass(CLASS_A);
+        assertTrue(graph.getModificationCount() > modificationCount);
+    }
+
+    @Test
+    void testRepeatedFactsAreNotModifications() {
+        // Given
+        graph.addClass(CLASS_A);
+        graph.addDependency(CLASS_A, CLASS_B, "IMPORT");
+        graph.markImportAsUsed(CLASS_A, CLASS_B);
+        graph.registerMethod(CLASS_A, "run");
+        graph.markMethodUsage(CLASS_A, "run", MethodUsageType.FRAMEWORK);
+        graph.markClassUsedByFramework(CLASS_A);
+        graph.markMethodUsedByFramework(CLASS_A, "run");
+        graph.markClassUsedByTest(CLASS_B);
+        graph.markMethodUsedByTest(CLASS_A, "run");
+        graph.registerBeanName(CLASS_A, "a");
+        graph.compact();
+        long modificationCount = graph.getModificationCount();
+
+        // When the same facts are reported again
+        graph.addClass(CLASS_A);
+        graph.markImportAsUsed(CLASS_A, CLASS_B);
+        graph.registerMethod(CLASS_A, "run");
+        graph.markMethodUsage(CLASS_A, "run", MethodUsageType.FRAMEWORK);
+        graph.markClassUsedByFramework(CLASS_A);
+        graph.markMethodUsedByFramework(CLASS_A, "run");
+        graph.markClassUsedByTest(CLASS_B);
+        graph.markMethodUsedByTest(CLASS_A, "run");
+        graph.registerBeanName(CLASS_A, "a");
+
+        // Then
+        assertEquals(modificationCount, graph.getModificationCount());
+        assertNotNull(graph.getCompactGraph());
+
+        // A new usage type is a change
+        graph.markMethodUsage(CLASS_A, "run", MethodUsageType.TEST);
+        assertEquals(modificationCount + 1, graph.getModificationCount());
+    }
+
+    @Test
+    void testReleasedGraphRejectsChangesUntilCleared() {
+        // Given
+        graph.addDependency(CLASS_A, CLASS_B, "IMPORT");
+
+        // When
+        graph.release();
+
+        // Then
+        assertTrue(graph.isReleased());
+        assertTrue(graph.getAllClasses().isEmpty());
+        assertThrows(IllegalStateException.class, () -> graph.addClass(CLASS_A));
+        assertThrows(IllegalStateException.class, () -> graph.addDependency(CLASS_A, CLASS_B, "IMPORT"));
+        assertThrows(IllegalStateException.class, () -> graph.addMethodCall(CLASS_A, "run", CLASS_B, "run"));
+        assertThrows(IllegalStateException.class, () -> graph.registerMethod(CLASS_A, "run"));
+        assertThrows(IllegalStateException.class, () -> graph.markImportAsUsed(CLASS_A, CLASS_B));
+
+        graph.clear();
+        assertFalse(graph.isReleased());
+        graph.addClass(CLASS_A);
+        assertEquals(Set.of(CLASS_A), graph.getAllClasses());
+    }
+
+    @Test
+    void testRetractedFactsLeaveTheGraphAsIfNeverMerged() {
+        // Given
+        FileFacts first = new FileFacts();
+        first.addClass(CLASS_A);
+        first.addDependency(CLASS_A, CLASS_B, "IMPORT");
+        first.addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        first.addDependency(CLASS_A, "com.example.Gone", "REFERENCE");
+        first.markImportAsUsed(CLASS_A, CLASS_B);
+        first.registerBeanName(CLASS_A, "classA");
+        first.registerMethod(CLASS_A, METHOD_A);
+        first.addMethodCall(CLASS_A, METHOD_A, CLASS_B, METHOD_B);
+        first.addMethodCall(CLASS_A, METHOD_A, CLASS_B, METHOD_B);
+        first.markMethodUsage(CLASS_B, METHOD_B, MethodUsageType.CALLED);
+        first.markClassUsedByFramework(CLASS_B);
+        FileFacts other = new FileFacts();
+        other.addClass(CLASS_B);
+        other.registerMethod(CLASS_B, METHOD_B);
+        other.addMethodCall(CLASS_B, METHOD_B, CLASS_B, METHOD_B);
+        other.markMethodUsage(CLASS_B, METHOD_B, MethodUsageType.CALLED);
+        other.markClassUsedByFramework(CLASS_B);
+        FileFacts second = new FileFacts();
+        second.addClass(CLASS_A);
+        second.addDependency(CLASS_A, CLASS_B, "IMPORT");
+        second.registerMethod(CLASS_A, METHOD_A);
+        first.replay(graph);
+        other.replay(graph);
+        graph.compact();
+
+        // When
+        graph.retract(List.of(first));
+        second.replay(graph);
+
+        // Then
+        DependencyGraph fresh = new DependencyGraph();
+        other.replay(fresh);
+        second.replay(fresh);
+        assertEquals(describe(fresh), describe(graph));
+        assertFalse(graph.getAllClasses().contains("com.example.Gone"));
+        assertTrue(graph.isClassUsedByFramework(CLASS_B));
+        assertThrows(IllegalStateException.class, () -> graph.retract(List.of(first)));
+    }
+
+    private static String describe(DependencyGraph graph) {
+        StringBuilder description = new StringBuilder();
+        for (String className : new TreeSet<>(graph.getAllClasses())) {
+            description.append(className).append(' ').append(graph.isClassUsedByFramework(className))
+                    .append(' ').append(graph.getUsedImports(className)).append('\n');
+            for (LabeledEdge edge : graph.getDependencies(className)) {
+                description.append("  -> ").append(graph.getGraph().getEdgeTarget(edge)).append(' ')
+                        .append(edge.getLabel()).append(' ').append(edge.getReferenceCount()).append('\n');
+            }
+        }
+        graph.getAllMethodCalls().stream().map(call -> call + " x" + call.getCount()).sorted()
+                .forEach(call -> description.append(call).append('\n'));
+        graph.getAllMethodUsages().stream().map(usage -> usage + " " + usage.hasUsage(MethodUsageType.CALLED))
+                .sorted().forEach(usage -> description.append(usage).append('\n'));
+        description.append(new TreeSet<>(graph.findUnusedMethods())).append(graph.getBeanNames());
+        return description.toString();
+    }
+}
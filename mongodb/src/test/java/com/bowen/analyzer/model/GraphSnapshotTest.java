@@ -0,0 +1,250 @@
+package com.bowen.analyzer.model;
+
+import com.bowen.analyzer.model.enums.MethodUsageType;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String CLASS_A = "com.example.ClassA";
+    private static final String CLASS_B = "com.example.ClassB";
+    private static final String CLASS_C = "com.example.ClassC";
+
+    @Test
+    void testSnapshotAnswersLikeTheGraph() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addClass(CLASS_C);
+        graph.addDependency(CLASS_C, CLASS_A, "IMPORT");
+        graph.addDependency(CLASS_C, CLASS_B, "REFERENCE");
+        graph.addDependency(CLASS_C, CLASS_B, "REFERENCE");
+        graph.addDependency(CLASS_B, CLASS_A, "IMPORT");
+        graph.markImportAsUsed(CLASS_B, CLASS_A);
+        graph.markClassUsedByTest(CLASS_C);
+        graph.registerMethod(CLASS_A, "load");
+        graph.registerMethod(CLASS_B, "save");
+        graph.addMethodCall(CLASS_C, "run", CLASS_A, "load");
+        graph.addMethodCall(CLASS_B, "save", CLASS_A, "load");
+        graph.addMethodCall(CLASS_C, "run", CLASS_A, "load");
+        graph.markMethodUsage(CLASS_A, "load", MethodUsageType.CALLED);
+
+        GraphSnapshot snapshot = graph.snapshot();
+
+        assertEquals(List.of(CLASS_A, CLASS_B, CLASS_C), new ArrayList<>(snapshot.getAllClasses()));
+        assertEquals(graph.getLabeledDependencies(CLASS_C), snapshot.getLabeledDependencies(CLASS_C));
+        assertEquals(Map.of(CLASS_A, 1, CLASS_B, 2), snapshot.getReferenceCounts(CLASS_C));
+        assertEquals(List.of(CLASS_B, CLASS_C), snapshot.getDependents(CLASS_A));
+        assertFalse(snapshot.hasDependents(CLASS_C));
+        assertEquals(graph.findUnusedClasses(), snapshot.findUnusedClasses());
+        assertEquals(graph.findUnusedMethods(), snapshot.findUnusedMethods());
+        assertEquals(Set.of(CLASS_A), snapshot.getUsedImports(CLASS_B));
+        assertTrue(snapshot.isClassUsedByTest(CLASS_C));
+        assertFalse(snapshot.isClassUsedByFramework("com.example.Unknown"));
+
+        int load = snapshot.findMethod(CLASS_A + ".load");
+        assertEquals(List.of(CLASS_B + ".save", CLASS_C + ".run"), callers(snapshot, load));
+        assertEquals(GraphSnapshot.NOT_FOUND, snapshot.findMethod(CLASS_A, "save"));
+        assertEquals(List.of(CLASS_B + ".save → " + CLASS_A + ".load x1", CLASS_C + ".run → " + CLASS_A + ".load x2"),
+                snapshot.getAllMethodCalls().stream().map(call -> call + " x" + call.getCount()).toList());
+        assertEquals(List.of(CLASS_A + ".load", CLASS_B + ".save"),
+                snapshot.getAllMethodUsages().stream().map(MethodUsage::toString).toList());
+        assertTrue(snapshot.getFootprint() > 0);
+
+        // Later changes to the graph do not show in the snapshot
+        graph.addDependency(CLASS_A, CLASS_C, "REFERENCE");
+        assertNotEquals(snapshot.getModificationCount(), graph.getModificationCount());
+        assertFalse(snapshot.hasDependents(CLASS_C));
+    }
+
+    @Test
+    void testConcurrentQueriesSeeTheSameResults() throws Exception {
+        DependencyGraph graph = new DependencyGraph();
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            String className = "com.example.C" + i;
+            graph.addClass(className);
+            for (int d = 0; d < 4; d++) {
+                graph.addDependency(className, "com.example.C" + random.nextInt(300),
+                        random.nextBoolean() ? "REFERENCE" : "IMPORT");
+            }
+            graph.registerMethod(className, "run");
+            graph.addMethodCall(className, "run", "com.example.C" + random.nextInt(300), "run");
+        }
+        graph.compact();
+        GraphSnapshot snapshot = graph.snapshot();
+        Set<String> unusedClasses = graph.findUnusedClasses();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    for (String className : graph.getAllClasses()) {
+                        if (!graph.getLabeledDependencies(className).equals(snapshot.getLabeledDependencies(className))
+                                || !new HashSet<>(graph.getDependents(className))
+                                        .equals(new HashSet<>(snapshot.getDependents(className)))) {
+                            return false;
+                        }
+                    }
+                    return unusedClasses.equals(snapshot.findUnusedClasses());
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMappedSnapshotAnswersLikeHeapSnapshot() throws Exception {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency("com.example.Über", CLASS_A, "REFERENCE");
+        graph.addDependency(CLASS_B, CLASS_A, "IMPORT");
+        graph.markImportAsUsed(CLASS_B, CLASS_A);
+        graph.markClassUsedByFramework(CLASS_B);
+        graph.registerBeanName(CLASS_B, "bee");
+        graph.registerMethod(CLASS_B, "größe");
+        graph.addMethodCall(CLASS_B, "größe", CLASS_A, "load");
+        graph.markMethodUsage(CLASS_B, "größe", MethodUsageType.FRAMEWORK);
+
+        File file = tempDir.resolve("graph.snapshot").toFile();
+        GraphSnapshot mapped = graph.snapshot(file);
+        GraphSnapshot heap = graph.snapshot();
+
+        assertEquals(file, mapped.getFile());
+        assertNull(heap.getFile());
+        assertEquals(heap.getFootprint(), file.length());
+        assertEquals(new ArrayList<>(heap.getAllClasses()), new ArrayList<>(mapped.getAllClasses()));
+        for (String className : heap.getAllClasses()) {
+            assertEquals(heap.getLabeledDependencies(className), mapped.getLabeledDependencies(className));
+            assertEquals(heap.getDependents(className), mapped.getDependents(className));
+            assertEquals(heap.getUsedImports(className), mapped.getUsedImports(className));
+        }
+        assertEquals(Set.of("com.example.Über"), mapped.findUnusedClasses());
+        assertTrue(mapped.isClassUsedByFramework(CLASS_B));
+        assertEquals(Map.of(CLASS_B, "bee"), mapped.getBeanNames());
+        assertEquals(CLASS_B + ".größe", mapped.getMethodFullName(mapped.findMethod(CLASS_B, "größe")));
+        assertEquals(Set.of(), mapped.findUnusedMethods());
+        assertEquals(heap.getAllMethodCalls().toString(), mapped.getAllMethodCalls().toString());
+    }
+
+    @Test
+    void testWrittenSnapshotIsReadAndMappedBack() throws Exception {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_B, CLASS_A, "REFERENCE");
+        graph.addDependency(CLASS_C, CLASS_A, "IMPORT");
+        graph.markClassUsedByTest(CLASS_C);
+        graph.registerMethod(CLASS_C, "test");
+        graph.addMethodCall(CLASS_C, "test", CLASS_A, "load");
+        graph.markMethodUsage(CLASS_C, "test", MethodUsageType.TEST);
+        GraphSnapshot snapshot = graph.snapshot();
+
+        File file = tempDir.resolve("snapshots/graph.snapshot").toFile();
+        snapshot.write(file);
+
+        for (GraphSnapshot loaded : List.of(GraphSnapshot.read(file), GraphSnapshot.map(file))) {
+            assertEquals(new ArrayList<>(snapshot.getAllClasses()), new ArrayList<>(loaded.getAllClasses()));
+            assertEquals(snapshot.getDependents(CLASS_A), loaded.getDependents(CLASS_A));
+            assertEquals(snapshot.getLabeledDependencies(CLASS_C), loaded.getLabeledDependencies(CLASS_C));
+            assertEquals(snapshot.findUnusedClasses(), loaded.findUnusedClasses());
+            assertEquals(snapshot.getAllMethodCalls().toString(), loaded.getAllMethodCalls().toString());
+            assertTrue(loaded.hasUsage(loaded.findMethod(CLASS_C, "test"), MethodUsageType.TEST));
+        }
+    }
+
+    @Test
+    void testReadRejectsOtherFiles() throws Exception {
+        File file = tempDir.resolve("not-a-snapshot").toFile();
+        Files.write(file.toPath(), new byte[1024]);
+
+        assertThrows(IOException.class, () -> GraphSnapshot.read(file));
+        assertThrows(IOException.class, () -> GraphSnapshot.map(file));
+
+        // A truncated snapshot is rejected as well
+        File snapshotFile = tempDir.resolve("graph.snapshot").toFile();
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        graph.snapshot().write(snapshotFile);
+        byte[] content = Files.readAllBytes(snapshotFile.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length - 8));
+        assertThrows(IOException.class, () -> GraphSnapshot.read(file));
+
+        // So is one whose sections do not fit each other, here with one dependency label too few
+        ByteBuffer header = ByteBuffer.wrap(content.clone());
+        int outLabelsLength = 20 + 8 * 9;
+        header.putInt(outLabelsLength, header.getInt(outLabelsLength) - 1);
+        Files.write(file.toPath(), header.array());
+        assertThrows(IOException.class, () -> GraphSnapshot.map(file));
+    }
+
+    @Test
+    void testFailedWriteLeavesNoTemporaryFile() throws Exception {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        File target = tempDir.resolve("snapshots/graph.snapshot").toFile();
+        target.mkdirs();
+        Files.write(new File(target, "other").toPath(), new byte[1]);
+
+        assertThrows(IOException.class, () -> graph.snapshot().write(target));
+        assertArrayEquals(new String[]{"graph.snapshot"}, target.getParentFile().list());
+    }
+
+    @Test
+    void testMappedSnapshotIsBuiltWithoutAHeapCopy() throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        DependencyGraph graph = new DependencyGraph();
+        Random random = new Random(19);
+        int classes = 20_000;
+        for (int i = 0; i < classes; i++) {
+            String className = "com.example.p" + (i % 50) + ".Class" + i;
+            graph.addClass(className);
+            for (int d = 0; d < 3; d++) {
+                int target = random.nextInt(classes);
+                graph.addDependency(className, "com.example.p" + (target % 50) + ".Class" + target, "REFERENCE");
+            }
+            graph.registerMethod(className, "run");
+            for (int c = 0; c < 2; c++) {
+                int callee = random.nextInt(classes);
+                graph.addMethodCall(className, "run", "com.example.p" + (callee % 50) + ".Class" + callee, "run");
+            }
+        }
+        graph.compact();
+        File file = tempDir.resolve("graph.snapshot").toFile();
+        graph.snapshot(file);
+
+        // Only the numbering and grouping of classes, methods and calls take heap, less than the file
+        long before = threads.getCurrentThreadAllocatedBytes();
+        GraphSnapshot snapshot = graph.snapshot(file);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(classes, snapshot.getVertexCount());
+        assertTrue(allocated < file.length(), allocated + " bytes allocated for a file of " + file.length());
+    }
+
+    private List<String> callers(GraphSnapshot snapshot, int method) {
+        List<String> callers = new ArrayList<>();
+        for (int call = snapshot.callInStart(method); call < snapshot.callInEnd(method); call++) {
+            callers.add(snapshot.getMethodFullName(snapshot.getCaller(call)));
+        }
+        return callers;
+    }
+}
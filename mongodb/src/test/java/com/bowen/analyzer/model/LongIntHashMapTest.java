@@ -0,0 +1,51 @@
+package com.bowen.analyzer.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void testPutIfAbsentKeepsTheFirstValue() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertEquals(LongIntHashMap.NO_VALUE, map.putIfAbsent(LongIntHashMap.pair(1, 2), 7));
+        assertEquals(7, map.putIfAbsent(LongIntHashMap.pair(1, 2), 8));
+
+        assertEquals(7, map.get(LongIntHashMap.pair(1, 2)));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(LongIntHashMap.pair(2, 1)));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testRemovalsKeepTheOtherKeysReachable() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Few distinct keys in a small table make for long probe sequences
+        for (int i = 0; i < 20_000; i++) {
+            long key = LongIntHashMap.pair(random.nextInt(40), random.nextInt(40));
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : LongIntHashMap.NO_VALUE, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int high = 0; high < 40; high++) {
+            for (int low = 0; low < 40; low++) {
+                long key = LongIntHashMap.pair(high, low);
+                assertEquals(expected.getOrDefault(key, LongIntHashMap.NO_VALUE), map.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bowen.analyzer.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodCallIndexTest {
+
+    private static final int MAIN = 0;
+    private static final int LOAD = 1;
+    private static final int SAVE = 2;
+    private static final int LOG = 3;
+
+    @Test
+    void testDuplicateCallsAreCounted() {
+        MethodCallIndex index = new MethodCallIndex();
+
+        int call = index.add(MAIN, LOAD);
+        assertEquals(call, index.add(MAIN, LOAD));
+        index.add(MAIN, SAVE);
+
+        assertEquals(2, index.size());
+        assertEquals(2, index.getCount(call));
+        assertEquals(call, index.find(MAIN, LOAD));
+        assertEquals(MethodCallIndex.NONE, index.find(LOAD, MAIN));
+    }
+
+    @Test
+    void testCallsAreNumberedInOrderOfFirstOccurrence() {
+        MethodCallIndex index = new MethodCallIndex();
+        index.add(MAIN, LOAD);
+        index.add(LOAD, LOG);
+        index.add(MAIN, SAVE, 3);
+        index.add(SAVE, LOG);
+        index.add(MAIN, LOAD);
+
+        assertEquals(List.of(List.of(MAIN, LOAD, 2), List.of(LOAD, LOG, 1), List.of(MAIN, SAVE, 3),
+                List.of(SAVE, LOG, 1)), calls(index));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getCallee(4));
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(MethodCallIndex.NONE, index.find(MAIN, LOAD));
+        assertEquals(0, index.add(SAVE, LOG));
+        assertEquals(List.of(List.of(SAVE, LOG, 1)), calls(index));
+    }
+
+    @Test
+    void testRemovedCallsAreDroppedOnceNoneAreLeft() {
+        MethodCallIndex index = new MethodCallIndex();
+        index.add(MAIN, LOAD, 2);
+        index.add(LOAD, LOG);
+        index.add(MAIN, SAVE);
+
+        index.remove(MAIN, LOAD, 1);
+        assertEquals(List.of(List.of(MAIN, LOAD, 1), List.of(LOAD, LOG, 1), List.of(MAIN, SAVE, 1)), calls(index));
+
+        // The last call takes the number of the dropped one
+        index.remove(MAIN, LOAD, 1);
+        assertEquals(List.of(List.of(MAIN, SAVE, 1), List.of(LOAD, LOG, 1)), calls(index));
+        assertEquals(MethodCallIndex.NONE, index.find(MAIN, LOAD));
+        assertEquals(0, index.find(MAIN, SAVE));
+
+        assertThrows(IllegalArgumentException.class, () -> index.remove(MAIN, LOAD, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.remove(LOAD, LOG, 2));
+        assertEquals(2, index.add(MAIN, LOAD));
+    }
+
+    private List<List<Integer>> calls(MethodCallIndex index) {
+        List<List<Integer>> calls = new ArrayList<>();
+        for (int call = 0; call < index.size(); call++) {
+            calls.add(List.of(index.getCaller(call), index.getCallee(call), index.getCount(call)));
+        }
+        return calls;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bowen.analyzer.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void testClassesGetDenseIdsAndShareTheirNames() {
+        SymbolTable symbols = new SymbolTable();
+
+        int a = symbols.internClass("com.example.A");
+        int b = symbols.internClass("com.example.B");
+
+        assertEquals(0, a);
+        assertEquals(1, b);
+        assertEquals(a, symbols.internClass(new String("com.example.A")));
+        assertSame(symbols.getClassName(a), symbols.getClassName(symbols.internClass(new String("com.example.A"))));
+        assertEquals(SymbolTable.NOT_FOUND, symbols.findClass("com.example.C"));
+        assertEquals(2, symbols.getClassCount());
+    }
+
+    @Test
+    void testMethodsAreIdentifiedByClassAndName() {
+        SymbolTable symbols = new SymbolTable();
+
+        int aRun = symbols.internMethod("com.example.A", "run");
+        int bRun = symbols.internMethod("com.example.B", "run");
+
+        assertNotEquals(aRun, bRun);
+        assertEquals(aRun, symbols.internMethod("com.example.A", "run"));
+        assertEquals(bRun, symbols.findMethod("com.example.B", "run"));
+        assertEquals(SymbolTable.NOT_FOUND, symbols.findMethod("com.example.A", "stop"));
+        assertEquals("com.example.B", symbols.getClassName(symbols.getMethodClass(bRun)));
+        assertEquals("com.example.A.run", symbols.getMethodFullName(aRun));
+    }
+
+    @Test
+    void testManyMethodsSurviveRehashingAndClear() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.internMethod("com.example.C" + (i % 100), "m" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.findMethod("com.example.C" + (i % 100), "m" + i));
+        }
+
+        symbols.clear();
+
+        assertEquals(0, symbols.getMethodCount());
+        assertEquals(SymbolTable.NOT_FOUND, symbols.findMethod("com.example.C0", "m0"));
+        assertEquals(0, symbols.internMethod("com.example.X", "m0"));
+    }
+}
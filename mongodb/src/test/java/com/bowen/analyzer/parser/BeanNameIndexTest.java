@@ -0,0 +1,70 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeanNameIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDefaultAndExplicitNames() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addClass("com.example.web.MemberController");
+        graph.addClass("com.example.admin.MemberController");
+        graph.addClass("com.example.web.RegistrationBean");
+        graph.registerBeanName("com.example.web.RegistrationBean", "signup");
+
+        BeanNameIndex index = BeanNameIndex.build(graph);
+
+        assertEquals(2, index.findClasses("memberController").size());
+        assertEquals(List.of("com.example.web.RegistrationBean"), index.findClasses("signup"));
+        assertTrue(index.findClasses("registrationBean").isEmpty());
+        assertTrue(index.findClasses("unknown").isEmpty());
+    }
+
+    @Test
+    void testXhtmlReferencesResolveNamedBeans() throws IOException {
+        File srcMainJava = tempDir.resolve("src/main/java").toFile();
+        write(srcMainJava.toPath().resolve("com/example/web/RegistrationBean.java"),
+                "package com.example.web;\n"
+                        + "import jakarta.inject.Named;\n"
+                        + "@Named(\"signup\")\n"
+                        + "public class RegistrationBean {\n"
+                        + "    public void submit() { }\n"
+                        + "}\n");
+        write(srcMainJava.toPath().resolve("com/example/web/MemberView.java"),
+                "package com.example.web;\n"
+                        + "public class MemberView {\n"
+                        + "    public String getTitle() { return \"\"; }\n"
+                        + "}\n");
+        File webappDir = tempDir.resolve("src/main/webapp").toFile();
+        write(webappDir.toPath().resolve("index.xhtml"),
+                "<h:form><h:commandButton action=\"#{signup.submit}\"/>"
+                        + "<h:outputText value=\"#{memberView.title}\"/></h:form>");
+
+        DependencyGraph graph = new DependencyGraph();
+        new JavaProjectParser(List.of(srcMainJava), tempDir.toFile()).parseProject(graph);
+        new XhtmlParser(graph, webappDir).parseProject(graph);
+
+        assertEquals("signup", graph.getBeanNames().get("com.example.web.RegistrationBean"));
+        assertTrue(graph.isClassUsedByFramework("com.example.web.RegistrationBean"));
+        assertTrue(graph.isClassUsedByFramework("com.example.web.MemberView"));
+        assertFalse(graph.findUnusedMethods().contains("com.example.web.RegistrationBean.submit"));
+    }
+
+    private void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,67 @@
+package com.bowen.analyzer.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElScannerTest {
+
+    private ElScanner.PageReferences scan(String content) throws IOException {
+        return ElScanner.scan(new StringReader(content));
+    }
+
+    private List<String> members(ElScanner.PageReferences page) {
+        return page.getMemberReferences().stream().map(Object::toString).toList();
+    }
+
+    @Test
+    void testChainsAndMethodArguments() throws IOException {
+        ElScanner.PageReferences page = scan(
+                "<h:commandButton action=\"#{memberController.register}\"/>"
+                        + "<h:outputText value=\"${newMember.address.city}\"/>"
+                        + "<h:commandLink action=\"#{cart.remove(item.id, 'x.y')}\"/>");
+
+        assertEquals(List.of("memberController", "newMember", "cart", "item"),
+                List.copyOf(page.getBeanReferences()));
+        assertEquals(List.of("memberController.register", "newMember.address", "cart.remove", "item.id"),
+                members(page));
+    }
+
+    @Test
+    void testOperatorsLiteralsAndFunctionsAreNotBeans() throws IOException {
+        ElScanner.PageReferences page = scan(
+                "<ui:fragment rendered=\"#{not empty members and fn:length(members) gt 1.5e2}\"/>"
+                        + "#{flag ? 'a}b' : other.name}#{ {1, 2}.size() }");
+
+        assertEquals(List.of("members", "flag", "other"), List.copyOf(page.getBeanReferences()));
+        assertEquals(List.of("other.name"), members(page));
+    }
+
+    @Test
+    void testPageVarsAreCollectedFromAnyPosition() throws IOException {
+        ElScanner.PageReferences page = scan(
+                "<p>#{_member.name}</p><h:dataTable var=\"_member\" value=\"#{members}\">"
+                        + "<ui:repeat var = 'row'/><input variant=\"x\"/></h:dataTable>");
+
+        assertEquals(Set.of("_member", "row"), page.getPageVars());
+        assertTrue(page.getBeanReferences().contains("_member"));
+    }
+
+    @Test
+    void testExpressionsSpanningBufferBoundaries() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            content.append("<td>#{bean").append(i % 7).append(".value").append(i % 3).append("}</td>\n");
+        }
+
+        ElScanner.PageReferences page = scan(content.toString());
+
+        assertEquals(7, page.getBeanReferences().size());
+        assertEquals(21, page.getMemberReferences().size());
+    }
+}
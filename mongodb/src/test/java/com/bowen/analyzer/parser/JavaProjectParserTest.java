@@ -0,0 +1,311 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.cache.FactCache;
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.LabeledEdge;
+import com.bowen.analyzer.model.MethodCall;
+import com.bowen.analyzer.model.MethodUsage;
+import com.bowen.analyzer.model.PartialGraph;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaProjectParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File projectRoot;
+    private List<File> sourceRoots;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        projectRoot = tempDir.toFile();
+        File srcMainJava = new File(projectRoot, "src/main/java");
+        File srcTestJava = new File(projectRoot, "src/test/java");
+        sourceRoots = List.of(srcMainJava, srcTestJava);
+
+        writeSource(srcMainJava, "com/example/model/Item.java",
+                "package com.example.model;\n"
+                        + "public class Item {\n"
+                        + "    private String name;\n"
+                        + "    public String getName() { return name; }\n"
+                        + "}\n");
+        writeSource(srcMainJava, "com/example/service/ItemService.java",
+                "package com.example.service;\n"
+                        + "import com.example.model.Item;\n"
+                        + "import java.util.List;\n"
+                        + "import java.util.ArrayList;\n"
+                        + "public class ItemService {\n"
+                        + "    private final List<Item> items = new ArrayList<>();\n"
+                        + "    public void add(Item item) { items.add(item); }\n"
+                        + "    public String first() { return items.get(0).getName(); }\n"
+                        + "}\n");
+        writeSource(srcMainJava, "com/example/web/ItemController.java",
+                "package com.example.web;\n"
+                        + "import com.example.service.ItemService;\n"
+                        + "import com.example.model.Item;\n"
+                        + "public class ItemController {\n"
+                        + "    private ItemService service = new ItemService();\n"
+                        + "    public void create() { service.add(new Item()); }\n"
+                        + "}\n");
+        writeSource(srcTestJava, "com/example/service/ItemServiceTest.java",
+                "package com.example.service;\n"
+                        + "import com.example.model.Item;\n"
+                        + "public class ItemServiceTest {\n"
+                        + "    public void testAdd() { new ItemService().add(new Item()); }\n"
+                        + "}\n");
+    }
+
+    private void writeSource(File root, String relativePath, String content) throws IOException {
+        Path file = root.toPath().resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private DependencyGraph parse(int threads) throws IOException {
+        DependencyGraph graph = new DependencyGraph();
+        new JavaProjectParser(sourceRoots, projectRoot, threads).parseProject(graph);
+        return graph;
+    }
+
+    @Test
+    void testSequentialParseFindsClassesAndCalls() throws IOException {
+        DependencyGraph graph = parse(1);
+
+        assertTrue(graph.getAllClasses().contains("com.example.model.Item"));
+        assertTrue(graph.getAllClasses().contains("com.example.web.ItemController"));
+        assertTrue(graph.isClassUsedByTest("com.example.service.ItemServiceTest"));
+        assertTrue(graph.getAllMethodCalls().stream().anyMatch(call ->
+                call.getCallerClass().equals("com.example.web.ItemController")
+                        && call.getCalleeClass().equals("com.example.service.ItemService")
+                        && call.getCalleeMethod().equals("add")));
+    }
+
+    @Test
+    void testParallelParseMatchesSequential() throws IOException {
+        DependencyGraph sequential = parse(1);
+        DependencyGraph parallel = parse(4);
+
+        assertEquals(new ArrayList<>(sequential.getAllClasses()), new ArrayList<>(parallel.getAllClasses()));
+        assertEquals(describeEdges(sequential), describeEdges(parallel));
+        assertEquals(describeCalls(sequential), describeCalls(parallel));
+        assertEquals(describeUsages(sequential), describeUsages(parallel));
+        assertEquals(sequential.findUnusedClasses(), parallel.findUnusedClasses());
+        assertEquals(sequential.findUnusedMethods(), parallel.findUnusedMethods());
+    }
+
+    @Test
+    void testCachedParseMatchesFreshParseAfterEdit() throws IOException {
+        File cacheDir = tempDir.resolve("cache").toFile();
+        DependencyGraph first = new DependencyGraph();
+        new JavaProjectParser(sourceRoots, projectRoot, 1, new FactCache(cacheDir)).parseProject(first);
+
+        FactCache warmCache = new FactCache(cacheDir);
+        DependencyGraph second = new DependencyGraph();
+        new JavaProjectParser(sourceRoots, projectRoot, 1, warmCache).parseProject(second);
+        assertEquals(4, warmCache.getHits());
+        assertEquals(0, warmCache.getMisses());
+        assertEquals(describeEdges(first), describeEdges(second));
+
+        // Moving getName out of Item changes how ItemService resolves its call
+        writeSource(new File(projectRoot, "src/main/java"), "com/example/model/Item.java",
+                "package com.example.model;\n"
+                        + "public class Item {\n"
+                        + "    public String label() { return \"\"; }\n"
+                        + "}\n");
+        DependencyGraph incremental = new DependencyGraph();
+        new JavaProjectParser(sourceRoots, projectRoot, 2, new FactCache(cacheDir)).parseProject(incremental);
+
+        DependencyGraph fresh = parse(1);
+        assertEquals(describeEdges(fresh), describeEdges(incremental));
+        assertEquals(describeCalls(fresh), describeCalls(incremental));
+        assertEquals(describeUsages(fresh), describeUsages(incremental));
+    }
+
+    @Test
+    void testCachedParseReparsesFilesThatFailedToResolveAnAddedClass() throws IOException {
+        File srcMainJava = new File(projectRoot, "src/main/java");
+        File cacheDir = tempDir.resolve("cache").toFile();
+        writeSource(srcMainJava, "com/example/web/Report.java",
+                "package com.example.web;\n"
+                        + "import com.example.util.*;\n"
+                        + "public class Report {\n"
+                        + "    private Summary summary;\n"
+                        + "}\n");
+        new JavaProjectParser(sourceRoots, projectRoot, 1, new FactCache(cacheDir)).parseProject(new DependencyGraph());
+
+        // Report's facts do not mention Summary, which did not exist when Report was parsed
+        writeSource(srcMainJava, "com/example/util/Summary.java",
+                "package com.example.util;\n"
+                        + "public class Summary {\n"
+                        + "}\n");
+        FactCache warmCache = new FactCache(cacheDir);
+        DependencyGraph incremental = new DependencyGraph();
+        new JavaProjectParser(sourceRoots, projectRoot, 1, warmCache).parseProject(incremental);
+
+        assertTrue(describeEdges(incremental).contains("com.example.web.Report -> com.example.util.Summary REFERENCE"));
+        assertEquals(describeEdges(parse(1)), describeEdges(incremental));
+        // Summary is new and Report was re-parsed, so neither entry counts as a hit
+        assertEquals(4, warmCache.getHits());
+        assertEquals(2, warmCache.getMisses());
+    }
+
+    @Test
+    void testUpdateMatchesFreshParseAfterChanges() throws IOException {
+        File srcMainJava = new File(projectRoot, "src/main/java");
+        JavaProjectParser parser = new JavaProjectParser(sourceRoots, projectRoot, 2);
+        DependencyGraph updated = new DependencyGraph();
+        parser.parseProject(updated);
+
+        writeSource(srcMainJava, "com/example/model/Item.java",
+                "package com.example.model;\n"
+                        + "public class Item {\n"
+                        + "    public String label() { return \"\"; }\n"
+                        + "}\n");
+        writeSource(srcMainJava, "com/example/model/Tag.java",
+                "package com.example.model;\n"
+                        + "public class Tag {\n"
+                        + "    private Item item;\n"
+                        + "}\n");
+        Path controller = srcMainJava.toPath().resolve("com/example/web/ItemController.java");
+        Files.delete(controller);
+
+        int parsed = parser.update(List.of(
+                srcMainJava.toPath().resolve("com/example/model/Item.java"),
+                srcMainJava.toPath().resolve("com/example/model/Tag.java"),
+                controller), updated);
+
+        // The facts of the changed files are swapped in place, so only the order may differ
+        DependencyGraph fresh = parse(1);
+        assertEquals(sorted(describeEdges(fresh)), sorted(describeEdges(updated)));
+        assertEquals(sorted(describeCalls(fresh)), sorted(describeCalls(updated)));
+        assertEquals(describeUsages(fresh), describeUsages(updated));
+        assertEquals(new TreeSet<>(fresh.getAllClasses()), new TreeSet<>(updated.getAllClasses()));
+        assertEquals(fresh.findUnusedClasses(), updated.findUnusedClasses());
+        // Item and Tag changed; ItemService and ItemServiceTest refer to Item
+        assertEquals(4, parsed);
+    }
+
+    @Test
+    void testNestedClassFactsAreAttributedToInnermostType() throws IOException {
+        writeSource(new File(projectRoot, "src/main/java"), "com/example/web/Outer.java",
+                "package com.example.web;\n"
+                        + "import com.example.model.Item;\n"
+                        + "import com.example.service.ItemService;\n"
+                        + "public class Outer {\n"
+                        + "    private ItemService service;\n"
+                        + "    static class Inner {\n"
+                        + "        private Item item;\n"
+                        + "        public String describe() { return item.getName(); }\n"
+                        + "    }\n"
+                        + "}\n");
+
+        DependencyGraph graph = parse(1);
+
+        assertTrue(describeEdges(graph).contains("com.example.web.Inner -> com.example.model.Item REFERENCE"));
+        assertTrue(describeEdges(graph).contains("com.example.web.Outer -> com.example.service.ItemService REFERENCE"));
+        assertFalse(describeEdges(graph).contains("com.example.web.Inner -> com.example.service.ItemService REFERENCE"));
+        assertTrue(graph.findUnusedMethods().contains("com.example.web.Inner.describe"));
+        assertFalse(graph.findUnusedMethods().contains("com.example.web.Outer.describe"));
+        assertTrue(describeCalls(graph).stream().allMatch(call -> !call.startsWith("com.example.web.Outer.describe")));
+    }
+
+    @Test
+    void testSyntaxOnlyParseMarksHeuristicReferences() throws IOException {
+        DependencyGraph full = parse(1);
+        DependencyGraph heuristic = new DependencyGraph(true);
+        JavaProjectParser parser = new JavaProjectParser(sourceRoots, projectRoot, 2);
+        parser.setSyntaxOnly(true);
+        parser.parseProject(heuristic);
+
+        List<String> edges = describeEdges(heuristic);
+        assertTrue(edges.contains("com.example.service.ItemService -> com.example.model.Item HEURISTIC_REFERENCE"));
+        assertTrue(edges.contains("com.example.web.ItemController -> com.example.service.ItemService HEURISTIC_REFERENCE"));
+        assertTrue(edges.stream().noneMatch(edge -> edge.endsWith(" REFERENCE") || edge.endsWith("UNRESOLVED")));
+        assertEquals(describeEdges(full).stream().map(edge -> edge.replace(" REFERENCE", " HEURISTIC_REFERENCE")).toList(),
+                edges);
+        assertTrue(describeCalls(heuristic).containsAll(describeCalls(full).stream()
+                .filter(call -> call.contains("ItemController")).toList()));
+        assertEquals(full.findUnusedClasses(), heuristic.findUnusedClasses());
+    }
+
+    @Test
+    void testMergedShardsMatchFreshParse() throws IOException {
+        List<File> partials = new ArrayList<>();
+        int files = 0;
+        for (int shard = 2; shard >= 0; shard--) {
+            File file = tempDir.resolve("shard-" + shard + ".partial").toFile();
+            new JavaProjectParser(sourceRoots, projectRoot, 1).parseShard(shard, 3).write(file);
+            partials.add(file);
+            files += PartialGraph.read(file).getEntries().size();
+        }
+        assertEquals(4, files);
+
+        DependencyGraph merged = new DependencyGraph();
+        JavaProjectParser parser = new JavaProjectParser(sourceRoots, projectRoot, 1);
+        parser.mergeShards(partials, merged);
+
+        DependencyGraph fresh = parse(1);
+        assertEquals(describeEdges(fresh), describeEdges(merged));
+        assertEquals(describeCalls(fresh), describeCalls(merged));
+        assertEquals(describeUsages(fresh), describeUsages(merged));
+        assertEquals(fresh.findUnusedClasses(), merged.findUnusedClasses());
+
+        IOException missing = assertThrows(IOException.class, () -> new JavaProjectParser(sourceRoots, projectRoot, 1)
+                .mergeShards(partials.subList(0, 2), new DependencyGraph()));
+        assertTrue(missing.getMessage().contains("missing"));
+
+        // The merge keeps no facts, so the first update parses the whole project
+        assertEquals(4, parser.update(List.of(projectRoot.toPath().resolve("src/main/webapp/index.xhtml")), merged));
+        assertEquals(describeEdges(fresh), describeEdges(merged));
+    }
+
+    @Test
+    void testInvalidThreadCountIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new JavaProjectParser(sourceRoots, projectRoot, 0));
+    }
+
+    private static List<String> sorted(List<String> lines) {
+        List<String> copy = new ArrayList<>(lines);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private List<String> describeEdges(DependencyGraph graph) {
+        List<String> edges = new ArrayList<>();
+        for (String className : graph.getAllClasses()) {
+            for (LabeledEdge edge : graph.getDependencies(className)) {
+                edges.add(className + " -> " + graph.getGraph().getEdgeTarget(edge) + " " + edge.getLabel());
+            }
+        }
+        return edges;
+    }
+
+    private List<String> describeCalls(DependencyGraph graph) {
+        List<String> calls = new ArrayList<>();
+        for (MethodCall call : graph.getAllMethodCalls()) {
+            calls.add(call.toString());
+        }
+        return calls;
+    }
+
+    private Map<String, String> describeUsages(DependencyGraph graph) {
+        Map<String, String> usages = new TreeMap<>();
+        for (MethodUsage usage : graph.getAllMethodUsages()) {
+            usages.put(usage.toString(), usage.hasUsage(MethodUsageType.CALLED)
+                    + "/" + usage.hasUsage(MethodUsageType.FRAMEWORK)
+                    + "/" + usage.hasUsage(MethodUsageType.TEST));
+        }
+        return usages;
+    }
+}
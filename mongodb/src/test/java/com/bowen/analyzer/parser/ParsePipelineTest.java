@@ -0,0 +1,141 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.model.FileFacts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsePipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testResultsAreMergedInDiscoveryOrder() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Path file = tempDir.resolve("File" + i + ".java");
+            Files.writeString(file, "class File" + i + " {}");
+            files.add(file);
+        }
+
+        List<String> merged = new ArrayList<>();
+        List<ParsePipeline.StageMetrics> metrics = new ParsePipeline(3, 4, 2).run(
+                sink -> files.forEach(sink),
+                (path, content) -> {
+                    FileFacts facts = new FileFacts();
+                    facts.addClass(new String(content));
+                    return facts;
+                },
+                (path, facts) -> merged.add(facts.getDeclaredClasses().iterator().next()));
+
+        assertEquals(50, merged.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("class File" + i + " {}", merged.get(i));
+        }
+        assertEquals(4, metrics.size());
+        assertTrue(metrics.stream().allMatch(stage -> stage.getItems() == 50));
+        assertTrue(metrics.stream().allMatch(stage -> stage.getMaxQueueDepth() <= 2));
+    }
+
+    @Test
+    void testUnreadableFilesYieldEmptyFacts() throws IOException {
+        List<FileFacts> merged = new ArrayList<>();
+        new ParsePipeline(1, 1, 1).run(
+                sink -> sink.accept(tempDir.resolve("Missing.java")),
+                (path, content) -> fail("Unreadable files must not be analyzed"),
+                (path, facts) -> merged.add(facts));
+
+        assertEquals(1, merged.size());
+        assertTrue(merged.get(0).getFacts().isEmpty());
+    }
+
+    @Test
+    void testDiscoveryFailureIsReported() {
+        IOException error = assertThrows(IOException.class, () -> new ParsePipeline(2, 2, 4).run(
+                sink -> {
+                    throw new IOException("listing failed");
+                },
+                (path, content) -> new FileFacts(),
+                (path, facts) -> { }));
+        assertEquals("listing failed", error.getMessage());
+    }
+
+    @Test
+    @Timeout(30)
+    void testAnalyzerErrorStopsThePipeline() throws IOException {
+        List<Path> files = writeFiles(20);
+
+        IOException error = assertThrows(IOException.class, () -> new ParsePipeline(2, 3, 2).run(
+                sink -> files.forEach(sink),
+                (path, content) -> {
+                    if (path.equals(files.get(5))) {
+                        throw new StackOverflowError();
+                    }
+                    return new FileFacts();
+                },
+                (path, facts) -> { }));
+        assertInstanceOf(StackOverflowError.class, error.getCause());
+        assertTrue(error.getMessage().contains(files.get(5).toString()));
+    }
+
+    @Test
+    @Timeout(30)
+    void testResultsWaitingForASlowFileAreBounded() throws IOException {
+        List<Path> files = writeFiles(500);
+        CountDownLatch others = new CountDownLatch(files.size() - 1);
+        AtomicInteger analyzed = new AtomicInteger();
+        AtomicInteger mostAhead = new AtomicInteger();
+        List<Path> merged = new ArrayList<>();
+
+        new ParsePipeline(1, 4, 2).run(
+                sink -> files.forEach(sink),
+                (path, content) -> {
+                    if (path.equals(files.get(0))) {
+                        // Gives the other workers time to run ahead as far as they are allowed
+                        try {
+                            others.await(1, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    } else {
+                        others.countDown();
+                    }
+                    mostAhead.accumulateAndGet(analyzed.incrementAndGet(), Math::max);
+                    return new FileFacts();
+                },
+                (path, facts) -> {
+                    merged.add(path);
+                    analyzed.decrementAndGet();
+                });
+
+        assertEquals(files, merged);
+        assertTrue(mostAhead.get() < 100, "results waiting: " + mostAhead.get());
+    }
+
+    @Test
+    void testInvalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ParsePipeline(1, 1, 0));
+    }
+
+    private List<Path> writeFiles(int count) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = tempDir.resolve("File" + i + ".java");
+            Files.writeString(file, "class File" + i + " {}");
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,129 @@
+package com.bowen.analyzer.parser;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.MethodUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XhtmlParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File webappDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        webappDir = tempDir.resolve("webapp").toFile();
+        for (int i = 0; i < 20; i++) {
+            // Every other page uses "item" as a page variable; the others refer to the Item bean
+            String content = i % 2 == 0
+                    ? "<h:dataTable var=\"item\" value=\"#{catalog.items}\">#{item.label}</h:dataTable>"
+                    : "<h:commandButton action=\"#{item.save}\"/><p>#{catalog.page" + i + "}</p>";
+            Path page = webappDir.toPath().resolve("pages/page" + i + ".xhtml");
+            Files.createDirectories(page.getParent());
+            Files.writeString(page, content);
+        }
+    }
+
+    private DependencyGraph parse(int threads) throws IOException {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addClass("com.example.Item");
+        graph.addClass("com.example.Catalog");
+        graph.registerMethod("com.example.Item", "label");
+        XhtmlParser parser = new XhtmlParser(graph, webappDir);
+        parser.setThreads(threads);
+        parser.parseProject(graph);
+        return graph;
+    }
+
+    private Set<String> describeUsages(DependencyGraph graph) {
+        Set<String> usages = new TreeSet<>();
+        for (MethodUsage usage : graph.getAllMethodUsages()) {
+            usages.add(usage.toString());
+        }
+        return usages;
+    }
+
+    @Test
+    void testPageVariablesStayWithinTheirPage() throws IOException {
+        DependencyGraph graph = parse(4);
+
+        assertTrue(graph.isClassUsedByFramework("com.example.Item"));
+        assertTrue(graph.isClassUsedByFramework("com.example.Catalog"));
+        assertFalse(graph.findUnusedMethods().contains("com.example.Item.save"));
+        // "item.label" only appears where "item" is a page variable
+        assertTrue(graph.findUnusedMethods().contains("com.example.Item.label"));
+    }
+
+    @Test
+    void testParallelScanMatchesSequential() throws IOException {
+        DependencyGraph sequential = parse(1);
+        DependencyGraph parallel = parse(4);
+
+        assertEquals(describeUsages(sequential), describeUsages(parallel));
+        assertEquals(sequential.findUnusedMethods(), parallel.findUnusedMethods());
+        assertEquals(sequential.findUnusedClasses(), parallel.findUnusedClasses());
+    }
+
+    @Test
+    void testScannedPagesAreSortedAndIndependentOfTheGraph() throws IOException {
+        XhtmlParser parser = new XhtmlParser(new DependencyGraph(), webappDir);
+        parser.setThreads(3);
+
+        List<XhtmlParser.ScannedPage> pages = parser.scanPages();
+
+        assertEquals(20, pages.size());
+        for (int i = 1; i < pages.size(); i++) {
+            assertTrue(pages.get(i - 1).getPath().compareTo(pages.get(i).getPath()) < 0);
+        }
+        assertTrue(pages.stream().allMatch(page -> page.getReferences() != null));
+    }
+
+    @Test
+    void testParseProjectUpdatesTheGivenGraph() throws IOException {
+        DependencyGraph other = new DependencyGraph();
+        other.addClass("com.example.Item");
+
+        new XhtmlParser(new DependencyGraph(), webappDir).parseProject(other);
+
+        assertTrue(other.isClassUsedByFramework("com.example.Item"));
+    }
+
+    @Test
+    void testRescanReusesUnchangedPages() throws IOException {
+        XhtmlParser parser = new XhtmlParser(new DependencyGraph(), webappDir);
+        parser.setThreads(2);
+        List<XhtmlParser.ScannedPage> pages = parser.scanPages();
+
+        Path changed = webappDir.toPath().resolve("pages/page3.xhtml");
+        Files.writeString(changed, "<p>#{catalog.reload}</p>");
+        Path added = webappDir.toPath().resolve("pages/page99.xhtml");
+        Files.writeString(added, "<p>#{catalog.added}</p>");
+        Files.delete(webappDir.toPath().resolve("pages/page4.xhtml"));
+
+        List<XhtmlParser.ScannedPage> rescanned = parser.rescanPages(pages, List.of(changed, added,
+                webappDir.toPath().resolve("pages/page4.xhtml")));
+
+        assertEquals(20, rescanned.size());
+        for (XhtmlParser.ScannedPage page : rescanned) {
+            String name = page.getPath().getFileName().toString();
+            boolean reused = pages.stream().anyMatch(previous -> previous == page);
+            assertEquals(!name.equals("page3.xhtml") && !name.equals("page99.xhtml"), reused, name);
+        }
+        assertTrue(rescanned.stream().anyMatch(page -> page.getPath().endsWith("page3.xhtml")
+                && page.getReferences().getMemberReferences().stream()
+                .anyMatch(reference -> reference.getMember().equals("reload"))));
+    }
+}
@@ -9,6 +9,7 @@ import org.jgrapht.graph.DefaultDirectedGraph;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -152,4 +153,159 @@ class AnalysisServiceTest {
         // Initially, it should be false as no analysis has been run
         assertFalse(isUsed);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testQueriesFollowChangesToTheGraph() {
+        // Given
+        GraphSnapshot frozen = analysisService.freeze();
+
+        // When
+        analysisService.getGraph().addDependency(CLASS_A, CLASS_B, "REFERENCE");
+
+        // Then
+        assertTrue(frozen.getAllClasses().isEmpty());
+        assertEquals(Map.of(CLASS_B, "REFERENCE"), analysisService.getClassDependencies(CLASS_A));
+        assertEquals(Set.of(CLASS_A), analysisService.getUnusedClasses());
+        assertSame(analysisService.getSnapshot(), analysisService.getSnapshot());
+    }
+
+    @Test
+    void testMethodUsageViewFollowsChangesToTheGraph() {
+        // Given
+        DependencyGraph graph = analysisService.getGraph();
+        graph.registerMethod(CLASS_A, METHOD_A);
+        graph.registerMethod(CLASS_B, METHOD_B);
+        graph.markMethodUsage(CLASS_B, METHOD_B, MethodUsageType.TEST);
+        MethodUsageView usageView = analysisService.getMethodUsageView();
+
+        // Then
+        assertSame(usageView, analysisService.getMethodUsageView());
+        int methodA = usageView.findMethod(CLASS_A + "." + METHOD_A);
+        int methodB = usageView.findMethod(CLASS_B + "." + METHOD_B);
+        assertTrue(usageView.isUnused(methodA));
+        assertEquals(MethodUsageView.mask(MethodUsageType.TEST), usageView.getUsageMask(methodB));
+        assertEquals(Map.of("CALLED", false, "FRAMEWORK", false, "TEST", true),
+                analysisService.getMethodUsageTypes().get(CLASS_B + "." + METHOD_B));
+
+        // When
+        graph.markMethodUsage(CLASS_A, METHOD_A, MethodUsageType.FRAMEWORK);
+
+        // Then
+        MethodUsageView changed = analysisService.getMethodUsageView();
+        assertNotSame(usageView, changed);
+        assertTrue(changed.hasUsage(CLASS_A + "." + METHOD_A, MethodUsageType.FRAMEWORK));
+        assertFalse(usageView.hasUsage(CLASS_A + "." + METHOD_A, MethodUsageType.FRAMEWORK));
+        assertFalse(changed.hasUsage("com.example.Unknown.run", MethodUsageType.FRAMEWORK));
+    }
+
+    @Test
+    void testSavedSnapshotAnswersQueriesWhenLoaded() throws IOException {
+        // Given
+        analysisService.getGraph().addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        analysisService.getGraph().addMethodCall(CLASS_A, METHOD_A, CLASS_B, METHOD_B);
+        File file = new File(projectRoot, "graph.snapshot");
+        analysisService.saveSnapshot(file);
+
+        // When
+        AnalysisService loaded = new AnalysisService(projectRoot, sourceRoots);
+        loaded.loadSnapshot(file, true);
+
+        // Then
+        assertTrue(loaded.getGraph().getAllClasses().isEmpty());
+        assertEquals(Set.of(CLASS_A, CLASS_B), loaded.getAllClasses());
+        assertEquals(Map.of(CLASS_B, "REFERENCE"), loaded.getClassDependencies(CLASS_A));
+        assertEquals(Set.of(CLASS_A), loaded.determineImpactRadius(CLASS_B).keySet());
+        assertEquals(List.of(CLASS_A, CLASS_B), loaded.findImpactPath(CLASS_B, CLASS_A));
+        assertEquals(List.of(), loaded.findImpactPath(CLASS_A, CLASS_B));
+        assertEquals(List.of(CLASS_A + "." + METHOD_A), loaded.findDirectMethodCallers(CLASS_B + "." + METHOD_B));
+    }
+
+    @Test
+    void testGraphRejectsChangesAfterASnapshotWasLoaded() throws IOException {
+        // Given
+        analysisService.getGraph().addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        File file = new File(projectRoot, "graph.snapshot");
+        analysisService.saveSnapshot(file);
+        AnalysisService loaded = new AnalysisService(projectRoot, sourceRoots);
+        GraphSnapshot snapshot = loaded.loadSnapshot(file, false);
+
+        // When
+        DependencyGraph graph = loaded.getGraph();
+        assertTrue(graph.getGraph().vertexSet().isEmpty());
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> graph.addClass("com.example.Other"));
+        assertThrows(IllegalStateException.class, () -> graph.addDependency(CLASS_B, CLASS_A, "REFERENCE"));
+        assertThrows(IllegalStateException.class, loaded::freeze);
+        assertSame(snapshot, loaded.getSnapshot());
+        assertEquals(Set.of(CLASS_A, CLASS_B), loaded.getAllClasses());
+        assertEquals(Map.of(CLASS_B, "REFERENCE"), loaded.getClassDependencies(CLASS_A));
+    }
+
+    @Test
+    void testGraphRejectsChangesAfterASnapshotWasStoredUntilTheNextAnalysis() throws IOException {
+        // Given
+        File packageDir = new File(projectRoot, "src/main/java/com/example");
+        packageDir.mkdirs();
+        Files.writeString(new File(packageDir, "ClassA.java").toPath(),
+                "package com.example;\n\npublic class ClassA {\n    ClassB b;\n}\n");
+        Files.writeString(new File(packageDir, "ClassB.java").toPath(),
+                "package com.example;\n\npublic class ClassB {\n}\n");
+        AnalysisService stored = new AnalysisService(projectRoot, sourceRoots,
+                new AnalysisOptions().setStoreDir(new File(projectRoot, "store")));
+        stored.analyzeProject();
+
+        // When
+        DependencyGraph graph = stored.getGraph();
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> graph.markClassUsedByTest(CLASS_A));
+        assertNotNull(stored.getSnapshot().getFile());
+        assertEquals(Set.of(CLASS_A, CLASS_B), stored.getAllClasses());
+        assertEquals(Set.of(CLASS_B), stored.getClassDependencies(CLASS_A).keySet());
+
+        stored.analyzeProject();
+        assertTrue(graph.isReleased());
+        assertEquals(Set.of(CLASS_A, CLASS_B), stored.getAllClasses());
+    }
+
+    @Test
+    void testRefreshMatchesAFreshAnalysis() throws IOException {
+        // Given
+        Path packageDir = projectRoot.toPath().resolve("src/main/java/com/example");
+        Path page = projectRoot.toPath().resolve("src/main/webapp/index.xhtml");
+        Files.createDirectories(packageDir);
+        Files.createDirectories(page.getParent());
+        Files.writeString(packageDir.resolve("ClassA.java"), "package com.example;\n\npublic class ClassA {\n"
+                + "    ClassB b;\n    public void methodA() { b.methodB(); }\n}\n");
+        Files.writeString(packageDir.resolve("ClassB.java"), "package com.example;\n\npublic class ClassB {\n"
+                + "    public void methodB() {}\n    public void save() {}\n}\n");
+        Files.writeString(page, "<h:commandButton action=\"#{classB.save}\"/>");
+        analysisService.analyzeProject();
+        File file = new File(projectRoot, "graph.snapshot");
+        analysisService.saveSnapshot(file);
+
+        // When
+        Files.writeString(packageDir.resolve("ClassA.java"), "package com.example;\n\npublic class ClassA {\n"
+                + "    public void methodA() {}\n}\n");
+        Files.writeString(page, "<h:commandButton action=\"#{classA.methodA}\"/>");
+        analysisService.refresh(List.of(packageDir.resolve("ClassA.java"), page));
+
+        // Then
+        AnalysisService fresh = new AnalysisService(projectRoot, sourceRoots);
+        fresh.analyzeProject();
+        assertEquals(fresh.getAllClasses(), analysisService.getAllClasses());
+        assertEquals(Map.of(), analysisService.getClassDependencies(CLASS_A));
+        assertEquals(fresh.getUnusedClasses(), analysisService.getUnusedClasses());
+        assertEquals(fresh.getUnusedMethods(), analysisService.getUnusedMethods());
+        assertEquals(fresh.getMethodUsageTypes(), analysisService.getMethodUsageTypes());
+        assertTrue(analysisService.isClassUsedByFramework(CLASS_A));
+        assertFalse(analysisService.isClassUsedByFramework(CLASS_B));
+
+        // A loaded snapshot leaves an empty graph, which the next refresh fills again
+        analysisService.loadSnapshot(file, false);
+        analysisService.refresh(List.of());
+        assertEquals(fresh.getUnusedMethods(), analysisService.getUnusedMethods());
+        assertEquals(fresh.getMethodUsageTypes(), analysisService.getMethodUsageTypes());
+    }
+}
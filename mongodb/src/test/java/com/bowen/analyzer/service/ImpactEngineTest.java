@@ -0,0 +1,132 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImpactEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String CLASS_A = "com.example.ClassA";
+    private static final String CLASS_B = "com.example.ClassB";
+    private static final String CLASS_C = "com.example.ClassC";
+    private static final String CLASS_D = "com.example.ClassD";
+
+    @Test
+    void testAllImpactRadiiMatchTheSearchOfEachClass() {
+        for (int threads : new int[]{1, 4}) {
+            AnalysisService service = new AnalysisService(tempDir.toFile(), List.of(),
+                    new AnalysisOptions().setThreads(threads));
+            DependencyGraph graph = service.getGraph();
+
+            // Layers wide enough to be merged in parallel, with cycles inside and across them
+            Random random = new Random(21);
+            int layers = 6;
+            int width = 400;
+            for (int layer = 0; layer < layers; layer++) {
+                for (int i = 0; i < width; i++) {
+                    String className = "com.example.L" + layer + ".C" + i;
+                    graph.addClass(className);
+                    if (layer + 1 < layers) {
+                        for (int d = 0; d < 2; d++) {
+                            graph.addDependency(className, "com.example.L" + (layer + 1) + ".C" + random.nextInt(width),
+                                    "REFERENCE");
+                        }
+                    }
+                    if (random.nextInt(20) == 0) {
+                        graph.addDependency(className, "com.example.L" + layer + ".C" + random.nextInt(width), "IMPORT");
+                    }
+                    if (layer > 0 && random.nextInt(100) == 0) {
+                        graph.addDependency(className, "com.example.L" + (layer - 1) + ".C" + random.nextInt(width),
+                                "REFERENCE");
+                    }
+                }
+            }
+
+            Map<String, Set<String>> impacts = new HashMap<>();
+            service.determineAllImpactRadii((className, impact) ->
+                    assertNull(impacts.put(className, impact), className + " reported twice"));
+
+            for (String className : service.getAllClasses()) {
+                Set<String> expected = service.determineImpactRadius(className).keySet();
+                Set<String> impact = impacts.getOrDefault(className, Set.of());
+                assertEquals(expected, impact, className);
+                assertEquals(new ArrayList<>(new TreeSet<>(impact)), new ArrayList<>(impact), className);
+            }
+        }
+    }
+
+    @Test
+    void testAllMethodImpactRadiiMatchTheSearchOfEachMethod() {
+        AnalysisService service = new AnalysisService(tempDir.toFile(), List.of());
+        DependencyGraph graph = service.getGraph();
+        Random random = new Random(22);
+        for (int i = 0; i < 300; i++) {
+            String className = "com.example.C" + (i % 40);
+            graph.registerMethod(className, "m" + i);
+            for (int c = 0; c < 2; c++) {
+                int callee = random.nextInt(300);
+                graph.addMethodCall(className, "m" + i, "com.example.C" + (callee % 40), "m" + callee);
+            }
+        }
+        // A recursive method affects itself
+        graph.addMethodCall("com.example.C0", "m0", "com.example.C0", "m0");
+
+        Map<String, Set<String>> impacts = new HashMap<>();
+        service.determineAllMethodImpactRadii((methodName, impact) ->
+                assertNull(impacts.put(methodName, impact), methodName + " reported twice"));
+
+        assertTrue(impacts.get("com.example.C0.m0").contains("com.example.C0.m0"));
+        for (int i = 0; i < 300; i++) {
+            String methodName = "com.example.C" + (i % 40) + ".m" + i;
+            assertEquals(service.determineMethodImpactRadius(methodName).keySet(),
+                    impacts.getOrDefault(methodName, Set.of()), methodName);
+
+            // Callers come in method number order, by class name and then method name
+            int previous = -1;
+            for (String caller : service.findDirectMethodCallers(methodName)) {
+                int number = service.getSnapshot().findMethod(caller);
+                assertTrue(number > previous, methodName + " called by " + caller);
+                previous = number;
+            }
+        }
+    }
+
+    @Test
+    void testEngineSharesSetsWithinCycles() {
+        // D depends on C, C and B on each other, B on A
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_B, CLASS_A, "IMPORT");
+        graph.addDependency(CLASS_C, CLASS_B, "REFERENCE");
+        graph.addDependency(CLASS_B, CLASS_C, "REFERENCE");
+        graph.addDependency(CLASS_D, CLASS_C, "REFERENCE");
+        GraphSnapshot snapshot = graph.snapshot();
+        ImpactEngine engine = ImpactEngine.forClasses(snapshot);
+
+        assertEquals(3, engine.getComponentCount());
+
+        Map<Set<String>, Set<String>> sets = new HashMap<>();
+        engine.forEach(1, (classes, affected) ->
+                sets.put(names(snapshot, classes), names(snapshot, affected)));
+        assertEquals(Map.of(
+                Set.of(CLASS_A), Set.of(CLASS_B, CLASS_C, CLASS_D),
+                Set.of(CLASS_B, CLASS_C), Set.of(CLASS_B, CLASS_C, CLASS_D),
+                Set.of(CLASS_D), Set.of()), sets);
+    }
+
+    private static Set<String> names(GraphSnapshot snapshot, int[] classes) {
+        Set<String> names = new HashSet<>();
+        for (int classNumber : classes) {
+            names.add(snapshot.getClassName(classNumber));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImpactSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String CLASS_A = "com.example.ClassA";
+    private static final String CLASS_B = "com.example.ClassB";
+    private static final String CLASS_C = "com.example.ClassC";
+    private static final String CLASS_D = "com.example.ClassD";
+
+    @Test
+    void testLongChainsDoNotOverflowTheStack() {
+        AnalysisService service = new AnalysisService(tempDir.toFile(), List.of());
+        int length = 200_000;
+        for (int i = 1; i < length; i++) {
+            service.getGraph().addDependency("com.example.C" + i, "com.example.C" + (i - 1), "REFERENCE");
+            service.getGraph().addMethodCall("com.example.C" + i, "run", "com.example.C" + (i - 1), "run");
+        }
+
+        Map<String, List<String>> impact = service.determineImpactRadius("com.example.C0");
+        assertEquals(length - 1, impact.size());
+        assertEquals(List.of("com.example.C2", "com.example.C1", "com.example.C0"), impact.get("com.example.C2"));
+        assertEquals(length - 1, service.determineMethodImpactRadius("com.example.C0.run").size());
+        assertEquals(length, service.findImpactPath("com.example.C0", "com.example.C" + (length - 1)).size());
+    }
+
+    @Test
+    void testPathsAreShortest() {
+        // D depends on A directly and through B and C
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_B, CLASS_A, "REFERENCE");
+        graph.addDependency(CLASS_C, CLASS_B, "REFERENCE");
+        graph.addDependency(CLASS_D, CLASS_C, "REFERENCE");
+        graph.addDependency(CLASS_D, CLASS_A, "IMPORT");
+        GraphSnapshot snapshot = graph.snapshot();
+
+        ImpactSearch search = ImpactSearch.forClass(snapshot, snapshot.findClass(CLASS_A),
+                ImpactSearch.UNLIMITED, ImpactSearch.UNLIMITED);
+
+        assertEquals(3, search.getAffectedCount());
+        assertFalse(search.isTruncated());
+        assertFalse(search.isAffected(snapshot.findClass(CLASS_A)));
+        assertArrayEquals(new int[]{snapshot.findClass(CLASS_D), snapshot.findClass(CLASS_A)},
+                search.getPath(snapshot.findClass(CLASS_D)));
+        assertNull(search.getPath(snapshot.findClass(CLASS_A)));
+    }
+
+    @Test
+    void testLimitsBoundTheSearch() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addDependency(CLASS_B, CLASS_A, "REFERENCE");
+        graph.addDependency(CLASS_C, CLASS_A, "REFERENCE");
+        graph.addDependency(CLASS_D, CLASS_C, "REFERENCE");
+        GraphSnapshot snapshot = graph.snapshot();
+        int classA = snapshot.findClass(CLASS_A);
+
+        ImpactSearch oneHop = ImpactSearch.forClass(snapshot, classA, 1, ImpactSearch.UNLIMITED);
+        assertEquals(2, oneHop.getAffectedCount());
+        assertFalse(oneHop.isAffected(snapshot.findClass(CLASS_D)));
+        assertTrue(oneHop.isTruncated());
+
+        ImpactSearch twoNodes = ImpactSearch.forClass(snapshot, classA, ImpactSearch.UNLIMITED, 2);
+        assertEquals(2, twoNodes.getAffectedCount());
+        assertTrue(twoNodes.isTruncated());
+
+        // Limits that are not reached do not truncate
+        ImpactSearch exact = ImpactSearch.forClass(snapshot, classA, 2, 3);
+        assertEquals(3, exact.getAffectedCount());
+        assertFalse(exact.isTruncated());
+
+        assertEquals(0, ImpactSearch.forClass(snapshot, classA, 0, ImpactSearch.UNLIMITED).getAffectedCount());
+        assertThrows(IllegalArgumentException.class, () -> ImpactSearch.forClass(snapshot, classA, -1, 1));
+    }
+
+    @Test
+    void testPathMapFollowsCyclesBackToTheChangedNode() {
+        AnalysisService service = new AnalysisService(tempDir.toFile(), List.of());
+        service.getGraph().addDependency(CLASS_A, CLASS_B, "REFERENCE");
+        service.getGraph().addDependency(CLASS_B, CLASS_A, "REFERENCE");
+        service.getGraph().addMethodCall(CLASS_A, "run", CLASS_A, "run");
+
+        Map<String, List<String>> impact = service.determineImpactRadius(CLASS_A);
+        assertEquals(Map.of(CLASS_B, List.of(CLASS_B, CLASS_A), CLASS_A, List.of(CLASS_A, CLASS_B, CLASS_A)), impact);
+        assertNull(impact.get(CLASS_C));
+        assertEquals(Map.of(CLASS_A + ".run", List.of(CLASS_A + ".run", CLASS_A + ".run")),
+                service.determineMethodImpactRadius(CLASS_A + ".run"));
+        assertTrue(service.determineImpactRadius("com.example.Unknown").isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package com.bowen.analyzer.service;
+
+import com.bowen.analyzer.model.DependencyGraph;
+import com.bowen.analyzer.model.GraphSnapshot;
+import com.bowen.analyzer.model.enums.MethodUsageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityAnalysisTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String RESOURCE = "com.example.Resource";
+    private static final String SERVICE = "com.example.Service";
+    private static final String REPOSITORY = "com.example.Repository";
+    private static final String IMPORTED = "com.example.Imported";
+    private static final String APP = "com.example.App";
+    private static final String HELPER = "com.example.Helper";
+    private static final String DEAD_A = "com.example.DeadA";
+    private static final String DEAD_B = "com.example.DeadB";
+
+    @Test
+    void testClustersOnlyUsingEachOtherAreUnreachable() {
+        DependencyGraph graph = new DependencyGraph();
+        // Entry point used by the framework, using a service that uses a repository
+        graph.markClassUsedByFramework(RESOURCE);
+        graph.addDependency(RESOURCE, SERVICE, "REFERENCE");
+        graph.addDependency(SERVICE, REPOSITORY, "IMPORT");
+        graph.markImportAsUsed(SERVICE, REPOSITORY);
+        // An import alone does not make a class used
+        graph.addDependency(REPOSITORY, IMPORTED, "IMPORT");
+        // Two classes using only each other
+        graph.addDependency(DEAD_A, DEAD_B, "REFERENCE");
+        graph.addDependency(DEAD_B, DEAD_A, "REFERENCE");
+
+        // A main method calling a helper, and methods of the dead classes calling each other
+        graph.registerMethod(APP, "main");
+        graph.registerMethod(HELPER, "help");
+        graph.registerMethod(DEAD_A, "run");
+        graph.registerMethod(DEAD_B, "loop");
+        graph.addMethodCall(APP, "main", HELPER, "help");
+        graph.addMethodCall(DEAD_B, "loop", DEAD_A, "run");
+        graph.markMethodUsage(DEAD_A, "run", MethodUsageType.CALLED);
+        graph.addMethodCall(DEAD_A, "run", DEAD_B, "loop");
+        graph.markMethodUsage(DEAD_B, "loop", MethodUsageType.CALLED);
+        for (String className : List.of(RESOURCE, SERVICE, REPOSITORY, IMPORTED, DEAD_A, DEAD_B, APP, HELPER)) {
+            graph.addClass(className);
+        }
+
+        GraphSnapshot snapshot = graph.snapshot();
+        ReachabilityAnalysis analysis = ReachabilityAnalysis.run(snapshot);
+
+        // The cluster is used as far as incoming edges and usage flags go
+        assertFalse(snapshot.findUnusedClasses().contains(DEAD_A));
+        assertFalse(snapshot.findUnusedMethods().contains(DEAD_A + ".run"));
+
+        assertEquals(Set.of(IMPORTED, DEAD_A, DEAD_B), analysis.findUnreachableClasses());
+        assertEquals(Set.of(DEAD_A + ".run", DEAD_B + ".loop"), analysis.findUnreachableMethods());
+        assertTrue(analysis.isClassReachable(snapshot.findClass(HELPER)));
+        assertTrue(analysis.isMethodReachable(snapshot.findMethod(HELPER, "help")));
+        assertFalse(analysis.isMethodReachable(snapshot.findMethod(DEAD_A, "run")));
+    }
+
+    @Test
+    void testTestsAndFrameworkMethodsAreEntryPoints() {
+        AnalysisService service = new AnalysisService(tempDir.toFile(), List.of());
+        DependencyGraph graph = service.getGraph();
+        graph.registerMethod(SERVICE, "onEvent");
+        graph.markMethodUsedByFramework(SERVICE, "onEvent");
+        graph.markMethodUsage(SERVICE, "onEvent", MethodUsageType.FRAMEWORK);
+        graph.addMethodCall(SERVICE, "onEvent", REPOSITORY, "save");
+        graph.addDependency(SERVICE, REPOSITORY, "REFERENCE");
+        graph.addDependency(HELPER, REPOSITORY, "REFERENCE");
+        graph.addClass(SERVICE);
+        graph.addClass(REPOSITORY);
+        graph.addClass(HELPER);
+
+        assertEquals(Set.of(HELPER), service.getUnreachableClasses());
+        assertEquals(Set.of(), service.getUnreachableMethods());
+        ReachabilityAnalysis analysis = service.getReachability();
+        assertSame(analysis, service.getReachability());
+
+        // Test classes reach what they use once the graph changes
+        graph.markClassUsedByTest(HELPER);
+        assertNotSame(analysis, service.getReachability());
+        assertEquals(Set.of(), service.getUnreachableClasses());
+    }
+
+    @Test
+    void testReferencesToUndeclaredClassesAreNotReported() {
+        AnalysisService service = new AnalysisService(tempDir.toFile(), List.of());
+        DependencyGraph graph = service.getGraph();
+        // A cycle of classes only using each other, also naming types that are not declared:
+        // a library class and a name that could not be resolved, guessed to be in their package
+        String library = "jakarta.persistence.EntityManager";
+        String unresolved = "com.example.dead.Response";
+        graph.addClass(DEAD_A);
+        graph.addClass(DEAD_B);
+        graph.addDependency(DEAD_A, DEAD_B, "REFERENCE");
+        graph.addDependency(DEAD_B, DEAD_A, "REFERENCE");
+        graph.addDependency(DEAD_A, library, "IMPORT");
+        graph.addDependency(DEAD_B, unresolved, "IMPORT");
+
+        // Only imported, so the unused classes still list them, but they are not code to reach
+        assertEquals(Set.of(library, unresolved), service.getUnusedClasses());
+        assertEquals(Set.of(DEAD_A, DEAD_B), service.getUnreachableClasses());
+
+        // The snapshot keeps which classes are declared
+        GraphSnapshot snapshot = service.getSnapshot();
+        assertTrue(snapshot.isDeclared(snapshot.findClass(DEAD_A)));
+        assertFalse(snapshot.isDeclared(snapshot.findClass(unresolved)));
+    }
+
+    @Test
+    void testLongChainsAreMarkedWithoutRecursion() {
+        DependencyGraph graph = new DependencyGraph();
+        int length = 200_000;
+        graph.markClassUsedByFramework("com.example.C0");
+        for (int i = 1; i < length; i++) {
+            graph.addDependency("com.example.C" + (i - 1), "com.example.C" + i, "REFERENCE");
+        }
+        graph.addClass(DEAD_A);
+
+        ReachabilityAnalysis analysis = ReachabilityAnalysis.run(graph.snapshot());
+
+        assertEquals(Set.of(DEAD_A), analysis.findUnreachableClasses());
+        assertEquals(length, analysis.getReachableClassCount());
+    }
+}
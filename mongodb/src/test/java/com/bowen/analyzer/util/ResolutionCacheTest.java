@@ -0,0 +1,89 @@
+package com.bowen.analyzer.util;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutionCacheTest {
+
+    private JavaParser parser;
+    private ResolutionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        parser = new JavaParser(new ParserConfiguration()
+                .setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver())));
+        cache = new ResolutionCache();
+    }
+
+    @Test
+    void testJdkTypesUseFastPath() {
+        TypeScope scope = scopeOf("import java.util.List; class A { List<String> names; }");
+
+        ResolutionCache.TypeResolution resolution = cache.resolve(fieldType(scope), scope);
+
+        assertTrue(resolution.isReference());
+        assertEquals("java.util.List", resolution.getQualifiedName());
+        assertEquals(1, cache.getFastPathHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testUnresolvedTypesAreCachedPerScope() {
+        TypeScope first = scopeOf("import com.example.Missing; class A { Missing value; }");
+        TypeScope second = scopeOf("import com.example.Missing; class A { Missing other; }");
+
+        ResolutionCache.TypeResolution resolution = cache.resolve(fieldType(first), first);
+        ResolutionCache.TypeResolution again = cache.resolve(fieldType(second), second);
+
+        assertTrue(resolution.isUnresolved());
+        assertSame(resolution, again);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getNegativeHits());
+    }
+
+    @Test
+    void testDifferentImportsDoNotShareEntries() {
+        TypeScope first = scopeOf("import com.example.Missing; class A { Missing value; }");
+        TypeScope second = scopeOf("import com.other.Missing; class A { Missing value; }");
+
+        cache.resolve(fieldType(first), first);
+        cache.resolve(fieldType(second), second);
+
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testSameFileTypeShadowsJdkType() {
+        TypeScope scope = scopeOf("class A { String value; } class String {}");
+
+        ResolutionCache.TypeResolution resolution = cache.resolve(fieldType(scope), scope);
+
+        assertEquals(0, cache.getFastPathHits());
+        assertEquals("String", resolution.getQualifiedName());
+    }
+
+    private TypeScope scopeOf(String source) {
+        CompilationUnit cu = parser.parse(source).getResult().orElseThrow();
+        ClassOrInterfaceDeclaration declaration = cu.getClassByName("A").orElseThrow();
+        TypeScope scope = new TypeScope(new SourceContext(cu, cache), "A", declaration);
+        scope.getFields().addAll(declaration.getFields());
+        return scope;
+    }
+
+    private static ClassOrInterfaceType fieldType(TypeScope scope) {
+        FieldDeclaration field = scope.getFields().get(0);
+        return field.getVariable(0).getType().asClassOrInterfaceType();
+    }
+}